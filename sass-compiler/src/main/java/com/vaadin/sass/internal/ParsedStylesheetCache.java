@@ -0,0 +1,149 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.sass.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vaadin.sass.internal.resolver.CacheableInputSource;
+import com.vaadin.sass.internal.tree.Node;
+
+/**
+ * Cache of parsed stylesheets, so that a stylesheet (usually a partial) that
+ * is imported by many stylesheets, or by a stylesheet that is compiled again,
+ * is only parsed once. Stylesheets are cached by the URI and modification time
+ * of the {@link CacheableInputSource} their resolver returned, so a changed
+ * stylesheet is parsed again.
+ * 
+ * Traversal changes the node tree, so the cache keeps a copy of the parsed
+ * nodes that is never traversed, and hands out new copies of it.
+ */
+public class ParsedStylesheetCache {
+    private static final ParsedStylesheetCache INSTANCE = new ParsedStylesheetCache(
+            512);
+
+    private static class Entry {
+        private final long lastModified;
+
+        private final String charset;
+
+        private final List<Node> children;
+
+        Entry(long lastModified, String charset, List<Node> children) {
+            this.lastModified = lastModified;
+            this.charset = charset;
+            this.children = children;
+        }
+    }
+
+    private final Map<String, Entry> map;
+
+    private boolean enabled = true;
+
+    private int hits;
+
+    private int misses;
+
+    public ParsedStylesheetCache(final int maxEntries) {
+        map = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static ParsedStylesheetCache get() {
+        return INSTANCE;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            map.clear();
+        }
+    }
+
+    /**
+     * Fill the stylesheet with a copy of the cached nodes for the source, and
+     * return true. Returns false if the source is not cached or has changed
+     * since it was cached.
+     */
+    public boolean load(ScssStylesheet stylesheet, CacheableInputSource source) {
+        Entry entry;
+        synchronized (this) {
+            entry = enabled ? map.get(getKey(source.getURI(),
+                    source.getEncoding())) : null;
+            if (entry == null || entry.lastModified != source.getLastModified()) {
+                misses++;
+                return false;
+            }
+            hits++;
+        }
+
+        // The cached nodes are never changed, so they can be copied outside the lock
+        for (Node node : entry.children) {
+            stylesheet.appendChild(node.copy());
+        }
+        stylesheet.setCharset(entry.charset);
+        return true;
+    }
+
+    /**
+     * Cache a copy of the nodes of a freshly parsed stylesheet. The encoding
+     * is the one the source had before it was parsed, as the parser replaces
+     * it by the encoding it detected.
+     */
+    public void store(ScssStylesheet stylesheet, CacheableInputSource source,
+            String encoding) {
+        if (!isEnabled()) {
+            return;
+        }
+        List<Node> children = new ArrayList<Node>();
+        for (Node node : stylesheet.getChildren()) {
+            children.add(node.copy());
+        }
+        Entry entry = new Entry(source.getLastModified(),
+                stylesheet.getCharset(), children);
+        synchronized (this) {
+            map.put(getKey(source.getURI(), encoding), entry);
+        }
+    }
+
+    private static String getKey(String uri, String encoding) {
+        return uri + "|" + encoding;
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+}
@@ -30,6 +30,8 @@ import java.util.logging.Logger;
 
 import com.yahoo.platform.yui.compressor.CssCompressor;
 import org.w3c.css.sac.CSSException;
+import org.w3c.css.sac.CSSParseException;
+import org.w3c.css.sac.ErrorHandler;
 import org.w3c.css.sac.InputSource;
 
 import com.vaadin.sass.internal.handler.SCSSDocumentHandler;
@@ -38,6 +40,7 @@ import com.vaadin.sass.internal.handler.SCSSErrorHandler;
 import com.vaadin.sass.internal.parser.ParseException;
 import com.vaadin.sass.internal.parser.Parser;
 import com.vaadin.sass.internal.parser.SCSSParseException;
+import com.vaadin.sass.internal.resolver.CacheableInputSource;
 import com.vaadin.sass.internal.resolver.ClassloaderResolver;
 import com.vaadin.sass.internal.resolver.FilesystemResolver;
 import com.vaadin.sass.internal.resolver.ScssStylesheetResolver;
@@ -164,8 +167,19 @@ public class ScssStylesheet extends Node {
         if (parentStylesheet != null) {
             source.setEncoding(parentStylesheet.getCharset());
         }
+        CacheableInputSource cacheable = source instanceof CacheableInputSource ? (CacheableInputSource) source
+                : null;
+        if (cacheable != null
+                && ParsedStylesheetCache.get().load(stylesheet, cacheable)) {
+            closeQuietly(source);
+            stylesheet.sourceUris.add(source.getURI());
+            return stylesheet;
+        }
+        String encoding = source.getEncoding();
         Parser parser = new Parser();
-        parser.setErrorHandler(errorHandler);
+        ReportingErrorHandler reportingHandler = new ReportingErrorHandler(
+                errorHandler);
+        parser.setErrorHandler(reportingHandler);
         parser.setDocumentHandler(documentHandler);
 
         try {
@@ -178,10 +192,63 @@ public class ScssStylesheet extends Node {
 
         stylesheet.setCharset(parser.getInputSource().getEncoding());
         stylesheet.sourceUris.add(source.getURI());
+        if (cacheable != null && !reportingHandler.reported) {
+            // Only cache error-free stylesheets so that errors are reported every time
+            ParsedStylesheetCache.get().store(stylesheet, cacheable,
+                    encoding);
+        }
 
         return stylesheet;
     }
 
+    /**
+     * Passes parser messages on, and remembers whether there were any.
+     */
+    private static class ReportingErrorHandler implements ErrorHandler {
+        private final ErrorHandler delegate;
+
+        private boolean reported;
+
+        ReportingErrorHandler(ErrorHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void warning(CSSParseException exception) throws CSSException {
+            reported = true;
+            delegate.warning(exception);
+        }
+
+        @Override
+        public void error(CSSParseException exception) throws CSSException {
+            reported = true;
+            delegate.error(exception);
+        }
+
+        @Override
+        public void fatalError(CSSParseException exception)
+                throws CSSException {
+            reported = true;
+            delegate.fatalError(exception);
+        }
+    }
+
+    /**
+     * Close the streams of a source that does not need to be parsed.
+     */
+    private static void closeQuietly(InputSource source) {
+        try {
+            if (source.getCharacterStream() != null) {
+                source.getCharacterStream().close();
+            }
+            if (source.getByteStream() != null) {
+                source.getByteStream().close();
+            }
+        } catch (IOException e) {
+            // Nothing was read from it, so nothing was lost
+        }
+    }
+
     public InputSource resolveStylesheet(String identifier,
             ScssStylesheet parentStylesheet) {
         for (ScssStylesheetResolver resolver : getResolvers()) {
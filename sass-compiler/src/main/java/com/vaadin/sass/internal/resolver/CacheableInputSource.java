@@ -0,0 +1,40 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.sass.internal.resolver;
+
+import org.w3c.css.sac.InputSource;
+
+/**
+ * An input source for a stylesheet whose contents only change when its last
+ * modification time changes. Resolvers return this for stylesheets that can
+ * be read from the {@link com.vaadin.sass.internal.ParsedStylesheetCache}
+ * instead of being parsed again.
+ */
+public class CacheableInputSource extends InputSource {
+    private final long lastModified;
+
+    public CacheableInputSource(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * The modification time of the stylesheet; the cached parse result is
+     * only used while this does not change.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.vaadin.sass.internal.resolver;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
@@ -61,8 +62,9 @@ public class FilesystemResolver extends AbstractResolver {
         }
 
         try {
-            InputStream is = new FileInputStream(fileName);
-            InputSource source = new InputSource();
+            File file = new File(fileName);
+            InputStream is = new FileInputStream(file);
+            InputSource source = new CacheableInputSource(file.lastModified());
             source.setByteStream(is);
             source.setURI(fileName);
             return source;
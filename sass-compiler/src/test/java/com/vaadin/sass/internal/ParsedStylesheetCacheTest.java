@@ -0,0 +1,91 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.sass.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParsedStylesheetCacheTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("sasscache", "");
+        dir.delete();
+        dir.mkdirs();
+        ParsedStylesheetCache.get().clear();
+    }
+
+    @After
+    public void tearDown() {
+        for (File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testCachedCompileGivesSameResult() throws Exception {
+        write("_colors.scss", "$main: #123456;\n");
+        File main = write("main.scss",
+                "@import \"colors\";\n@mixin box($w) { width: $w; }\n.a { color: $main; @include box(10px); }\n");
+
+        String first = compile(main);
+        int misses = ParsedStylesheetCache.get().getMisses();
+        String second = compile(main);
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(misses, ParsedStylesheetCache.get().getMisses());
+        Assert.assertTrue(ParsedStylesheetCache.get().getHits() >= 2);
+    }
+
+    @Test
+    public void testModifiedPartialIsParsedAgain() throws Exception {
+        File partial = write("_colors.scss", "$main: #123456;\n");
+        File main = write("main.scss",
+                "@import \"colors\";\n.a { color: $main; }\n");
+        Assert.assertTrue(compile(main).contains("#123456"));
+
+        write("_colors.scss", "$main: #654321;\n");
+        partial.setLastModified(partial.lastModified() + 2000);
+        Assert.assertTrue(compile(main).contains("#654321"));
+    }
+
+    private String compile(File file) throws Exception {
+        ScssStylesheet scss = ScssStylesheet.get(file.getAbsolutePath());
+        scss.compile();
+        return scss.printState();
+    }
+
+    private File write(String name, String content) throws IOException {
+        File f = new File(dir, name);
+        Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8");
+        try {
+            w.write(content);
+        } finally {
+            w.close();
+        }
+        return f;
+    }
+}
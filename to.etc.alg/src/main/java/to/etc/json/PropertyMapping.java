@@ -2,6 +2,10 @@ package to.etc.json;
 
 import java.lang.reflect.*;
 
+import javax.annotation.*;
+
+import to.etc.util.*;
+
 public class PropertyMapping {
 	final private Method m_getter;
 
@@ -11,6 +15,9 @@ public class PropertyMapping {
 
 	final private ITypeMapping m_mapper;
 
+	@Nullable
+	private volatile IPropertyInvoker m_invoker;
+
 	public PropertyMapping(Method getter, Method setter, String name, ITypeMapping mapper) {
 		m_getter = getter;
 		m_setter = setter;
@@ -30,6 +37,17 @@ public class PropertyMapping {
 		return m_setter;
 	}
 
+	/**
+	 * Return the invoker to call the getter and setter with.
+	 */
+	@Nonnull
+	public IPropertyInvoker getInvoker() {
+		IPropertyInvoker invoker = m_invoker;
+		if(null == invoker)
+			m_invoker = invoker = PropertyInvokers.create(m_getter, m_setter);
+		return invoker;
+	}
+
 	public ITypeMapping getMapper() {
 		return m_mapper;
 	}
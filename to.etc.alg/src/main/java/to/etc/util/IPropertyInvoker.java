@@ -0,0 +1,21 @@
+package to.etc.util;
+
+import javax.annotation.*;
+
+/**
+ * Calls the getter and setter of a single property. Implementations behave like {@link java.lang.reflect.Method#invoke(Object, Object...)}:
+ * they throw NullPointerException for a null instance, IllegalArgumentException when the instance or value has the
+ * wrong type, and wrap any exception thrown by the getter or setter itself in an {@link java.lang.reflect.InvocationTargetException}.
+ * Instances are created by an {@link IPropertyInvokerFactory}, see {@link PropertyInvokers}.
+ *
+ * Created on Oct 18, 2026
+ */
+public interface IPropertyInvoker {
+	@Nullable
+	Object getValue(@Nonnull Object instance) throws Exception;
+
+	/**
+	 * Set the value. Throws IllegalAccessException if the property has no setter.
+	 */
+	void setValue(@Nonnull Object instance, @Nullable Object value) throws Exception;
+}
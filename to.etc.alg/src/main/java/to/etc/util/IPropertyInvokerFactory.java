@@ -0,0 +1,15 @@
+package to.etc.util;
+
+import java.lang.reflect.*;
+
+import javax.annotation.*;
+
+/**
+ * Strategy to create the {@link IPropertyInvoker} for a property's getter and setter.
+ *
+ * Created on Oct 18, 2026
+ */
+public interface IPropertyInvokerFactory {
+	@Nonnull
+	IPropertyInvoker createInvoker(@Nonnull Method getter, @Nullable Method setter);
+}
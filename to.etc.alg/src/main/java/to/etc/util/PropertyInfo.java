@@ -44,6 +44,10 @@ final public class PropertyInfo implements IPropertyAccessor {
 
 	final private Method	m_setter;
 
+	/** Calls the getter and setter, created when first needed. */
+	@Nullable
+	private volatile IPropertyInvoker m_invoker;
+
 	public PropertyInfo(String name, Method getter, Method setter) {
 		if(getter == null || name == null)
 			throw new IllegalStateException("Name or getter null not allowed");
@@ -67,6 +71,17 @@ final public class PropertyInfo implements IPropertyAccessor {
 		return m_setter;
 	}
 
+	/**
+	 * Return the invoker to call the getter and setter with, created by the current {@link PropertyInvokers} strategy.
+	 */
+	@Nonnull
+	public IPropertyInvoker getInvoker() {
+		IPropertyInvoker invoker = m_invoker;
+		if(null == invoker)
+			m_invoker = invoker = PropertyInvokers.create(m_getter, m_setter);
+		return invoker;
+	}
+
 	@Nonnull
 	public Class< ? > getActualType() {
 		return m_getter.getReturnType();
@@ -109,7 +124,7 @@ final public class PropertyInfo implements IPropertyAccessor {
 		if(null == m_getter)
 			throw new IllegalAccessException("The property " + this + " does not have a getter method - it is writeonly");
 		try {
-			return m_getter.invoke(instance);
+			return getInvoker().getValue(instance);
 		} catch(InvocationTargetException xte) {
 			throw WrappedException.unwrap(xte);
 		}
@@ -119,7 +134,7 @@ final public class PropertyInfo implements IPropertyAccessor {
 		if(null == m_setter)
 			throw new IllegalAccessException("The property " + this + " does not have a getter method - it is writeonly");
 		try {
-			m_setter.invoke(instance, value);
+			getInvoker().setValue(instance, value);
 		} catch(InvocationTargetException xte) {
 			throw WrappedException.unwrap(xte);
 		}
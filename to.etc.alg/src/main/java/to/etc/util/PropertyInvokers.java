@@ -0,0 +1,333 @@
+package to.etc.util;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.util.function.*;
+
+import javax.annotation.*;
+
+/**
+ * The strategies to call property getters and setters, and the one currently used by the
+ * property metadata and the JSON mapper.
+ * <ul>
+ *	<li>{@link #REFLECTION}: uses Method.invoke().</li>
+ *	<li>{@link #METHOD_HANDLE}: uses MethodHandles for the getter and setter. This is the default.</li>
+ *	<li>{@link #GENERATED}: uses LambdaMetafactory to generate a class that calls the getter and setter directly.
+ *		The JIT can inline these at call sites that see only a few properties, but at call sites that access
+ *		many different properties (like a model copier) the interface dispatch makes them slower than method
+ *		handles.</li>
+ * </ul>
+ * When a strategy cannot be used for some method (for instance because its class is not public, or
+ * because it is not visible from this class' classloader) the next simpler strategy is used for it.
+ *
+ * Created on Oct 18, 2026
+ */
+final public class PropertyInvokers {
+	static public final IPropertyInvokerFactory REFLECTION = ReflectionInvoker::new;
+
+	static public final IPropertyInvokerFactory METHOD_HANDLE = PropertyInvokers::createMethodHandleInvoker;
+
+	static public final IPropertyInvokerFactory GENERATED = PropertyInvokers::createGeneratedInvoker;
+
+	@Nonnull
+	static private volatile IPropertyInvokerFactory m_factory = METHOD_HANDLE;
+
+	private PropertyInvokers() {}
+
+	@Nonnull
+	static public IPropertyInvokerFactory getFactory() {
+		return m_factory;
+	}
+
+	/**
+	 * Set the strategy used for all properties whose invoker is created after this call.
+	 */
+	static public void setFactory(@Nonnull IPropertyInvokerFactory factory) {
+		m_factory = factory;
+	}
+
+	@Nonnull
+	static public IPropertyInvoker create(@Nonnull Method getter, @Nullable Method setter) {
+		return m_factory.createInvoker(getter, setter);
+	}
+
+	@Nonnull
+	static private IPropertyInvoker createMethodHandleInvoker(@Nonnull Method getter, @Nullable Method setter) {
+		try {
+			return new MethodHandleInvoker(getter, setter);
+		} catch(IllegalAccessException | SecurityException x) {
+			return new ReflectionInvoker(getter, setter);
+		}
+	}
+
+	@Nonnull
+	static private IPropertyInvoker createGeneratedInvoker(@Nonnull Method getter, @Nullable Method setter) {
+		if(!isLinkable(getter) || (setter != null && !isLinkable(setter)))
+			return createMethodHandleInvoker(getter, setter);
+		try {
+			return new GeneratedInvoker(getter, setter);
+		} catch(Throwable x) {
+			return createMethodHandleInvoker(getter, setter);
+		}
+	}
+
+	/**
+	 * A generated class can only call the method if the method and all classes around it are public, and
+	 * when the class can be resolved from our classloader (the generated class is hosted by this class).
+	 */
+	static private boolean isLinkable(@Nonnull Method m) {
+		if(!Modifier.isPublic(m.getModifiers()))
+			return false;
+		for(Class< ? > c = m.getDeclaringClass(); c != null; c = c.getEnclosingClass()) {
+			if(!Modifier.isPublic(c.getModifiers()))
+				return false;
+		}
+		return isVisible(m.getDeclaringClass()) && isVisible(m.getReturnType()) && (m.getParameterCount() == 0 || isVisible(m.getParameterTypes()[0]));
+	}
+
+	static private boolean isVisible(@Nonnull Class< ? > clz) {
+		while(clz.isArray())
+			clz = clz.getComponentType();
+		if(clz.isPrimitive())
+			return true;
+		try {
+			return Class.forName(clz.getName(), false, PropertyInvokers.class.getClassLoader()) == clz;
+		} catch(ClassNotFoundException | LinkageError x) {
+			return false;
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Invoker implementations.							*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Plain reflection.
+	 */
+	static private final class ReflectionInvoker implements IPropertyInvoker {
+		@Nonnull
+		private final Method m_getter;
+
+		@Nullable
+		private final Method m_setter;
+
+		ReflectionInvoker(@Nonnull Method getter, @Nullable Method setter) {
+			m_getter = getter;
+			m_setter = setter;
+			trySetAccessible(getter);
+			if(null != setter)
+				trySetAccessible(setter);
+		}
+
+		@Override
+		public Object getValue(@Nonnull Object instance) throws Exception {
+			return m_getter.invoke(instance);
+		}
+
+		@Override
+		public void setValue(@Nonnull Object instance, @Nullable Object value) throws Exception {
+			Method setter = m_setter;
+			if(null == setter)
+				throw new IllegalAccessException("The property with getter " + m_getter + " is read-only");
+			setter.invoke(instance, value);
+		}
+	}
+
+	/**
+	 * Base class for the non-reflective invokers, which checks the arguments the way Method.invoke() does
+	 * and which wraps exceptions thrown by the called method in an InvocationTargetException.
+	 */
+	static private abstract class CheckingInvoker implements IPropertyInvoker {
+		@Nonnull
+		private final Method m_getter;
+
+		@Nullable
+		private final Method m_setter;
+
+		@Nonnull
+		private final Class< ? > m_getterClass;
+
+		@Nullable
+		private final Class< ? > m_setterClass;
+
+		/** The setter's parameter type, boxed. */
+		@Nullable
+		private final Class< ? > m_valueType;
+
+		private final boolean m_primitiveValue;
+
+		CheckingInvoker(@Nonnull Method getter, @Nullable Method setter) {
+			m_getter = getter;
+			m_setter = setter;
+			m_getterClass = getter.getDeclaringClass();
+			if(null == setter) {
+				m_setterClass = null;
+				m_valueType = null;
+				m_primitiveValue = false;
+			} else {
+				Class< ? > pt = setter.getParameterTypes()[0];
+				m_setterClass = setter.getDeclaringClass();
+				m_valueType = MethodType.methodType(pt).wrap().returnType();
+				m_primitiveValue = pt.isPrimitive();
+			}
+		}
+
+		abstract protected Object get(@Nonnull Object instance) throws Throwable;
+
+		abstract protected void set(@Nonnull Object instance, @Nullable Object value) throws Throwable;
+
+		@Override
+		public Object getValue(@Nonnull Object instance) throws Exception {
+			if(!m_getterClass.isInstance(instance))
+				throw notInstance(m_getter, instance);
+			try {
+				return get(instance);
+			} catch(Throwable x) {
+				throw new InvocationTargetException(x);
+			}
+		}
+
+		@Override
+		public void setValue(@Nonnull Object instance, @Nullable Object value) throws Exception {
+			Method setter = m_setter;
+			if(null == setter)
+				throw new IllegalAccessException("The property with getter " + m_getter + " is read-only");
+			Class< ? > setterClass = m_setterClass;
+			if(setterClass != null && !setterClass.isInstance(instance))
+				throw notInstance(setter, instance);
+			Class< ? > valueType = m_valueType;
+			if(value == null) {
+				if(m_primitiveValue)
+					throw new IllegalArgumentException("null cannot be assigned to primitive type " + setter.getParameterTypes()[0] + " of " + setter);
+			} else if(valueType != null && !valueType.isInstance(value)) {
+				value = widen(setter, value);
+			}
+			try {
+				set(instance, value);
+			} catch(Throwable x) {
+				throw new InvocationTargetException(x);
+			}
+		}
+
+		@Nonnull
+		static private RuntimeException notInstance(@Nonnull Method m, @Nullable Object instance) {
+			if(null == instance)
+				return new NullPointerException("Instance is null calling " + m);
+			return new IllegalArgumentException("object " + instance.getClass().getName() + " is not an instance of declaring class " + m.getDeclaringClass().getName());
+		}
+
+		/**
+		 * Method.invoke() allows widening primitive conversions (like passing an Integer to a long parameter), so do the same.
+		 */
+		@Nonnull
+		static private Object widen(@Nonnull Method setter, @Nonnull Object value) {
+			Class< ? > to = setter.getParameterTypes()[0];
+			Class< ? > from = MethodType.methodType(value.getClass()).unwrap().returnType();
+			if(!to.isPrimitive() || !from.isPrimitive() || !isWidening(from, to))
+				throw new IllegalArgumentException("argument type mismatch: " + value.getClass().getName() + " cannot be assigned to " + to.getName() + " of " + setter);
+			Number n = value instanceof Character ? Integer.valueOf(((Character) value).charValue()) : (Number) value;
+			if(to == int.class)
+				return Integer.valueOf(n.intValue());
+			if(to == long.class)
+				return Long.valueOf(n.longValue());
+			if(to == float.class)
+				return Float.valueOf(n.floatValue());
+			if(to == double.class)
+				return Double.valueOf(n.doubleValue());
+			return Short.valueOf(n.shortValue());
+		}
+
+		static private boolean isWidening(@Nonnull Class< ? > from, @Nonnull Class< ? > to) {
+			if(from == byte.class)
+				return to == short.class || to == int.class || to == long.class || to == float.class || to == double.class;
+			if(from == short.class || from == char.class || from == int.class)
+				return to == int.class && from != int.class || to == long.class || to == float.class || to == double.class;
+			if(from == long.class)
+				return to == float.class || to == double.class;
+			if(from == float.class)
+				return to == double.class;
+			return false;
+		}
+	}
+
+	/**
+	 * Calls the methods through MethodHandles.
+	 */
+	static private final class MethodHandleInvoker extends CheckingInvoker {
+		@Nonnull
+		private final MethodHandle m_getterHandle;
+
+		@Nullable
+		private final MethodHandle m_setterHandle;
+
+		MethodHandleInvoker(@Nonnull Method getter, @Nullable Method setter) throws IllegalAccessException {
+			super(getter, setter);
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			trySetAccessible(getter);
+			m_getterHandle = lookup.unreflect(getter).asType(MethodType.methodType(Object.class, Object.class));
+			if(null != setter) {
+				trySetAccessible(setter);
+				m_setterHandle = lookup.unreflect(setter).asType(MethodType.methodType(void.class, Object.class, Object.class));
+			} else
+				m_setterHandle = null;
+		}
+
+		@Override
+		protected Object get(@Nonnull Object instance) throws Throwable {
+			return m_getterHandle.invokeExact(instance);
+		}
+
+		@Override
+		protected void set(@Nonnull Object instance, @Nullable Object value) throws Throwable {
+			MethodHandle setter = m_setterHandle;
+			if(null != setter)
+				setter.invokeExact(instance, value);
+		}
+	}
+
+	/**
+	 * Calls the methods through classes generated by LambdaMetafactory.
+	 */
+	static private final class GeneratedInvoker extends CheckingInvoker {
+		@Nonnull
+		private final Function<Object, Object> m_getterFunction;
+
+		@Nullable
+		private final BiConsumer<Object, Object> m_setterFunction;
+
+		GeneratedInvoker(@Nonnull Method getter, @Nullable Method setter) throws Throwable {
+			super(getter, setter);
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle gh = lookup.unreflect(getter);
+			CallSite cs = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class), MethodType.methodType(Object.class, Object.class), gh, gh.type().wrap());
+			m_getterFunction = (Function<Object, Object>) cs.getTarget().invokeExact();
+
+			if(null != setter) {
+				MethodHandle sh = lookup.unreflect(setter);
+				MethodType instantiated = sh.type().wrap().changeReturnType(void.class);
+				cs = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class), MethodType.methodType(void.class, Object.class, Object.class), sh, instantiated);
+				m_setterFunction = (BiConsumer<Object, Object>) cs.getTarget().invokeExact();
+			} else
+				m_setterFunction = null;
+		}
+
+		@Override
+		protected Object get(@Nonnull Object instance) throws Throwable {
+			return m_getterFunction.apply(instance);
+		}
+
+		@Override
+		protected void set(@Nonnull Object instance, @Nullable Object value) throws Throwable {
+			BiConsumer<Object, Object> setter = m_setterFunction;
+			if(null != setter)
+				setter.accept(instance, value);
+		}
+	}
+
+	static void trySetAccessible(@Nonnull Method m) {
+		try {
+			m.setAccessible(true);
+		} catch(SecurityException x) {
+			//-- Ignore: the call will fail if access is really needed.
+		}
+	}
+}
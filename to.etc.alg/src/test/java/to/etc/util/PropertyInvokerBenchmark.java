@@ -0,0 +1,142 @@
+package to.etc.util;
+
+import java.io.*;
+import java.util.*;
+
+import to.etc.benchmark.*;
+
+/**
+ * Compares the {@link PropertyInvokers} strategies by reading and writing all properties of a
+ * wide entity, the way table rendering, model copying and JSON mapping do. This is a Java
+ * application, not a unit test.
+ *
+ * Created on Oct 18, 2026
+ */
+public class PropertyInvokerBenchmark {
+	static private final int ENTITIES = 1000;
+
+	/** A wide entity with 20 properties of mixed types. */
+	public static class WideEntity {
+		private String m_s1, m_s2, m_s3, m_s4, m_s5, m_s6, m_s7, m_s8;
+
+		private long m_l1, m_l2, m_l3, m_l4;
+
+		private int m_i1, m_i2, m_i3, m_i4;
+
+		private Date m_d1, m_d2;
+
+		private boolean m_b1, m_b2;
+
+		public String getS1() { return m_s1; }
+		public void setS1(String v) { m_s1 = v; }
+		public String getS2() { return m_s2; }
+		public void setS2(String v) { m_s2 = v; }
+		public String getS3() { return m_s3; }
+		public void setS3(String v) { m_s3 = v; }
+		public String getS4() { return m_s4; }
+		public void setS4(String v) { m_s4 = v; }
+		public String getS5() { return m_s5; }
+		public void setS5(String v) { m_s5 = v; }
+		public String getS6() { return m_s6; }
+		public void setS6(String v) { m_s6 = v; }
+		public String getS7() { return m_s7; }
+		public void setS7(String v) { m_s7 = v; }
+		public String getS8() { return m_s8; }
+		public void setS8(String v) { m_s8 = v; }
+		public long getL1() { return m_l1; }
+		public void setL1(long v) { m_l1 = v; }
+		public long getL2() { return m_l2; }
+		public void setL2(long v) { m_l2 = v; }
+		public long getL3() { return m_l3; }
+		public void setL3(long v) { m_l3 = v; }
+		public long getL4() { return m_l4; }
+		public void setL4(long v) { m_l4 = v; }
+		public int getI1() { return m_i1; }
+		public void setI1(int v) { m_i1 = v; }
+		public int getI2() { return m_i2; }
+		public void setI2(int v) { m_i2 = v; }
+		public int getI3() { return m_i3; }
+		public void setI3(int v) { m_i3 = v; }
+		public int getI4() { return m_i4; }
+		public void setI4(int v) { m_i4 = v; }
+		public Date getD1() { return m_d1; }
+		public void setD1(Date v) { m_d1 = v; }
+		public Date getD2() { return m_d2; }
+		public void setD2(Date v) { m_d2 = v; }
+		public boolean isB1() { return m_b1; }
+		public void setB1(boolean v) { m_b1 = v; }
+		public boolean isB2() { return m_b2; }
+		public void setB2(boolean v) { m_b2 = v; }
+	}
+
+	/**
+	 * Without arguments this runs every strategy in its own JVM, so that the JIT profile of one
+	 * strategy does not influence the others. With a strategy name as argument it runs that one.
+	 */
+	static public void main(String[] args) throws Exception {
+		Map<String, IPropertyInvokerFactory> map = new LinkedHashMap<>();
+		map.put("reflection", PropertyInvokers.REFLECTION);
+		map.put("methodhandle", PropertyInvokers.METHOD_HANDLE);
+		map.put("generated", PropertyInvokers.GENERATED);
+
+		if(args.length == 0) {
+			String java = System.getProperty("java.home") + "/bin/java";
+			String header = null;
+			for(String name : map.keySet()) {
+				ProcessBuilder pb = new ProcessBuilder(java, "-Dbenchmark.duration=" + Benchmark.getDuration(), "-Dbenchmark.warmups=" + Benchmark.getWarmups(), "-cp", System.getProperty("java.class.path"), PropertyInvokerBenchmark.class.getName(), name);
+				Process p = pb.redirectErrorStream(true).start();
+				try(BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+					String line;
+					while(null != (line = r.readLine())) {
+						if(header == null)
+							header = line;						// Each fork prints the table header; show it once
+						else if(line.equals(header))
+							continue;
+						System.out.println(line);
+					}
+				}
+				p.waitFor();
+			}
+			return;
+		}
+		IPropertyInvokerFactory factory = map.get(args[0]);
+		if(null == factory)
+			throw new IllegalArgumentException("Unknown strategy " + args[0] + ", use one of " + map.keySet());
+
+		List<WideEntity> entities = new ArrayList<>();
+		for(int i = 0; i < ENTITIES; i++) {
+			WideEntity e = new WideEntity();
+			e.setS1("Value " + i);
+			e.setS5("Another " + i);
+			e.setL1(i);
+			e.setI3(i * 3);
+			e.setD1(new Date());
+			e.setB2(true);
+			entities.add(e);
+		}
+		List<IPropertyInvoker> list = new ArrayList<>();
+		for(PropertyInfo pi : ClassUtil.calculateProperties(WideEntity.class)) {
+			if(pi.getSetter() != null)
+				list.add(factory.createInvoker(pi.getGetter(), pi.getSetter()));
+		}
+
+		Benchmark b = new Benchmark("%-14s %,14.0f", "strategy", "copies/s");
+		b.measure(() -> b.row(args[0], Double.valueOf(Benchmark.opsPerSecond(1, t -> copy(list, entities)))));
+	}
+
+	/**
+	 * Copy all properties from one entity to the next, like a model copier does, and return the #of properties copied.
+	 */
+	static private long copy(List<IPropertyInvoker> list, List<WideEntity> entities) throws Exception {
+		long count = 0;
+		for(int i = 1; i < entities.size(); i++) {
+			WideEntity from = entities.get(i - 1);
+			WideEntity to = entities.get(i);
+			for(IPropertyInvoker pi : list) {
+				pi.setValue(to, pi.getValue(from));
+			}
+			count += list.size();
+		}
+		return count;
+	}
+}
@@ -0,0 +1,89 @@
+package to.etc.util;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import org.junit.*;
+
+/**
+ * Checks that all {@link PropertyInvokers} strategies behave like Method.invoke().
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestPropertyInvokers {
+	public static class Bean {
+		private long m_count;
+
+		private String m_name;
+
+		public long getCount() {
+			return m_count;
+		}
+
+		public void setCount(long count) {
+			m_count = count;
+		}
+
+		public String getName() {
+			return m_name;
+		}
+
+		public Bean setName(String name) {
+			if("fail".equals(name))
+				throw new IllegalStateException("fail");
+			m_name = name;
+			return this;
+		}
+	}
+
+	static private final List<IPropertyInvokerFactory> FACTORIES = Arrays.asList(PropertyInvokers.REFLECTION, PropertyInvokers.METHOD_HANDLE, PropertyInvokers.GENERATED);
+
+	static private IPropertyInvoker invoker(IPropertyInvokerFactory f, String name, Class< ? > type) throws Exception {
+		String cap = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+		return f.createInvoker(Bean.class.getMethod("get" + cap), Bean.class.getMethod("set" + cap, type));
+	}
+
+	@Test
+	public void testGetAndSet() throws Exception {
+		for(IPropertyInvokerFactory f : FACTORIES) {
+			Bean b = new Bean();
+			IPropertyInvoker count = invoker(f, "count", long.class);
+			IPropertyInvoker name = invoker(f, "name", String.class);
+			count.setValue(b, Long.valueOf(12));
+			name.setValue(b, "hello");
+			Assert.assertEquals(Long.valueOf(12), count.getValue(b));
+			Assert.assertEquals("hello", name.getValue(b));
+
+			count.setValue(b, Integer.valueOf(13));				// Widening, like Method.invoke
+			Assert.assertEquals(Long.valueOf(13), count.getValue(b));
+		}
+	}
+
+	@Test
+	public void testErrors() throws Exception {
+		for(IPropertyInvokerFactory f : FACTORIES) {
+			Bean b = new Bean();
+			IPropertyInvoker count = invoker(f, "count", long.class);
+			IPropertyInvoker name = invoker(f, "name", String.class);
+			assertThrows(IllegalArgumentException.class, () -> count.setValue(b, null));
+			assertThrows(IllegalArgumentException.class, () -> count.setValue(b, "text"));
+			assertThrows(IllegalArgumentException.class, () -> name.getValue("not a bean"));
+			assertThrows(InvocationTargetException.class, () -> name.setValue(b, "fail"));
+		}
+	}
+
+	private interface IThrower {
+		void run() throws Exception;
+	}
+
+	static private void assertThrows(Class< ? extends Exception> type, IThrower t) {
+		try {
+			t.run();
+		} catch(Exception x) {
+			if(type.isInstance(x))
+				return;
+			throw new AssertionError("Expected " + type.getName() + " but got " + x, x);
+		}
+		throw new AssertionError("Expected " + type.getName());
+	}
+}
@@ -0,0 +1,193 @@
+package to.etc.benchmark;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.regex.*;
+
+/**
+ * Shared harness for the benchmark programs in the test trees. A benchmark is a plain Java
+ * application; this class takes care of the parts that all of them have in common:
+ * <ul>
+ *	<li>Printing a results table. The header is derived from the format used for the rows, so
+ *		that the columns always line up.</li>
+ *	<li>Warming up: {@link #measure(IBody)} runs the measurement first without printing, the
+ *		#of warmup rounds can be set with -Dbenchmark.warmups (defaults to 1).</li>
+ *	<li>Running code on many threads at the same time, either a fixed amount of work
+ *		({@link #runConcurrently(int, IWork)}) or for a fixed time ({@link #opsPerSecond(int, IStep)}).
+ *		The time is set with -Dbenchmark.duration in milliseconds (defaults to 2000).</li>
+ *	<li>Making sure the JIT cannot remove the code being measured, see {@link #consume(Object)}.</li>
+ * </ul>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class Benchmark {
+	/** A format conversion: flags, width, precision and conversion character. */
+	static private final Pattern CONVERSION = Pattern.compile("%([-,]*)(\\d*)(?:\\.\\d+)?([a-zA-Z])");
+
+	/** Consumed values are compared with these, which can never both be equal to the same value. */
+	static private volatile Object m_marker = new Object();
+
+	static private volatile long m_long1 = 1;
+
+	static private volatile long m_long2 = 2;
+
+	private final String m_rowFormat;
+
+	private boolean m_quiet;
+
+	/**
+	 * Create a table, and print its header line. The row format is a {@link String#format(String, Object...)}
+	 * format with one conversion per column; the header uses the widths of these conversions.
+	 */
+	public Benchmark(String rowFormat, String... columns) {
+		m_rowFormat = rowFormat;
+		Matcher m = CONVERSION.matcher(rowFormat);
+		StringBuffer sb = new StringBuffer();
+		while(m.find())
+			m.appendReplacement(sb, "%" + (m.group(1).contains("-") ? "-" : "") + m.group(2) + "s");
+		m.appendTail(sb);
+		System.out.println(String.format(sb.toString(), (Object[]) columns));
+	}
+
+	/**
+	 * Print a row, unless the code is warming up.
+	 */
+	public void row(Object... values) {
+		if(!m_quiet)
+			System.out.println(String.format(m_rowFormat, values));
+	}
+
+	/**
+	 * Run the body for the configured #of warmup rounds without printing rows, then run it once more for real.
+	 */
+	public void measure(IBody body) throws Exception {
+		m_quiet = true;
+		try {
+			for(int i = getWarmups(); --i >= 0;)
+				body.run();
+		} finally {
+			m_quiet = false;
+		}
+		body.run();
+	}
+
+	public interface IBody {
+		void run() throws Exception;
+	}
+
+	public interface IWork {
+		/**
+		 * Do the work for the thread with the specified index (0..threads-1).
+		 */
+		void run(int thread) throws Exception;
+	}
+
+	public interface IStep {
+		/**
+		 * Execute one step for the thread with the specified index, and return the #of operations done by it.
+		 */
+		long run(int thread) throws Exception;
+	}
+
+	/**
+	 * The time, in milliseconds, that timed measurements run.
+	 */
+	static public long getDuration() {
+		return Long.getLong("benchmark.duration", 2000).longValue();
+	}
+
+	static public int getWarmups() {
+		return Integer.getInteger("benchmark.warmups", 1).intValue();
+	}
+
+	/**
+	 * Start the #of threads, let them all run the work at the same time, and return the #of
+	 * nanoseconds until the last one finished. If any of the threads fails this throws that error.
+	 */
+	static public long runConcurrently(int threads, IWork work) throws Exception {
+		return execute(threads, work, null);
+	}
+
+	/**
+	 * Let the #of threads execute steps during {@link #getDuration()}, and return the total #of operations
+	 * per second done by all of them.
+	 */
+	static public double opsPerSecond(int threads, IStep step) throws Exception {
+		AtomicBoolean stop = new AtomicBoolean();
+		long[] counts = new long[threads];
+		long elapsed = execute(threads, ix -> {
+			long count = 0;
+			while(!stop.get())
+				count += step.run(ix);
+			counts[ix] = count;
+		}, () -> {
+			Thread.sleep(getDuration());
+			stop.set(true);
+		});
+		long total = 0;
+		for(long count : counts)
+			total += count;
+		return total * 1e9 / elapsed;
+	}
+
+	static private long execute(int threads, IWork work, IBody whileRunning) throws Exception {
+		CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		List<Thread> list = new ArrayList<>();
+		for(int i = 0; i < threads; i++) {
+			int ix = i;
+			Thread th = new Thread(() -> {
+				try {
+					barrier.await();
+					work.run(ix);
+				} catch(Throwable x) {
+					error.compareAndSet(null, x);
+				} finally {
+					try {
+						barrier.await();
+					} catch(Exception x) {
+						//-- Only when another thread broke the barrier, which it has reported.
+					}
+				}
+			}, "benchmark-" + i);
+			th.setDaemon(true);
+			th.start();
+			list.add(th);
+		}
+		barrier.await();
+		long ts = System.nanoTime();
+		if(null != whileRunning)
+			whileRunning.run();
+		barrier.await();
+		long elapsed = System.nanoTime() - ts;
+		for(Thread th : list)
+			th.join();
+		Throwable x = error.get();
+		if(null != x)
+			throw new IllegalStateException("Benchmark thread failed: " + x, x);
+		return elapsed;
+	}
+
+	/**
+	 * Return the value at the percentile (0..100) of the sorted values.
+	 */
+	static public long percentile(long[] sorted, double pct) {
+		int ix = (int) Math.ceil(pct / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(ix, sorted.length - 1))];
+	}
+
+	/**
+	 * Use a value, so that the JIT cannot decide that the code calculating it is dead. This costs
+	 * a volatile read and a compare, which is less than storing into a shared volatile.
+	 */
+	static public void consume(Object value) {
+		if(value == m_marker)
+			throw new IllegalStateException("Cannot happen");
+	}
+
+	static public void consume(long value) {
+		if(value == m_long1 && value == m_long2)
+			throw new IllegalStateException("Cannot happen");
+	}
+}
@@ -29,6 +29,9 @@ import java.math.*;
 import java.sql.*;
 import java.util.*;
 import java.util.Date;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
 import java.util.logging.*;
 
 import javax.annotation.*;
@@ -200,56 +203,82 @@ final public class ConnectionPool {
 	private final Properties m_properties = new Properties();
 
 	/** When T this pool has been destroyed and cannot be used anymore. */
-	private boolean m_destroyed;
+	private volatile boolean m_destroyed;
 
 	/** The dbtype obtained from the driver. */
 	private DbType m_dbType = DbType.UNKNOWN;
 
 	/** The CALCULATED SQL statement that is to be sent as a check for valid cnnections, if m_check is null. */
-	private String m_check_calc;
+	private volatile String m_check_calc;
 
 	/** Per-thread configuration of connection handling for debug and JUnit test purposes. */
 	private ThreadLocal<ThreadConfig> m_threadConfig = new ThreadLocal<ThreadConfig>();
 
 	/*---------- Connection administration ---------------------------*/
-	/** All connection entries that are allocated but free for use. */
-	private Stack<PoolEntry> m_freeList = new Stack<PoolEntry>();
+	/*
+	 * The administration below is not guarded by the pool's lock, so that allocating and releasing
+	 * a connection does not contend on it. All counters are atomic, and the free list and used set
+	 * are concurrent collections.
+	 */
+	/** All connection entries that are allocated but free for use. Used as a stack, so that the most recently used connection is reused first. */
+	private final ConcurrentLinkedDeque<PoolEntry> m_freeList = new ConcurrentLinkedDeque<PoolEntry>();
 
 	/** The connections that are currently in use (both pooled and unpooled), */
-	private Set<PoolEntry> m_usedSet = new HashSet<PoolEntry>();
+	private final Set<PoolEntry> m_usedSet = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Has a permit for every pooled connection that can be used. A pooled allocation first takes a permit, and
+	 * the permit is returned when the connection is released. When all connections are used requests wait
+	 * for a permit in FIFO order, so a request that arrives later cannot take a connection from one that
+	 * has been waiting.
+	 */
+	private final Semaphore m_pooledPermits;
+
+	/**
+	 * A request that has a permit can still find no free connection while all connections are counted as
+	 * allocated, because a connection is just moving between the free list and an unpooled user. Such a
+	 * request waits on this condition, which is signalled when a connection is returned or discarded. To
+	 * keep the lock off the release path it is only signalled when {@link #m_entryWaiters} is nonzero.
+	 */
+	private final ReentrantLock m_entryLock = new ReentrantLock();
+
+	private final Condition m_entryChanged = m_entryLock.newCondition();
+
+	/** The #of requests waiting on {@link #m_entryChanged}. */
+	private final AtomicInteger m_entryWaiters = new AtomicInteger();
 
 	/** The current #of allocated and used unpooled connections. */
-	private int m_unpooledAllocatedCount;
+	private final AtomicInteger m_unpooledAllocatedCount = new AtomicInteger();
 
-	private int m_unpooledMaxUsed;
+	private final AtomicInteger m_unpooledMaxUsed = new AtomicInteger();
 
 	/**
 	 * The current #of connections allocated for the POOL. This does NOT include
 	 * the unpooled connections. The total #of connections used by the pool is
 	 * the sum of this variable plus m_n_unpooled_inuse.
 	 */
-	private int m_pooledAllocatedCount;
+	private final AtomicInteger m_pooledAllocatedCount = new AtomicInteger();
 
 	/** The current #of connections used by the clients of the pool, */
-	private int m_pooledUsedCount;
+	private final AtomicInteger m_pooledUsedCount = new AtomicInteger();
 
 	/** The max. #of connections that was simultaneously used by the pool. */
-	private int m_pooledMaxUsed;
+	private final AtomicInteger m_pooledMaxUsed = new AtomicInteger();
 
 	/** #of connection allocations (alloc/free) done. */
-	private int m_poolAllocationCount;
+	private final AtomicInteger m_poolAllocationCount = new AtomicInteger();
 
 	/** #of connection allocations directly from the database.. */
-	private int m_databaseAllocationCount;
+	private final AtomicInteger m_databaseAllocationCount = new AtomicInteger();
 
 	/** The #of times we had to wait for a pooled connection. */
-	private int m_n_connectionwaits;
+	private final AtomicInteger m_n_connectionwaits = new AtomicInteger();
 
 	/** The #of times we failed an allocation because all pooled connections were used. */
-	private int m_n_connectionfails;
+	private final AtomicInteger m_n_connectionfails = new AtomicInteger();
 
 	/** The #of connections that were disconnected because they were assumed to be hanging. */
-	private int m_n_hangdisconnects;
+	private final AtomicInteger m_n_hangdisconnects = new AtomicInteger();
 
 	/** The connections last found in the expiry scanner that look to be hanging. */
 	private List<ConnectionProxy> m_currentlyHangingConnections = Collections.EMPTY_LIST;
@@ -258,16 +287,22 @@ final public class ConnectionPool {
 	private List<ConnectionProxy> m_releasedConnections = Collections.EMPTY_LIST;
 
 	/** The #of statements CURRENTLY allocated by the pool */
-	protected int m_n_open_stmt;
+	private final AtomicInteger m_n_open_stmt = new AtomicInteger();
 
 	/** The #of statements MAX allocated by the pool */
-	protected int m_peak_open_stmt;
+	private final AtomicInteger m_peak_open_stmt = new AtomicInteger();
 
 	/** The #of resultsets opened by all statements in the pool */
-	protected long m_n_open_rs;
+	private final AtomicLong m_n_open_rs = new AtomicLong();
 
 	/** The #of prepare statements executed. */
-	protected long m_statementTotalPrepareCount;
+	private final AtomicLong m_statementTotalPrepareCount = new AtomicLong();
+
+	/** The #of prepares that reused a statement from a connection's statement cache. */
+	private final AtomicLong m_statementCacheHits = new AtomicLong();
+
+	/** The #of prepares that did not find the statement in the connection's statement cache. */
+	private final AtomicLong m_statementCacheMisses = new AtomicLong();
 
 	/// The #of rows returned.
 	@Deprecated
@@ -285,10 +320,14 @@ final public class ConnectionPool {
 	private final int m_conntime_warning_ms = 8000;
 
 	/** T if this pool has stack tracing enabled. */
-	protected boolean m_dbg_stacktrace = true;
+	protected volatile boolean m_dbg_stacktrace = true;
+
+	/** Decides which statement and allocation tracepoints get a stack. */
+	@Nonnull
+	private final TraceSampler m_traceSampler;
 
 	/** The sequence generator for entries. */
-	private int m_entryidgen;
+	private final AtomicInteger m_entryidgen = new AtomicInteger();
 
 	private volatile int m_forceTimeout;
 
@@ -312,7 +351,7 @@ final public class ConnectionPool {
 	}
 
 	@Nonnull
-	private List<IPoolEvent> m_poolListeners = Collections.EMPTY_LIST;
+	private volatile List<IPoolEvent> m_poolListeners = Collections.EMPTY_LIST;
 
 	private boolean m_hasPlSqlHandler;
 
@@ -320,6 +359,8 @@ final public class ConnectionPool {
 		m_manager = pm;
 		m_id = id;
 		m_config = config;
+		m_pooledPermits = new Semaphore(config.getMaxConns(), true);
+		m_traceSampler = new TraceSampler(config.getTraceSample(), config.getTraceBudget(), config.getTraceDepth());
 	}
 
 	/**
@@ -353,7 +394,7 @@ final public class ConnectionPool {
 	}
 
 	@Nonnull
-	private synchronized List<IPoolEvent> getPoolListeners() {
+	private List<IPoolEvent> getPoolListeners() {
 		return m_poolListeners;
 	}
 
@@ -555,9 +596,7 @@ final public class ConnectionPool {
 
 		while(tries-- > 0) {
 			Connection dbc = null;
-			synchronized(this) {
-				m_databaseAllocationCount++;
-			}
+			m_databaseAllocationCount.incrementAndGet();
 
 			try {
 				//				ALLOC.msg(m_id+": get connection on "+m_url+", uid="+m_uid);
@@ -612,14 +651,14 @@ final public class ConnectionPool {
 			//-- Allocate to the min. #of connections. If it fails we die.
 			for(int i = 0; i < c().getMinConns(); i++) {
 				Connection c = getCheckedConnection();
-				PoolEntry pe = new PoolEntry(c, this, m_entryidgen++, c().getUid());
-				m_freeList.add(pe);
+				PoolEntry pe = new PoolEntry(c, this, m_entryidgen.getAndIncrement(), c().getUid());
+				m_freeList.push(pe);
 				if(c().isSqlTraceMode())
 					pe.setSqlTraceMode(true);
-				m_pooledAllocatedCount++;
+				m_pooledAllocatedCount.incrementAndGet();
 			}
 			m_isPooled = true;
-			System.out.println(m_pooledAllocatedCount + " connections allocated, okay.");
+			System.out.println(m_pooledAllocatedCount.get() + " connections allocated, okay.");
 		} catch(SQLException x) {
 			System.out.println("FAILED " + x.toString());
 			throw x;
@@ -636,30 +675,38 @@ final public class ConnectionPool {
 
 		//-- We are no longer reachable from the pool manager- destroy ourself in piece.
 		Set<PoolEntry> usedset;
-		Stack<PoolEntry> freelist;
+		List<PoolEntry> freelist;
 		synchronized(this) {
 			if(m_destroyed)
 				return;
 			m_destroyed = true;
 
-			usedset = m_usedSet;
-			freelist = m_freeList;
-			m_usedSet = new HashSet<PoolEntry>();
-			m_freeList = new Stack<PoolEntry>();
-			m_statementTotalPrepareCount = 0;
-			m_n_open_rs = 0;
-			m_n_open_stmt = 0;
-			m_pooledUsedCount = 0;
-			m_pooledAllocatedCount = 0;
+			usedset = new HashSet<PoolEntry>(m_usedSet);
+			freelist = new ArrayList<PoolEntry>(m_freeList);
+			m_usedSet.clear();
+			m_freeList.clear();
+			m_statementTotalPrepareCount.set(0);
+			m_n_open_rs.set(0);
+			m_n_open_stmt.set(0);
+			m_pooledUsedCount.set(0);
+			m_pooledAllocatedCount.set(0);
 			m_n_rows = 0;
-			m_unpooledAllocatedCount = 0;
+			m_unpooledAllocatedCount.set(0);
 			m_isPooled = false;
-			m_pooledMaxUsed = 0;
-			m_peak_open_stmt = 0;
+			m_pooledMaxUsed.set(0);
+			m_peak_open_stmt.set(0);
 		}
 
+		//-- Wake up all requests waiting for a connection; they will find the pool destroyed.
+		m_pooledPermits.release(Integer.MAX_VALUE / 2);
+		signalEntryChange();
+
 		deinitPool(freelist);
 		deinitPool(usedset);
+
+		StatementLogWriter log = m_statementLog;
+		if(null != log)
+			log.close();
 	}
 
 	/**
@@ -677,7 +724,7 @@ final public class ConnectionPool {
 		}
 	}
 
-	private synchronized void usable() {
+	private void usable() {
 		if(m_destroyed)
 			throw new IllegalStateException("This pool(" + getID() + ") has been destroyed.");
 	}
@@ -691,8 +738,8 @@ final public class ConnectionPool {
 	 * @param what
 	 * @param dbc
 	 */
-	private synchronized void dbgAlloc(final String what, final Connection dbc) {
-		m_poolAllocationCount++;
+	private void dbgAlloc(final String what, final Connection dbc) {
+		m_poolAllocationCount.incrementAndGet();
 		if(c().isLogAllocation() || c().isLogAllocationStack()) {
 			System.out.println("DEBUG: pool(" + m_id + ") ALLOCATED connection " + dbc);
 			if(c().isLogAllocationStack()) {
@@ -702,14 +749,14 @@ final public class ConnectionPool {
 		if(!ALLOC.isLoggable(Level.FINE))
 			return;
 		StringBuilder sb = new StringBuilder();
-		sb.append("ALLOCATE pool(" + m_id + ") " + what + " database[allocated for pool=" + m_pooledAllocatedCount + ", allocated unpooled=" + m_unpooledAllocatedCount + "] pool[inuse=" + m_pooledUsedCount
-			+ ", free=" + m_freeList.size() + "]");
+		sb.append("ALLOCATE pool(" + m_id + ") " + what + " database[allocated for pool=" + m_pooledAllocatedCount.get() + ", allocated unpooled=" + m_unpooledAllocatedCount.get() + "] pool[inuse="
+			+ m_pooledUsedCount.get() + ", free=" + m_freeList.size() + "]");
 		sb.append("\nConnection: " + dbc + "\n");
 		DbPoolUtil.getThreadAndLocation(sb);
 		ALLOC.fine(sb.toString());
 	}
 
-	public synchronized void dbgRelease(final String what, final Connection dbc) {
+	public void dbgRelease(final String what, final Connection dbc) {
 		if(c().isLogAllocation() || c().isLogAllocationStack()) {
 			System.out.println("DEBUG: pool(" + m_id + ") CLOSED connection " + dbc + " (back to pool set)");
 			if(c().isLogAllocationStack()) {
@@ -719,8 +766,8 @@ final public class ConnectionPool {
 		if(!ALLOC.isLoggable(Level.FINE))
 			return;
 		StringBuilder sb = new StringBuilder();
-		sb.append("RELEASED pool(" + m_id + ") " + what + " database[allocated for pool=" + m_pooledAllocatedCount + ", allocated unpooled=" + m_unpooledAllocatedCount + "] pool[inuse=" + m_pooledUsedCount
-			+ ", free=" + m_freeList.size() + "]");
+		sb.append("RELEASED pool(" + m_id + ") " + what + " database[allocated for pool=" + m_pooledAllocatedCount.get() + ", allocated unpooled=" + m_unpooledAllocatedCount.get() + "] pool[inuse="
+			+ m_pooledUsedCount.get() + ", free=" + m_freeList.size() + "]");
 		if(dbc != null)
 			sb.append("\nConnection: " + dbc + "\n");
 		DbPoolUtil.getThreadAndLocation(sb);
@@ -731,143 +778,181 @@ final public class ConnectionPool {
 	/*	CODING:	Pool Entry allocation and release.					*/
 	/*--------------------------------------------------------------*/
 	/**
-	 * This allocates a new connection from the pool, and waits max. 10 seconds
+	 * This allocates a new connection from the pool, and waits max. waitMillis
 	 * if no such connection becomes available. If no connection can be allocated
 	 * this returns null. In all cases where a wait is needed will the wait variable
 	 * be incremented.
 	 *
-	 * <p>If the freelist is exhausted we need to allocate a new connection, if
-	 * allowed. This needs to be done outside the lock because JDBC can lock too
-	 * and this would cause the pool to be locked while a connection gets allocated.
-	 * Before allocating the connection we up the connection counts to ensure that
-	 * the connection count is not exceeded.
+	 * <p>This does not lock the pool. A pooled allocation first takes one of the pool's
+	 * permits, waiting for it in FIFO order when all connections are in use. Having the
+	 * permit means that the request may use a connection, so it then either takes one
+	 * from the free list or, if the free list is empty, creates a new one. The connection
+	 * is created after it has been counted in so that the connection count is not exceeded,
+	 * and without any lock held because JDBC can lock too.</p>
 	 *
 	 * @return
 	 * @throws SQLException
 	 */
-	private PoolEntry allocateConnectionInner(final boolean unpooled) throws SQLException {
-		int newid = 0;
-		long ets = -1; // No end time yet known
+	@Nullable
+	private PoolEntry allocateConnectionInner(final boolean unpooled, long waitMillis) throws SQLException {
+		usable();
+		if(unpooled)
+			return allocateUnpooledEntry();
 
-		synchronized(this) {
-			//-- Inner loop: check if we CAN allocate any way. This loop blocks on connection expiry.
-			for(;;) {
-				usable();
+		//-- Get a permit, honoring the requests already waiting for one.
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+		try {
+			if(!m_pooledPermits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+				m_n_connectionwaits.incrementAndGet();
+				if(!m_pooledPermits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS))
+					return null;
+			}
+		} catch(InterruptedException e) {
+			throw new SQLException("dbPool " + m_id + ": interrupted while waiting for connection to become available");
+		}
 
+		boolean ok = false;
+		try {
+			usable();
+			updateMax(m_pooledMaxUsed, m_pooledUsedCount.incrementAndGet());
+			for(;;) {
 				//-- 1. Is a connection available in the free pool?
-				while(!m_freeList.isEmpty()) {
-					PoolEntry pe = m_freeList.pop();
-					m_usedSet.add(pe); // Saved used entry.
-					pe.setUnpooled(unpooled); // Tell the entry whether it is a pooled one or not
-
-					if(unpooled) {
-						/*
-						 * Unpooled connections are no longer part of the pool. Because
-						 * this connection was gotten from the pooled set we decrement
-						 * the "connections allocated" for the pool.
-						 */
-						m_pooledAllocatedCount--; // One less allocated in the poolset.
-						m_unpooledAllocatedCount++; // And one more in use
-						if(m_unpooledAllocatedCount > m_unpooledMaxUsed)
-							m_unpooledMaxUsed = m_unpooledAllocatedCount;
-					} else {
-						//-- Unpooled connections influence the "used" count.
-						m_pooledUsedCount++;
-						if(m_pooledUsedCount > m_pooledMaxUsed)
-							m_pooledMaxUsed = m_pooledUsedCount;
-					}
+				PoolEntry pe = m_freeList.pollFirst();
+				if(null != pe) {
+					pe.setUnpooled(false);
+					m_usedSet.add(pe);
+					ok = true;
 					return pe;
 				}
 
-				//-- 2. No free connections. Can we allocate another one?
-				if(m_pooledAllocatedCount < c().getMaxConns() || unpooled) {
+				//-- 2. No free connections. Count in a new one, and create it.
+				int count = m_pooledAllocatedCount.get();
+				if(count < c().getMaxConns()) {
+					if(m_pooledAllocatedCount.compareAndSet(count, count + 1)) {
+						pe = createEntry(false, m_pooledAllocatedCount);
+						ok = true;
+						return pe;
+					}
+				} else if(!awaitEntryChange(deadline)) {
 					/*
-					 * We may allocate a new connection. Update data to show
-					 * that we allocate one, then break the loop to do the
-					 * actual allocation OUTSIDE the lock. This makes sure that
-					 * the connection count is not exceeded while we allocate
-					 * another connection.
+					 * All connections are allocated but we have a permit, so a connection must
+					 * be on its way to the free list (an unpooled connection that gets returned
+					 * to the pool, or one that was just taken from it by an unpooled request).
+					 * We waited for that but it did not happen in time.
 					 */
-					if(!unpooled) {
-						m_pooledAllocatedCount++; // Increment actual allocation count
-						m_pooledUsedCount++; // One more used,
-						if(m_pooledUsedCount > m_pooledMaxUsed)
-							m_pooledMaxUsed = m_pooledUsedCount;
-					} else {
-						m_unpooledAllocatedCount++;
-						if(m_unpooledAllocatedCount > m_unpooledMaxUsed)
-							m_unpooledMaxUsed = m_unpooledAllocatedCount;
-					}
-
-					//-- Save data for the creation later,
-					newid = m_entryidgen++;
-					break; // Enter the "allocate new" code.
-				}
-
-				//-- 3. Auch! Nothing! Wait till a connection is released!!
-				m_n_connectionwaits++;
-				long cts = System.currentTimeMillis();
-				if(ets == -1) {
-					//-- This is the 1st time through the loop: set the end time;
-					ets = cts + 10 * 1000; // Delay max. 10 secs
-				} else if(cts >= ets) {
-					//-- We have waited too long- return failure and release lock
 					return null;
 				}
-
-				//-- We're allowed to wait.
-				try {
-					wait(10000); // Wait max. 10 secs,
-				} catch(InterruptedException e) {
-					throw new SQLException("dbPool " + m_id + ": interrupted while waiting for connection to become available");
-				}
+				usable();
+			}
+		} catch(InterruptedException e) {
+			throw new SQLException("dbPool " + m_id + ": interrupted while waiting for connection to become available");
+		} finally {
+			if(!ok) {
+				m_pooledUsedCount.decrementAndGet();
+				m_pooledPermits.release();
 			}
 		}
+	}
 
-		/*
-		 * When here we're NO longer locking the pool AND we are allowed to allocate a
-		 * new connection. The connection has already been counted in. This
-		 * must be done outside a lock because JDBC (Oracle driver) may lock also.
-		 */
+	/**
+	 * Unpooled connections do not wait. A free pooled connection is used if available; it then
+	 * leaves the pool so it is no longer counted as allocated for the pool. Else a new connection
+	 * is created.
+	 */
+	@Nonnull
+	private PoolEntry allocateUnpooledEntry() throws SQLException {
+		updateMax(m_unpooledMaxUsed, m_unpooledAllocatedCount.incrementAndGet());
+		PoolEntry pe = m_freeList.pollFirst();
+		if(null != pe) {
+			pe.setUnpooled(true);
+			m_usedSet.add(pe);
+			m_pooledAllocatedCount.decrementAndGet();	// One less allocated in the poolset.
+			signalEntryChange();
+			return pe;
+		}
+		return createEntry(true, m_unpooledAllocatedCount);
+	}
+
+	/**
+	 * Create a new connection and entry for it, and add it to the used set. The connection must have been counted
+	 * in before; if the connection cannot be created the counter passed is decremented again.
+	 */
+	@Nonnull
+	private PoolEntry createEntry(boolean unpooled, @Nonnull AtomicInteger counter) throws SQLException {
 		boolean ok = false;
-		PoolEntry pe = null;
 		try {
 			//-- Allocate a connection AND A new proxydude
 			Connection c = getCheckedConnection();
-			pe = new PoolEntry(c, this, newid, c().getUid());
+			PoolEntry pe = new PoolEntry(c, this, m_entryidgen.getAndIncrement(), c().getUid());
 			pe.setUnpooled(unpooled);
 			if(c().isSqlTraceMode())
 				pe.setSqlTraceMode(true);
+			m_usedSet.add(pe);
 			ok = true;
 			return pe;
 		} finally {
-			//-- We need to handle accounting!!
-			synchronized(this) {
-				if(ok) {
-					m_usedSet.add(pe);
-				} else {
-					//-- Decrement all counters that were upped assuming the code worked.
-					if(!unpooled) {
-						m_pooledAllocatedCount--;
-						m_pooledUsedCount--;
-					} else
-						m_unpooledAllocatedCount--;
-				}
+			if(!ok) {
+				counter.decrementAndGet();
+				signalEntryChange();
 			}
 		}
 	}
 
+	/**
+	 * Wait until a connection is on the free list or the pool has room for a new one, or until the deadline
+	 * passes. Returns false if the deadline passed or the pool was destroyed.
+	 */
+	private boolean awaitEntryChange(long deadline) throws InterruptedException {
+		m_entryWaiters.incrementAndGet();				// Must be visible before we check, see signalEntryChange()
+		m_entryLock.lock();
+		try {
+			while(m_freeList.isEmpty() && m_pooledAllocatedCount.get() >= c().getMaxConns()) {
+				long left = deadline - System.nanoTime();
+				if(left <= 0 || m_destroyed)
+					return false;
+				m_entryChanged.awaitNanos(left);
+			}
+			return true;
+		} finally {
+			m_entryLock.unlock();
+			m_entryWaiters.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Wake up the requests waiting in {@link #awaitEntryChange(long)}. Must be called after changing the free
+	 * list or the pooled allocation count; as a waiter registers before it checks either of them it either sees
+	 * the change or it gets signalled.
+	 */
+	private void signalEntryChange() {
+		if(m_entryWaiters.get() == 0)
+			return;
+		m_entryLock.lock();
+		try {
+			m_entryChanged.signalAll();
+		} finally {
+			m_entryLock.unlock();
+		}
+	}
+
+	static private void updateMax(@Nonnull AtomicInteger max, int value) {
+		for(;;) {
+			int current = max.get();
+			if(value <= current || max.compareAndSet(current, value))
+				return;
+		}
+	}
 
 	/**
 	 * Allocates a connection or aborts if it is impossible to do so within
-	 * reasonable time. This is the "outer" loop part which calls {@link #allocateConnectionInner(boolean)} to
+	 * reasonable time. This is the "outer" loop part which calls {@link #allocateConnectionInner(boolean, long)} to
 	 * try to allocate a connection from the pool or by creating a connection
-	 * new if allowed. This inner method waits max. 10 seconds for a connection
-	 * to become available if it is out of connections.
+	 * new if allowed. This inner method waits max. 1/6th of the pool's acquire timeout
+	 * ({@link PoolConfig#getAcquireTimeout()}) for a connection to become available if it is out of connections.
 	 *
 	 * <p>This outer loop handles the case where the inner loop cannot obtain a
-	 * connection in 10 seconds. It loops for max. 6 times, and reports errors while
-	 * it is looping. If no connection becomes available within this 60 seconds it will
+	 * connection in time. It loops for max. 6 times, and reports errors while
+	 * it is looping. If no connection becomes available within the acquire timeout it will
 	 * run the expired connection checker with the "force" flag. This should create
 	 * at least some free connections. After that it fails, mostly.</p>
 	 *
@@ -875,13 +960,14 @@ final public class ConnectionPool {
 	 * @throws SQLException
 	 */
 	private PoolEntry allocateConnection(final boolean unpooled) throws SQLException {
+		long waitMillis = Math.max(1, c().getAcquireTimeout() * 1000L / 6);
 		int ctries = 0;
 		while(ctries < 6) { // Outer loop, unlocked
-			PoolEntry pe = allocateConnectionInner(unpooled);
+			PoolEntry pe = allocateConnectionInner(unpooled, waitMillis);
 			if(null != pe) // No problems, allocation was fine
 				return pe;
 
-			//-- We failed and waited 10 seconds. Report a warning on the 2nd try.
+			//-- We failed and waited. Report a warning on the 2nd try.
 			ctries++;
 			String s = "pool[" + getID() + "]: no more connections available on " + ctries + " try!?";
 			System.out.println(s);
@@ -895,14 +981,14 @@ final public class ConnectionPool {
 			}
 
 			if(ctries > 5) { // If too many retries abort,
-				m_n_connectionfails++;
+				m_n_connectionfails.incrementAndGet();
 				StringBuilder sb = new StringBuilder(1024 * 1024);
 				dumpUsedConnections(sb);
 				String msg = sb.toString();
 				saveError("No more database connections for pool=" + getID() + " - ABORTING REQUEST", msg);
 				throw new SQLException("PANIC: Could not obtain a database connection - pool is exhausted!");
 			}
-			m_n_connectionwaits++;
+			m_n_connectionwaits.incrementAndGet();
 
 
 		}
@@ -911,14 +997,12 @@ final public class ConnectionPool {
 		scanExpiredConnections(120, true); // All pooled connections not used for > 120 seconds will be forcefully closed.
 
 		//-- Try once more to allocate a connection....
-		PoolEntry pe = allocateConnectionInner(unpooled);
+		PoolEntry pe = allocateConnectionInner(unpooled, waitMillis);
 		if(null != pe) // No problems, allocation was fine
 			return pe;
 
 		//-- We're dyyyyyying.....
-		synchronized(this) {
-			m_n_connectionfails++;
-		}
+		m_n_connectionfails.incrementAndGet();
 		throw new SQLException("PANIC: Could not obtain a database connection - pool is exhausted (and no connections can be forcefully released)!");
 	}
 
@@ -958,71 +1042,76 @@ final public class ConnectionPool {
 			ex.printStackTrace();
 			throw ex;
 		} finally {
-			synchronized(this) {
-				/*
-				 * If the reset was okay AND the connection count does not exceed
-				 * the max count we return this to the pool, else we discard the
-				 * connection.
-				 */
-				boolean unpooled = pe.isUnpooled();
-				if(ok) {
-					if(unpooled && (m_pooledAllocatedCount >= c().getMaxConns() || !pe.getUserID().equals(c().getUid()))) // Unpooled are returned only when #allocated not too big,
-						ok = false; // ok=false means do not re-use the connection
+			/*
+			 * If the reset was okay AND the connection count does not exceed
+			 * the max count we return this to the pool, else we discard the
+			 * connection.
+			 */
+			boolean unpooled = pe.isUnpooled();
+			if(ok && unpooled) {
+				// Unpooled are returned only when #allocated not too big; count it in for the pool before releasing it.
+				ok = pe.getUserID().equals(c().getUid()) && incrementIfBelow(m_pooledAllocatedCount, c().getMaxConns());
+			}
+			if(ok) {
+				//-- We are sure that we want to put this back into the poolset's free list.
+				if(!m_usedSet.remove(pe)) {
+					//--cannot happen.
+					String subj = "pool(" + m_id + "): connection not in USED pool??";
+					StringBuilder sb = new StringBuilder(65536);
+					sb.append("Connection not in used pool! Location of release is:\n");
+					DbPoolUtil.getThreadAndLocation(sb);
+					sb.append("\n\nConnection dump:\n");
+					DbPoolUtil.printTracepoints(new StringPrinter(sb), pc, true);
+					String msg = sb.toString();
+					saveError(subj, msg);
+					m_manager.panic(subj, msg);
+					throw new IllegalStateException(subj);
 				}
-				if(ok) {
-					//-- We are sure that we want to put this back into the poolset's free list.
-					if(!m_usedSet.remove(pe)) {
-						//--cannot happen.
-						String subj = "pool(" + m_id + "): connection not in USED pool??";
-						StringBuilder sb = new StringBuilder(65536);
-						sb.append("Connection not in used pool! Location of release is:\n");
-						DbPoolUtil.getThreadAndLocation(sb);
-						sb.append("\n\nConnection dump:\n");
-						DbPoolUtil.printTracepoints(new StringPrinter(sb), pc, true);
-						String msg = sb.toString();
-						saveError(subj, msg);
-						m_manager.panic(subj, msg);
-						throw new IllegalStateException(subj);
-					}
-					if(unpooled) {
-						m_unpooledAllocatedCount--; // Decrement #of unpooled, because this moves to pooled.
-						m_pooledAllocatedCount++; // Unpooled means another allocated one now
-					} else
-						m_pooledUsedCount--; // Decrement pool use count for pooled,
-					m_freeList.push(pe);
-					pe = null; // Make sure we do not use this again ;-)
-					dbgRelease("returned to pool", pc);
+				m_freeList.push(pe);
+				signalEntryChange();
+				if(unpooled) {
+					m_unpooledAllocatedCount.decrementAndGet(); // Decrement #of unpooled, because this moves to pooled.
+				} else {
+					//-- Decrement pool use count for pooled, and let the next waiter in.
+					m_pooledUsedCount.decrementAndGet();
+					m_pooledPermits.release();
 				}
-
-				//-- Notify any waiters that another slot is available
-				//				System.out.println("POOL["+m_id+"]: connection returned, #used is "+m_n_used);
-				try {
-					notify();
-				} catch(Exception x) {}
+				dbgRelease("returned to pool", pc);
+			} else {
+				//-- If the code above was not OK we need to discard
+				discardEntry(pe);
 			}
-			if(ok)
-				return;
+		}
+	}
 
-			//-- If the code above was not OK we need to discard outside of the lock
-			discardEntry(pe);
+	static private boolean incrementIfBelow(@Nonnull AtomicInteger counter, int max) {
+		for(;;) {
+			int count = counter.get();
+			if(count >= max)
+				return false;
+			if(counter.compareAndSet(count, count + 1))
+				return true;
 		}
 	}
 
 	/**
 	 * Called when a PoolEntry is forced closed. This must remove all references to that entry
-	 * from the pool. The entry itself is already invalid and the caller will have locked
-	 * this. The database connection itself is released elsewhere.
+	 * from the pool. The entry itself is already invalid and the caller holds the entry's
+	 * lock, so this must not lock the pool. The database connection itself is released elsewhere.
 	 * @param pe
 	 */
-	synchronized void removeEntryFromPool(PoolEntry pe) {
+	void removeEntryFromPool(PoolEntry pe) {
 		boolean unpooled = pe.isUnpooled();
+		boolean wasUsed = m_usedSet.remove(pe);
 		if(unpooled)
-			m_unpooledAllocatedCount--; // #of unpooled is one down
+			m_unpooledAllocatedCount.decrementAndGet(); // #of unpooled is one down
 		else {
-			m_pooledUsedCount--;
-			m_pooledAllocatedCount--; // One less allocated because it's connection will be/is freed.
+			m_pooledAllocatedCount.decrementAndGet(); // One less allocated because it's connection will be/is freed.
+			m_pooledUsedCount.decrementAndGet();
+			m_pooledPermits.release();
+			signalEntryChange();
 		}
-		if(!m_usedSet.remove(pe)) {
+		if(!wasUsed) {
 			//-- cannot happen.
 			//			String subj = "pool(" + m_id + "): connection not in USED pool??";
 			StringBuilder sb = new StringBuilder(65536);
@@ -1043,28 +1132,25 @@ final public class ConnectionPool {
 	private void discardEntry(final PoolEntry pe) {
 		String subj = null;
 		String msg = null;
-		synchronized(this) {
-			if(!pe.isUnpooled()) { // Discarding pooled means current allocation count must be decremented.
-				m_pooledAllocatedCount--; // One less allocated in the pool
-				m_pooledUsedCount--; // And one less used,
-			} else
-				m_unpooledAllocatedCount--;
-			//System.out.println("DISCARD pool=" + m_id + " connection discarded to server; conns=" + m_pooledAllocatedCount + ", #unpooled=" + m_unpooledAllocatedCount);
-
-			if(!m_usedSet.remove(pe)) {
-				subj = "pool(" + m_id + "): connection not in USED pool??";
-				StringBuilder sb = new StringBuilder(65536);
-				sb.append("Connection not in used pool! Location of release is:\n");
-				DbPoolUtil.getThreadAndLocation(sb);
-				//				sb.append("\n\nConnection stack dump:\n");
-				//				DbPoolUtil.printTracepoints(sb, )
-				msg = sb.toString();
-				saveError(subj, msg);
-			}
-
-			try {
-				notify();
-			} catch(Exception x) {}
+		boolean wasUsed = m_usedSet.remove(pe);
+		if(!pe.isUnpooled()) { // Discarding pooled means current allocation count must be decremented.
+			m_pooledAllocatedCount.decrementAndGet(); // One less allocated in the pool
+			m_pooledUsedCount.decrementAndGet(); // And one less used,
+			m_pooledPermits.release();
+			signalEntryChange();
+		} else
+			m_unpooledAllocatedCount.decrementAndGet();
+		//System.out.println("DISCARD pool=" + m_id + " connection discarded to server; conns=" + m_pooledAllocatedCount + ", #unpooled=" + m_unpooledAllocatedCount);
+
+		if(!wasUsed) {
+			subj = "pool(" + m_id + "): connection not in USED pool??";
+			StringBuilder sb = new StringBuilder(65536);
+			sb.append("Connection not in used pool! Location of release is:\n");
+			DbPoolUtil.getThreadAndLocation(sb);
+			//				sb.append("\n\nConnection stack dump:\n");
+			//				DbPoolUtil.printTracepoints(sb, )
+			msg = sb.toString();
+			saveError(subj, msg);
 		}
 
 		/*
@@ -1084,8 +1170,8 @@ final public class ConnectionPool {
 	/*	CODING:	Accessing all connections.							*/
 	/*--------------------------------------------------------------*/
 	/**
-	 * Get a list of all ConnextionProxy's currently in use. It gets that list with
-	 * "this" locked but locks nothing else. The entries returned are live, so by the
+	 * Get a list of all ConnextionProxy's currently in use. It gets that list without
+	 * locking the pool. The entries returned are live, so by the
 	 * time you are using them they can be dead (because they are closed/invalidated
 	 * at that time).
 	 * <p>We return the proxies, not the entries, because the proxies remain valid for
@@ -1095,16 +1181,13 @@ final public class ConnectionPool {
 	 * @return
 	 */
 	public List<ConnectionProxy> getUsedConnections() {
-		synchronized(this) {
-			List<ConnectionProxy> res = new ArrayList<ConnectionProxy>(m_usedSet.size());
-			for(PoolEntry pe : m_usedSet) {
-				ConnectionProxy px = pe.getProxy();
-				if(px == null) // cannot happen
-					throw new IllegalStateException("POOLERR: proxy is null on USED entry=" + pe);
+		List<ConnectionProxy> res = new ArrayList<ConnectionProxy>(m_usedSet.size());
+		for(PoolEntry pe : m_usedSet) {
+			ConnectionProxy px = pe.getProxy();
+			if(px != null) // Null while the entry is being handed out or returned
 				res.add(px);
-			}
-			return res;
 		}
+		return res;
 	}
 
 	/**
@@ -1140,10 +1223,7 @@ final public class ConnectionPool {
 	 */
 	public Connection getUnpooledConnection(String username, String password) throws SQLException {
 		IConnectionEventListener d = m_manager.getConnectionEventListener();
-		int newid;
-		synchronized(this) {
-			newid = m_entryidgen++;
-		}
+		int newid = m_entryidgen.getAndIncrement();
 
 		boolean ok = false;
 		PoolEntry pe = null;
@@ -1160,11 +1240,9 @@ final public class ConnectionPool {
 			return dbc;
 		} finally {
 			//-- We need to handle accounting!!
-			synchronized(this) {
-				if(ok) {
-					m_unpooledAllocatedCount++;
-					m_usedSet.add(pe);
-				}
+			if(ok) {
+				updateMax(m_unpooledMaxUsed, m_unpooledAllocatedCount.incrementAndGet());
+				m_usedSet.add(pe);
 			}
 		}
 	}
@@ -1197,7 +1275,7 @@ final public class ConnectionPool {
 		 * Report the result of the hang check. At this point all actions have already been taken.
 		 */
 		synchronized(this) {
-			m_n_hangdisconnects += hs.getDestroyCount();
+			m_n_hangdisconnects.addAndGet(hs.getDestroyCount());
 			m_currentlyHangingConnections = hs.getHangingList();
 		}
 
@@ -1441,42 +1519,38 @@ final public class ConnectionPool {
 	/*	CODING:	Logfile writer.										*/
 	/*--------------------------------------------------------------*/
 
-	private boolean m_fileLogging;
-
-	private Thread m_logWriterThread;
-
-	private List<byte[]> m_logBufferList = new ArrayList<byte[]>();
-
-	static private final int MAX_LOG_QUEUED = 30;
-
-	private OutputStream m_fileLogStream;
+	/** The binary statement log, if file logging is on. */
+	@Nullable
+	private volatile StatementLogWriter m_statementLog;
 
 	static public final long STMT_START_MAGIC = 0xabbacafebabedeadl;
 
 	public boolean isFileLogging() {
-		synchronized(m_logBufferList) {
-			return m_fileLogging;
-		}
+		StatementLogWriter log = m_statementLog;
+		return null != log && log.isRunning();
 	}
 
-	public void setFileLogging(File target) {
-		synchronized(m_logBufferList) {
-			if(m_fileLogging)
-				throw new IllegalArgumentException("File logging is already enabled");
-			try {
-				m_fileLogStream = new FileOutputStream(target, true);
-
-			} catch(Exception x) {
-				System.out.println("pool(" + getID() + ") cannot open logging file " + target + ": " + x);
-				return;
-			}
+	/**
+	 * Return the binary statement log writer, if file logging is on.
+	 */
+	@Nullable
+	public StatementLogWriter getStatementLog() {
+		return m_statementLog;
+	}
 
-			m_fileLogging = true;
+	public synchronized void setFileLogging(File target) {
+		if(isFileLogging())
+			throw new IllegalArgumentException("File logging is already enabled");
+		try {
+			m_statementLog = new StatementLogWriter(getID(), target, c().getBinaryLogBufferSize(), c().isBinaryLogBlocking(), c().getBinaryLogRotateSize(), c().getBinaryLogKeep(), c().isBinaryLogCompress());
+		} catch(Exception x) {
+			System.out.println("pool(" + getID() + ") cannot open logging file " + target + ": " + x);
 		}
 	}
 
 	private void writeStatement(StatementProxy ls, byte stmtType) {
-		if(!isFileLogging())
+		StatementLogWriter log = m_statementLog;
+		if(null == log || !log.isRunning())
 			return;
 
 		byte[] buffer;
@@ -1486,90 +1560,14 @@ final public class ConnectionPool {
 			System.out.println("pool(" + getID() + ") failed to create statement image, statement ignored: " + x);
 			return;
 		}
-		writeLogImage(buffer);
+		log.append(buffer);
 	}
 
 	public void writeSpecial(ConnectionProxy cp, byte stmtType) {
-		if(!isFileLogging())
+		StatementLogWriter log = m_statementLog;
+		if(null == log || !log.isRunning())
 			return;
-
-		writeLogImage(createSpecialImage(cp, stmtType));
-	}
-
-	private void writeLogImage(byte[] buffer) {
-		synchronized(m_logBufferList) {
-			//-- Make sure writer thread is active
-			if(null == m_logWriterThread) {
-				m_logWriterThread = new Thread(new Runnable() {
-					@Override
-					public void run() {
-						logWriterWriteLoop();
-					}
-				});
-				m_logWriterThread.setName("dblgwr");
-				m_logWriterThread.setDaemon(true);
-//				m_logWriterThread.setPriority(Thread.MAX_PRIORITY);
-				m_logWriterThread.start();
-			}
-
-			for(;;) {
-				if(!m_fileLogging) // Accept disabling of log due to error
-					return;
-
-				if(m_logBufferList.size() < MAX_LOG_QUEUED) {
-					m_logBufferList.add(buffer);
-					m_logBufferList.notifyAll();
-					return;
-				}
-
-				//-- Too many queued- wait.
-				try {
-					m_logBufferList.wait();
-				} catch(InterruptedException x) {
-					System.out.println("pool(" + getID() + ") interrupted log write- cancelled");
-					return;
-				}
-			}
-		}
-	}
-
-	private void logWriterWriteLoop() {
-		try {
-			for(;;) {
-				byte[] buf = waitForBuffer();
-				writeBuffer(buf);
-			}
-		} catch(Exception x) {
-			System.out.println("pool(" + getID() + ") statement log write error " + x + ": logging cancelled");
-			x.printStackTrace();
-		} finally {
-			synchronized(m_logWriterThread) {
-				m_fileLogging = false; // Disable file logging.
-				m_logBufferList.clear(); // Discard anything queued.
-				m_logBufferList.notifyAll();
-				m_logWriterThread = null;
-			}
-		}
-	}
-
-	private void writeBuffer(byte[] buf) throws Exception {
-		m_fileLogStream.write(buf);
-	}
-
-	private byte[] waitForBuffer() throws InterruptedException {
-		for(;;) {
-			synchronized(m_logBufferList) {
-				if(m_logBufferList.size() > 0) {
-					byte[] buf = m_logBufferList.remove(0);
-
-					if(m_logBufferList.size() == MAX_LOG_QUEUED - 1) {
-						m_logBufferList.notify(); // Wake one writer
-					}
-					return buf;
-				}
-				m_logBufferList.wait();
-			}
-		}
+		log.append(createSpecialImage(cp, stmtType));
 	}
 
 	/**
@@ -1691,7 +1689,7 @@ final public class ConnectionPool {
 	 * @return
 	 * @throws SQLException
 	 */
-	private synchronized String getCheckString() throws SQLException {
+	private String getCheckString() throws SQLException {
 		return m_check_calc;
 	}
 
@@ -1723,7 +1721,7 @@ final public class ConnectionPool {
 	/**
 	 *	Returns T if stack tracking is enabled for debugging purposes.
 	 */
-	public synchronized boolean dbgIsStackTraceEnabled() {
+	public boolean dbgIsStackTraceEnabled() {
 		return m_dbg_stacktrace;
 	}
 
@@ -1733,10 +1731,18 @@ final public class ConnectionPool {
 	 *  servlet path) causes the pool to remember the last 10 stack paths that
 	 *  accessed a connection.
 	 */
-	public synchronized void dbgSetStacktrace(final boolean on) {
+	public void dbgSetStacktrace(final boolean on) {
 		m_dbg_stacktrace = on;
 	}
 
+	/**
+	 * Decides which tracepoints get a stack, and measures how much time capturing them takes.
+	 */
+	@Nonnull
+	public TraceSampler getTraceSampler() {
+		return m_traceSampler;
+	}
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Per-thread configuration (JUnit tests et al).		*/
 	/*--------------------------------------------------------------*/
@@ -1779,38 +1785,44 @@ final public class ConnectionPool {
 	 * pool statistics in proper relation.
 	 */
 	public synchronized PoolStats getPoolStatistics() {
-		return new PoolStats(m_unpooledAllocatedCount, m_pooledAllocatedCount, m_pooledUsedCount, //
-			m_pooledMaxUsed, m_poolAllocationCount, m_n_connectionwaits, //
-			m_n_connectionfails, m_n_hangdisconnects, m_n_open_stmt, //
-			m_peak_open_stmt, m_n_open_rs, m_statementTotalPrepareCount, //
+		return new PoolStats(m_unpooledAllocatedCount.get(), m_pooledAllocatedCount.get(), m_pooledUsedCount.get(), //
+			m_pooledMaxUsed.get(), m_poolAllocationCount.get(), m_n_connectionwaits.get(), //
+			m_n_connectionfails.get(), m_n_hangdisconnects.get(), m_n_open_stmt.get(), //
+			m_peak_open_stmt.get(), m_n_open_rs.get(), m_statementTotalPrepareCount.get(), //
 			m_n_rows, //
 			new ArrayList<ConnectionProxy>(m_currentlyHangingConnections), //
-			m_databaseAllocationCount, //
-			m_unpooledMaxUsed
+			m_databaseAllocationCount.get(), //
+			m_unpooledMaxUsed.get(), //
+			m_statementCacheHits.get(), m_statementCacheMisses.get()
 		);
 	}
 
-	synchronized void incOpenStmt() {
-		m_n_open_stmt++;
-		m_statementTotalPrepareCount++;
-		if(m_n_open_stmt > m_peak_open_stmt)
-			m_peak_open_stmt = m_n_open_stmt;
+	void incOpenStmt() {
+		updateMax(m_peak_open_stmt, m_n_open_stmt.incrementAndGet());
+		m_statementTotalPrepareCount.incrementAndGet();
+	}
+
+	void registerStatementCacheUse(boolean hit) {
+		if(hit)
+			m_statementCacheHits.incrementAndGet();
+		else
+			m_statementCacheMisses.incrementAndGet();
 	}
 
-	synchronized void decOpenStmt() {
-		m_n_open_stmt--;
+	void decOpenStmt() {
+		m_n_open_stmt.decrementAndGet();
 	}
 
 	//	synchronized void decOpenStmt(final int count) {
 	//		m_n_open_stmt -= count;
 	//	}
 
-	synchronized void incOpenRS() {
-		m_n_open_rs++;
+	void incOpenRS() {
+		m_n_open_rs.incrementAndGet();
 	}
 
-	synchronized void decOpenRS() {
-		m_n_open_rs--;
+	void decOpenRS() {
+		m_n_open_rs.decrementAndGet();
 	}
 
 	public synchronized void setAttribute(@Nonnull String name, @Nullable Object value) {
@@ -114,7 +114,7 @@ final public class ConnectionProxy implements Connection {
 		m_saveTracePoints = tracepoints;
 		m_allocationTS = System.currentTimeMillis();
 		m_lastUsedTS = m_allocationTS;
-		m_allocationPoint = Tracepoint.create(null);
+		m_allocationPoint = Tracepoint.create(null, pe.getPool().getTraceSampler());
 		m_unpooled = isunpooled;
 	}
 
@@ -276,7 +276,7 @@ final public class ConnectionProxy implements Connection {
 		getPool().writeSpecial(this, StatementProxy.ST_CLOSE);
 
 		//-- Handle local chores locking THIS
-		Tracepoint tp = Tracepoint.create(null);
+		Tracepoint tp = Tracepoint.create(null, getPool().getTraceSampler());
 		long duration;
 		synchronized(this) {
 			if(m_state != ConnState.OPEN)
@@ -367,7 +367,7 @@ final public class ConnectionProxy implements Connection {
 		//ORDERED: remove before adding to prevent maxsize overflow.
 		if(m_tracePointList.size() >= MAX_TRACEDEPTH)
 			m_tracePointList.remove(0);
-		m_tracePointList.add(Tracepoint.create(sql));
+		m_tracePointList.add(Tracepoint.create(sql, getPool().getTraceSampler()));
 	}
 
 	/**
@@ -567,6 +567,10 @@ final public class ConnectionProxy implements Connection {
 		m_pe.addResource(thing);
 	}
 
+	void returnToStatementCache(@Nonnull String key, @Nonnull PreparedStatement ps) throws SQLException {
+		m_pe.returnToStatementCache(key, ps);
+	}
+
 	/**
 	 * This removes the resource from the resource list because it was normally closed.
 	 * @param o		the resource to remove.
@@ -125,7 +125,7 @@ public class DbPoolUtil {
 				break;
 			ix++;
 		}
-		int ex = ix; // End bound, exclusive
+		int ex = Math.min(ix, len); // End bound, exclusive; an empty stack (unsampled tracepoint) logs nothing
 		if(linelimit > 0) {
 			if(ex - sx > linelimit)
 				ex = sx + linelimit;
@@ -78,6 +78,43 @@ final public class PoolConfig {
 
 	private File m_binaryLogFile;
 
+	/** The max. time, in seconds, that a request waits for a pooled connection before it fails. */
+	private int m_acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT;
+
+	static public final int DEFAULT_ACQUIRE_TIMEOUT = 60;
+
+	/** The max. #of prepared statements cached per connection; 0 disables the statement cache. */
+	private int m_statementCacheSize;
+
+	/** Only every Nth tracepoint captures a stack. */
+	private int m_traceSample = 1;
+
+	/** The max. #of microseconds per second spent capturing tracepoint stacks, 0 for unlimited. */
+	private int m_traceBudget;
+
+	/** The max. #of frames kept in a tracepoint's stack, 0 for all. */
+	private int m_traceDepth;
+
+	/** The size of each of the binary log's two buffers, in bytes. */
+	private int m_binaryLogBufferSize = DEFAULT_BINARY_LOG_BUFFER;
+
+	static public final int DEFAULT_BINARY_LOG_BUFFER = 1024 * 1024;
+
+	static private final int MIN_BINARY_LOG_BUFFER = 64 * 1024;
+
+	/** When T statements wait for the binary log when its buffer is full, else the record is dropped. */
+	private boolean m_binaryLogBlocking;
+
+	/** The size, in bytes, at which the binary log is rotated, 0 for never. */
+	private long m_binaryLogRotateSize;
+
+	/** The #of rotated binary log files to keep. */
+	private int m_binaryLogKeep = DEFAULT_BINARY_LOG_KEEP;
+
+	static public final int DEFAULT_BINARY_LOG_KEEP = 10;
+
+	private boolean m_binaryLogCompress = true;
+
 	static public class Template {
 		/** The max. #of connections that can be allocated before the pool blocks */
 		private int m_max_conns;
@@ -123,6 +160,26 @@ final public class PoolConfig {
 
 		private File m_binaryLogFile;
 
+		private int m_acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT;
+
+		private int m_statementCacheSize;
+
+		private int m_traceSample = 1;
+
+		private int m_traceBudget;
+
+		private int m_traceDepth;
+
+		private int m_binaryLogBufferSize = DEFAULT_BINARY_LOG_BUFFER;
+
+		private boolean m_binaryLogBlocking;
+
+		private long m_binaryLogRotateSize;
+
+		private int m_binaryLogKeep = DEFAULT_BINARY_LOG_KEEP;
+
+		private boolean m_binaryLogCompress = true;
+
 		public void setDriverPath(File driverPath) {
 			m_driverPath = driverPath;
 		}
@@ -202,6 +259,46 @@ final public class PoolConfig {
 		public void setMinConns(int min_conns) {
 			m_min_conns = min_conns;
 		}
+
+		public void setAcquireTimeout(int seconds) {
+			m_acquireTimeout = seconds;
+		}
+
+		public void setStatementCacheSize(int statementCacheSize) {
+			m_statementCacheSize = statementCacheSize;
+		}
+
+		public void setTraceSample(int traceSample) {
+			m_traceSample = traceSample;
+		}
+
+		public void setTraceBudget(int microsPerSecond) {
+			m_traceBudget = microsPerSecond;
+		}
+
+		public void setTraceDepth(int traceDepth) {
+			m_traceDepth = traceDepth;
+		}
+
+		public void setBinaryLogBufferSize(int bytes) {
+			m_binaryLogBufferSize = bytes;
+		}
+
+		public void setBinaryLogBlocking(boolean binaryLogBlocking) {
+			m_binaryLogBlocking = binaryLogBlocking;
+		}
+
+		public void setBinaryLogRotateSize(long bytes) {
+			m_binaryLogRotateSize = bytes;
+		}
+
+		public void setBinaryLogKeep(int binaryLogKeep) {
+			m_binaryLogKeep = binaryLogKeep;
+		}
+
+		public void setBinaryLogCompress(boolean binaryLogCompress) {
+			m_binaryLogCompress = binaryLogCompress;
+		}
 	}
 
 	PoolConfig(String driver, String url, String userid, String passwd, String driverpath) throws SQLException {
@@ -237,7 +334,16 @@ final public class PoolConfig {
 		m_sqlTraceMode = tpl.m_sqlTraceMode;
 		m_uid = tpl.m_uid;
 		m_url = tpl.m_url;
-
+		m_acquireTimeout = tpl.m_acquireTimeout < 1 ? 1 : tpl.m_acquireTimeout;
+		m_statementCacheSize = Math.max(0, tpl.m_statementCacheSize);
+		m_traceSample = Math.max(1, tpl.m_traceSample);
+		m_traceBudget = Math.max(0, tpl.m_traceBudget);
+		m_traceDepth = Math.max(0, tpl.m_traceDepth);
+		m_binaryLogBufferSize = Math.max(MIN_BINARY_LOG_BUFFER, tpl.m_binaryLogBufferSize);
+		m_binaryLogBlocking = tpl.m_binaryLogBlocking;
+		m_binaryLogRotateSize = Math.max(0, tpl.m_binaryLogRotateSize);
+		m_binaryLogKeep = tpl.m_binaryLogKeep;
+		m_binaryLogCompress = tpl.m_binaryLogCompress;
 	}
 
 	/**
@@ -267,6 +373,12 @@ final public class PoolConfig {
 			m_min_conns = minc;
 			m_max_conns = maxc;
 			m_printExceptions = cs.getBool(id, "printexceptions", false);
+			int acquireTimeout = cs.getInt(id, "acquiretimeout", DEFAULT_ACQUIRE_TIMEOUT);
+			m_acquireTimeout = acquireTimeout < 1 ? 1 : acquireTimeout;
+			m_statementCacheSize = Math.max(0, cs.getInt(id, "statementcache", 0));
+			m_traceSample = Math.max(1, cs.getInt(id, "tracesample", 1));
+			m_traceBudget = Math.max(0, cs.getInt(id, "tracebudget", 0));
+			m_traceDepth = Math.max(0, cs.getInt(id, "tracedepth", 0));
 
 			String dp = cs.getProperty(id, "scan");
 			if(dp == null)
@@ -303,6 +415,11 @@ final public class PoolConfig {
 			if(null != bf) {
 				m_binaryLogFile = new File(bf);
 			}
+			m_binaryLogBufferSize = Math.max(MIN_BINARY_LOG_BUFFER, cs.getInt(id, "binaryLogBuffer", DEFAULT_BINARY_LOG_BUFFER / 1024) * 1024);
+			m_binaryLogBlocking = cs.getBool(id, "binaryLogBlocking", false);
+			m_binaryLogRotateSize = Math.max(0, cs.getInt(id, "binaryLogRotate", 0)) * 1024L * 1024L;
+			m_binaryLogKeep = cs.getInt(id, "binaryLogKeep", DEFAULT_BINARY_LOG_KEEP);
+			m_binaryLogCompress = cs.getBool(id, "binaryLogCompress", true);
 		} catch(Exception x) {
 			x.printStackTrace();
 			throw new RuntimeException("Pool " + id + " parameter error: " + x, x);
@@ -420,6 +537,95 @@ final public class PoolConfig {
 		return m_binaryLogFile;
 	}
 
+	/**
+	 * The size, in bytes, of each of the two memory buffers of the binary statement log. Configured
+	 * in KB with "binaryLogBuffer"; defaults to 1MB.
+	 * @return
+	 */
+	public int getBinaryLogBufferSize() {
+		return m_binaryLogBufferSize;
+	}
+
+	/**
+	 * When T a statement waits when the binary log's buffer is full; when F (the default) its log
+	 * record is dropped instead. Configured with "binaryLogBlocking".
+	 * @return
+	 */
+	public boolean isBinaryLogBlocking() {
+		return m_binaryLogBlocking;
+	}
+
+	/**
+	 * The size, in bytes, at which the binary log is rotated. Configured in MB with "binaryLogRotate";
+	 * 0 (the default) never rotates.
+	 * @return
+	 */
+	public long getBinaryLogRotateSize() {
+		return m_binaryLogRotateSize;
+	}
+
+	/**
+	 * The #of rotated binary log files to keep. Configured with "binaryLogKeep"; defaults to 10, 0 keeps all.
+	 * @return
+	 */
+	public int getBinaryLogKeep() {
+		return m_binaryLogKeep;
+	}
+
+	/**
+	 * When T (the default) rotated binary log files are gzipped. Configured with "binaryLogCompress".
+	 * @return
+	 */
+	public boolean isBinaryLogCompress() {
+		return m_binaryLogCompress;
+	}
+
+	/**
+	 * The max. time, in seconds, that a request waits for a pooled connection when all
+	 * of them are in use, before it fails with an exception. Configured with "acquiretimeout";
+	 * defaults to 60 seconds.
+	 * @return
+	 */
+	public int getAcquireTimeout() {
+		return m_acquireTimeout;
+	}
+
+	/**
+	 * The max. #of prepared statements that are kept open per connection, so that preparing the same
+	 * SQL again reuses the driver's statement. Configured with "statementcache"; 0 (the default)
+	 * disables the cache.
+	 * @return
+	 */
+	public int getStatementCacheSize() {
+		return m_statementCacheSize;
+	}
+
+	/**
+	 * Only every Nth tracepoint (statement and allocation location) captures a stack. Configured
+	 * with "tracesample"; defaults to 1, so every tracepoint has a stack.
+	 * @return
+	 */
+	public int getTraceSample() {
+		return m_traceSample;
+	}
+
+	/**
+	 * The max. #of microseconds per second that may be spent capturing tracepoint stacks. Configured
+	 * with "tracebudget"; 0 (the default) means unlimited.
+	 * @return
+	 */
+	public int getTraceBudget() {
+		return m_traceBudget;
+	}
+
+	/**
+	 * The max. #of stack frames kept per tracepoint. Configured with "tracedepth"; 0 (the default) keeps all.
+	 * @return
+	 */
+	public int getTraceDepth() {
+		return m_traceDepth;
+	}
+
 	/**
 	 * Returns the time, in seconds, that a LONGRUNNING connection is
 	 * allowed to run past the expiry time. A LONGRUNNING connection
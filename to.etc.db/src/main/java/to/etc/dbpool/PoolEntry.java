@@ -27,11 +27,13 @@ package to.etc.dbpool;
 import java.sql.*;
 import java.util.*;
 
+import javax.annotation.*;
 import javax.annotation.concurrent.*;
 
 /**
  * Entry in the connection pool, either used or free. Data in here is protected
- * by the POOL.
+ * by the entry itself, so that using one connection does not lock the others; the
+ * pool's lock is only used for pool-wide state.
  *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Nov 2, 2010
@@ -49,18 +51,23 @@ final class PoolEntry {
 	/** The actual (real) database connection; null if closed. */
 	private final Connection m_cx;
 
-	/** T if this is an unpooled connection. */
-	private boolean m_unpooled;
+	/** T if this is an unpooled connection. Volatile because the pool's allocation path sets it without locking. */
+	private volatile boolean m_unpooled;
 
 	private boolean m_sqlTrace;
 
+	/** The cache of prepared driver statements for this connection, or null if the pool does not cache statements. */
+	@Nullable
+	private final PreparedStatementCache m_statementCache;
+
 	/** The connection proxy that currently references this connection. */
+	@GuardedBy("this")
 	private ConnectionProxy m_proxy;
 
 	private int m_timeout;
 
 	/** This entry's state; will change if the entry is forced closed. */
-	@GuardedBy("m_pool")
+	@GuardedBy("this")
 	private ConnState m_state = ConnState.OPEN;
 
 	PoolEntry(final Connection cx, final ConnectionPool pool, final int idnr, final String userid) throws SQLException {
@@ -69,6 +76,8 @@ final class PoolEntry {
 		m_id = idnr;
 		m_userID = userid;
 		m_timeout = pool.getForceTimeout();
+		int cacheSize = pool.c().getStatementCacheSize();
+		m_statementCache = cacheSize > 0 ? new PreparedStatementCache(cacheSize) : null;
 	}
 
 	/*--------------------------------------------------------------*/
@@ -110,27 +119,21 @@ final class PoolEntry {
 	/*	CODING:	Simple locking accessor code.						*/
 	/*--------------------------------------------------------------*/
 	/**
-	 * Abort if the entry has been closed. LOCKS POOL
+	 * Abort if the entry has been closed. LOCKS ENTRY
 	 */
 	private void usable() {
-		synchronized(m_pool) {
+		synchronized(this) {
 			if(m_state != ConnState.OPEN)
 				throw new IllegalStateException("PoolEntry was " + m_state);
 		}
 	}
 
-	@GuardedBy("m_pool")
 	void setUnpooled(final boolean unpooled) {
-		synchronized(m_pool) {
-			m_unpooled = unpooled;
-		}
+		m_unpooled = unpooled;
 	}
 
-	@GuardedBy("m_pool")
 	boolean isUnpooled() {
-		synchronized(m_pool) {
-			return m_unpooled;
-		}
+		return m_unpooled;
 	}
 
 	/**
@@ -173,12 +176,11 @@ final class PoolEntry {
 	/*	CODING:	Proxy management.									*/
 	/*--------------------------------------------------------------*/
 	/**
-	 * Returns the current proxy. Returns null if unassigned. LOCKS POOL.
+	 * Returns the current proxy. Returns null if unassigned. LOCKS ENTRY.
 	 * @return
 	 */
-	@GuardedBy("m_pool")
 	ConnectionProxy getProxy() {
-		synchronized(m_pool) {
+		synchronized(this) {
 			return m_proxy;
 		}
 	}
@@ -190,7 +192,7 @@ final class PoolEntry {
 	ConnectionProxy proxyMake() {
 		int id = PoolManager.nextConnID();
 		ConnectionProxy px = new ConnectionProxy(this, id, Thread.currentThread(), m_pool.dbgIsStackTraceEnabled(), isUnpooled());
-		synchronized(m_pool) {
+		synchronized(this) {
 			usable();
 
 			if(m_proxy != null) {
@@ -212,7 +214,7 @@ final class PoolEntry {
 	 */
 	void release(final ConnectionProxy pc) throws SQLException {
 		String panictext = null;
-		synchronized(m_pool) {
+		synchronized(this) {
 			if(pc != m_proxy) {
 				panictext = "DB Proxy closed but entry is not owning it??";
 			} else {
@@ -248,7 +250,7 @@ final class PoolEntry {
 	 */
 	void invalidate(final ConnectionProxy pc) {
 		String panictext = null;
-		synchronized(m_pool) {
+		synchronized(this) {
 			if(m_state != ConnState.OPEN)
 				return; // Already released/releasing
 
@@ -296,6 +298,9 @@ final class PoolEntry {
 	 * any failure. After this the PE is fully unusable. The state should already reflect that.
 	 */
 	void releaseConnection() {
+		PreparedStatementCache cache = m_statementCache;
+		if(null != cache)
+			cache.closeAll();
 		try {
 			m_cx.rollback();
 		} catch(Exception x) {}
@@ -335,7 +340,7 @@ final class PoolEntry {
 	/*	CODING:	Connection resource management...					*/
 	/*--------------------------------------------------------------*/
 	/** All objects allocated FROM this connection. */
-	@GuardedBy("m_pool")
+	@GuardedBy("this")
 	private HashSet<Object> m_use_set = new HashSet<Object>();
 
 	/**
@@ -343,7 +348,7 @@ final class PoolEntry {
 	 * released when the time comes. Aborts if the entry is currently closed.
 	 */
 	void addResource(final Object o) {
-		synchronized(m_pool) {
+		synchronized(this) {
 			if(m_state == ConnState.OPEN) {
 				//-- No problems: just add to the set of resources. If we are between proxy invalidate and this-invalidate the latter closes this too.
 				m_use_set.add(o); // Add, do not allow duplicates.
@@ -361,7 +366,7 @@ final class PoolEntry {
 	 * Removes a tracked resource when it was closed normally.
 	 */
 	void removeResource(final ConnectionProxy pc, final Object o) {
-		synchronized(m_pool) {
+		synchronized(this) {
 			if(m_state != ConnState.OPEN)
 				return;
 			if(!m_use_set.remove(o)) { // Remove from set,
@@ -383,7 +388,7 @@ final class PoolEntry {
 	 */
 	void closeResources() {
 		Set<Object> todo;
-		synchronized(m_pool) {
+		synchronized(this) {
 			todo = m_use_set;
 			m_use_set = new HashSet<Object>();
 		}
@@ -426,11 +431,43 @@ final class PoolEntry {
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Tracked resource allocation routines..				*/
 	/*--------------------------------------------------------------*/
+	/**
+	 * If this connection caches statements, take the statement for the key from the cache and
+	 * register the hit or miss.
+	 */
+	@Nullable
+	private PreparedStatement takeCachedStatement(@Nonnull PreparedStatementProxy ps, @Nonnull String key) {
+		PreparedStatementCache cache = m_statementCache;
+		if(null == cache)
+			return null;
+		PreparedStatement st = cache.take(key);
+		ps.setCached(key, st != null);
+		m_pool.registerStatementCacheUse(st != null);
+		return st;
+	}
+
+	/**
+	 * Called when a cached statement was closed and reset, to make it available again. When this entry
+	 * is no longer open the statement is closed.
+	 */
+	void returnToStatementCache(@Nonnull String key, @Nonnull PreparedStatement ps) throws SQLException {
+		PreparedStatementCache cache = m_statementCache;
+		boolean open;
+		synchronized(this) {
+			open = m_state == ConnState.OPEN;
+		}
+		if(null == cache || !open)
+			ps.close();
+		else
+			cache.put(key, ps);								// The cache closes the statement itself when it was closed meanwhile
+	}
+
 	protected java.sql.PreparedStatement proxyPrepareStatement(final ConnectionProxy pc, final java.lang.String p1) throws java.sql.SQLException {
 		PreparedStatementProxy ps = new PreparedStatementProxy(pc, p1);
 		try {
 			pc.statsHandler().prepareStatement(ps);
-			ps.associate(getConnection().prepareStatement(p1));
+			PreparedStatement st = takeCachedStatement(ps, p1);
+			ps.associate(st != null ? st : getConnection().prepareStatement(p1));
 		} finally {
 			pc.statsHandler().prepareStatementEnd(ps);
 		}
@@ -443,7 +480,8 @@ final class PoolEntry {
 		PreparedStatementProxy ps = new PreparedStatementProxy(pc, p1);
 		try {
 			pc.statsHandler().prepareStatement(ps);
-			ps.associate(getConnection().prepareStatement(p1, p2, p3));
+			PreparedStatement st = takeCachedStatement(ps, PreparedStatementCache.key(p1, p2, p3));
+			ps.associate(st != null ? st : getConnection().prepareStatement(p1, p2, p3));
 		} finally {
 			pc.statsHandler().prepareStatementEnd(ps);
 		}
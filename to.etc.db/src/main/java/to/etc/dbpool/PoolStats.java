@@ -84,8 +84,14 @@ final public class PoolStats {
 
 	final private List<ConnectionProxy> m_hangingConnections;
 
+	/** The #of prepares that reused a statement from a connection's statement cache. */
+	final private long m_statementCacheHits;
+
+	/** The #of prepares that did not find the statement in the connection's statement cache. */
+	final private long m_statementCacheMisses;
+
 	PoolStats(int nUnpooledInuse, int nPooledAllocated, int nPooledInuse, int maxUsed, int nConnallocations, int nConnectionwaits, int nConnectionfails, int nHangdisconnects, int nOpenStmt,
-		int peakOpenStmt, long nOpenRs, long nExec, long nRows, List<ConnectionProxy> hang, int totaldb, int unpooledmax) {
+		int peakOpenStmt, long nOpenRs, long nExec, long nRows, List<ConnectionProxy> hang, int totaldb, int unpooledmax, long cacheHits, long cacheMisses) {
 		m_unpooledAllocated = nUnpooledInuse;
 		m_pooledAllocated = nPooledAllocated;
 		m_pooledUsed = nPooledInuse;
@@ -102,6 +108,8 @@ final public class PoolStats {
 		m_hangingConnections = hang;
 		m_totalDatabaseAllocations = totaldb;
 		m_unpooledMaxAllocated = unpooledmax;
+		m_statementCacheHits = cacheHits;
+		m_statementCacheMisses = cacheMisses;
 	}
 
 	public int getTotalDatabaseAllocations() {
@@ -189,4 +197,17 @@ final public class PoolStats {
 	public List<ConnectionProxy> getCurrentlyHangingConnections() {
 		return m_hangingConnections;
 	}
+
+	/**
+	 * The #of prepares that reused a statement from the statement cache. Always 0 when
+	 * the pool does not cache statements.
+	 * @return
+	 */
+	public long getStatementCacheHits() {
+		return m_statementCacheHits;
+	}
+
+	public long getStatementCacheMisses() {
+		return m_statementCacheMisses;
+	}
 }
@@ -0,0 +1,116 @@
+/*
+ * DomUI Java User Interface - shared code
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.dbpool;
+
+import java.sql.*;
+import java.util.*;
+
+import javax.annotation.*;
+
+/**
+ * LRU cache of driver PreparedStatements for a single database connection ({@link PoolEntry}). A statement
+ * is removed from the cache while it is in use, so that preparing the same SQL twice on a connection
+ * returns two different statements. When a cached statement's proxy is closed the statement is reset
+ * and put back; when the cache is full the least recently used statement is closed.
+ *
+ * Created on Oct 18, 2026
+ */
+final class PreparedStatementCache {
+	private final int m_maxSize;
+
+	/** Access-ordered, so that the eldest entry is the least recently used one. */
+	@Nonnull
+	private final LinkedHashMap<String, PreparedStatement> m_map;
+
+	private boolean m_closed;
+
+	PreparedStatementCache(int maxSize) {
+		m_maxSize = maxSize;
+		m_map = new LinkedHashMap<String, PreparedStatement>(maxSize * 2, 0.75f, true);
+	}
+
+	/**
+	 * Take the statement for the key out of the cache, or return null if it is not cached.
+	 */
+	@Nullable
+	synchronized PreparedStatement take(@Nonnull String key) {
+		return m_map.remove(key);
+	}
+
+	/**
+	 * Put a statement that was reset back into the cache. If the cache already has a
+	 * statement for the key, or if it has been closed, the statement is closed instead.
+	 */
+	void put(@Nonnull String key, @Nonnull PreparedStatement ps) {
+		PreparedStatement toClose = ps;
+		synchronized(this) {
+			if(!m_closed && !m_map.containsKey(key)) {
+				m_map.put(key, ps);
+				toClose = null;
+				if(m_map.size() > m_maxSize) {
+					Iterator<PreparedStatement> it = m_map.values().iterator();
+					toClose = it.next();
+					it.remove();
+				}
+			}
+		}
+		if(null != toClose)
+			close(toClose);
+	}
+
+	/**
+	 * Close all cached statements, and close all statements that are put back later. Called when the connection is released.
+	 */
+	void closeAll() {
+		List<PreparedStatement> list;
+		synchronized(this) {
+			m_closed = true;
+			list = new ArrayList<PreparedStatement>(m_map.values());
+			m_map.clear();
+		}
+		for(PreparedStatement ps : list)
+			close(ps);
+	}
+
+	synchronized int size() {
+		return m_map.size();
+	}
+
+	static private void close(@Nonnull PreparedStatement ps) {
+		try {
+			ps.close();
+		} catch(Exception x) {}
+	}
+
+	/**
+	 * Create the cache key for a statement prepared with the specified result set type and concurrency.
+	 */
+	@Nonnull
+	static String key(@Nonnull String sql, int resultSetType, int resultSetConcurrency) {
+		if(resultSetType == ResultSet.TYPE_FORWARD_ONLY && resultSetConcurrency == ResultSet.CONCUR_READ_ONLY)
+			return sql;
+		return resultSetType + ":" + resultSetConcurrency + ":" + sql;
+	}
+}
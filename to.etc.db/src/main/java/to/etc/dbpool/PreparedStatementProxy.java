@@ -32,6 +32,8 @@ import java.sql.Date;
 import java.util.*;
 import java.util.logging.*;
 
+import javax.annotation.*;
+
 /**
  *	Encapsulates a java.sql.PreparedStatement for NEMA purposes. This class
  *  implements all of the interface, and merely routes all calls to the original
@@ -44,6 +46,22 @@ public class PreparedStatementProxy extends StatementProxy implements PreparedSt
 
 	private int m_maxpar;
 
+	/** When the real statement comes from the connection's statement cache this is its key there, else null. */
+	@Nullable
+	private String m_cacheKey;
+
+	/** T if the real statement was found in the statement cache, F if it was prepared for this proxy. */
+	private boolean m_cacheHit;
+
+	/** Becomes F when something happened that makes the real statement unfit for the statement cache. */
+	private boolean m_reusable = true;
+
+	private boolean m_batchUsed;
+
+	/** The last result set returned by executeQuery(). */
+	@Nullable
+	private ResultSetProxy m_lastResultSet;
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Changed/intercepted methods..						*/
 	/*--------------------------------------------------------------*/
@@ -86,6 +104,65 @@ public class PreparedStatementProxy extends StatementProxy implements PreparedSt
 		m_par[ix] = v;
 	}
 
+	/**
+	 * Called when the statement cache is enabled for the connection, to tell whether the real statement was found in it.
+	 */
+	void setCached(@Nonnull String key, boolean hit) {
+		m_cacheKey = key;
+		m_cacheHit = hit;
+	}
+
+	/**
+	 * T if this statement's connection uses a statement cache.
+	 */
+	public boolean isCached() {
+		return m_cacheKey != null;
+	}
+
+	/**
+	 * T if the real statement was reused from the connection's statement cache.
+	 */
+	public boolean isCacheHit() {
+		return m_cacheHit;
+	}
+
+	/**
+	 * When the real statement is cacheable it is reset and returned to the cache, else it is closed. The
+	 * statement is not reused if it failed, if its settings were changed, or if it was executed with
+	 * execute() because that can leave unretrieved results behind.
+	 */
+	@Override
+	protected void closeRealStatement(Statement st) throws SQLException {
+		String key = m_cacheKey;
+		PreparedStatement ps = (PreparedStatement) st;
+		if(null == key || !m_reusable || isModified() || !resetForReuse(ps)) {
+			st.close();
+			return;
+		}
+		_conn().returnToStatementCache(key, ps);
+	}
+
+	/**
+	 * Clear everything a next user of the statement could see: an open result set, parameters,
+	 * batched parameter sets, warnings and changed max rows, query timeout and fetch size.
+	 */
+	private boolean resetForReuse(@Nonnull PreparedStatement ps) {
+		try {
+			ResultSetProxy rs = m_lastResultSet;
+			m_lastResultSet = null;
+			if(null != rs)
+				rs.close();
+			ps.clearParameters();
+			if(m_batchUsed)
+				ps.clearBatch();
+			ps.clearWarnings();
+			restoreSettings(ps);
+			return true;
+		} catch(Exception x) {
+			return false;
+		}
+	}
+
 	public Object[] internalGetParameters() {
 		Object[] res = new Object[m_maxpar];
 		System.arraycopy(m_par, 0, res, 0, m_maxpar);
@@ -99,6 +176,7 @@ public class PreparedStatementProxy extends StatementProxy implements PreparedSt
 	 */
 	@Override
 	protected SQLException wrap(final SQLException x) {
+		m_reusable = false;
 		if(pool().c().isPrintExceptions()) {
 			System.out.println("----- db: exception in statement -----");
 			System.out.println("SQL: " + getSQL());
@@ -124,6 +202,7 @@ public class PreparedStatementProxy extends StatementProxy implements PreparedSt
 			rpx.associate(getRealPreparedStatement().executeQuery());
 			pool().incOpenRS();
 			_conn().addResource(rpx);
+			m_lastResultSet = rpx;
 			return rpx;
 		} catch(SQLException x) {
 			wx = wrap(x);
@@ -157,6 +236,7 @@ public class PreparedStatementProxy extends StatementProxy implements PreparedSt
 		pool().logExecution(this, ST_EXECUTE);
 		if(LOG.isLoggable(Level.FINE))
 			LOG.fine("execute called");
+		m_reusable = false;
 		SQLException wx = null;
 		boolean res = false;
 		try {
@@ -377,6 +457,7 @@ public class PreparedStatementProxy extends StatementProxy implements PreparedSt
 			LOG.fine("parameters:" + BetterSQLException.format(m_par, m_maxpar));
 		}
 
+		m_batchUsed = true;
 		try {
 			_conn().statsHandler().addBatch(this, getSQL());
 			getRealPreparedStatement().addBatch();
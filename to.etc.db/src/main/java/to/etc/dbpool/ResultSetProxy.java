@@ -73,7 +73,7 @@ public class ResultSetProxy implements ResultSet {
 			m_par = ((PreparedStatementProxy) sp).internalGetParameters();
 		}
 		if(sp.pool().c().isLogResultSetLocations()) {
-			m_allocationLocation = Tracepoint.create(sp.getSQL());
+			m_allocationLocation = Tracepoint.create(sp.getSQL(), sp.pool().getTraceSampler());
 		}
 	}
 
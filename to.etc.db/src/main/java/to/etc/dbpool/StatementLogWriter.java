@@ -0,0 +1,367 @@
+/*
+ * DomUI Java User Interface - shared code
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.dbpool;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.text.*;
+import java.util.*;
+import java.util.zip.*;
+
+import javax.annotation.*;
+import javax.annotation.concurrent.*;
+
+/**
+ * Writes the binary statement log of a pool (see {@link ConnectionPool#setFileLogging(File)}) without ever
+ * letting the thread that executes a statement wait for disk I/O.
+ *
+ * <p>Records are copied into one of two memory buffers. A writer thread swaps the buffers and writes the
+ * full one to the file through a FileChannel, while statements are being copied into the other one. When the
+ * disk cannot keep up and the buffer fills up, records are either dropped and counted (the default), or, when
+ * configured as blocking, the executing thread waits until the writer has swapped the buffers.</p>
+ *
+ * <p>When the log file grows past the rotation size it is renamed to name.yyyyMMdd-HHmmss and a new file
+ * is started. Rotated files are gzipped in the background, and only the last few of them are kept. Every file
+ * starts at a record boundary, so every file, compressed or not, can be replayed by DbReplay.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class StatementLogWriter {
+	/** The max. time the writer thread waits before writing a partially filled buffer. */
+	static private final long FLUSH_INTERVAL = 500;
+
+	/** The min. time between two messages about dropped records. */
+	static private final long DROP_REPORT_INTERVAL = 60 * 1000;
+
+	@Nonnull
+	private final String m_poolId;
+
+	@Nonnull
+	private final File m_target;
+
+	private final boolean m_blocking;
+
+	private final long m_rotateSize;
+
+	private final int m_keepFiles;
+
+	private final boolean m_compress;
+
+	@Nonnull
+	@GuardedBy("this")
+	private ByteBuffer m_active;
+
+	@Nonnull
+	@GuardedBy("this")
+	private ByteBuffer m_flushing;
+
+	@GuardedBy("this")
+	private boolean m_running = true;
+
+	@GuardedBy("this")
+	private long m_droppedCount;
+
+	@GuardedBy("this")
+	private long m_recordCount;
+
+	/** The #of dropped records last reported. */
+	private long m_reportedDropCount;
+
+	private long m_lastDropReport;
+
+	/** Only used by the writer thread. */
+	@Nullable
+	private FileChannel m_channel;
+
+	@Nonnull
+	private final Thread m_writerThread;
+
+	/** Separate lock for removing old files, which is done by the compressor threads. */
+	private final Object m_cleanupLock = new Object();
+
+	/** The rotated files that are being compressed, which must not be removed yet. */
+	@GuardedBy("m_cleanupLock")
+	private final Set<File> m_compressing = new HashSet<>();
+
+	/** Writes what is still buffered when the VM exits. */
+	@Nonnull
+	private final Thread m_shutdownHook = new Thread(this::close, "dblgwr-exit");
+
+	StatementLogWriter(@Nonnull String poolId, @Nonnull File target, int bufferSize, boolean blocking, long rotateSize, int keepFiles, boolean compress) throws IOException {
+		m_poolId = poolId;
+		m_target = target;
+		m_blocking = blocking;
+		m_rotateSize = rotateSize;
+		m_keepFiles = keepFiles;
+		m_compress = compress;
+		m_active = ByteBuffer.allocateDirect(bufferSize);
+		m_flushing = ByteBuffer.allocateDirect(bufferSize);
+		m_channel = open();
+
+		m_writerThread = new Thread(this::writerLoop);
+		m_writerThread.setName("dblgwr-" + poolId);
+		m_writerThread.setDaemon(true);
+		m_writerThread.start();
+		Runtime.getRuntime().addShutdownHook(m_shutdownHook);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Adding records.										*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Add a record to the log. This never waits for I/O; if the buffer is full the record is dropped, or
+	 * when the writer is blocking this waits until the writer has emptied a buffer.
+	 */
+	public void append(@Nonnull byte[] record) {
+		synchronized(this) {
+			for(;;) {
+				if(!m_running)
+					return;
+				if(record.length > m_active.capacity()) {
+					m_droppedCount++;					// Can never be written.
+					return;
+				}
+				if(m_active.remaining() >= record.length) {
+					m_active.put(record);
+					m_recordCount++;
+					if(m_active.remaining() < m_active.capacity() / 2)
+						notifyAll();					// Wake the writer early when the buffer is half full
+					return;
+				}
+				if(!m_blocking) {
+					m_droppedCount++;
+					return;
+				}
+				try {
+					wait();
+				} catch(InterruptedException x) {
+					m_droppedCount++;
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The #of records that were dropped because the buffer was full.
+	 */
+	public synchronized long getDroppedCount() {
+		return m_droppedCount;
+	}
+
+	/**
+	 * The #of records added to the log.
+	 */
+	public synchronized long getRecordCount() {
+		return m_recordCount;
+	}
+
+	public synchronized boolean isRunning() {
+		return m_running;
+	}
+
+	@Nonnull
+	public File getTarget() {
+		return m_target;
+	}
+
+	/**
+	 * Write everything buffered and close the log.
+	 */
+	public void close() {
+		synchronized(this) {
+			if(!m_running)
+				return;
+			m_running = false;
+			notifyAll();
+		}
+		try {
+			m_writerThread.join(10 * 1000);
+		} catch(InterruptedException x) {
+			Thread.currentThread().interrupt();
+		}
+		if(Thread.currentThread() != m_shutdownHook) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(m_shutdownHook);
+			} catch(IllegalStateException x) {
+				//-- VM is shutting down.
+			}
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Writer thread.										*/
+	/*--------------------------------------------------------------*/
+
+	private void writerLoop() {
+		try {
+			for(;;) {
+				ByteBuffer buf;
+				boolean last;
+				synchronized(this) {
+					if(m_running && m_active.position() < m_active.capacity() / 2)
+						wait(FLUSH_INTERVAL);
+					last = !m_running;
+					buf = m_active;
+					m_active = m_flushing;
+					m_flushing = buf;
+					notifyAll();						// Release blocked writers
+				}
+				buf.flip();
+				write(buf);
+				buf.clear();
+				reportDrops();
+				if(last)
+					break;
+			}
+		} catch(Exception x) {
+			System.out.println("pool(" + m_poolId + ") statement log write error " + x + ": logging cancelled");
+			x.printStackTrace();
+		} finally {
+			synchronized(this) {
+				m_running = false;
+				notifyAll();
+			}
+			closeChannel();
+		}
+	}
+
+	private void write(@Nonnull ByteBuffer buf) throws IOException {
+		if(!buf.hasRemaining())
+			return;
+		FileChannel fc = m_channel;
+		if(null == fc)
+			throw new IOException("Log file is closed");
+		while(buf.hasRemaining())
+			fc.write(buf);
+		if(m_rotateSize > 0 && fc.size() >= m_rotateSize)
+			rotate();
+	}
+
+	private void reportDrops() {
+		long dropped = getDroppedCount();
+		if(dropped == m_reportedDropCount)
+			return;
+		long now = System.currentTimeMillis();
+		if(now - m_lastDropReport < DROP_REPORT_INTERVAL)
+			return;
+		System.out.println("pool(" + m_poolId + ") statement log: " + (dropped - m_reportedDropCount) + " records dropped because the log buffer was full, " + dropped + " in total");
+		m_reportedDropCount = dropped;
+		m_lastDropReport = now;
+	}
+
+	@Nonnull
+	private FileChannel open() throws IOException {
+		return FileChannel.open(m_target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	private void closeChannel() {
+		FileChannel fc = m_channel;
+		m_channel = null;
+		if(null != fc) {
+			try {
+				fc.close();
+			} catch(Exception x) {}
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Rotation.											*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Rename the current file and start a new one. The renamed file is compressed in the background.
+	 */
+	private void rotate() throws IOException {
+		closeChannel();
+		String suffix = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		File rotated = new File(m_target.getPath() + "." + suffix);
+		for(int i = 1; rotated.exists() || new File(rotated.getPath() + ".gz").exists(); i++)
+			rotated = new File(m_target.getPath() + "." + suffix + "-" + i);
+		Files.move(m_target.toPath(), rotated.toPath());
+		m_channel = open();
+
+		if(m_compress) {
+			File source = rotated;
+			synchronized(m_cleanupLock) {
+				m_compressing.add(source.getAbsoluteFile());
+			}
+			Thread t = new Thread(() -> {
+				compress(source);
+				synchronized(m_cleanupLock) {
+					m_compressing.remove(source.getAbsoluteFile());
+				}
+				removeOldFiles();
+			});
+			t.setName("dblgzip-" + m_poolId);
+			t.setDaemon(true);
+			t.start();
+		} else
+			removeOldFiles();
+	}
+
+	private void compress(@Nonnull File source) {
+		File gz = new File(source.getPath() + ".gz");
+		File tmp = new File(source.getPath() + ".gz.tmp");
+		try {
+			try(InputStream is = new FileInputStream(source); OutputStream os = new GZIPOutputStream(new FileOutputStream(tmp), 65536)) {
+				byte[] buf = new byte[65536];
+				int szrd;
+				while(0 < (szrd = is.read(buf)))
+					os.write(buf, 0, szrd);
+			}
+			Files.move(tmp.toPath(), gz.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			Files.delete(source.toPath());
+		} catch(Exception x) {
+			System.out.println("pool(" + m_poolId + ") statement log: cannot compress " + source + ": " + x);
+			tmp.delete();
+		}
+	}
+
+	/**
+	 * Delete the oldest rotated files so that only the configured number remains. This stops at a file
+	 * that is still being compressed; its compressor calls this again when it is done.
+	 */
+	private void removeOldFiles() {
+		if(m_keepFiles <= 0)
+			return;
+		synchronized(m_cleanupLock) {
+			File dir = m_target.getAbsoluteFile().getParentFile();
+			String prefix = m_target.getName() + ".";
+			File[] list = dir == null ? null : dir.listFiles((d, name) -> name.startsWith(prefix) && !name.endsWith(".tmp"));
+			if(null == list || list.length <= m_keepFiles)
+				return;
+			Arrays.sort(list, (a, b) -> a.getName().compareTo(b.getName()));
+			for(int i = 0; i < list.length - m_keepFiles; i++) {
+				if(m_compressing.contains(list[i]))
+					break;
+				if(!list[i].delete())
+					System.out.println("pool(" + m_poolId + ") statement log: cannot delete old log file " + list[i]);
+			}
+		}
+	}
+}
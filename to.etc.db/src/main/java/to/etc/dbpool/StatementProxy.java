@@ -57,6 +57,23 @@ public class StatementProxy implements Statement {
 
 	private int m_timeout;
 
+	/**
+	 * T when the statement was changed in a way that is not undone when it is closed (like
+	 * changing its cursor name or fetch direction), so that it must not be reused by the statement cache.
+	 */
+	private boolean m_modified;
+
+	/**
+	 * The max rows, query timeout and fetch size the statement had before they were first changed, or -1 if
+	 * they were not changed. These are commonly set, so instead of making the statement unusable for the
+	 * statement cache they are restored by {@link #restoreSettings(Statement)}.
+	 */
+	private int m_originalMaxRows = -1;
+
+	private int m_originalQueryTimeout = -1;
+
+	private int m_originalFetchSize = -1;
+
 	/** The start timestamp of the last action on this statement. */
 	long m_tsStart;
 
@@ -82,7 +99,7 @@ public class StatementProxy implements Statement {
 		m_sql_str = sql;
 		m_c = c;
 		if(c.getPool().c().isLogResultSetLocations()) {
-			m_allocationLocation = Tracepoint.create(null);
+			m_allocationLocation = Tracepoint.create(null, c.getPool().getTraceSampler());
 		}
 		m_timeout = c.getPool().getForceTimeout();
 	}
@@ -109,7 +126,7 @@ public class StatementProxy implements Statement {
 
 		m_closeReason = "Normal close call";
 		try {
-			m_st.close();
+			closeRealStatement(m_st);
 		} finally {
 			m_st = null; // Force this connection cleared
 			try {
@@ -120,6 +137,34 @@ public class StatementProxy implements Statement {
 		}
 	}
 
+	/**
+	 * Called on a normal close to close the real statement. Overridden to return cached
+	 * statements to the statement cache instead.
+	 */
+	protected void closeRealStatement(Statement st) throws SQLException {
+		st.close();
+	}
+
+	/**
+	 * T if the statement's settings were changed, so that it cannot be reused by the statement cache.
+	 */
+	protected boolean isModified() {
+		return m_modified;
+	}
+
+	/**
+	 * Give the real statement back the max rows, query timeout and fetch size it had before they were changed
+	 * through this proxy, so that it can be reused.
+	 */
+	protected void restoreSettings(Statement st) throws SQLException {
+		if(m_originalMaxRows >= 0)
+			st.setMaxRows(m_originalMaxRows);
+		if(m_originalQueryTimeout >= 0)
+			st.setQueryTimeout(m_originalQueryTimeout);
+		if(m_originalFetchSize >= 0)
+			st.setFetchSize(m_originalFetchSize);
+	}
+
 	public Connection getRealConnection() {
 		getRealStatement(); // Check if already closed.
 		return m_c.getRealConnection();
@@ -212,6 +257,7 @@ public class StatementProxy implements Statement {
 	/*--------------------------------------------------------------*/
 	public ResultSet executeQuery(final String sql) throws SQLException {
 		m_sql_str = sql;
+		m_modified = true;
 		pool().logExecution(this, ST_QUERY);
 		if(LOG.isLoggable(Level.FINE))
 			LOG.fine("executeQuery: " + sql);
@@ -233,6 +279,7 @@ public class StatementProxy implements Statement {
 
 	public int executeUpdate(final String sql) throws SQLException {
 		m_sql_str = sql;
+		m_modified = true;
 		pool().logExecution(this, ST_UPDATE);
 		if(LOG.isLoggable(Level.FINE))
 			LOG.fine("executeUpdate: " + sql);
@@ -252,6 +299,7 @@ public class StatementProxy implements Statement {
 
 	public boolean execute(final String sql) throws SQLException {
 		m_sql_str = sql;
+		m_modified = true;
 		pool().logExecution(this, ST_EXECUTE);
 		if(LOG.isLoggable(Level.FINE))
 			LOG.fine("execute: " + sql);
@@ -272,6 +320,7 @@ public class StatementProxy implements Statement {
 
 	public void addBatch(final String sql) throws SQLException {
 		m_sql_str = sql;
+		m_modified = true;
 		pool().logExecution(this, ST_BATCH);
 		if(LOG.isLoggable(Level.FINE))
 			LOG.fine("addBatch: " + sql);
@@ -305,6 +354,7 @@ public class StatementProxy implements Statement {
 		if(LOG.isLoggable(Level.FINE))
 			LOG.fine("execute: " + sql);
 		m_sql_str = sql;
+		m_modified = true;
 		pool().logExecution(this, ST_EXECUTE);
 		SQLException wx = null;
 		Boolean res = null;
@@ -325,6 +375,7 @@ public class StatementProxy implements Statement {
 		if(LOG.isLoggable(Level.FINE))
 			LOG.fine("execute: " + sql);
 		m_sql_str = sql;
+		m_modified = true;
 		pool().logExecution(this, ST_EXECUTE);
 		Boolean res = null;
 		SQLException wx = null;
@@ -345,6 +396,7 @@ public class StatementProxy implements Statement {
 		if(LOG.isLoggable(Level.FINE))
 			LOG.fine("execute: " + sql);
 		m_sql_str = sql;
+		m_modified = true;
 		pool().logExecution(this, ST_EXECUTE);
 		SQLException wx = null;
 		Boolean res = null;
@@ -363,6 +415,7 @@ public class StatementProxy implements Statement {
 
 	public int executeUpdate(final String sql, final String[] ar) throws SQLException {
 		m_sql_str = sql;
+		m_modified = true;
 		pool().logExecution(this, ST_UPDATE);
 		if(LOG.isLoggable(Level.FINE))
 			LOG.fine("executeUpdate: " + sql);
@@ -382,6 +435,7 @@ public class StatementProxy implements Statement {
 
 	public int executeUpdate(final String sql, final int[] ar) throws SQLException {
 		m_sql_str = sql;
+		m_modified = true;
 		pool().logExecution(this, ST_UPDATE);
 		if(LOG.isLoggable(Level.FINE))
 			LOG.fine("executeUpdate: " + sql);
@@ -401,6 +455,7 @@ public class StatementProxy implements Statement {
 
 	public int executeUpdate(final String sql, final int p2) throws SQLException {
 		m_sql_str = sql;
+		m_modified = true;
 		pool().logExecution(this, ST_UPDATE);
 		if(LOG.isLoggable(Level.FINE))
 			LOG.info("executeUpdate: " + sql);
@@ -433,6 +488,7 @@ public class StatementProxy implements Statement {
 
 	public void setMaxFieldSize(final int max) throws SQLException {
 		try {
+			m_modified = true;
 			getRealStatement().setMaxFieldSize(max);
 		} catch(SQLException xx) {
 			throw wrap(xx);
@@ -449,7 +505,10 @@ public class StatementProxy implements Statement {
 
 	public void setMaxRows(final int max) throws SQLException {
 		try {
-			getRealStatement().setMaxRows(max);
+			Statement st = getRealStatement();
+			if(m_originalMaxRows < 0)
+				m_originalMaxRows = st.getMaxRows();
+			st.setMaxRows(max);
 		} catch(SQLException xx) {
 			throw wrap(xx);
 		}
@@ -457,6 +516,7 @@ public class StatementProxy implements Statement {
 
 	public void setEscapeProcessing(final boolean enable) throws SQLException {
 		try {
+			m_modified = true;
 			getRealStatement().setEscapeProcessing(enable);
 		} catch(SQLException xx) {
 			throw wrap(xx);
@@ -473,7 +533,10 @@ public class StatementProxy implements Statement {
 
 	public void setQueryTimeout(final int seconds) throws SQLException {
 		try {
-			getRealStatement().setQueryTimeout(seconds);
+			Statement st = getRealStatement();
+			if(m_originalQueryTimeout < 0)
+				m_originalQueryTimeout = st.getQueryTimeout();
+			st.setQueryTimeout(seconds);
 		} catch(SQLException xx) {
 			throw wrap(xx);
 		}
@@ -505,6 +568,7 @@ public class StatementProxy implements Statement {
 
 	public void setCursorName(final String name) throws SQLException {
 		try {
+			m_modified = true;
 			getRealStatement().setCursorName(name);
 		} catch(SQLException xx) {
 			throw wrap(xx);
@@ -544,6 +608,7 @@ public class StatementProxy implements Statement {
 
 	public void setFetchDirection(final int direction) throws SQLException {
 		try {
+			m_modified = true;
 			getRealStatement().setFetchDirection(direction);
 		} catch(SQLException xx) {
 			throw wrap(xx);
@@ -560,7 +625,10 @@ public class StatementProxy implements Statement {
 
 	public void setFetchSize(final int rows) throws SQLException {
 		try {
-			getRealStatement().setFetchSize(rows);
+			Statement st = getRealStatement();
+			if(m_originalFetchSize < 0)
+				m_originalFetchSize = st.getFetchSize();
+			st.setFetchSize(rows);
 		} catch(SQLException xx) {
 			throw wrap(xx);
 		}
@@ -653,6 +721,7 @@ public class StatementProxy implements Statement {
 
 	public void setPoolable(boolean arg0) throws SQLException {
 		try {
+			m_modified = true;
 			getRealStatement().setPoolable(arg0);
 		} catch(SQLException xx) {
 			throw wrap(xx);
@@ -669,6 +738,7 @@ public class StatementProxy implements Statement {
 
 	@Override
 	public void closeOnCompletion() throws SQLException {
+		m_modified = true;
 		getRealStatement().closeOnCompletion();
 	}
 
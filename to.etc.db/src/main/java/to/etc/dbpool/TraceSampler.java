@@ -0,0 +1,123 @@
+/*
+ * DomUI Java User Interface - shared code
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.dbpool;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Decides which tracepoints of a pool get a stack trace, and measures what capturing them costs. Capturing
+ * a stack for every statement and allocation is expensive, so a pool can be configured to sample:
+ * <ul>
+ *	<li>"tracesample" N: only every Nth tracepoint gets a stack (default 1, all of them).</li>
+ *	<li>"tracebudget" us: the max. #of microseconds per second that may be spent capturing stacks; when it
+ *		is used up tracepoints get no stack until the next second (default 0, unlimited).</li>
+ *	<li>"tracedepth" N: the max. #of stack frames kept (default 0, all of them).</li>
+ * </ul>
+ * Tracepoints that are not sampled still have their timestamp and SQL, but an empty stack.
+ *
+ * Created on Oct 18, 2026
+ */
+final public class TraceSampler {
+	static private final long WINDOW_NANOS = 1000L * 1000 * 1000;
+
+	private final int m_every;
+
+	private final long m_budgetNanos;
+
+	private final int m_maxDepth;
+
+	private final AtomicLong m_callCount = new AtomicLong();
+
+	private final AtomicLong m_captureCount = new AtomicLong();
+
+	private final AtomicLong m_captureNanos = new AtomicLong();
+
+	/** Start of the current budget window, and the time spent capturing in it. */
+	private final AtomicLong m_windowStart = new AtomicLong(System.nanoTime());
+
+	private final AtomicLong m_windowNanos = new AtomicLong();
+
+	TraceSampler(int every, int budgetMicros, int maxDepth) {
+		m_every = Math.max(1, every);
+		m_budgetNanos = Math.max(0, budgetMicros) * 1000L;
+		m_maxDepth = Math.max(0, maxDepth);
+	}
+
+	/**
+	 * Returns T if the tracepoint being created now should capture a stack.
+	 */
+	boolean shouldCapture() {
+		long n = m_callCount.getAndIncrement();
+		if(m_every > 1 && n % m_every != 0)
+			return false;
+		if(m_budgetNanos > 0) {
+			long now = System.nanoTime();
+			long start = m_windowStart.get();
+			if(now - start >= WINDOW_NANOS && m_windowStart.compareAndSet(start, now))
+				m_windowNanos.set(0);
+			if(m_windowNanos.get() >= m_budgetNanos)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Register that capturing a stack took the specified time.
+	 */
+	void captured(long nanos) {
+		m_captureCount.incrementAndGet();
+		m_captureNanos.addAndGet(nanos);
+		if(m_budgetNanos > 0)
+			m_windowNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * The max. #of frames to keep, 0 for all of them.
+	 */
+	int getMaxDepth() {
+		return m_maxDepth;
+	}
+
+	/**
+	 * The #of tracepoints created.
+	 */
+	public long getCallCount() {
+		return m_callCount.get();
+	}
+
+	/**
+	 * The #of tracepoints that got a stack.
+	 */
+	public long getCaptureCount() {
+		return m_captureCount.get();
+	}
+
+	/**
+	 * The total time spent capturing stacks, in nanoseconds.
+	 */
+	public long getCaptureNanos() {
+		return m_captureNanos.get();
+	}
+}
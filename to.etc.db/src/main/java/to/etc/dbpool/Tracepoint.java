@@ -24,40 +24,78 @@
  */
 package to.etc.dbpool;
 
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
 /**
  * This contains a stack trace location. It is not yet pruned.
  *
+ * <p>The stack is kept as an array of frames that is shared by all tracepoints with the same
+ * stack, so that the many tracepoints created at the same few places in the code do not each keep
+ * their own copy. Tracepoints created through a {@link TraceSampler} that was not sampled have
+ * no stack at all.</p>
+ *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Nov 2, 2010
  */
 final public class Tracepoint {
+	static private final StackTraceElement[] NONE = new StackTraceElement[0];
+
+	/** When this many different stacks are interned the set is cleared. */
+	static private final int MAX_INTERNED = 4096;
+
+	static private final Map<FrameSet, StackTraceElement[]> m_frameSetMap = new ConcurrentHashMap<>();
+
 	final private long m_timestamp;
 
+	@Nonnull
 	final private StackTraceElement[] m_elements;
 
-	final private RuntimeException m_asException;
+	@Nullable
+	private RuntimeException m_asException;
 
 	final private String m_sql;
 
-	private Tracepoint(long ts, RuntimeException x, String sql) {
-		m_elements = x.getStackTrace();
-		m_asException = x;
+	private Tracepoint(long ts, @Nonnull StackTraceElement[] elements, String sql) {
+		m_elements = elements;
 		m_timestamp = ts;
 		m_sql = sql;
 	}
 
+	/**
+	 * Return an exception with this tracepoint's stack, or null if the tracepoint has no stack.
+	 */
+	@Nullable
 	public RuntimeException getException() {
-		return m_asException;
+		if(!hasStack())
+			return null;
+		RuntimeException x = m_asException;
+		if(null == x) {
+			x = new RuntimeException("Tracepoint");
+			x.setStackTrace(m_elements);
+			m_asException = x;
+		}
+		return x;
 	}
 
 	public String getSql() {
 		return m_sql;
 	}
 
+	/**
+	 * The stack frames, which is an empty array when the tracepoint was not sampled. The array is shared and must not be changed.
+	 */
+	@Nonnull
 	public StackTraceElement[] getElements() {
 		return m_elements;
 	}
 
+	public boolean hasStack() {
+		return m_elements.length > 0;
+	}
+
 	public long getTimestamp() {
 		return m_timestamp;
 	}
@@ -67,11 +105,79 @@ final public class Tracepoint {
 	 * @return
 	 */
 	static Tracepoint create(String sql) {
-		try {
-			throw new RuntimeException();
-		} catch(RuntimeException x) {
-			StackTraceElement[] se = x.getStackTrace();
-			return new Tracepoint(System.currentTimeMillis(), x, sql);
+		return new Tracepoint(System.currentTimeMillis(), capture(0), sql);
+	}
+
+	/**
+	 * Create a tracepoint for the current timestamp, which has the current stack location only when the
+	 * sampler decides so.
+	 */
+	static Tracepoint create(String sql, @Nonnull TraceSampler sampler) {
+		long ts = System.currentTimeMillis();
+		if(!sampler.shouldCapture())
+			return new Tracepoint(ts, NONE, sql);
+		long start = System.nanoTime();
+		StackTraceElement[] se = capture(sampler.getMaxDepth());
+		sampler.captured(System.nanoTime() - start);
+		return new Tracepoint(ts, se, sql);
+	}
+
+	/**
+	 * Get the current stack without the frames of this class, limited to maxDepth frames (0 = all), and intern it.
+	 */
+	@Nonnull
+	static private StackTraceElement[] capture(int maxDepth) {
+		StackTraceElement[] se = new Throwable().getStackTrace();
+		int sx = 0;
+		while(sx < se.length && Tracepoint.class.getName().equals(se[sx].getClassName()))
+			sx++;
+		int ex = se.length;
+		if(maxDepth > 0 && ex - sx > maxDepth)
+			ex = sx + maxDepth;
+		if(sx != 0 || ex != se.length)
+			se = Arrays.copyOfRange(se, sx, ex);
+		return intern(se);
+	}
+
+	@Nonnull
+	static private StackTraceElement[] intern(@Nonnull StackTraceElement[] se) {
+		FrameSet key = new FrameSet(se);
+		StackTraceElement[] res = m_frameSetMap.get(key);
+		if(null != res)
+			return res;
+		if(m_frameSetMap.size() >= MAX_INTERNED)
+			m_frameSetMap.clear();
+		res = m_frameSetMap.putIfAbsent(key, se);
+		return res == null ? se : res;
+	}
+
+	/**
+	 * Key for interning stacks.
+	 */
+	static private final class FrameSet {
+		@Nonnull
+		private final StackTraceElement[] m_elements;
+
+		private final int m_hash;
+
+		FrameSet(@Nonnull StackTraceElement[] elements) {
+			m_elements = elements;
+			m_hash = Arrays.hashCode(elements);
+		}
+
+		@Override
+		public int hashCode() {
+			return m_hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(this == obj)
+				return true;
+			if(!(obj instanceof FrameSet))
+				return false;
+			FrameSet o = (FrameSet) obj;
+			return m_hash == o.m_hash && Arrays.equals(m_elements, o.m_elements);
 		}
 	}
 }
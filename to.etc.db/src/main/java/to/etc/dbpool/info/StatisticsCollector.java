@@ -147,6 +147,15 @@ final public class StatisticsCollector extends StatisticsCollectorBase implement
 			return;
 		m_nPrepares++;
 		m_prepareDuration += prepareDuration;
+		if(sp instanceof PreparedStatementProxy) {
+			PreparedStatementProxy psp = (PreparedStatementProxy) sp;
+			if(psp.isCached()) {
+				if(psp.isCacheHit())
+					m_nPrepareCacheHits++;
+				else
+					m_nPrepareCacheMisses++;
+			}
+		}
 	}
 
 	@Override
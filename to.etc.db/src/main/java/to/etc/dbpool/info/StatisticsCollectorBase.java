@@ -62,6 +62,17 @@ public class StatisticsCollectorBase {
 	 */
 	protected long m_prepareDuration;
 
+	/**
+	 * The #of prepares that reused a statement from the connection's statement cache.
+	 */
+	protected int m_nPrepareCacheHits;
+
+	/**
+	 * The #of prepares that did not find the statement in the connection's statement cache. Prepares
+	 * on connections without a statement cache are not counted.
+	 */
+	protected int m_nPrepareCacheMisses;
+
 	/**
 	 * #of queries issued using prepared statements.
 	 */
@@ -132,6 +143,8 @@ public class StatisticsCollectorBase {
 		m_preparedQueryDuration = o.m_preparedQueryDuration;
 		m_preparedUpdateDuration = o.m_preparedUpdateDuration;
 		m_prepareDuration = o.m_prepareDuration;
+		m_nPrepareCacheHits = o.m_nPrepareCacheHits;
+		m_nPrepareCacheMisses = o.m_nPrepareCacheMisses;
 		m_statementQueryDuration = o.m_statementQueryDuration;
 		m_statementUpdateDuration = o.m_statementUpdateDuration;
 		m_ts_started = o.m_ts_started;
@@ -209,6 +222,14 @@ public class StatisticsCollectorBase {
 		return m_prepareDuration;
 	}
 
+	public int getNPrepareCacheHits() {
+		return m_nPrepareCacheHits;
+	}
+
+	public int getNPrepareCacheMisses() {
+		return m_nPrepareCacheMisses;
+	}
+
 	public int getNPreparedQueries() {
 		return m_nPreparedQueries;
 	}
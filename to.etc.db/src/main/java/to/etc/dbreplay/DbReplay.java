@@ -27,8 +27,8 @@ public class DbReplay {
 
 	private File m_driverPath;
 
-	/** The buffered input file containing statements. */
-	private BufferedInputStream m_bis;
+	/** The input file containing statements. */
+	private ReplayInput m_input;
 
 	private long m_firstTime;
 
@@ -57,6 +57,9 @@ public class DbReplay {
 	/** When set by -maxwait, this limits the max time to wait between statements, ignoring the time delta's in the log file. */
 	private long m_maxStatementDelay = Long.MAX_VALUE;
 
+	/** The replay speed relative to the logged time, set by -speed. */
+	private double m_speed = 1.0;
+
 	private static enum XType {
 		DUMP, RUN
 	}
@@ -88,7 +91,7 @@ public class DbReplay {
 			}
 		} catch(Exception x) {
 			System.err.println("Error: " + x);
-			System.err.println("   -at record " + m_recordNumber + ", file offset " + m_fileOffset);
+			System.err.println("   -at record " + m_recordNumber + ", file offset " + getFileOffset());
 			x.printStackTrace();
 		} finally {
 			releaseAll();
@@ -115,6 +118,20 @@ public class DbReplay {
 		return m_maxStatementDelay;
 	}
 
+	/**
+	 * The replay speed: 2.0 replays the log in half the time it took to create it.
+	 */
+	public double getSpeed() {
+		return m_speed;
+	}
+
+	/**
+	 * The #of executor threads.
+	 */
+	public int getExecutorCount() {
+		return m_executors;
+	}
+
 	private void runDump() throws Exception {
 		// TODO Auto-generated method stub
 
@@ -138,13 +155,15 @@ public class DbReplay {
 
 			handleRecord(rr);
 		}
-		waitForIdle(60 * 1000);
+		if(m_replayer.isUsingExecutors())
+			waitForIdle(60 * 1000);
+		m_replayer.finish(this);
 		synchronized(this) {
 			m_stopped = true;
 		}
 
 		m_endTime = System.currentTimeMillis();
-		System.out.println("Normal EOF after " + m_recordNumber + " records and " + m_fileOffset + " file bytes");
+		System.out.println("Normal EOF after " + m_recordNumber + " records and " + getFileOffset() + " file bytes");
 		Date st = new Date(m_firstTime);
 		Date et = new Date(m_lastRecordTime);
 		DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
@@ -186,8 +205,22 @@ public class DbReplay {
 					m_maxStatementDelay = Long.parseLong(args[argc++]);
 				} else if("-log".equals(s)) {
 					openLog();
+				} else if("-speed".equals(s)) {
+					if(argc >= args.length)
+						throw new IllegalArgumentException("Missing factor after -speed");
+					m_speed = Double.parseDouble(args[argc++]);
+					if(m_speed < 0.5 || m_speed > 10.0)
+						throw new IllegalArgumentException("The -speed factor must be between 0.5 and 10");
+				} else if("-threads".equals(s)) {
+					if(argc >= args.length)
+						throw new IllegalArgumentException("Missing count after -threads");
+					m_executors = Integer.parseInt(args[argc++]);
+					if(m_executors <= 0)
+						throw new IllegalArgumentException("The -threads count must be > 0");
 				} else if("-speedy".equals(s)) {
 					m_replayer = new SpeedyReplayer();
+				} else if("-parallel".equals(s)) {
+					m_replayer = new ParallelReplayer();
 				} else if(m_replayer != null) {
 					argc = m_replayer.decodeArgs(s, args, argc);
 					if(-1 == argc) {
@@ -259,8 +292,11 @@ public class DbReplay {
 			+ "-driver|-dp [path]: path to the Oracle driver .jar file, if not present on the classpath\n" //
 				+ "\n** replay options **\n" //
 				+ "-maxwait [milliseconds]: set the max time to wait between successive statements to a #of milliseconds. This ignores the real times that statements were sent to the database.\n"
+				+ "-speed [factor]: replay at this speed relative to the logged time, between 0.5 and 10 (default 1)\n" //
+				+ "-threads [count]: the #of threads executing statements (default 20)\n" //
 				+ "-log: create a log of statements in dbreplay.log\n" //
 				+ "-speedy: run using the 'speedy' replayer\n" //
+				+ "-parallel: run every logged connection as a separate session, in parallel, and report latencies per statement\n" //
 				+ "\nSpeedy executor options:\n"
 				+ "-perwait n: schedule this many SQL commands per 'maxwait' period. Example: -maxwait 1 -perwait 10 will try to execute 10 SQL statements every millisecond\n"
 		);
@@ -277,9 +313,9 @@ public class DbReplay {
 		}
 
 		try {
-			if(m_bis != null)
-				m_bis.close();
-			m_bis = null;
+			if(m_input != null)
+				m_input.close();
+			m_input = null;
 		} catch(Exception x) {
 			System.err.println("term: cannot close input file: " + x);
 		}
@@ -300,7 +336,7 @@ public class DbReplay {
 	}
 
 	private void openSource() throws Exception {
-		m_bis = new BufferedInputStream(new FileInputStream(m_inputFile), 65536);
+		m_input = ReplayInput.open(m_inputFile);
 	}
 
 	private void initialize() throws Exception {
@@ -315,9 +351,12 @@ public class DbReplay {
 				m_pool = PoolManager.getInstance().definePool(m_poolFile, m_poolId);
 		}
 
-		startExecutors();
+		if(m_replayer.isUsingExecutors())
+			startExecutors();
 		startStatusReporter();
-		waitForReady();
+		if(m_replayer.isUsingExecutors())
+			waitForReady();
+		m_replayer.start(this);
 	}
 
 	private synchronized boolean isStopped() {
@@ -329,10 +368,13 @@ public class DbReplay {
 	/*	CODING:	Accessing the data stream.							*/
 	/*--------------------------------------------------------------*/
 
-	private long m_fileOffset;
-
 	private int m_recordNumber;
 
+	private long getFileOffset() {
+		ReplayInput input = m_input;
+		return input == null ? 0 : input.getOffset();
+	}
+
 	/**
 	 *
 	 * @param is
@@ -344,51 +386,20 @@ public class DbReplay {
 		int len = readInt();
 		if(len < 0)
 			return null;
-		byte[] data = new byte[len];
-		int szrd = m_bis.read(data);
-		if(szrd != len)
-			throw new IOException("Unexpected EOF: got " + szrd + " bytes but needed " + len);
-		m_fileOffset += len;
-		return new String(data, "utf-8");
+		return new String(m_input.readBytes(len), "utf-8");
 	}
 
 
 	public long readLong() throws Exception {
-		long a = (readInt() & 0xffffffffl);
-		long b = (readInt() & 0xffffffffl);
-		return (a << 32) | b;
+		return m_input.readLong();
 	}
 
 	public int readInt() throws Exception {
-		int v = m_bis.read();
-		if(v == -1)
-			throw new EOFException();
-		int r = v << 24;
-
-		v = m_bis.read();
-		if(v == -1)
-			throw new EOFException();
-		r |= v << 16;
-
-		v = m_bis.read();
-		if(v == -1)
-			throw new EOFException();
-		r |= v << 8;
-
-		v = m_bis.read();
-		if(v == -1)
-			throw new EOFException();
-		r |= v;
-
-		m_fileOffset += 4;
-		return r;
+		return m_input.readInt();
 	}
 
 	public int readByte() throws Exception {
-		int b = m_bis.read();
-		if(-1 == b)
-			throw new EOFException();
-		return b;
+		return m_input.readByte();
 	}
 
 	/*--------------------------------------------------------------*/
@@ -4,4 +4,22 @@ public interface IReplayer {
 	int decodeArgs(String option, String[] args, int argc);
 
 	void handleRecord(DbReplay r, ReplayRecord rr) throws Exception;
+
+	/**
+	 * T if this replayer hands its records to DbReplay's executor threads, which then get started
+	 * before the replay.
+	 */
+	default boolean isUsingExecutors() {
+		return true;
+	}
+
+	/**
+	 * Called once the pool is available, before the first record is handled.
+	 */
+	default void start(DbReplay r) throws Exception {}
+
+	/**
+	 * Called after the last record was handled; must wait for all work to complete.
+	 */
+	default void finish(DbReplay r) throws Exception {}
 }
@@ -0,0 +1,89 @@
+package to.etc.dbreplay;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * A lock-free latency histogram with buckets that are at most 12.5% wide: values below 8us each have their
+ * own bucket, and every power of two above that is split into 8 buckets.
+ *
+ * Created on Oct 18, 2026
+ */
+final class LatencyHistogram {
+	static private final int SUB_BITS = 3;
+
+	static private final int SUB = 1 << SUB_BITS;
+
+	private final AtomicLongArray m_buckets = new AtomicLongArray(64 * SUB);
+
+	private final LongAdder m_count = new LongAdder();
+
+	private final LongAdder m_totalMicros = new LongAdder();
+
+	private final LongAccumulator m_maxMicros = new LongAccumulator(Math::max, 0);
+
+	private final LongAdder m_errors = new LongAdder();
+
+	public void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		m_buckets.incrementAndGet(bucket(micros));
+		m_count.increment();
+		m_totalMicros.add(micros);
+		m_maxMicros.accumulate(micros);
+	}
+
+	public void recordError() {
+		m_errors.increment();
+	}
+
+	static private int bucket(long micros) {
+		if(micros < SUB)
+			return (int) micros;
+		int exp = 63 - Long.numberOfLeadingZeros(micros);
+		int sub = (int) (micros >> (exp - SUB_BITS)) & (SUB - 1);
+		return (exp - SUB_BITS + 1) * SUB + sub;
+	}
+
+	/**
+	 * The highest value that falls in the bucket.
+	 */
+	static private long upperBound(int bucket) {
+		if(bucket < SUB)
+			return bucket;
+		int exp = bucket / SUB + SUB_BITS - 1;
+		long sub = bucket % SUB;
+		return ((SUB + sub + 1) << (exp - SUB_BITS)) - 1;
+	}
+
+	public long getCount() {
+		return m_count.sum();
+	}
+
+	public long getErrors() {
+		return m_errors.sum();
+	}
+
+	public long getTotalMicros() {
+		return m_totalMicros.sum();
+	}
+
+	public long getMaxMicros() {
+		return m_maxMicros.get();
+	}
+
+	/**
+	 * The latency in microseconds below which pct percent of the values fall.
+	 */
+	public long getPercentile(double pct) {
+		long count = getCount();
+		if(count == 0)
+			return 0;
+		long target = Math.max(1, (long) Math.ceil(pct / 100.0 * count));
+		long sum = 0;
+		for(int i = 0; i < m_buckets.length(); i++) {
+			sum += m_buckets.get(i);
+			if(sum >= target)
+				return Math.min(upperBound(i), getMaxMicros());
+		}
+		return getMaxMicros();
+	}
+}
@@ -0,0 +1,332 @@
+package to.etc.dbreplay;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+import javax.annotation.*;
+
+import to.etc.dbpool.*;
+
+/**
+ * Replays the log with every logged connection (session) as a separate sequence of statements: the
+ * statements of one session are executed in order and on one connection, but different sessions run in
+ * parallel on a pool of threads. Statements are started at their logged time, scaled by the -speed factor, and
+ * the latency of every statement is recorded so that a latency report per statement can be shown at the end.
+ *
+ * <p>Like the other replayers only queries are executed.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+public class ParallelReplayer implements IReplayer {
+	/** The #of statements shown in the latency report. */
+	static private final int REPORT_SIZE = 50;
+
+	/** The #of statements a session executes before it lets other sessions have the thread. */
+	static private final int SESSION_SLICE = 16;
+
+	/** The open sessions by connection ID. Only used by the reader thread. */
+	private final Map<Integer, Session> m_sessionMap = new HashMap<>();
+
+	private final Map<String, LatencyHistogram> m_latencyMap = new ConcurrentHashMap<>();
+
+	private final LatencyHistogram m_totalLatency = new LatencyHistogram();
+
+	/** How late statements were started compared to their scheduled time. */
+	private final LatencyHistogram m_lag = new LatencyHistogram();
+
+	private ExecutorService m_executor;
+
+	/**
+	 * Has the reader thread and every session that is not yet closed as parties. A session keeps resubmitting
+	 * itself while it has work, so at the end of the run the executor can only be shut down after all sessions
+	 * have executed their close.
+	 */
+	private final Phaser m_openSessions = new Phaser(1);
+
+	private long m_startNanos;
+
+	private long m_lastRecordTime;
+
+	/** The scaled time in the replay, in ms since the first record. */
+	private double m_replayTime;
+
+	@Override
+	public int decodeArgs(String option, String[] args, int argc) {
+		return -1;
+	}
+
+	@Override
+	public boolean isUsingExecutors() {
+		return false;
+	}
+
+	@Override
+	public void start(@Nonnull DbReplay r) throws Exception {
+		AtomicInteger index = new AtomicInteger();
+		m_executor = Executors.newFixedThreadPool(r.getExecutorCount(), rn -> {
+			Thread t = new Thread(rn);
+			t.setName("x#" + index.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		});
+		System.out.println("init: replaying sessions in parallel on " + r.getExecutorCount() + " threads at " + r.getSpeed() + "x speed");
+	}
+
+	@Override
+	public void handleRecord(@Nonnull DbReplay r, @Nonnull ReplayRecord rr) throws Exception {
+		Integer cid = Integer.valueOf(rr.getConnectionId());
+		switch(rr.getType()) {
+			default:
+				r.incIgnored();
+				return;
+
+			case StatementProxy.ST_COMMIT:
+			case StatementProxy.ST_ROLLBACK:
+				return;
+
+			case StatementProxy.ST_CLOSE:
+				Session s = m_sessionMap.remove(cid);
+				if(null != s)
+					s.add(null, 0);
+				return;
+
+			case StatementProxy.ST_QUERY:
+				break;
+		}
+		if(rr.isUnexecutable()) {
+			r.incIgnored();
+			return;
+		}
+
+		long due = waitUntilDue(r, rr);
+		Session s = m_sessionMap.get(cid);
+		if(null == s) {
+			s = new Session(r);
+			m_sessionMap.put(cid, s);
+		}
+		if(r.isLogging())
+			r.log("x: " + rr.getSummary());
+		s.add(rr, due);
+	}
+
+	/**
+	 * Wait until the record's (scaled) time has come, and return that time in System.nanoTime() units.
+	 */
+	private long waitUntilDue(@Nonnull DbReplay r, @Nonnull ReplayRecord rr) {
+		if(m_startNanos == 0) {
+			m_startNanos = System.nanoTime();
+			m_lastRecordTime = rr.getStatementTime();
+		}
+		long delta = rr.getStatementTime() - m_lastRecordTime;
+		m_lastRecordTime = rr.getStatementTime();
+		if(delta > 0)
+			m_replayTime += Math.min(delta, r.getMaxStatementDelay()) / r.getSpeed();
+
+		long due = m_startNanos + (long) (m_replayTime * 1000000.0);
+		long wait;
+		while((wait = due - System.nanoTime()) > 0)
+			LockSupport.parkNanos(wait);
+		return due;
+	}
+
+	@Override
+	public void finish(@Nonnull DbReplay r) throws Exception {
+		for(Session s : m_sessionMap.values())
+			s.add(null, 0);							// Close all sessions that were not closed in the log.
+		m_sessionMap.clear();
+		int phase = m_openSessions.arrive();
+		for(;;) {
+			try {
+				m_openSessions.awaitAdvanceInterruptibly(phase, 5, TimeUnit.SECONDS);
+				break;
+			} catch(TimeoutException x) {
+				System.out.println("exec: waiting for " + m_openSessions.getUnarrivedParties() + " sessions to finish");
+			}
+		}
+		m_executor.shutdown();
+		m_executor.awaitTermination(1, TimeUnit.MINUTES);
+		report(r);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Sessions.											*/
+	/*--------------------------------------------------------------*/
+
+	static private final class Work {
+		/** The record to execute, or null to close the session. */
+		@Nullable
+		final ReplayRecord m_record;
+
+		final long m_due;
+
+		Work(@Nullable ReplayRecord record, long due) {
+			m_record = record;
+			m_due = due;
+		}
+	}
+
+	/**
+	 * The statements of a single logged connection. The statements are executed in order by at most one
+	 * thread at a time, on a connection of its own.
+	 */
+	private final class Session implements Runnable {
+		@Nonnull
+		private final DbReplay m_r;
+
+		private final Queue<Work> m_queue = new ConcurrentLinkedQueue<>();
+
+		/** T when this session has been submitted to the executor and has not yet finished running. */
+		private final AtomicBoolean m_scheduled = new AtomicBoolean();
+
+		/** Only used by the thread running the session. */
+		@Nullable
+		private Connection m_dbc;
+
+		/** Only used by the thread running the session. */
+		private boolean m_closed;
+
+		Session(@Nonnull DbReplay r) {
+			m_r = r;
+			m_openSessions.register();
+		}
+
+		/**
+		 * Add work, and schedule the session if it is not already running or scheduled.
+		 */
+		void add(@Nullable ReplayRecord rr, long due) {
+			m_queue.add(new Work(rr, due));
+			if(m_scheduled.compareAndSet(false, true))
+				m_executor.execute(this);
+		}
+
+		@Override
+		public void run() {
+			for(int i = 0; i < SESSION_SLICE; i++) {
+				Work w = m_queue.poll();
+				if(null == w)
+					break;
+				ReplayRecord rr = w.m_record;
+				if(null == rr)
+					close();
+				else
+					execute(rr, w.m_due);
+			}
+			m_scheduled.set(false);
+			if(!m_queue.isEmpty() && m_scheduled.compareAndSet(false, true))
+				m_executor.execute(this);
+		}
+
+		private void execute(@Nonnull ReplayRecord rr, long due) {
+			long start = System.nanoTime();
+			m_lag.record(start - due);
+			m_r.startExecution();
+			LatencyHistogram h = m_latencyMap.computeIfAbsent(rr.getSql(), k -> new LatencyHistogram());
+			int errs = 0;
+			int rows = 0;
+			try {
+				Connection dbc = connection();
+				try(PreparedStatement ps = dbc.prepareStatement(rr.getSql())) {
+					for(int i = 0; i < rr.getParamCount(); i++)
+						rr.assignParameter(ps, i);
+					try(ResultSet rs = ps.executeQuery()) {
+						while(rs.next())
+							rows++;
+					}
+				}
+			} catch(Exception x) {
+				if(m_r.isLogging())
+					m_r.log(x.toString());
+				errs++;
+				h.recordError();
+			} finally {
+				long nanos = System.nanoTime() - start;
+				h.record(nanos);
+				m_totalLatency.record(nanos);
+				m_r.endExecution(1, 0, errs, rows);
+			}
+		}
+
+		@Nonnull
+		private Connection connection() throws Exception {
+			Connection dbc = m_dbc;
+			if(null != dbc)
+				return dbc;
+			dbc = m_r.getPool().getUnpooledDataSource().getConnection();
+			try {
+				dbc.setAutoCommit(false);
+				String schema = m_r.getRunSchema();
+				if(null != schema) {
+					try(PreparedStatement ps = dbc.prepareStatement("alter session set current_schema=" + schema)) {
+						ps.executeUpdate();
+					}
+				}
+				m_dbc = dbc;
+				return dbc;
+			} finally {
+				if(m_dbc != dbc)
+					dbc.close();
+			}
+		}
+
+		private void close() {
+			if(m_closed)
+				return;
+			m_closed = true;
+			Connection dbc = m_dbc;
+			m_dbc = null;
+			try {
+				if(null != dbc) {
+					try {
+						dbc.rollback();
+					} catch(Exception x) {}
+					try {
+						dbc.close();
+					} catch(Exception x) {}
+				}
+			} finally {
+				m_openSessions.arriveAndDeregister();
+			}
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Reporting.											*/
+	/*--------------------------------------------------------------*/
+
+	private void report(@Nonnull DbReplay r) {
+		List<Map.Entry<String, LatencyHistogram>> list = new ArrayList<>(m_latencyMap.entrySet());
+		list.sort((a, b) -> Long.compare(b.getValue().getTotalMicros(), a.getValue().getTotalMicros()));
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("\nLatency in milliseconds, ").append(list.size()).append(" different statements; the ").append(Math.min(REPORT_SIZE, list.size())).append(" with the highest total time:\n");
+		sb.append(String.format("%10s %7s %10s %9s %9s %9s %9s %9s  %s\n", "count", "errors", "total", "avg", "p50", "p90", "p99", "max", "sql"));
+		line(sb, m_totalLatency, "(all statements)");
+		line(sb, m_lag, "(start lag behind schedule)");
+		for(int i = 0; i < list.size() && i < REPORT_SIZE; i++) {
+			Map.Entry<String, LatencyHistogram> e = list.get(i);
+			line(sb, e.getValue(), e.getKey());
+		}
+		String s = sb.toString();
+		System.out.println(s);
+		r.log(s);
+	}
+
+	static private void line(@Nonnull StringBuilder sb, @Nonnull LatencyHistogram h, @Nonnull String sql) {
+		long count = h.getCount();
+		if(count == 0)
+			return;
+		sql = sql.replaceAll("\\s+", " ");
+		if(sql.length() > 120)
+			sql = sql.substring(0, 120) + "...";
+		sb.append(String.format("%10d %7d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f  %s\n", Long.valueOf(count), Long.valueOf(h.getErrors()), Double.valueOf(h.getTotalMicros() / 1000.0) //
+			, Double.valueOf(h.getTotalMicros() / 1000.0 / count), ms(h.getPercentile(50)), ms(h.getPercentile(90)), ms(h.getPercentile(99)), ms(h.getMaxMicros()), sql));
+	}
+
+	@Nonnull
+	static private Double ms(long micros) {
+		return Double.valueOf(micros / 1000.0);
+	}
+}
@@ -0,0 +1,183 @@
+package to.etc.dbreplay;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.zip.*;
+
+import javax.annotation.*;
+
+/**
+ * Reads the primitives of a statement log file. Plain files are memory mapped in large windows, so reading
+ * an int is a single buffer access instead of four read() calls; gzipped (rotated) logs are read as a stream.
+ *
+ * Created on Oct 18, 2026
+ */
+abstract class ReplayInput implements Closeable {
+	/** The size of the memory mapped windows of plain files. */
+	static private final int WINDOW = 256 * 1024 * 1024;
+
+	abstract public int readByte() throws IOException;
+
+	abstract public int readInt() throws IOException;
+
+	abstract public long readLong() throws IOException;
+
+	@Nonnull
+	abstract public byte[] readBytes(int len) throws IOException;
+
+	/**
+	 * The current offset in the (uncompressed) file.
+	 */
+	abstract public long getOffset();
+
+	@Nonnull
+	static ReplayInput open(@Nonnull File file) throws IOException {
+		return open(file, WINDOW);
+	}
+
+	/**
+	 * Open the file, mapping plain files in windows of the specified size.
+	 */
+	@Nonnull
+	static ReplayInput open(@Nonnull File file, int window) throws IOException {
+		if(file.getName().endsWith(".gz"))
+			return new StreamInput(new GZIPInputStream(new FileInputStream(file), 65536));
+		return new MappedInput(file, window);
+	}
+
+	/**
+	 * Reads a file through memory mapped windows.
+	 */
+	static private final class MappedInput extends ReplayInput {
+		private final int m_window;
+
+		@Nonnull
+		private final FileChannel m_channel;
+
+		private final long m_size;
+
+		/** The file offset of the start of the current window. */
+		private long m_base;
+
+		@Nonnull
+		private ByteBuffer m_buffer;
+
+		MappedInput(@Nonnull File file, int window) throws IOException {
+			m_window = window;
+			m_channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			m_size = m_channel.size();
+			m_buffer = map(0);
+		}
+
+		@Nonnull
+		private ByteBuffer map(long offset) throws IOException {
+			m_base = offset;
+			long len = Math.min(m_window, m_size - offset);
+			return m_channel.map(FileChannel.MapMode.READ_ONLY, offset, len);		// Big endian, like the log writer.
+		}
+
+		/**
+		 * Make sure the next len bytes are inside the current window.
+		 */
+		private ByteBuffer need(int len) throws IOException {
+			if(m_buffer.remaining() >= len)
+				return m_buffer;
+			long pos = getOffset();
+			if(pos + len > m_size)
+				throw new EOFException();
+			if(len > m_window)
+				throw new IOException("Record field of " + len + " bytes is too large");
+			m_buffer = map(pos);
+			return m_buffer;
+		}
+
+		@Override
+		public int readByte() throws IOException {
+			return need(1).get() & 0xff;
+		}
+
+		@Override
+		public int readInt() throws IOException {
+			return need(4).getInt();
+		}
+
+		@Override
+		public long readLong() throws IOException {
+			return need(8).getLong();
+		}
+
+		@Nonnull
+		@Override
+		public byte[] readBytes(int len) throws IOException {
+			byte[] data = new byte[len];
+			need(len).get(data);
+			return data;
+		}
+
+		@Override
+		public long getOffset() {
+			return m_base + m_buffer.position();
+		}
+
+		@Override
+		public void close() throws IOException {
+			m_channel.close();
+		}
+	}
+
+	/**
+	 * Reads a stream, for compressed files.
+	 */
+	static private final class StreamInput extends ReplayInput {
+		@Nonnull
+		private final DataInputStream m_is;
+
+		private long m_offset;
+
+		StreamInput(@Nonnull InputStream is) {
+			m_is = new DataInputStream(new BufferedInputStream(is, 65536));
+		}
+
+		@Override
+		public int readByte() throws IOException {
+			int b = m_is.readUnsignedByte();
+			m_offset++;
+			return b;
+		}
+
+		@Override
+		public int readInt() throws IOException {
+			int v = m_is.readInt();
+			m_offset += 4;
+			return v;
+		}
+
+		@Override
+		public long readLong() throws IOException {
+			long v = m_is.readLong();
+			m_offset += 8;
+			return v;
+		}
+
+		@Nonnull
+		@Override
+		public byte[] readBytes(int len) throws IOException {
+			byte[] data = new byte[len];
+			m_is.readFully(data);
+			m_offset += len;
+			return data;
+		}
+
+		@Override
+		public long getOffset() {
+			return m_offset;
+		}
+
+		@Override
+		public void close() throws IOException {
+			m_is.close();
+		}
+	}
+}
@@ -54,6 +54,7 @@ public class TimeBasedReplayer implements IReplayer {
 
 			if(deltat > r.getMaxStatementDelay())
 				deltat = r.getMaxStatementDelay();
+			deltat = (long) (deltat / r.getSpeed());
 
 			if(deltat > 0) {
 				if(deltat > 5000)
@@ -230,6 +230,21 @@ abstract public class BaseDB {
 	 */
 	protected abstract String getCheckString();
 
+	/**
+	 * Turns a select on a single table into one that locks the rows it returns, for claiming work from a queue
+	 * table. When the database supports it rows locked by other transactions are skipped instead of waited for, and
+	 * the #of rows is limited in the statement itself. The caller must not read more than limit rows either way.
+	 * This default waits for locked rows and locks everything selected.
+	 *
+	 * @param select	the select, without order by
+	 * @param orderBy	the columns to order by, without "order by"
+	 * @param limit		the max #of rows to return
+	 * @return
+	 */
+	public String getSkipLockedSelect(String select, String orderBy, int limit) {
+		return select + " order by " + orderBy + " for update";
+	}
+
 	PreparedStatement mkKeyedSQL(Connection dbc, StringBuilder sb, String[] pkfields, Object[] keys, int baseix, String trailer) throws SQLException {
 		if(pkfields.length != keys.length)
 			throw new IllegalStateException("PK fields array differs in size from key value array");
@@ -53,6 +53,8 @@ public class GenericDB {
 
 	static public final BaseDB dbtypePOSTGRESQL = new PostgresDB();
 
+	static public final BaseDB dbtypeDERBY = new DerbyDB();
+
 	//	private static BaseDB[]	DATABASES;
 
 	/*
@@ -95,6 +97,8 @@ public class GenericDB {
 			return GenericDB.dbtypePOSTGRESQL;
 		else if(dn.indexOf("orac") != -1)
 			return GenericDB.dbtypeORACLE;
+		else if(dn.indexOf("derby") != -1)
+			return GenericDB.dbtypeDERBY;
 		return GenericDB.dbtypeUNKNOWN;
 	}
 
@@ -146,6 +150,14 @@ public class GenericDB {
 		return getBase(dbtype).getCheckString();
 	}
 
+	/**
+	 * Returns a select that locks the rows it returns, skipping rows locked by others when the database can.
+	 * See {@link BaseDB#getSkipLockedSelect(String, String, int)}.
+	 */
+	static public String getSkipLockedSelect(Connection dbc, String select, String orderBy, int limit) {
+		return getBase(dbc).getSkipLockedSelect(select, orderBy, limit);
+	}
+
 	/**
 	 *	Writes a blob to the requested record. Works for Oral and MYSQL.
 	 *  @parameter f	The file to write to the blob. If this is null then the
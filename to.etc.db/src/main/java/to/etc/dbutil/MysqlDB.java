@@ -41,6 +41,14 @@ public class MysqlDB extends BaseDB {
 		return "select 1";
 	}
 
+	/**
+	 * Needs MySQL 8.
+	 */
+	@Override
+	public String getSkipLockedSelect(String select, String orderBy, int limit) {
+		return select + " order by " + orderBy + " limit " + limit + " for update skip locked";
+	}
+
 
 	/**
 	 * Uses mysql specific code to create a sequence number from a sequence
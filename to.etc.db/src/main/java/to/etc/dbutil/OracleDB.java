@@ -53,6 +53,15 @@ public class OracleDB extends BaseDB {
 		return "select 1 from dual";
 	}
 
+	/**
+	 * Oracle does not allow a row limit on a locking select, but with skip locked it locks rows only when they
+	 * are fetched, so the caller reading only limit rows locks only those.
+	 */
+	@Override
+	public String getSkipLockedSelect(String select, String orderBy, int limit) {
+		return select + " order by " + orderBy + " for update skip locked";
+	}
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Sequences.											*/
 	/*--------------------------------------------------------------*/
@@ -43,6 +43,11 @@ public class PostgresDB extends BaseDB {
 		return "select 1";
 	}
 
+	@Override
+	public String getSkipLockedSelect(String select, String orderBy, int limit) {
+		return select + " order by " + orderBy + " limit " + limit + " for update skip locked";
+	}
+
 
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Sequences.											*/
@@ -0,0 +1,71 @@
+package to.etc.dbpool;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.locks.*;
+
+import to.etc.benchmark.*;
+
+/**
+ * Measures the latency of checking out a pooled connection, with many threads competing for
+ * fewer connections. The pool uses a fake driver so that only the pool's own overhead and
+ * its waiting behaviour are measured. Every thread gets a connection, "uses" it for a while
+ * and closes it again; the time spent in getConnection() is recorded and reported as percentiles.
+ *
+ * <p>Run as a main program; the arguments are the #of connections, the time in microseconds a
+ * connection is used, and the #of checkouts per thread.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+public class ConnectionPoolBenchmark {
+	static private final int[] THREADS = {1, 4, 16, 64};
+
+	static private int m_poolCount;
+
+	public static void main(String[] args) throws Exception {
+		int conns = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int useMicros = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		int checkouts = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+
+		System.out.println("Pool of " + conns + " connections, each used for " + useMicros + "us");
+		Benchmark b = new Benchmark("%8d %12.0f %10.1f %10.1f %10.1f %10.1f %10.1f %10d", "threads", "checkouts/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us", "waits");
+		b.measure(() -> {
+			for(int threads : THREADS)
+				run(b, conns, threads, useMicros, checkouts);
+		});
+		PoolManager.getInstance().destroyAll();
+	}
+
+	static private void run(Benchmark b, int conns, int threads, int useMicros, int checkouts) throws Exception {
+		ConnectionPool pool = FakeDriver.definePool("bench" + m_poolCount++, conns, 0);
+		pool.initialize();
+
+		long[][] latencies = new long[threads][checkouts];
+		long elapsed = Benchmark.runConcurrently(threads, t -> {
+			long[] lat = latencies[t];
+			for(int j = 0; j < checkouts; j++) {
+				long ts = System.nanoTime();
+				Connection dbc = pool.getPooledDataSource().getConnection();
+				lat[j] = System.nanoTime() - ts;
+				LockSupport.parkNanos(useMicros * 1000L);
+				dbc.close();
+			}
+		});
+
+		long[] all = new long[threads * checkouts];
+		for(int i = 0; i < threads; i++)
+			System.arraycopy(latencies[i], 0, all, i * checkouts, checkouts);
+		Arrays.sort(all);
+		PoolStats ps = pool.getPoolStatistics();
+		b.row(Integer.valueOf(threads), Double.valueOf(all.length * 1e9 / elapsed) //
+			, micros(all, 50), micros(all, 90), micros(all, 99), micros(all, 99.9) //
+			, Double.valueOf(all[all.length - 1] / 1000.0), Integer.valueOf(ps.getConnectionWaitCount()));
+	}
+
+	/**
+	 * The percentile of the sorted latencies, in microseconds.
+	 */
+	static private Double micros(long[] sorted, double pct) {
+		return Double.valueOf(Benchmark.percentile(sorted, pct) / 1000.0);
+	}
+}
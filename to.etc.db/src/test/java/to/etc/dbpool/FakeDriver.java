@@ -0,0 +1,140 @@
+package to.etc.dbpool;
+
+import java.lang.reflect.*;
+import java.sql.*;
+import java.util.*;
+import java.util.function.*;
+import java.util.logging.Logger;
+
+/**
+ * A JDBC driver whose connections and statements do nothing, for testing and benchmarking the
+ * pool itself. Its url is "jdbc:fake:anything". Statements remember whether they were closed and
+ * the values of their setters, and executeQuery() returns an empty result set.
+ *
+ * Created on Oct 18, 2026
+ */
+public class FakeDriver implements Driver {
+	/** When set, this gets the SQL of every statement prepared on a fake connection. */
+	static private volatile Consumer<String> m_prepareListener;
+
+	static public void setPrepareListener(Consumer<String> listener) {
+		m_prepareListener = listener;
+	}
+
+	@Override
+	public Connection connect(String url, Properties info) throws SQLException {
+		return (Connection) Proxy.newProxyInstance(FakeDriver.class.getClassLoader(), new Class< ? >[]{Connection.class}, (proxy, method, args) -> {
+			switch(method.getName()) {
+				case "getAutoCommit":
+					return Boolean.TRUE;
+				case "getMetaData":
+					return fake(DatabaseMetaData.class);
+				case "prepareStatement":
+					Consumer<String> listener = m_prepareListener;
+					if(null != listener)
+						listener.accept((String) args[0]);
+					return fake(PreparedStatement.class);
+				case "prepareCall":
+					return fake(CallableStatement.class);
+				case "createStatement":
+					return fake(Statement.class);
+			}
+			return defaultValue(proxy, method, args);
+		});
+	}
+
+	/**
+	 * Create an object that only knows whether it has been closed, and that returns the values
+	 * passed to single-argument setters from the matching getters.
+	 */
+	static private <T> T fake(Class<T> clz) {
+		boolean[] closed = new boolean[1];
+		Map<String, Object> properties = new HashMap<>();
+		return clz.cast(Proxy.newProxyInstance(FakeDriver.class.getClassLoader(), new Class< ? >[]{clz}, (proxy, method, args) -> {
+			switch(method.getName()) {
+				case "close":
+					closed[0] = true;
+					return null;
+				case "isClosed":
+					return Boolean.valueOf(closed[0]);
+				case "executeQuery":
+					return fake(ResultSet.class);
+			}
+			String name = method.getName();
+			if(name.startsWith("set") && null != args && args.length == 1) {
+				properties.put(name.substring(3), args[0]);
+				return null;
+			}
+			if(name.startsWith("get") && null == args && properties.containsKey(name.substring(3)))
+				return properties.get(name.substring(3));
+			return defaultValue(proxy, method, args);
+		}));
+	}
+
+	static private Object defaultValue(Object proxy, Method m, Object[] args) {
+		switch(m.getName()) {
+			case "toString":
+				return "Fake" + m.getDeclaringClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+			case "hashCode":
+				return Integer.valueOf(System.identityHashCode(proxy));
+			case "equals":
+				return Boolean.valueOf(proxy == args[0]);
+		}
+		Class< ? > rt = m.getReturnType();
+		if(rt == String.class)
+			return "fake";
+		if(rt == boolean.class)
+			return Boolean.FALSE;
+		if(rt == int.class)
+			return Integer.valueOf(0);
+		if(rt == long.class)
+			return Long.valueOf(0);
+		return null;
+	}
+
+	@Override
+	public boolean acceptsURL(String url) throws SQLException {
+		return url.startsWith("jdbc:fake:");
+	}
+
+	@Override
+	public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+		return new DriverPropertyInfo[0];
+	}
+
+	@Override
+	public int getMajorVersion() {
+		return 1;
+	}
+
+	@Override
+	public int getMinorVersion() {
+		return 0;
+	}
+
+	@Override
+	public boolean jdbcCompliant() {
+		return false;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	/**
+	 * Define a pool on this driver.
+	 */
+	static public ConnectionPool definePool(String id, int conns, int statementCacheSize) throws SQLException {
+		PoolConfig.Template t = new PoolConfig.Template();
+		t.setDriverClassName(FakeDriver.class.getName());
+		t.setUrl("jdbc:fake:" + id);
+		t.setUid("fake");
+		t.setPw("fake");
+		t.setMinConns(conns);
+		t.setMaxConns(conns);
+		t.setScanMode(ScanMode.DISABLED);
+		t.setStatementCacheSize(statementCacheSize);
+		return PoolManager.getInstance().definePool(id, new PoolConfig(t));
+	}
+}
@@ -0,0 +1,121 @@
+package to.etc.dbpool;
+
+import java.sql.*;
+
+import org.junit.*;
+
+public class TestPreparedStatementCache {
+	static private int m_poolCount;
+
+	private ConnectionPool m_pool;
+
+	@Before
+	public void setUp() throws Exception {
+		m_pool = FakeDriver.definePool("stmtcache" + m_poolCount++, 1, 2);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		PoolManager.getInstance().destroyPool(m_pool.getID());
+	}
+
+	static private PreparedStatement real(PreparedStatement ps) {
+		return ((PreparedStatementProxy) ps).getRealPreparedStatement();
+	}
+
+	@Test
+	public void testReusedAfterClose() throws Exception {
+		try(Connection dbc = m_pool.getUnpooledDataSource().getConnection()) {
+			PreparedStatement ps = dbc.prepareStatement("select 1");
+			PreparedStatement first = real(ps);
+			Assert.assertFalse(((PreparedStatementProxy) ps).isCacheHit());
+			ps.executeQuery();
+			ps.close();
+			Assert.assertFalse("A cached statement must not be closed", first.isClosed());
+
+			ps = dbc.prepareStatement("select 1");
+			Assert.assertSame(first, real(ps));
+			Assert.assertTrue(((PreparedStatementProxy) ps).isCacheHit());
+			ps.close();
+		}
+		PoolStats ps = m_pool.getPoolStatistics();
+		Assert.assertEquals(1, ps.getStatementCacheHits());
+		Assert.assertEquals(1, ps.getStatementCacheMisses());
+	}
+
+	@Test
+	public void testInUseStatementIsNotShared() throws Exception {
+		try(Connection dbc = m_pool.getUnpooledDataSource().getConnection()) {
+			PreparedStatement a = dbc.prepareStatement("select 1");
+			PreparedStatement b = dbc.prepareStatement("select 1");
+			Assert.assertNotSame(real(a), real(b));
+			PreparedStatement ra = real(a);
+			PreparedStatement rb = real(b);
+			a.close();
+			b.close();
+			Assert.assertFalse(ra.isClosed());
+			Assert.assertTrue("Only one statement per SQL is cached", rb.isClosed());
+		}
+	}
+
+	@Test
+	public void testModifiedStatementIsClosed() throws Exception {
+		try(Connection dbc = m_pool.getUnpooledDataSource().getConnection()) {
+			PreparedStatement ps = dbc.prepareStatement("select 1");
+			ps.setCursorName("c1");
+			PreparedStatement r = real(ps);
+			ps.close();
+			Assert.assertTrue(r.isClosed());
+		}
+	}
+
+	/**
+	 * Max rows, query timeout and fetch size do not prevent reuse; they are reset to what they were.
+	 */
+	@Test
+	public void testChangedSettingsAreRestored() throws Exception {
+		try(Connection dbc = m_pool.getUnpooledDataSource().getConnection()) {
+			PreparedStatement ps = dbc.prepareStatement("select 1");
+			PreparedStatement r = real(ps);
+			ps.setMaxRows(10);
+			ps.setQueryTimeout(30);
+			ps.setFetchSize(100);
+			ps.setFetchSize(200);
+			ps.close();
+			Assert.assertFalse(r.isClosed());
+
+			ps = dbc.prepareStatement("select 1");
+			Assert.assertSame(r, real(ps));
+			Assert.assertEquals(0, ps.getMaxRows());
+			Assert.assertEquals(0, ps.getQueryTimeout());
+			Assert.assertEquals(0, ps.getFetchSize());
+			ps.close();
+		}
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() throws Exception {
+		try(Connection dbc = m_pool.getUnpooledDataSource().getConnection()) {
+			PreparedStatement[] reals = new PreparedStatement[3];
+			for(int i = 0; i < 3; i++) {
+				PreparedStatement ps = dbc.prepareStatement("select " + i);
+				reals[i] = real(ps);
+				ps.close();
+			}
+			Assert.assertTrue(reals[0].isClosed());
+			Assert.assertFalse(reals[1].isClosed());
+			Assert.assertFalse(reals[2].isClosed());
+		}
+	}
+
+	@Test
+	public void testClosedWithConnection() throws Exception {
+		try(Connection dbc = m_pool.getUnpooledDataSource().getConnection()) {
+			PreparedStatement ps = dbc.prepareStatement("select 1");
+			PreparedStatement r = real(ps);
+			ps.close();
+			((ConnectionProxy) dbc).forceInvalid();
+			Assert.assertTrue("Releasing the database connection must close its cached statements", r.isClosed());
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package to.etc.dbpool;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.junit.*;
+import org.junit.rules.*;
+
+public class TestStatementLogWriter {
+	@Rule
+	public TemporaryFolder m_folder = new TemporaryFolder();
+
+	/**
+	 * Create a record that looks like a pool log record: the start magic followed by some data.
+	 */
+	static private byte[] record(int nr, int size) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(baos);
+		dos.writeLong(ConnectionPool.STMT_START_MAGIC);
+		dos.writeInt(nr);
+		while(baos.size() < size)
+			dos.write(nr);
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Read all records from a log, and check that each is complete.
+	 */
+	static private List<Integer> readRecords(InputStream is, int size) throws IOException {
+		List<Integer> res = new ArrayList<>();
+		DataInputStream dis = new DataInputStream(is);
+		byte[] buf = new byte[size];
+		for(;;) {
+			try {
+				dis.readFully(buf);
+			} catch(EOFException x) {
+				return res;
+			}
+			DataInputStream rd = new DataInputStream(new ByteArrayInputStream(buf));
+			Assert.assertEquals("Each file must start at a record boundary", ConnectionPool.STMT_START_MAGIC, rd.readLong());
+			res.add(Integer.valueOf(rd.readInt()));
+		}
+	}
+
+	@Test
+	public void testAllRecordsWritten() throws Exception {
+		File target = new File(m_folder.getRoot(), "stmt.log");
+		StatementLogWriter w = new StatementLogWriter("test", target, 64 * 1024, true, 0, 0, false);
+		for(int i = 0; i < 10000; i++)
+			w.append(record(i, 100));
+		w.close();
+		Assert.assertEquals(0, w.getDroppedCount());
+
+		try(InputStream is = new FileInputStream(target)) {
+			List<Integer> list = readRecords(is, 100);
+			Assert.assertEquals(10000, list.size());
+			for(int i = 0; i < list.size(); i++)
+				Assert.assertEquals(i, list.get(i).intValue());
+		}
+	}
+
+	@Test
+	public void testRotateAndCompress() throws Exception {
+		File target = new File(m_folder.getRoot(), "stmt.log");
+		StatementLogWriter w = new StatementLogWriter("test", target, 8 * 1024, true, 20 * 1024, 0, true);
+		for(int i = 0; i < 1000; i++)
+			w.append(record(i, 100));
+		w.close();
+
+		//-- Wait for the compressors to finish.
+		long ets = System.currentTimeMillis() + 10000;
+		File[] list;
+		for(;;) {
+			list = m_folder.getRoot().listFiles((d, n) -> n.startsWith("stmt.log.") && !n.endsWith(".gz"));
+			if(list.length == 0 || System.currentTimeMillis() > ets)
+				break;
+			Thread.sleep(50);
+		}
+		Assert.assertEquals("All rotated files must be compressed", 0, list.length);
+
+		File[] gz = m_folder.getRoot().listFiles((d, n) -> n.endsWith(".gz"));
+		Assert.assertTrue("The log must have been rotated", gz.length > 0);
+		Set<Integer> all = new HashSet<>();
+		for(File f : gz) {
+			try(InputStream is = new GZIPInputStream(new FileInputStream(f))) {
+				all.addAll(readRecords(is, 100));
+			}
+		}
+		try(InputStream is = Files.newInputStream(target.toPath())) {
+			all.addAll(readRecords(is, 100));
+		}
+		Assert.assertEquals(1000, all.size());
+	}
+
+	/**
+	 * Old files are removed only after they are compressed, so exactly the kept files remain, all compressed.
+	 */
+	@Test
+	public void testKeepFilesWhileCompressing() throws Exception {
+		File target = new File(m_folder.getRoot(), "stmt.log");
+		StatementLogWriter w = new StatementLogWriter("test", target, 4 * 1024, true, 8 * 1024, 2, true);
+		for(int i = 0; i < 2000; i++)
+			w.append(record(i, 100));
+		w.close();
+
+		long ets = System.currentTimeMillis() + 10000;
+		File[] list;
+		for(;;) {
+			list = m_folder.getRoot().listFiles((d, n) -> n.startsWith("stmt.log.") && !n.endsWith(".gz"));
+			if((list.length == 0 && m_folder.getRoot().listFiles((d, n) -> n.endsWith(".gz")).length <= 2) || System.currentTimeMillis() > ets)
+				break;
+			Thread.sleep(50);
+		}
+		Assert.assertEquals("All rotated files must be compressed", 0, list.length);
+		File[] gz = m_folder.getRoot().listFiles((d, n) -> n.endsWith(".gz"));
+		Assert.assertEquals(2, gz.length);
+		for(File f : gz) {
+			try(InputStream is = new GZIPInputStream(new FileInputStream(f))) {
+				Assert.assertFalse(readRecords(is, 100).isEmpty());
+			}
+		}
+	}
+
+	@Test
+	public void testTooLargeRecordIsDropped() throws Exception {
+		File target = new File(m_folder.getRoot(), "stmt.log");
+		StatementLogWriter w = new StatementLogWriter("test", target, 64, false, 0, 0, false);
+		w.append(record(1, 100));
+		w.append(record(2, 50));
+		w.close();
+		Assert.assertEquals(1, w.getDroppedCount());
+		Assert.assertEquals(1, w.getRecordCount());
+		Assert.assertEquals(50, target.length());
+	}
+}
@@ -0,0 +1,46 @@
+package to.etc.dbpool;
+
+import to.etc.benchmark.*;
+
+/**
+ * Measures the cost of creating tracepoints, with and without sampling, at a stack depth that is
+ * typical for a statement executed from a web request. Run as a main program; the argument is the
+ * stack depth to create the tracepoints at.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TracepointBenchmark {
+	static private final int COUNT = 50000;
+
+	public static void main(String[] args) throws Exception {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+		System.out.println("Tracepoints created at a stack depth of " + depth);
+		Benchmark b = new Benchmark("%-28s %10d %10d %12d", "mode", "ns/call", "captured", "capture ns");
+		b.measure(() -> {
+			run(b, "full", new TraceSampler(1, 0, 0), depth);
+			run(b, "depth 30", new TraceSampler(1, 0, 30), depth);
+			run(b, "every 16th", new TraceSampler(16, 0, 0), depth);
+			run(b, "every 16th, depth 30", new TraceSampler(16, 0, 30), depth);
+			run(b, "budget 1ms/s", new TraceSampler(1, 1000, 0), depth);
+			run(b, "unsampled create()", null, depth);
+		});
+	}
+
+	static private void run(Benchmark b, String name, TraceSampler sampler, int depth) {
+		long ts = System.nanoTime();
+		recurse(sampler, depth);
+		long ns = System.nanoTime() - ts;
+		long captured = sampler == null ? 0 : sampler.getCaptureCount();
+		long captureNs = sampler == null || captured == 0 ? 0 : sampler.getCaptureNanos() / captured;
+		b.row(name, Long.valueOf(ns / COUNT), Long.valueOf(captured), Long.valueOf(captureNs));
+	}
+
+	static private void recurse(TraceSampler sampler, int depth) {
+		if(depth > 0) {
+			recurse(sampler, depth - 1);
+			return;
+		}
+		for(int i = 0; i < COUNT; i++)
+			Benchmark.consume(sampler == null ? Tracepoint.create("select 1") : Tracepoint.create("select 1", sampler));
+	}
+}
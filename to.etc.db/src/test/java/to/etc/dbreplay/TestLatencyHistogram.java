@@ -0,0 +1,34 @@
+package to.etc.dbreplay;
+
+import org.junit.*;
+
+public class TestLatencyHistogram {
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram h = new LatencyHistogram();
+		for(int i = 1; i <= 1000; i++)
+			h.record(i * 1000L * 1000L);					// 1..1000 ms
+		Assert.assertEquals(1000, h.getCount());
+		Assert.assertEquals(1000000, h.getMaxMicros());
+		assertWithin(500000, h.getPercentile(50));
+		assertWithin(900000, h.getPercentile(90));
+		assertWithin(990000, h.getPercentile(99));
+		Assert.assertEquals(1000000, h.getPercentile(100));
+	}
+
+	@Test
+	public void testSmallValuesAreExact() {
+		LatencyHistogram h = new LatencyHistogram();
+		for(int i = 0; i < 8; i++)
+			h.record(i * 1000L);
+		Assert.assertEquals(3, h.getPercentile(50));
+		Assert.assertEquals(7, h.getPercentile(100));
+	}
+
+	/**
+	 * Buckets are at most 12.5% wide, and percentiles report the bucket's upper bound.
+	 */
+	static private void assertWithin(long expected, long actual) {
+		Assert.assertTrue("Expected about " + expected + " but got " + actual, actual >= expected && actual <= expected * 1.125);
+	}
+}
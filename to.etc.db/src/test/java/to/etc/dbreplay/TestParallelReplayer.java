@@ -0,0 +1,135 @@
+package to.etc.dbreplay;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import to.etc.dbpool.*;
+
+public class TestParallelReplayer {
+	static private final int SESSIONS = 8;
+
+	/** More than the #of statements a session executes before it gives up its thread. */
+	static private final int STATEMENTS = 40;
+
+	private ConnectionPool m_pool;
+
+	/** The statement numbers executed, per session, in the order they were executed. */
+	private final Map<Integer, List<Integer>> m_executed = new ConcurrentHashMap<>();
+
+	@Before
+	public void setUp() throws Exception {
+		m_pool = FakeDriver.definePool("replay", 4, 0);
+		FakeDriver.setPrepareListener(sql -> {
+			String[] ar = sql.split(" ");
+			m_executed.computeIfAbsent(Integer.valueOf(ar[1]), k -> Collections.synchronizedList(new ArrayList<>())).add(Integer.valueOf(ar[2]));
+			try {
+				Thread.sleep(1);
+			} catch(InterruptedException x) {
+				throw new RuntimeException(x);
+			}
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FakeDriver.setPrepareListener(null);
+		PoolManager.getInstance().destroyPool(m_pool.getID());
+	}
+
+	/**
+	 * Reads records from a byte array instead of a log file.
+	 */
+	private final class TestReplay extends DbReplay {
+		private final DataInputStream m_is;
+
+		TestReplay(byte[] data) {
+			m_is = new DataInputStream(new ByteArrayInputStream(data));
+		}
+
+		@Override
+		public synchronized ConnectionPool getPool() {
+			return m_pool;
+		}
+
+		@Override
+		public int getExecutorCount() {
+			return 2;
+		}
+
+		@Override
+		public String readString() throws Exception {
+			byte[] data = new byte[m_is.readInt()];
+			m_is.readFully(data);
+			return new String(data, "utf-8");
+		}
+
+		@Override
+		public long readLong() throws Exception {
+			return m_is.readLong();
+		}
+
+		@Override
+		public int readInt() throws Exception {
+			return m_is.readInt();
+		}
+
+		@Override
+		public int readByte() throws Exception {
+			return m_is.readUnsignedByte();
+		}
+	}
+
+	static private void record(DataOutputStream dos, int type, int session) throws IOException {
+		dos.writeLong(ConnectionPool.STMT_START_MAGIC);
+		dos.writeByte(type);
+		dos.writeLong(1000);
+		dos.writeInt(session);
+	}
+
+	/**
+	 * Create a log where the statements of all sessions are interleaved. Only the odd sessions are closed
+	 * in the log; the others must be closed when the replay finishes.
+	 */
+	static private byte[] createLog() throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try(DataOutputStream dos = new DataOutputStream(baos)) {
+			for(int i = 0; i < STATEMENTS; i++) {
+				for(int s = 0; s < SESSIONS; s++) {
+					record(dos, StatementProxy.ST_QUERY, s);
+					byte[] sql = ("select " + s + " " + i).getBytes("utf-8");
+					dos.writeInt(sql.length);
+					dos.write(sql);
+					dos.writeInt(0);
+				}
+			}
+			for(int s = 1; s < SESSIONS; s += 2)
+				record(dos, StatementProxy.ST_CLOSE, s);
+		}
+		return baos.toByteArray();
+	}
+
+	@Test
+	public void testSessionOrderAndClose() throws Exception {
+		TestReplay r = new TestReplay(createLog());
+		ParallelReplayer pr = new ParallelReplayer();
+		pr.start(r);
+		ReplayRecord rr;
+		while(null != (rr = ReplayRecord.readRecord(r)))
+			pr.handleRecord(r, rr);
+		pr.finish(r);
+
+		Assert.assertEquals(SESSIONS, m_executed.size());
+		for(int s = 0; s < SESSIONS; s++) {
+			List<Integer> list = m_executed.get(Integer.valueOf(s));
+			Assert.assertEquals("Statements of session " + s, STATEMENTS, list.size());
+			for(int i = 0; i < STATEMENTS; i++)
+				Assert.assertEquals("Statement order in session " + s, i, list.get(i).intValue());
+		}
+		Assert.assertEquals(0, r.getInExecution());
+		Assert.assertEquals("All session connections must have been closed", 0, m_pool.getUsedConnections().size());
+		Assert.assertEquals(0, m_pool.getPoolStatistics().getUnpooledAllocated());
+	}
+}
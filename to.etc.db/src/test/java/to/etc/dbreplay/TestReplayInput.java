@@ -0,0 +1,108 @@
+package to.etc.dbreplay;
+
+import java.io.*;
+import java.util.zip.*;
+
+import org.junit.*;
+import org.junit.rules.*;
+
+public class TestReplayInput {
+	/** A window this small makes most fields cross a window boundary. */
+	static private final int WINDOW = 13;
+
+	static private final int COUNT = 100;
+
+	@Rule
+	public TemporaryFolder m_folder = new TemporaryFolder();
+
+	static private void write(OutputStream os) throws IOException {
+		try(DataOutputStream dos = new DataOutputStream(os)) {
+			for(int i = 0; i < COUNT; i++) {
+				dos.writeByte(i);
+				dos.writeInt(i * 31);
+				dos.writeLong(i * 1000003L);
+				dos.write(new byte[]{(byte) i, (byte) (i + 1), (byte) (i + 2)});
+			}
+		}
+	}
+
+	/**
+	 * Read everything written by {@link #write(OutputStream)}, then check that reading past the end fails with EOF.
+	 */
+	static private void check(ReplayInput in) throws IOException {
+		for(int i = 0; i < COUNT; i++) {
+			Assert.assertEquals(i * 16L, in.getOffset());
+			Assert.assertEquals(i, in.readByte());
+			Assert.assertEquals(i * 31, in.readInt());
+			Assert.assertEquals(i * 1000003L, in.readLong());
+			Assert.assertArrayEquals(new byte[]{(byte) i, (byte) (i + 1), (byte) (i + 2)}, in.readBytes(3));
+		}
+		Assert.assertEquals(COUNT * 16L, in.getOffset());
+		try {
+			in.readByte();
+			Assert.fail("Expected EOF");
+		} catch(EOFException x) {
+			//-- Expected
+		}
+	}
+
+	@Test
+	public void testMappedWindows() throws Exception {
+		File f = m_folder.newFile("log.bin");
+		write(new FileOutputStream(f));
+		try(ReplayInput in = ReplayInput.open(f, WINDOW)) {
+			check(in);
+		}
+	}
+
+	@Test
+	public void testCompressed() throws Exception {
+		File f = m_folder.newFile("log.bin.gz");
+		write(new GZIPOutputStream(new FileOutputStream(f)));
+		try(ReplayInput in = ReplayInput.open(f, WINDOW)) {
+			check(in);
+		}
+	}
+
+	/**
+	 * A field that is cut off by the end of the file is an EOF, also when the window has to be moved for it.
+	 */
+	@Test
+	public void testTruncatedField() throws Exception {
+		File f = m_folder.newFile("log.bin");
+		try(DataOutputStream dos = new DataOutputStream(new FileOutputStream(f))) {
+			dos.writeLong(1);
+			dos.writeLong(2);
+			dos.writeShort(3);
+		}
+		try(ReplayInput in = ReplayInput.open(f, WINDOW)) {
+			Assert.assertEquals(1, in.readLong());
+			Assert.assertEquals(2, in.readLong());
+			try {
+				in.readInt();
+				Assert.fail("Expected EOF");
+			} catch(EOFException x) {
+				//-- Expected
+			}
+		}
+	}
+
+	@Test
+	public void testFieldLargerThanWindow() throws Exception {
+		File f = m_folder.newFile("log.bin");
+		try(FileOutputStream os = new FileOutputStream(f)) {
+			os.write(new byte[WINDOW * 3]);
+		}
+		try(ReplayInput in = ReplayInput.open(f, WINDOW)) {
+			in.readByte();
+			try {
+				in.readBytes(WINDOW + 1);
+				Assert.fail("Expected an exception");
+			} catch(EOFException x) {
+				Assert.fail("The field is not at the end of the file");
+			} catch(IOException x) {
+				//-- Expected
+			}
+		}
+	}
+}
@@ -105,6 +105,12 @@ public class TestRequestResponse implements IRequestResponse {
 		return m_testInfo.getUserAgent();
 	}
 
+	@Override
+	@Nullable
+	public String getRequestHeader(@Nonnull String name) {
+		return null;
+	}
+
 	@Override
 	@Nonnull
 	public String getApplicationURL() {
@@ -229,6 +235,9 @@ public class TestRequestResponse implements IRequestResponse {
 	@Override
 	public void setNoCache() {}
 
+	@Override
+	public void setStatus(int httpStatus) {}
+
 	@Override
 	public void addHeader(@Nonnull String name, @Nonnull String value) {}
 
@@ -26,6 +26,7 @@ package to.etc.domui.component.meta;
 
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import javax.annotation.*;
 
@@ -59,10 +60,24 @@ final public class MetaManager {
 	static private List<IClassMetaModelFactory> m_modelList = new ArrayList<IClassMetaModelFactory>();
 
 	/**
-	 * Map indexed by Class<?> or IMetaClass returning the classmodel for that instance.
+	 * Map indexed by Class<?> or IMetaClass returning the classmodel for that instance. This
+	 * also contains models that are still being initialized, so it must only be used while
+	 * holding the MetaManager lock.
 	 */
 	static private Map<Object, ClassMetaModel> m_classMap = new HashMap<Object, ClassMetaModel>();
 
+	/**
+	 * The fully initialized models, read without locking. A model is only added here after both
+	 * initialization phases of it and all models created with it have completed.
+	 */
+	final static private ConcurrentHashMap<Object, ClassMetaModel> m_publishedMap = new ConcurrentHashMap<Object, ClassMetaModel>();
+
+	/** The keys of the models that were created in the current initialization, and that are not yet published. */
+	final static private List<Object> m_unpublishedList = new ArrayList<Object>();
+
+	/** The nesting depth of findAndInitialize calls that are initializing models. */
+	static private int m_initDepth;
+
 	/** While a metamodel is being initialized this keeps track of recursive init's */
 	final static private Stack<Object> m_initStack = new Stack<Object>();
 
@@ -112,33 +127,61 @@ final public class MetaManager {
 	 */
 	public synchronized static void internalClear() {
 		m_classMap.clear();
+		m_publishedMap.clear();
 	}
 
 	@Nonnull
 	private static ClassMetaModel findAndInitialize(@Nonnull Object mc) {
+		//-- Fast path: the model is complete, so no lock is needed.
+		ClassMetaModel cmm = m_publishedMap.get(mc);
+		if(cmm != null)
+			return cmm;
+
 		//-- We need some factory to create it.
 		synchronized(MetaManager.class) {
-			ClassMetaModel cmm = m_classMap.get(mc);
+			cmm = m_classMap.get(mc);
 			if(cmm != null)
 				return cmm;
 
-			//-- Phase 1: create the metamodel and it's direct properties.
-			checkInitStack(mc, "primary initialization");
-			IClassMetaModelFactory best = findModelFactory(mc);
-			m_initStack.add(mc);
-			cmm = best.createModel(m_initList, mc);
-			m_classMap.put(mc, cmm);
-			m_initStack.remove(mc);
-
-			//-- Phase 2: create the secondary model.
-			if(m_initStack.size() == 0 && m_initList.size() > 0) {
-				List<Runnable> dl = new ArrayList<Runnable>(m_initList);
-				m_initList.clear();
-				for(Runnable r : dl) {
-					r.run();
+			boolean ok = false;
+			m_initDepth++;
+			try {
+				//-- Phase 1: create the metamodel and it's direct properties.
+				checkInitStack(mc, "primary initialization");
+				IClassMetaModelFactory best = findModelFactory(mc);
+				m_initStack.add(mc);
+				cmm = best.createModel(m_initList, mc);
+				m_classMap.put(mc, cmm);
+				m_unpublishedList.add(mc);
+				m_initStack.remove(mc);
+
+				//-- Phase 2: create the secondary model.
+				if(m_initStack.size() == 0 && m_initList.size() > 0) {
+					List<Runnable> dl = new ArrayList<Runnable>(m_initList);
+					m_initList.clear();
+					for(Runnable r : dl) {
+						r.run();
+					}
+				}
+				ok = true;
+				return cmm;
+			} finally {
+				/*
+				 * Only when the outermost initialization completes are all models created in it complete,
+				 * as phase 2 of a model can run in a nested call. Failed models are not published; they
+				 * remain reachable through the locked path only, as before.
+				 */
+				if(--m_initDepth == 0) {
+					if(ok) {
+						for(Object key : m_unpublishedList) {
+							ClassMetaModel done = m_classMap.get(key);
+							if(null != done)
+								m_publishedMap.put(key, done);
+						}
+					}
+					m_unpublishedList.clear();
 				}
 			}
-			return cmm;
 		}
 	}
 
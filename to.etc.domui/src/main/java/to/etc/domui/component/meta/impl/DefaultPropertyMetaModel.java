@@ -145,8 +145,7 @@ public class DefaultPropertyMetaModel<T> extends BasicPropertyMetaModel<T> imple
 		if(setter == null)
 			throw new IllegalAccessException("The property " + this + " is read-only.");
 		try {
-			setter.setAccessible(true);
-			setter.invoke(target, value);
+			m_descriptor.getInvoker().setValue(target, value);
 		} catch(InvocationTargetException itx) {
 			Throwable c = itx.getCause();
 //			System.err.println("(in calling " + setter + " with input object " + target + " and value " + value + ")");
@@ -179,8 +178,7 @@ public class DefaultPropertyMetaModel<T> extends BasicPropertyMetaModel<T> imple
 		if(in == null)
 			throw new IllegalStateException("The 'input' object is null (getter method=" + m_descriptor.getGetter() + ")");
 		try {
-			m_descriptor.getGetter().setAccessible(true);
-			return (T) m_descriptor.getGetter().invoke(in);
+			return (T) m_descriptor.getInvoker().getValue(in);
 		} catch(InvocationTargetException itx) {
 //			System.err.println(itx + " (in calling " + m_descriptor.getGetter() + " with input object " + in + ")");
 			Throwable c = itx.getCause();
@@ -0,0 +1,363 @@
+package to.etc.domui.component.tbl;
+
+import java.util.*;
+
+import javax.annotation.*;
+
+import org.slf4j.*;
+
+import to.etc.domui.component.meta.*;
+import to.etc.domui.dom.html.*;
+import to.etc.domui.util.*;
+import to.etc.util.*;
+import to.etc.webapp.query.*;
+
+/**
+ * A search model that lets the database do the paging. Where {@link SimpleSearchModel} loads
+ * the first 1000 (or 8000) rows of the result and pages through them in memory, this model
+ * only queries the rows that are actually shown, using the start and limit of the query, and
+ * it only keeps that window of rows. The #of rows is determined by a separate count query.
+ * This keeps the memory used per search screen constant, regardless of the #of rows that match.
+ *
+ * <p>Sorting is done by the database too, by replacing the order of the query. Because every
+ * page is a separate query, rows can shift between pages when the data changes while the
+ * user is paging; use a sort order on a unique property to have a stable page order.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+public class PagedSearchModel<T> extends TableModelBase<T> implements ITruncateableDataModel, ISortableTableModel, IShelvedListener {
+	private static final Logger LOG = LoggerFactory.getLogger(PagedSearchModel.class);
+
+	/** Thingy to get a database session from, if needed, */
+	@Nullable
+	final private QDataContextFactory m_sessionSource;
+
+	@Nullable
+	final private NodeBase m_contextSourceNode;
+
+	@Nonnull
+	private QCriteria<T> m_query;
+
+	/** The total #of rows, or -1 if not yet known. */
+	private int m_rowCount = -1;
+
+	private boolean m_truncated;
+
+	/** The index of the first row in the window. */
+	private int m_windowStart;
+
+	/** The rows last queried, or null if no rows are cached. */
+	@Nullable
+	private List<T> m_window;
+
+	/** If we sort on property name this is the property name to sort on. */
+	@Nullable
+	private String m_sort;
+
+	/** If sorting, this is T if the sort should be descending. */
+	private boolean m_desc;
+
+	/** The max. #of rows to return before truncating. */
+	private int m_maxRowCount;
+
+	/** T when the row count was corrected while getting rows, and the listeners have not been told yet. */
+	private boolean m_changePending;
+
+	/** The page on which a before-request listener fires the pending change. */
+	@Nullable
+	private Page m_listenerPage;
+
+	/** The #of rows asked for in the last window query; single rows are queried in pages of this size. */
+	private int m_windowSize = DEFAULT_WINDOW_SIZE;
+
+	static private final int DEFAULT_WINDOW_SIZE = 50;
+
+	public PagedSearchModel(@Nonnull NodeBase contextSourceNode, @Nonnull QCriteria<T> qc) {
+		m_query = qc;
+		m_contextSourceNode = contextSourceNode;
+		m_sessionSource = null;
+	}
+
+	public PagedSearchModel(@Nonnull QDataContextFactory ss, @Nonnull QCriteria<T> qc) {
+		m_query = qc;
+		m_sessionSource = ss;
+		m_contextSourceNode = null;
+	}
+
+	@Nonnull
+	public QCriteria<T> getQuery() {
+		return m_query;
+	}
+
+	/**
+	 * Replace the query, and requery.
+	 */
+	public void setQuery(@Nonnull QCriteria<T> query) throws Exception {
+		m_query = query;
+		if(query.getOrder().size() > 0)
+			m_sort = null;
+		clear();
+		fireModelChanged();
+	}
+
+	/**
+	 * Return the current result row limit. When &lt;= 0 the #of rows is not limited.
+	 * @return
+	 */
+	public int getMaxRowCount() {
+		return m_maxRowCount;
+	}
+
+	/**
+	 * Set the max #of rows that can be paged through. When &lt;= 0 the #of rows is not limited.
+	 */
+	public void setMaxRowCount(int maxRowCount) {
+		m_maxRowCount = maxRowCount;
+		clear();
+	}
+
+	/**
+	 * Allocate and return a datacontext.
+	 * @return
+	 * @throws Exception
+	 */
+	@Nonnull
+	private QDataContext getQueryContext() throws Exception {
+		if(m_sessionSource != null) {
+			return m_sessionSource.getDataContext(); // Create/get session
+		} else if(m_contextSourceNode != null) {
+			return m_contextSourceNode.getSharedContext();
+		}
+		throw new IllegalStateException("No sessionSource and no contextSourceNode present - I do not know how to allocate a QDataContext");
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Querying.											*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Create the query that counts the #of rows matching the query. The default implementation
+	 * selects the rowcount using the same restrictions as the query; override when the query's
+	 * root is not a class.
+	 */
+	@Nonnull
+	protected QSelection<T> createCountQuery(@Nonnull QCriteria<T> query) {
+		Class<T> root = query.getBaseClass();
+		if(null == root)
+			throw new IllegalStateException("The query has no root class; override createCountQuery() to create the count query");
+		QSelection<T> sel = QSelection.create(root);
+		sel.setRestrictions(query.getRestrictions());
+		PropertyMetaModel< ? > pk = MetaManager.findClassMeta(root).getPrimaryKey();
+		sel.addPropertySelection(QSelectionFunction.ROWCOUNT, pk == null ? "id" : pk.getName(), null);
+		return sel;
+	}
+
+	private void countRows() throws Exception {
+		long ts = System.nanoTime();
+		QSelection<T> sel = createCountQuery(m_query);
+		QDataContext dc = getQueryContext();
+		int count;
+		try {
+			Object[] res = dc.queryOne(sel);
+			count = res == null || res[0] == null ? 0 : ((Number) res[0]).intValue();
+		} finally {
+			try {
+				dc.close();
+			} catch(Exception x) {}
+		}
+		int max = getMaxRowCount();
+		if(max > 0 && count > max) {
+			count = max;
+			m_truncated = true;
+		} else
+			m_truncated = false;
+		m_rowCount = count;
+		if(LOG.isDebugEnabled())
+			LOG.debug("db: row count query took " + StringTool.strNanoTime(System.nanoTime() - ts));
+	}
+
+	/**
+	 * Query the rows [start, end), replacing the window.
+	 */
+	@Nonnull
+	private List<T> queryWindow(int start, int end) throws Exception {
+		long ts = System.nanoTime();
+		QCriteria<T> qc = m_query;
+		int oldStart = qc.getStart();
+		int oldLimit = qc.getLimit();
+		List<QOrder> oldOrder = new ArrayList<>(qc.getOrder());
+		m_window = null;
+		List<T> window;
+		QDataContext dc = getQueryContext();
+		try {
+			qc.start(start);
+			qc.limit(end - start);
+			String sort = m_sort;
+			if(sort != null) {
+				qc.getOrder().clear();
+				if(m_desc)
+					qc.descending(sort);
+				else
+					qc.ascending(sort);
+			}
+			window = dc.query(qc);
+		} finally {
+			qc.start(oldStart);
+			qc.limit(oldLimit);
+			qc.getOrder().clear();
+			for(QOrder o : oldOrder)
+				qc.add(DomUtil.nullChecked(o));
+			try {
+				dc.close();
+			} catch(Exception x) {}
+		}
+		m_window = window;
+		m_windowStart = start;
+		m_windowSize = end - start;
+		if(LOG.isDebugEnabled())
+			LOG.debug("db: paged query for rows " + start + ".." + end + " took " + StringTool.strNanoTime(System.nanoTime() - ts));
+		return window;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	ITableModel implementation.							*/
+	/*--------------------------------------------------------------*/
+	@Override
+	public int getRows() throws Exception {
+		if(m_rowCount < 0)
+			countRows();
+		return m_rowCount;
+	}
+
+	@Override
+	@Nonnull
+	public List<T> getItems(int start, int end) throws Exception {
+		if(start < 0)
+			start = 0;
+		if(end > getRows())
+			end = getRows();
+		if(end <= start)
+			return DomUtil.nullChecked(Collections.emptyList());
+
+		List<T> window = m_window;
+		if(window == null || start < m_windowStart || end > m_windowStart + window.size()) {
+			window = queryWindow(start, end);
+
+			//-- The data has changed since we counted if we got less than asked for: correct the count, and tell the listeners.
+			if(window.size() < end - start) {
+				m_rowCount = window.size() > 0 ? start + window.size() : -1;	// When the page is empty the rows before it may be gone too: recount
+				m_truncated = false;
+				end = start + window.size();
+				scheduleChange();
+			}
+		}
+		return DomUtil.nullChecked(window.subList(start - m_windowStart, end - m_windowStart));
+	}
+
+	/**
+	 * The rows are asked for while the table renders, and listeners changing the component tree
+	 * must not run then. So a corrected count only marks the change pending; it is fired at the
+	 * start of the next request on the page of the context node, or by {@link #firePendingChange()}.
+	 */
+	private void scheduleChange() {
+		m_changePending = true;
+		NodeBase node = m_contextSourceNode;
+		if(null == node || !node.isAttached())
+			return;
+		Page page = node.getPage();
+		if(page == m_listenerPage)
+			return;
+		m_listenerPage = page;
+		page.addBeforeRequestListener(this::firePendingChange);
+	}
+
+	/**
+	 * Tell the listeners that the #of rows was corrected while getting rows, if it was. Call this
+	 * outside of rendering when the model has no context node, or its node is not on a page.
+	 */
+	public void firePendingChange() throws Exception {
+		if(!m_changePending)
+			return;
+		m_changePending = false;
+		fireModelChanged();
+	}
+
+	/**
+	 * Return a single row from the window. When the row is not in the window, the page of rows
+	 * containing it is queried, using the size of the last window.
+	 */
+	@Override
+	protected T getItem(int ix) throws Exception {
+		List<T> window = m_window;
+		if(null == window || ix < m_windowStart || ix >= m_windowStart + window.size()) {
+			int start = ix - ix % m_windowSize;
+			getItems(start, start + m_windowSize);
+			window = m_window;
+		}
+		int pos = ix - m_windowStart;
+		if(null == window || pos < 0 || pos >= window.size())
+			throw new IndexOutOfBoundsException("No row " + ix);
+		return window.get(pos);
+	}
+
+	@Override
+	public boolean isTruncated() {
+		return m_truncated;
+	}
+
+	/**
+	 * Discard the count and the window, so that both get requeried.
+	 */
+	public void clear() {
+		m_rowCount = -1;
+		m_window = null;
+		m_truncated = false;
+	}
+
+	@Override
+	public void refresh() {
+		clear();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	SortableTableModel implementation.					*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * When called this requeries the current window using the specified sort property. The
+	 * #of rows is not changed by sorting so it is not requeried.
+	 */
+	@Override
+	public void sortOn(String key, boolean descending) throws Exception {
+		if(DomUtil.isEqual(key, m_sort) && descending == m_desc) // Nothing changed, get lost.
+			return;
+		m_window = null;
+		m_desc = descending;
+		m_sort = key;
+		fireModelChanged();
+	}
+
+	@Override
+	@Nullable
+	public String getSortKey() {
+		return m_sort;
+	}
+
+	@Override
+	public boolean isSortDescending() {
+		return m_desc;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	IShelveListener implementation.						*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * When the component is shelved we discard all results. This causes a requery when
+	 * unshelved (when accessed).
+	 */
+	@Override
+	public void onShelve() throws Exception {
+		clear();
+	}
+
+	@Override
+	public void onUnshelve() throws Exception {}
+}
@@ -36,6 +36,8 @@ import to.etc.util.*;
 import to.etc.webapp.query.*;
 
 /**
+ * A model that queries the first rows of a result and pages through them in memory. For large
+ * results use {@link PagedSearchModel}, which lets the database do the paging.
  *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Jun 16, 2008
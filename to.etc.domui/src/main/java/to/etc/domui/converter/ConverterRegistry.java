@@ -31,6 +31,7 @@ import to.etc.webapp.nls.*;
 
 import javax.annotation.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * A repository of Converter instances.
@@ -40,15 +41,35 @@ import java.util.*;
  */
 public class ConverterRegistry {
 	/** All converter instances for staticly accessed IConverters */
-	static private Map<Class<? extends IConverter<?>>, IConverter<?>> m_converterMap = new HashMap<Class<? extends IConverter<?>>, IConverter<?>>();
+	static private final Map<Class<? extends IConverter<?>>, IConverter<?>> m_converterMap = new ConcurrentHashMap<Class<? extends IConverter<?>>, IConverter<?>>();
 
 	/** Maps a class to the converter for the class. */
 	static private Map<Class< ? >, IConverter< ? >> m_urlConverterMap = new HashMap<Class< ? >, IConverter< ? >>();
 
-	/** The list of registered factories. */
-	static private List<IConverterFactory> m_factoryList = new ArrayList<IConverterFactory>();
+	/** The list of registered factories. The list is never changed, only replaced. */
+	static private volatile List<IConverterFactory> m_factoryList = new ArrayList<IConverterFactory>();
 
-	//	static private Map<Class< ? >, List<IConverterFactory>> m_factoryMap = new HashMap<Class< ? >, List<IConverterFactory>>();
+	/**
+	 * The factory found for a (class, property) pair; replaced by an empty map when a factory is registered. Factories
+	 * are found for the property model instance, not for its type: property models are long-lived and shared.
+	 */
+	static private volatile ConcurrentHashMap<FactoryKey, IConverterFactory> m_factoryCache = new ConcurrentHashMap<>();
+
+	/** Max #of entries in the factory cache; when more are found the cache is cleared. */
+	static private final int MAX_CACHED_FACTORIES = 8192;
+
+	/** Marks a (class, property) pair that no factory accepts, as the cache cannot contain null. */
+	static private final IConverterFactory NO_FACTORY = new IConverterFactory() {
+		@Override
+		public int accept(Class< ? > clz, PropertyMetaModel< ? > pmm) {
+			return -1;
+		}
+
+		@Override
+		public <X, T extends IConverter<X>> T createConverter(Class<X> clz, PropertyMetaModel<X> pmm) {
+			throw new IllegalStateException("Not a factory");
+		}
+	};
 
 	static private IConverterFactory m_defaultConverterFactory;
 
@@ -71,7 +92,7 @@ public class ConverterRegistry {
 	 * @return
 	 */
 	@Nonnull
-	static public synchronized <X, T extends IConverter<X>> T getConverterInstance(@Nonnull Class<T> clz) {
+	static public <X, T extends IConverter<X>> T getConverterInstance(@Nonnull Class<T> clz) {
 		T c = (T) m_converterMap.get(clz);
 		if(c == null) {
 			try {
@@ -79,7 +100,9 @@ public class ConverterRegistry {
 			} catch(Exception x) {
 				throw new IllegalStateException("Cannot instantiate converter " + clz + ": " + x, x);
 			}
-			m_converterMap.put(clz, c);
+			T old = (T) m_converterMap.putIfAbsent(clz, c);
+			if(null != old)
+				c = old;							// Another thread was first; use its instance
 		}
 		return c;
 	}
@@ -251,15 +274,17 @@ public class ConverterRegistry {
 	static synchronized public void register(IConverterFactory cf) {
 		if(m_factoryList.contains(cf))
 			return;
-		m_factoryList = new ArrayList<IConverterFactory>(m_factoryList); // Dup the original list,
-		m_factoryList.add(cf);
+		List<IConverterFactory> list = new ArrayList<IConverterFactory>(m_factoryList); // Dup the original list,
+		list.add(cf);
+		m_factoryList = list;
+		m_factoryCache = new ConcurrentHashMap<>();					// Resolve everything again
 	}
 
 	/**
 	 * Return a thread-safe copy of the factory list.
 	 * @return
 	 */
-	static synchronized private List<IConverterFactory> getFactoryList() {
+	static private List<IConverterFactory> getFactoryList() {
 		return m_factoryList;
 	}
 
@@ -290,29 +315,65 @@ public class ConverterRegistry {
 	/*--------------------------------------------------------------*/
 	/**
 	 * Finds the best factory to use. Returns null if no factory was found.
-	 * <p>jal 20091118 Per-class factory cache removed because more than just class is used to determine the factory to use.</p>
+	 * <p>jal 20091118 Per-class factory cache removed because more than just class is used to determine the factory to use.
+	 * The factory is now cached per class and property model instance.</p>
 	 * @param clz
 	 * @param pmm
 	 * @return
 	 */
 	static private IConverterFactory findFactory(Class< ? > clz, PropertyMetaModel< ? > pmm) {
-		synchronized(ConverterRegistry.class) {
-			//-- Scan teh full list, and build a list-of-factories-accepting-this-class during it,
-			List<IConverterFactory> flist = new ArrayList<IConverterFactory>();
-			IConverterFactory best = null;
-			int bestscore = 0;
-			for(IConverterFactory cf : getFactoryList()) {
-				int score = cf.accept(clz, pmm);
-				if(score < 0)
-					continue;
-				flist.add(cf); // Factory at least accepts the class- add to per-type list,
-
-				if(score > bestscore) { // > 0 (!) and > highscore
-					best = cf;
-					bestscore = score;
-				}
+		ConcurrentHashMap<FactoryKey, IConverterFactory> cache = m_factoryCache;	// Read before the list, so that it is never older than the list
+		FactoryKey key = new FactoryKey(clz, pmm);
+		IConverterFactory cf = cache.get(key);
+		if(cf == null) {
+			cf = calculateFactory(clz, pmm);
+			if(cf == null)
+				cf = NO_FACTORY;
+			if(cache.size() >= MAX_CACHED_FACTORIES)
+				cache.clear();
+			cache.put(key, cf);
+		}
+		return cf == NO_FACTORY ? null : cf;
+	}
+
+	static private IConverterFactory calculateFactory(Class< ? > clz, PropertyMetaModel< ? > pmm) {
+		IConverterFactory best = null;
+		int bestscore = 0;
+		for(IConverterFactory cf : getFactoryList()) {
+			int score = cf.accept(clz, pmm);
+			if(score > bestscore) { // > 0 (!) and > highscore
+				best = cf;
+				bestscore = score;
 			}
-			return best;
+		}
+		return best;
+	}
+
+	/**
+	 * Key for the factory cache: the class, and the identity of the property model.
+	 */
+	static private final class FactoryKey {
+		private final Class< ? > m_class;
+
+		@Nullable
+		private final PropertyMetaModel< ? > m_property;
+
+		FactoryKey(Class< ? > clz, @Nullable PropertyMetaModel< ? > property) {
+			m_class = clz;
+			m_property = property;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof FactoryKey))
+				return false;
+			FactoryKey o = (FactoryKey) obj;
+			return o.m_class == m_class && o.m_property == m_property;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(m_class) * 31 + System.identityHashCode(m_property);
 		}
 	}
 
@@ -25,6 +25,9 @@
 package to.etc.domui.converter;
 
 import java.text.*;
+import java.time.*;
+import java.time.format.*;
+import java.time.temporal.*;
 import java.util.*;
 
 import to.etc.domui.trouble.*;
@@ -32,20 +35,22 @@ import to.etc.domui.util.*;
 import to.etc.util.*;
 
 public class DateConverter implements IConverter<Date> {
-	static private final ThreadLocal<DateFormat> m_format = new ThreadLocal<DateFormat>();
-
 	static private final String DATE_PATTERN_NL = "dd-MM-yyyy";
 
 	static private final String DATE_PATTERN_EN = "yyyy-MM-dd";
 
-	static private DateFormat getFormatter() {
-		DateFormat df = m_format.get();
-		if(df == null) {
-			df = new SimpleDateFormat(DATE_PATTERN_NL);
-			m_format.set(df);
-		}
-		return df;
-	}
+	/** Formatters are immutable and thread-safe, so they are shared by all converters and threads. */
+	static private final DateTimeFormatter FORMAT_NL = DateTimeFormatter.ofPattern(DATE_PATTERN_NL);
+
+	static private final DateTimeFormatter FORMAT_EN = DateTimeFormatter.ofPattern(DATE_PATTERN_EN);
+
+	/** Parses like a non-lenient SimpleDateFormat: the fields can have less digits than in the pattern. */
+	static private final DateTimeFormatter PARSE_EN = new DateTimeFormatterBuilder()
+		.appendValue(ChronoField.YEAR, 1, 9, SignStyle.NORMAL).appendLiteral('-')
+		.appendValue(ChronoField.MONTH_OF_YEAR, 1, 2, SignStyle.NOT_NEGATIVE).appendLiteral('-')
+		.appendValue(ChronoField.DAY_OF_MONTH, 1, 2, SignStyle.NOT_NEGATIVE)
+		.toFormatter()
+		.withResolverStyle(ResolverStyle.STRICT);
 
 	@Override
 	public String convertObjectToString(final Locale loc, final Date in) throws UIException {
@@ -56,9 +61,9 @@ public class DateConverter implements IConverter<Date> {
 		//			throw new IllegalStateException("Type must be java.util.Date for this converter");
 		Date dt = in;
 		if(loc.getLanguage().equalsIgnoreCase("nl")) {
-			return getFormatter().format(dt);
+			return FORMAT_NL.format(toDateTime(dt));
 		} else if(loc.getLanguage().equalsIgnoreCase("en")) {
-			return new SimpleDateFormat(DATE_PATTERN_EN).format(dt);
+			return FORMAT_EN.format(toDateTime(dt));
 		}
 
 		DateFormat df = DateFormat.getDateInstance(DateFormat.SHORT, loc);
@@ -80,10 +85,8 @@ public class DateConverter implements IConverter<Date> {
 				return CalculationUtil.dutchDate(input);
 			} else if(loc.getLanguage().equalsIgnoreCase("en")) {
 				datePattern = DATE_PATTERN_EN;
-				SimpleDateFormat enDateFormat = new SimpleDateFormat(DATE_PATTERN_EN);
-				//vmijic 20090911 Set lenient to false to prevent wierd date recaclulations by java built in code.
-				enDateFormat.setLenient(false);
-				return enDateFormat.parse(input);
+				LocalDate ld = LocalDate.from(parsePrefix(PARSE_EN, input));
+				return toDate(ld.atStartOfDay());
 			} else {
 				DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.SHORT, loc);
 				if(dateFormat instanceof SimpleDateFormat)
@@ -99,4 +102,22 @@ public class DateConverter implements IConverter<Date> {
 			throw new ValidationException(Msgs.V_INVALID_DATE, datePattern);
 		}
 	}
+
+	/**
+	 * Parse the start of the input, ignoring anything after the parsed part like DateFormat.parse() does.
+	 */
+	static TemporalAccessor parsePrefix(DateTimeFormatter f, String input) {
+		return f.parse(input, new ParsePosition(0));
+	}
+
+	/**
+	 * The date in the default time zone, as used by SimpleDateFormat. This does not use Date.toInstant() as java.sql.Date does not support it.
+	 */
+	static ZonedDateTime toDateTime(Date in) {
+		return Instant.ofEpochMilli(in.getTime()).atZone(ZoneId.systemDefault());
+	}
+
+	static Date toDate(LocalDateTime ldt) {
+		return Date.from(ldt.atZone(ZoneId.systemDefault()).toInstant());
+	}
 }
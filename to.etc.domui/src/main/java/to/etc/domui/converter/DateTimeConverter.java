@@ -25,6 +25,9 @@
 package to.etc.domui.converter;
 
 import java.text.*;
+import java.time.*;
+import java.time.format.*;
+import java.time.temporal.*;
 import java.util.*;
 
 import to.etc.domui.trouble.*;
@@ -44,16 +47,19 @@ public class DateTimeConverter implements IConverter<Date> {
 
 	static private final String DATE_PATTERN_EN = "yyyy-MM-dd HH:mm";
 
-	static private final ThreadLocal<DateFormat> m_format = new ThreadLocal<DateFormat>();
+	static private final DateTimeFormatter FORMAT_NL = DateTimeFormatter.ofPattern(DATE_PATTERN_NL);
 
-	static private DateFormat getFormatter() {
-		DateFormat df = m_format.get();
-		if(df == null) {
-			df = new SimpleDateFormat(DATE_PATTERN_NL);
-			m_format.set(df);
-		}
-		return df;
-	}
+	static private final DateTimeFormatter FORMAT_EN = DateTimeFormatter.ofPattern(DATE_PATTERN_EN);
+
+	/** Parses like a non-lenient SimpleDateFormat: the fields can have less digits than in the pattern. */
+	static private final DateTimeFormatter PARSE_EN = new DateTimeFormatterBuilder()
+		.appendValue(ChronoField.YEAR, 1, 9, SignStyle.NORMAL).appendLiteral('-')
+		.appendValue(ChronoField.MONTH_OF_YEAR, 1, 2, SignStyle.NOT_NEGATIVE).appendLiteral('-')
+		.appendValue(ChronoField.DAY_OF_MONTH, 1, 2, SignStyle.NOT_NEGATIVE).appendLiteral(' ')
+		.appendValue(ChronoField.HOUR_OF_DAY, 1, 2, SignStyle.NOT_NEGATIVE).appendLiteral(':')
+		.appendValue(ChronoField.MINUTE_OF_HOUR, 1, 2, SignStyle.NOT_NEGATIVE)
+		.toFormatter()
+		.withResolverStyle(ResolverStyle.STRICT);
 
 
 	@Override
@@ -64,9 +70,9 @@ public class DateTimeConverter implements IConverter<Date> {
 		//			throw new IllegalStateException("Type must be java.util.Date for this converter");
 		Date dt = in;
 		if(loc.getLanguage().equalsIgnoreCase("nl")) {
-			return getFormatter().format(dt);
+			return FORMAT_NL.format(DateConverter.toDateTime(dt));
 		} else if(loc.getLanguage().equalsIgnoreCase("en")) {
-			return new SimpleDateFormat(DATE_PATTERN_EN).format(dt);
+			return FORMAT_EN.format(DateConverter.toDateTime(dt));
 		}
 		DateFormat df = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, loc);
 		return df.format(dt);
@@ -85,16 +91,13 @@ public class DateTimeConverter implements IConverter<Date> {
 		try {
 			if(loc.getLanguage().equalsIgnoreCase("nl")) {
 				datePattern = DATE_PATTERN_NL;
-				df = new SimpleDateFormat(DATE_PATTERN_NL);
 				return CalculationUtil.dutchDateAndTime(input);
 			} else if(loc.getLanguage().equalsIgnoreCase("en")) {
 				datePattern = DATE_PATTERN_EN;
-				df = new SimpleDateFormat(DATE_PATTERN_EN);
-			} else {
-				df = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, loc);
+				return DateConverter.toDate(LocalDateTime.from(DateConverter.parsePrefix(PARSE_EN, input)));
 			}
+			df = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, loc);
 			df.setLenient(false);
-			//				return CalculationUtil.dutchDate(input);
 			return df.parse(input);
 		} catch(Exception x) {
 			if(datePattern == null && df != null) {
@@ -206,34 +206,31 @@ public class MoneyUtil {
 
 		//-- Now convert.
 		String s;
-		DecimalFormatSymbols dfs = new DecimalFormatSymbols(NlsContext.getLocale()); // Get numeric format symbols for the locale
+		DecimalFormat df = NumericUtil.getDecimalFormat((thousands ? "###,###,###,###,##0" : "##############0") + fracmask);
 		if(symbol && thousands) {
-			DecimalFormat df = new DecimalFormat("###,###,###,###,##0" + fracmask, dfs);
 			sb.append(NlsContext.getCurrencySymbol());
 			sb.append('\u00a0');
 			sb.append(df.format(v));
 			s = sb.toString();
 		} else if(symbol) {
-			DecimalFormat df = new DecimalFormat("##############0" + fracmask, dfs);
 			sb.append(NlsContext.getCurrencySymbol());
 			sb.append('\u00a0');
 			sb.append(df.format(v));
 			s = sb.toString();
 		} else if(thousands) {
-			DecimalFormat df = new DecimalFormat("###,###,###,###,##0" + fracmask, dfs);
 			s = df.format(v);
 		} else {
 			//-- No symbol, no thousands separators; just a #
-			DecimalFormat df = new DecimalFormat("##############0" + fracmask, dfs);
 			s = df.format(v);
 		}
 		if(trunk && nfrac > 0) {
 			//-- If the fraction is rendered as .00000000 whatever we need to truncate it..
-			if(dfs.getDecimalSeparator() == '.') {
+			char sep = df.getDecimalFormatSymbols().getDecimalSeparator();
+			if(sep == '.') {
 				if(s.endsWith(fracmask))
 					s = s.substring(0, s.length() - nfrac - 1);
 			} else {
-				String match = dfs.getDecimalSeparator() + fracmask.substring(1);
+				String match = sep + fracmask.substring(1);
 				if(s.endsWith(match))
 					s = s.substring(0, s.length() - nfrac - 1);
 			}
@@ -26,6 +26,7 @@ package to.etc.domui.converter;
 
 import java.math.*;
 import java.text.*;
+import java.util.*;
 
 import javax.annotation.*;
 
@@ -233,7 +234,6 @@ public class NumericUtil {
 		if(v == null)
 			return "";
 		Class< ? > type = v.getClass();
-		DecimalFormatSymbols dfs = new DecimalFormatSymbols(NlsContext.getLocale()); // Get numeric format symbols for the locale
 		if(DomUtil.isIntegerType(type)) {
 			switch(np){
 				default:
@@ -244,11 +244,11 @@ public class NumericUtil {
 				case NUMBER_SCALED:
 					return v.toString();
 				case NUMBER_FULL:
-					return new DecimalFormat("###,###,###,###,###,###,###,###,###,###,###,###,##0", dfs).format(v);
+					return getDecimalFormat("###,###,###,###,###,###,###,###,###,###,###,###,##0").format(v);
 				case NUMBER_SCIENTIFIC:
 					if(type != BigDecimal.class)
 						v = new BigDecimal(v.longValue());
-					return new DecimalFormat("#.#E#", dfs).format(v);
+					return getDecimalFormat("#.#E#").format(v);
 			}
 		}
 
@@ -264,7 +264,7 @@ public class NumericUtil {
 			case UNKNOWN:
 			case NUMBER:
 				@Nonnull
-				String res = new DecimalFormat(NUMBER_BY_SCALE_TRUNC_ZEROS[scale], dfs).format(v);
+				String res = getDecimalFormat(NUMBER_BY_SCALE_TRUNC_ZEROS[scale]).format(v);
 				if(res != null && (res.endsWith(".") || res.endsWith(","))) {
 					//If we have 1000. then we need to cut of last decimal separator
 					res = res.substring(0, res.length() - 2);
@@ -272,14 +272,36 @@ public class NumericUtil {
 				return res;
 
 			case NUMBER_SCALED:
-				return new DecimalFormat(NUMBER_BY_SCALE[scale], dfs).format(v);
+				return getDecimalFormat(NUMBER_BY_SCALE[scale]).format(v);
 			case NUMBER_FULL:
-				return new DecimalFormat(FULL_BY_SCALE[scale], dfs).format(v);
+				return getDecimalFormat(FULL_BY_SCALE[scale]).format(v);
 			case NUMBER_SCIENTIFIC:
-				return new DecimalFormat("#.#E#", dfs).format(v);
+				return getDecimalFormat("#.#E#").format(v);
 		}
 	}
 
+	/**
+	 * Per thread the formats by locale and pattern, as DecimalFormat is not thread-safe and expensive to create. The
+	 * per-thread map holds only JDK classes, so that a pooled container thread does not keep the webapp's classloader.
+	 */
+	static private final ThreadLocal<Map<Locale, Map<String, DecimalFormat>>> m_formatMap = ThreadLocal.withInitial(HashMap::new);
+
+	/**
+	 * Get a format for the pattern and the current locale, cached for the current thread. The format must not be
+	 * changed, as it is reused by later calls.
+	 */
+	@Nonnull
+	static DecimalFormat getDecimalFormat(String pattern) {
+		Locale loc = NlsContext.getLocale();
+		Map<String, DecimalFormat> map = m_formatMap.get().computeIfAbsent(loc, a -> new HashMap<>());
+		DecimalFormat df = map.get(pattern);
+		if(null == df) {
+			df = new DecimalFormat(pattern, new DecimalFormatSymbols(loc));		// Get numeric format symbols for the locale
+			map.put(pattern, df);
+		}
+		return df;
+	}
+
 	public static <T extends Number> IConverter<T> createNumberConverter(Class<T> type, NumericPresentation np, int scale) {
 		return new NumberConverter<T>(type, np, scale);
 	}
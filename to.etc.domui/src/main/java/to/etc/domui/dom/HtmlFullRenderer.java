@@ -404,10 +404,7 @@ public class HtmlFullRenderer extends NodeVisitorBase {
 		/*
 		 * We need polling if we have any of the keep alive options on, or when there is an async request.
 		 */
-		int pollinterval = application.calculatePollInterval(page.getConversation().isPollCallbackRequired());
-		if(pollinterval > 0) {
-			o().writeRaw("WebUI.startPolling(" + pollinterval + ");");
-		}
+		o().writeRaw(application.internalGetPollJavascript(page, false));
 		int autorefresh = application.getAutoRefreshPollInterval();
 		if(autorefresh > 0) {
 			o().writeRaw("WebUI.setHideExpired();");
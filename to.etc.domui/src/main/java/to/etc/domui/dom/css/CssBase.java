@@ -35,122 +35,136 @@ import to.etc.domui.util.*;
 public class CssBase {
 	private String m_cachedStyle;
 
+	/*
+	 * The style properties are stored sparsely, as most nodes set none or only a few of them. Every property
+	 * has an ordinal below; m_setMask has the bit for that ordinal set when the property has a value, and
+	 * m_values contains the values of the set properties only, ordered by ordinal. The index of a property's
+	 * value is the #of set properties with a lower ordinal. Int properties are stored boxed, and are removed
+	 * when they are set to their "unset" value.
+	 */
+
 	/*-- CSS Background properties --*/
-	private BackgroundAttachment m_backgroundAttachment;
+	static private final int BACKGROUND_ATTACHMENT = 0;
 
-	private String m_backgroundColor;
+	static private final int BACKGROUND_COLOR = 1;
 
-	private String m_backgroundImage;
+	static private final int BACKGROUND_IMAGE = 2;
 
-	private String m_backgroundPosition;
+	static private final int BACKGROUND_POSITION = 3;
 
-	private String m_backgroundRepeat;
+	static private final int BACKGROUND_REPEAT = 4;
 
 	/*-- CSS Border properties --*/
-	private int m_borderLeftWidth = -1;
+	static private final int BORDER_LEFT_WIDTH = 5;
 
-	private int m_borderRightWidth = -1;
+	static private final int BORDER_RIGHT_WIDTH = 6;
 
-	private int m_borderTopWidth = -1;
+	static private final int BORDER_TOP_WIDTH = 7;
 
-	private int m_borderBottomWidth = -1;
+	static private final int BORDER_BOTTOM_WIDTH = 8;
 
-	private String m_borderTopColor;
+	static private final int BORDER_TOP_COLOR = 9;
 
-	private String m_borderBottomColor;
+	static private final int BORDER_BOTTOM_COLOR = 10;
 
-	private String m_borderLeftColor;
+	static private final int BORDER_LEFT_COLOR = 11;
 
-	private String m_borderRightColor;
+	static private final int BORDER_RIGHT_COLOR = 12;
 
-	private String m_borderTopStyle;
+	static private final int BORDER_TOP_STYLE = 13;
 
-	private String m_borderBottomStyle;
+	static private final int BORDER_BOTTOM_STYLE = 14;
 
-	private String m_borderLeftStyle;
+	static private final int BORDER_LEFT_STYLE = 15;
 
-	private String m_borderRightStyle;
+	static private final int BORDER_RIGHT_STYLE = 16;
 
 	/*-- CSS Classification. --*/
-	private ClearType m_clear;
-
-//	private String m_cursor;
+	static private final int CLEAR = 17;
 
-	private DisplayType m_display;
+	static private final int DISPLAY = 18;
 
-	private FloatType m_float;
+	static private final int FLOAT = 19;
 
-	private PositionType m_position;
+	static private final int POSITION = 20;
 
-	private VisibilityType m_visibility;
+	static private final int VISIBILITY = 21;
 
 	/*-- CSS Dimension properties --*/
-	private String m_height;
+	static private final int HEIGHT = 22;
 
-	private String m_lineHeight;
+	static private final int LINE_HEIGHT = 23;
 
-	private String m_maxHeight;
+	static private final int MAX_HEIGHT = 24;
 
-	private String m_maxWidth;
+	static private final int MAX_WIDTH = 25;
 
-	private String m_minHeight;
+	static private final int MIN_HEIGHT = 26;
 
-	private String m_minWidth;
+	static private final int MIN_WIDTH = 27;
 
-	private String m_width;
+	static private final int WIDTH = 28;
 
 	/*-- CSS Font properties. --*/
-	private String m_fontFamily;
+	static private final int FONT_FAMILY = 29;
 
-	private String m_fontSize;
+	static private final int FONT_SIZE = 30;
 
-	private String m_fontSizeAdjust;
+	static private final int FONT_SIZE_ADJUST = 31;
 
-	private FontStyle m_fontStyle;
+	static private final int FONT_STYLE = 32;
 
-	private FontVariant m_fontVariant;
+	static private final int FONT_VARIANT = 33;
 
-	private String m_fontWeight;
+	static private final int FONT_WEIGHT = 34;
 
-	private String m_color;
+	static private final int COLOR = 35;
 
 	/*-- Positioning --*/
-	private Overflow m_overflow;
+	static private final int OVERFLOW = 36;
 
-	private int m_zIndex = Integer.MIN_VALUE;
+	static private final int Z_INDEX = 37;
 
-	private String m_top;
+	static private final int TOP = 38;
 
-	private String m_bottom;
+	static private final int BOTTOM = 39;
 
-	private String m_left;
+	static private final int LEFT = 40;
 
-	private String m_right;
+	static private final int RIGHT = 41;
 
 	/*--- TEXT properties -----*/
-	private TextAlign m_textAlign;
+	static private final int TEXT_ALIGN = 42;
 
-	private VerticalAlignType m_verticalAlign;
+	static private final int VERTICAL_ALIGN = 43;
 
 	/*-- CSS Margin properties --*/
-	private String m_marginLeft;
+	static private final int MARGIN_LEFT = 44;
 
-	private String m_marginRight;
+	static private final int MARGIN_RIGHT = 45;
 
-	private String m_marginTop;
+	static private final int MARGIN_TOP = 46;
 
-	private String m_marginBottom;
+	static private final int MARGIN_BOTTOM = 47;
 
 	/*-- CSS Padding properties --*/
-	private String m_paddingLeft;
+	static private final int PADDING_LEFT = 48;
 
-	private String m_paddingRight;
+	static private final int PADDING_RIGHT = 49;
 
-	private String m_paddingTop;
+	static private final int PADDING_TOP = 50;
 
-	private String m_paddingBottom;
-	
-	private TextTransformType m_transform;
+	static private final int PADDING_BOTTOM = 51;
+
+	static private final int TRANSFORM = 52;
+
+	static private final Object[] NO_VALUES = new Object[0];
+
+	/** A bit for every property that has a value. */
+	private long m_setMask;
+
+	/** The values of all set properties, in ordinal order. */
+	private Object[] m_values = NO_VALUES;
 
 	public String getCachedStyle() {
 		return m_cachedStyle;
@@ -168,174 +182,199 @@ public class CssBase {
 	// FIXME Needs impl.
 	}
 
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Sparse property storage.							*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Return the value of a property, or null if it is not set.
+	 */
+	private Object get(final int prop) {
+		long bit = 1L << prop;
+		if((m_setMask & bit) == 0)
+			return null;
+		return m_values[Long.bitCount(m_setMask & (bit - 1))];
+	}
+
+	private int getInt(final int prop, final int unset) {
+		Integer v = (Integer) get(prop);
+		return v == null ? unset : v.intValue();
+	}
+
+	/**
+	 * Set a property and call {@link #changed()} if its value changes.
+	 */
+	private void set(final int prop, final Object value) {
+		if(DomUtil.isEqual(value, get(prop)))
+			return;
+		changed();
+		put(prop, value);
+	}
+
+	private void setInt(final int prop, final int value, final int unset) {
+		set(prop, value == unset ? null : Integer.valueOf(value));
+	}
+
+	/**
+	 * Store a property's value without change handling. A null value removes the property.
+	 */
+	private void put(final int prop, final Object value) {
+		long bit = 1L << prop;
+		int index = Long.bitCount(m_setMask & (bit - 1));
+		Object[] values = m_values;
+		if((m_setMask & bit) != 0) {
+			if(value != null) {
+				values[index] = value;
+			} else {
+				Object[] nv = values.length == 1 ? NO_VALUES : new Object[values.length - 1];
+				System.arraycopy(values, 0, nv, 0, index);
+				System.arraycopy(values, index + 1, nv, index, values.length - index - 1);
+				m_values = nv;
+				m_setMask &= ~bit;
+			}
+		} else if(value != null) {
+			Object[] nv = new Object[values.length + 1];
+			System.arraycopy(values, 0, nv, 0, index);
+			nv[index] = value;
+			System.arraycopy(values, index, nv, index + 1, values.length - index);
+			m_values = nv;
+			m_setMask |= bit;
+		}
+	}
+
 	public BackgroundAttachment getBackgroundAttachment() {
-		return m_backgroundAttachment;
+		return (BackgroundAttachment) get(BACKGROUND_ATTACHMENT);
 	}
 
 	public void setBackgroundAttachment(final BackgroundAttachment backgroundAttachment) {
-		if(!DomUtil.isEqual(backgroundAttachment, m_backgroundAttachment))
-			changed();
-		m_backgroundAttachment = backgroundAttachment;
+		set(BACKGROUND_ATTACHMENT, backgroundAttachment);
 	}
 
 	public String getBackgroundColor() {
-		return m_backgroundColor;
+		return (String) get(BACKGROUND_COLOR);
 	}
 
 	public void setBackgroundColor(final String backgroundColor) {
-		if(!DomUtil.isEqual(backgroundColor, m_backgroundColor))
-			changed();
-		m_backgroundColor = backgroundColor;
+		set(BACKGROUND_COLOR, backgroundColor);
 	}
 
 	public String getBackgroundImage() {
-		return m_backgroundImage;
+		return (String) get(BACKGROUND_IMAGE);
 	}
 
 	public void setBackgroundImage(final String backgroundImage) {
-		if(!DomUtil.isEqual(backgroundImage, m_backgroundImage))
-			changed();
-		m_backgroundImage = backgroundImage;
+		set(BACKGROUND_IMAGE, backgroundImage);
 	}
 
 	public String getBackgroundPosition() {
-		return m_backgroundPosition;
+		return (String) get(BACKGROUND_POSITION);
 	}
 
 	public void setBackgroundPosition(final String backgroundPosition) {
-		if(!DomUtil.isEqual(backgroundPosition, m_backgroundPosition))
-			changed();
-		m_backgroundPosition = backgroundPosition;
+		set(BACKGROUND_POSITION, backgroundPosition);
 	}
 
 	public String getBackgroundRepeat() {
-		return m_backgroundRepeat;
+		return (String) get(BACKGROUND_REPEAT);
 	}
 
 	public void setBackgroundRepeat(final String backgroundRepeat) {
-		if(!DomUtil.isEqual(backgroundRepeat, m_backgroundRepeat))
-			changed();
-		m_backgroundRepeat = backgroundRepeat;
+		set(BACKGROUND_REPEAT, backgroundRepeat);
 	}
 
 	public int getBorderLeftWidth() {
-		return m_borderLeftWidth;
+		return getInt(BORDER_LEFT_WIDTH, -1);
 	}
 
 	public void setBorderLeftWidth(final int borderLeftWidth) {
-		if(borderLeftWidth != m_borderLeftWidth)
-			changed();
-		m_borderLeftWidth = borderLeftWidth;
+		setInt(BORDER_LEFT_WIDTH, borderLeftWidth, -1);
 	}
 
 	public int getBorderRightWidth() {
-		return m_borderRightWidth;
+		return getInt(BORDER_RIGHT_WIDTH, -1);
 	}
 
 	public void setBorderRightWidth(final int borderRightWidth) {
-		if(m_borderRightWidth != borderRightWidth)
-			changed();
-		m_borderRightWidth = borderRightWidth;
+		setInt(BORDER_RIGHT_WIDTH, borderRightWidth, -1);
 	}
 
 	public int getBorderTopWidth() {
-		return m_borderTopWidth;
+		return getInt(BORDER_TOP_WIDTH, -1);
 	}
 
 	public void setBorderTopWidth(final int borderTopWidth) {
-		if(m_borderTopWidth != borderTopWidth)
-			changed();
-		m_borderTopWidth = borderTopWidth;
+		setInt(BORDER_TOP_WIDTH, borderTopWidth, -1);
 	}
 
 	public int getBorderBottomWidth() {
-		return m_borderBottomWidth;
+		return getInt(BORDER_BOTTOM_WIDTH, -1);
 	}
 
 	public void setBorderBottomWidth(final int borderBottomWidth) {
-		if(m_borderBottomWidth != borderBottomWidth)
-			changed();
-		m_borderBottomWidth = borderBottomWidth;
+		setInt(BORDER_BOTTOM_WIDTH, borderBottomWidth, -1);
 	}
 
 	public String getBorderTopColor() {
-		return m_borderTopColor;
+		return (String) get(BORDER_TOP_COLOR);
 	}
 
 	public void setBorderTopColor(final String borderTopColor) {
-		if(!DomUtil.isEqual(borderTopColor, m_borderTopColor))
-			changed();
-		m_borderTopColor = borderTopColor;
+		set(BORDER_TOP_COLOR, borderTopColor);
 	}
 
 	public String getBorderBottomColor() {
-		return m_borderBottomColor;
+		return (String) get(BORDER_BOTTOM_COLOR);
 	}
 
 	public void setBorderBottomColor(final String borderBottomColor) {
-		if(!DomUtil.isEqual(borderBottomColor, m_borderBottomColor))
-			changed();
-		m_borderBottomColor = borderBottomColor;
+		set(BORDER_BOTTOM_COLOR, borderBottomColor);
 	}
 
 	public String getBorderLeftColor() {
-		return m_borderLeftColor;
+		return (String) get(BORDER_LEFT_COLOR);
 	}
 
 	public void setBorderLeftColor(final String borderLeftColor) {
-		if(!DomUtil.isEqual(borderLeftColor, m_borderLeftColor))
-			changed();
-		m_borderLeftColor = borderLeftColor;
+		set(BORDER_LEFT_COLOR, borderLeftColor);
 	}
 
 	public String getBorderRightColor() {
-		return m_borderRightColor;
+		return (String) get(BORDER_RIGHT_COLOR);
 	}
 
 	public void setBorderRightColor(final String borderRightColor) {
-		if(!DomUtil.isEqual(borderRightColor, m_borderRightColor))
-			changed();
-		m_borderRightColor = borderRightColor;
+		set(BORDER_RIGHT_COLOR, borderRightColor);
 	}
 
 	public String getBorderTopStyle() {
-		return m_borderTopStyle;
+		return (String) get(BORDER_TOP_STYLE);
 	}
 
 	public void setBorderTopStyle(final String borderTopStyle) {
-		if(!DomUtil.isEqual(borderTopStyle, m_borderTopStyle))
-			changed();
-		m_borderTopStyle = borderTopStyle;
+		set(BORDER_TOP_STYLE, borderTopStyle);
 	}
 
 	public String getBorderBottomStyle() {
-		return m_borderBottomStyle;
+		return (String) get(BORDER_BOTTOM_STYLE);
 	}
 
 	public void setBorderBottomStyle(final String borderBottomStyle) {
-		if(!DomUtil.isEqual(borderBottomStyle, m_borderBottomStyle))
-			changed();
-		m_borderBottomStyle = borderBottomStyle;
+		set(BORDER_BOTTOM_STYLE, borderBottomStyle);
 	}
 
 	public String getBorderLeftStyle() {
-		return m_borderLeftStyle;
+		return (String) get(BORDER_LEFT_STYLE);
 	}
 
 	public void setBorderLeftStyle(final String borderLeftStyle) {
-		if(!DomUtil.isEqual(borderLeftStyle, m_borderLeftStyle))
-			changed();
-		m_borderLeftStyle = borderLeftStyle;
+		set(BORDER_LEFT_STYLE, borderLeftStyle);
 	}
 
 	public String getBorderRightStyle() {
-		return m_borderRightStyle;
+		return (String) get(BORDER_RIGHT_STYLE);
 	}
 
 	public void setBorderRightStyle(final String borderRightStyle) {
-		if(!DomUtil.isEqual(borderRightStyle, m_borderRightStyle))
-			changed();
-		m_borderRightStyle = borderRightStyle;
+		set(BORDER_RIGHT_STYLE, borderRightStyle);
 	}
 
 	/*-- Border shortcut calls. --*/
@@ -372,13 +411,11 @@ public class CssBase {
 	}
 
 	public ClearType getClear() {
-		return m_clear;
+		return (ClearType) get(CLEAR);
 	}
 
 	public void setClear(final ClearType clear) {
-		if(!DomUtil.isEqual(clear, m_clear))
-			changed();
-		m_clear = clear;
+		set(CLEAR, clear);
 	}
 
 //	public String getCursor() {
@@ -392,13 +429,11 @@ public class CssBase {
 //	}
 
 	public DisplayType getDisplay() {
-		return m_display;
+		return (DisplayType) get(DISPLAY);
 	}
 
 	public void setDisplay(final DisplayType display) {
-		if(!DomUtil.isEqual(display, m_display))
-			changed();
-		m_display = display;
+		set(DISPLAY, display);
 	}
 
 	/**
@@ -407,218 +442,163 @@ public class CssBase {
 	 * @return
 	 */
 	public boolean internalSetDisplay(final DisplayType dt) {
-		if(m_display == dt)
+		if(get(DISPLAY) == dt)
 			return false;
-		m_display = dt;
+		put(DISPLAY, dt);
 		setCachedStyle(null);
 		return true;
 	}
 
 	public Overflow getOverflow() {
-		return m_overflow;
+		return (Overflow) get(OVERFLOW);
 	}
 
 	public void setOverflow(final Overflow overflow) {
-		if(m_overflow != overflow)
-			changed();
-		m_overflow = overflow;
+		set(OVERFLOW, overflow);
 	}
 
 	public FloatType getFloat() {
-		return m_float;
+		return (FloatType) get(FLOAT);
 	}
 
 	public void setFloat(final FloatType f) {
-		if(m_float == f)
-			return;
-		changed();
-		m_float = f;
+		set(FLOAT, f);
 	}
 
 	public PositionType getPosition() {
-		return m_position;
+		return (PositionType) get(POSITION);
 	}
 
 	public void setPosition(final PositionType position) {
-		if(m_position == position)
-			return;
-		changed();
-		m_position = position;
+		set(POSITION, position);
 	}
 
 	public VisibilityType getVisibility() {
-		return m_visibility;
+		return (VisibilityType) get(VISIBILITY);
 	}
 
 	public void setVisibility(final VisibilityType visibility) {
-		if(m_visibility == visibility)
-			return;
-		changed();
-		m_visibility = visibility;
+		set(VISIBILITY, visibility);
 	}
 
 	public String getHeight() {
-		return m_height;
+		return (String) get(HEIGHT);
 	}
 
 	public void setHeight(final String height) {
-		if(DomUtil.isEqual(height, m_height))
-			return;
-		changed();
-		m_height = height;
+		set(HEIGHT, height);
 	}
 
 	public String getLineHeight() {
-		return m_lineHeight;
+		return (String) get(LINE_HEIGHT);
 	}
 
 	public void setLineHeight(final String lineHeight) {
-		if(DomUtil.isEqual(m_lineHeight, lineHeight))
-			return;
-		changed();
-		m_lineHeight = lineHeight;
+		set(LINE_HEIGHT, lineHeight);
 	}
 
 	public String getMaxHeight() {
-		return m_maxHeight;
+		return (String) get(MAX_HEIGHT);
 	}
 
 	public void setMaxHeight(final String maxHeight) {
-		if(DomUtil.isEqual(m_maxHeight, maxHeight))
-			return;
-		changed();
-		m_maxHeight = maxHeight;
+		set(MAX_HEIGHT, maxHeight);
 	}
 
 	public String getMaxWidth() {
-		return m_maxWidth;
+		return (String) get(MAX_WIDTH);
 	}
 
 	public void setMaxWidth(final String maxWidth) {
-		if(DomUtil.isEqual(m_maxWidth, maxWidth))
-			return;
-		changed();
-		m_maxWidth = maxWidth;
+		set(MAX_WIDTH, maxWidth);
 	}
 
 	public String getMinHeight() {
-		return m_minHeight;
+		return (String) get(MIN_HEIGHT);
 	}
 
 	public void setMinHeight(final String minHeight) {
-		if(DomUtil.isEqual(m_minHeight, minHeight))
-			return;
-		changed();
-		m_minHeight = minHeight;
+		set(MIN_HEIGHT, minHeight);
 	}
 
 	public String getMinWidth() {
-		return m_minWidth;
+		return (String) get(MIN_WIDTH);
 	}
 
 	public void setMinWidth(final String minWidth) {
-		if(DomUtil.isEqual(m_minWidth, minWidth))
-			return;
-		changed();
-		m_minWidth = minWidth;
+		set(MIN_WIDTH, minWidth);
 	}
 
 	public String getWidth() {
-		return m_width;
+		return (String) get(WIDTH);
 	}
 
 	public void setWidth(final String width) {
-		if(DomUtil.isEqual(m_width, width))
-			return;
-		changed();
-		m_width = width;
+		set(WIDTH, width);
 	}
 
 	public String getFontFamily() {
-		return m_fontFamily;
+		return (String) get(FONT_FAMILY);
 	}
 
 	public void setFontFamily(final String fontFamily) {
-		if(DomUtil.isEqual(m_fontFamily, fontFamily))
-			return;
-		changed();
-		m_fontFamily = fontFamily;
+		set(FONT_FAMILY, fontFamily);
 	}
 
 	public String getFontSize() {
-		return m_fontSize;
+		return (String) get(FONT_SIZE);
 	}
 
 	public void setFontSize(final String fontSize) {
-		if(DomUtil.isEqual(m_fontSize, fontSize))
-			return;
-		changed();
-		m_fontSize = fontSize;
+		set(FONT_SIZE, fontSize);
 	}
 
 	public String getFontSizeAdjust() {
-		return m_fontSizeAdjust;
+		return (String) get(FONT_SIZE_ADJUST);
 	}
 
 	public void setFontSizeAdjust(final String fontSizeAdjust) {
-		if(DomUtil.isEqual(m_fontSizeAdjust, fontSizeAdjust))
-			return;
-		changed();
-		m_fontSizeAdjust = fontSizeAdjust;
+		set(FONT_SIZE_ADJUST, fontSizeAdjust);
 	}
 
 	public FontStyle getFontStyle() {
-		return m_fontStyle;
+		return (FontStyle) get(FONT_STYLE);
 	}
 
 	public void setFontStyle(final FontStyle fontStyle) {
-		if(DomUtil.isEqual(m_fontStyle, fontStyle))
-			return;
-		changed();
-		m_fontStyle = fontStyle;
+		set(FONT_STYLE, fontStyle);
 	}
 
 	public FontVariant getFontVariant() {
-		return m_fontVariant;
+		return (FontVariant) get(FONT_VARIANT);
 	}
 
 	public void setFontVariant(final FontVariant fontVariant) {
-		if(DomUtil.isEqual(m_fontVariant, fontVariant))
-			return;
-		changed();
-		m_fontVariant = fontVariant;
+		set(FONT_VARIANT, fontVariant);
 	}
 
 	public String getFontWeight() {
-		return m_fontWeight;
+		return (String) get(FONT_WEIGHT);
 	}
 
 	public void setFontWeight(final String fontWeight) {
-		if(DomUtil.isEqual(m_fontWeight, fontWeight))
-			return;
-		changed();
-		m_fontWeight = fontWeight;
+		set(FONT_WEIGHT, fontWeight);
 	}
 
 	public int getZIndex() {
-		return m_zIndex;
+		return getInt(Z_INDEX, Integer.MIN_VALUE);
 	}
 
 	public void setZIndex(final int index) {
-		if(m_zIndex != index)
-			changed();
-		m_zIndex = index;
+		setInt(Z_INDEX, index, Integer.MIN_VALUE);
 	}
 
 	public String getTop() {
-		return m_top;
+		return (String) get(TOP);
 	}
 
 	public void setTop(final String top) {
-		if(DomUtil.isEqual(top, m_top))
-			return;
-		changed();
-		m_top = top;
+		set(TOP, top);
 	}
 
 	public void setTop(int px) {
@@ -627,14 +607,11 @@ public class CssBase {
 	}
 
 	public String getBottom() {
-		return m_bottom;
+		return (String) get(BOTTOM);
 	}
 
 	public void setBottom(final String bottom) {
-		if(DomUtil.isEqual(bottom, m_bottom))
-			return;
-		changed();
-		m_bottom = bottom;
+		set(BOTTOM, bottom);
 	}
 
 	public void setBottom(int px) {
@@ -643,14 +620,11 @@ public class CssBase {
 	}
 
 	public String getLeft() {
-		return m_left;
+		return (String) get(LEFT);
 	}
 
 	public void setLeft(final String left) {
-		if(DomUtil.isEqual(left, m_left))
-			return;
-		changed();
-		m_left = left;
+		set(LEFT, left);
 	}
 
 	public void setLeft(final int px) {
@@ -659,14 +633,11 @@ public class CssBase {
 	}
 
 	public String getRight() {
-		return m_right;
+		return (String) get(RIGHT);
 	}
 
 	public void setRight(final String right) {
-		if(DomUtil.isEqual(right, m_right))
-			return;
-		changed();
-		m_right = right;
+		set(RIGHT, right);
 	}
 
 	public void setRight(final int px) {
@@ -675,80 +646,59 @@ public class CssBase {
 	}
 
 	public String getColor() {
-		return m_color;
+		return (String) get(COLOR);
 	}
 
 	public void setColor(final String color) {
-		if(DomUtil.isEqual(color, m_color))
-			return;
-		changed();
-		m_color = color;
+		set(COLOR, color);
 	}
 
 	public TextAlign getTextAlign() {
-		return m_textAlign;
+		return (TextAlign) get(TEXT_ALIGN);
 	}
 
 	public void setTextAlign(final TextAlign textAlign) {
-		if(m_textAlign == textAlign)
-			return;
-		changed();
-		m_textAlign = textAlign;
+		set(TEXT_ALIGN, textAlign);
 	}
 
 	public VerticalAlignType getVerticalAlign() {
-		return m_verticalAlign;
+		return (VerticalAlignType) get(VERTICAL_ALIGN);
 	}
 
 	public void setVerticalAlign(final VerticalAlignType verticalAlign) {
-		if(m_verticalAlign == verticalAlign)
-			return;
-		changed();
-		m_verticalAlign = verticalAlign;
+		set(VERTICAL_ALIGN, verticalAlign);
 	}
 
 	public String getMarginLeft() {
-		return m_marginLeft;
+		return (String) get(MARGIN_LEFT);
 	}
 
 	public void setMarginLeft(String marginLeft) {
-		if(DomUtil.isEqual(m_marginLeft, marginLeft))
-			return;
-		changed();
-		m_marginLeft = marginLeft;
+		set(MARGIN_LEFT, marginLeft);
 	}
 
 	public String getMarginRight() {
-		return m_marginRight;
+		return (String) get(MARGIN_RIGHT);
 	}
 
 	public void setMarginRight(String marginRight) {
-		if(DomUtil.isEqual(m_marginRight, marginRight))
-			return;
-		changed();
-		m_marginRight = marginRight;
+		set(MARGIN_RIGHT, marginRight);
 	}
 
 	public String getMarginTop() {
-		return m_marginTop;
+		return (String) get(MARGIN_TOP);
 	}
 
 	public void setMarginTop(String marginTop) {
-		if(DomUtil.isEqual(m_marginTop, marginTop))
-			return;
-		changed();
-		m_marginTop = marginTop;
+		set(MARGIN_TOP, marginTop);
 	}
 
 	public String getMarginBottom() {
-		return m_marginBottom;
+		return (String) get(MARGIN_BOTTOM);
 	}
 
 	public void setMarginBottom(String marginBottom) {
-		if(DomUtil.isEqual(m_marginBottom, marginBottom))
-			return;
-		changed();
-		m_marginBottom = marginBottom;
+		set(MARGIN_BOTTOM, marginBottom);
 	}
 
 	public void setMargin(String... margin) {
@@ -783,47 +733,35 @@ public class CssBase {
 	}
 
 	public String getPaddingLeft() {
-		return m_paddingLeft;
+		return (String) get(PADDING_LEFT);
 	}
 
 	public void setPaddingLeft(String paddingLeft) {
-		if(DomUtil.isEqual(m_paddingLeft, paddingLeft))
-			return;
-		changed();
-		m_paddingLeft = paddingLeft;
+		set(PADDING_LEFT, paddingLeft);
 	}
 
 	public String getPaddingRight() {
-		return m_paddingRight;
+		return (String) get(PADDING_RIGHT);
 	}
 
 	public void setPaddingRight(String paddingRight) {
-		if(DomUtil.isEqual(m_paddingRight, paddingRight))
-			return;
-		changed();
-		m_paddingRight = paddingRight;
+		set(PADDING_RIGHT, paddingRight);
 	}
 
 	public String getPaddingTop() {
-		return m_paddingTop;
+		return (String) get(PADDING_TOP);
 	}
 
 	public void setPaddingTop(String paddingTop) {
-		if(DomUtil.isEqual(m_paddingTop, paddingTop))
-			return;
-		changed();
-		m_paddingTop = paddingTop;
+		set(PADDING_TOP, paddingTop);
 	}
 
 	public String getPaddingBottom() {
-		return m_paddingBottom;
+		return (String) get(PADDING_BOTTOM);
 	}
 
 	public void setPaddingBottom(String paddingBottom) {
-		if(DomUtil.isEqual(m_paddingBottom, paddingBottom))
-			return;
-		changed();
-		m_paddingBottom = paddingBottom;
+		set(PADDING_BOTTOM, paddingBottom);
 	}
 
 	public void setPadding(String... padding) {
@@ -858,13 +796,11 @@ public class CssBase {
 	}
 	
 	public TextTransformType getTransform() {
-		return m_transform;
+		return (TextTransformType) get(TRANSFORM);
 	}
 
 	public void setTransform(TextTransformType transform) {
-		if(!DomUtil.isEqual(m_transform, transform))
-			changed();
-		m_transform = transform;
+		set(TRANSFORM, transform);
 	}
 
 }
@@ -38,6 +38,12 @@ final class CssContributor extends HeaderContributor {
 		m_path = path;
 	}
 
+	@Override
+	@Nullable
+	public String getResourcePath() {
+		return m_path;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
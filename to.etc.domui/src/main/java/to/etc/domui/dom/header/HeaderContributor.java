@@ -61,6 +61,16 @@ abstract public class HeaderContributor {
 
 	abstract public void contribute(OptimalDeltaRenderer r) throws Exception;
 
+	/**
+	 * If this contributor loads a file (like a Javascript or stylesheet file) this returns
+	 * the path of that file, else it returns null.
+	 * @return
+	 */
+	@Nullable
+	public String getResourcePath() {
+		return null;
+	}
+
 	@Override
 	abstract public int hashCode();
 
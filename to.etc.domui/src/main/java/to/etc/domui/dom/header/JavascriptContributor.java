@@ -24,6 +24,8 @@
  */
 package to.etc.domui.dom.header;
 
+import javax.annotation.*;
+
 import to.etc.domui.dom.*;
 import to.etc.domui.dom.html.*;
 
@@ -40,6 +42,12 @@ public class JavascriptContributor extends HeaderContributor {
 		m_path = path;
 	}
 
+	@Override
+	@Nullable
+	public String getResourcePath() {
+		return m_path;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
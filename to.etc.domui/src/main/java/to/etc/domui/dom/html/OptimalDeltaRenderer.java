@@ -32,6 +32,7 @@ import javax.annotation.*;
 import to.etc.domui.dom.*;
 import to.etc.domui.dom.header.*;
 import to.etc.domui.server.*;
+import to.etc.domui.util.*;
 import to.etc.util.*;
 
 /**
@@ -240,12 +241,7 @@ public class OptimalDeltaRenderer {
 		}
 
 		//-- Handle delayed stuff...
-		int pollinterval = DomApplication.get().calculatePollInterval(m_page.getConversation().isPollCallbackRequired());
-		if(pollinterval > 0) {
-			o().writeRaw("WebUI.startPolling(" + pollinterval + ");");
-		} else {
-			o().writeRaw("WebUI.cancelPolling();");
-		}
+		o().writeRaw(DomApplication.get().internalGetPollJavascript(DomUtil.nullChecked(m_page), true));
 
 		o().closetag("eval");
 		o().closetag("delta");
@@ -73,8 +73,9 @@ final public class Page implements IQContextContainer {
 	@Nonnull
 	private final Map<String, NodeBase> m_nodeMap = new HashMap<String, NodeBase>(127);
 
+	/** The view of the node map as it was before the tree started to change, null if the tree has not changed since the last render. */
 	@Nullable
-	private Map<String, NodeBase> m_beforeMap;
+	private BeforeMap m_beforeMap;
 
 	/**
 	 * Contains the header contributors in the order that they were added.
@@ -365,6 +366,9 @@ final public class Page implements IQContextContainer {
 		}
 		if(null != m_nodeMap.put(id, n))
 			throw new IllegalStateException("Duplicate node ID '" + id + "'!?!?");
+		BeforeMap bm = m_beforeMap;
+		if(null != bm)
+			bm.journal(id, null);
 		n.setPage(this);
 		n.onHeaderContributors(this);					// Ask the node for it's header contributors.
 		n.internalOnAddedToPage(this);
@@ -397,6 +401,9 @@ final public class Page implements IQContextContainer {
 		n.setPage(null);
 		if(m_nodeMap.remove(n.getActualID()) == null)
 			throw new IllegalStateException("The node with ID=" + n.getActualID() + " was not found!?");
+		BeforeMap bm = m_beforeMap;
+		if(null != bm)
+			bm.journal(n.getActualID(), n);
 		m_pendingBuildSet.remove(n); // ?? Needed?
 	}
 
@@ -416,8 +423,10 @@ final public class Page implements IQContextContainer {
 	 * This code handles case 2. To prevent us from always having to create a before
 	 * image all calls that change the tree (removeComponent, addComponent) call
 	 * a signal function here. Only when that function gets called (the 1st time) will
-	 * a copy of the before-tree be made. This copy only encapsulates the structure;
-	 * the components themselves are not copied.
+	 * the page start to keep a before-image of the ID map. This image is not a copy
+	 * of the map: it is a journal which only records the original state of the IDs
+	 * that were added or removed since, so that its cost is proportional to the size
+	 * of the change instead of to the size of the page.
 	 * The existence of the before-structure will indicate that a full tree delta is
 	 * to be done at response time.
 	 */
@@ -430,14 +439,65 @@ final public class Page implements IQContextContainer {
 	final protected void copyIdMap() {
 		if(m_beforeMap != null)
 			return;
-		m_beforeMap = new HashMap<String, NodeBase>(m_nodeMap);
+		m_beforeMap = new BeforeMap();
 	}
 
+	/**
+	 * Return a read-only view of the node map as it was before the tree started to
+	 * change, or null if the tree did not change since the last render.
+	 */
 	@Nullable
 	final public Map<String, NodeBase> getBeforeMap() {
 		return m_beforeMap;
 	}
 
+	/**
+	 * The before-image of the node map, as a journal over the current node map. For every ID that
+	 * was registered or unregistered since the image was created it contains the node that had that
+	 * ID originally, or null if the ID did not exist. All other IDs are unchanged, so they are looked
+	 * up in the current node map.
+	 */
+	private final class BeforeMap extends AbstractMap<String, NodeBase> {
+		@Nonnull
+		private final Map<String, NodeBase> m_originalMap = new HashMap<>();
+
+		/**
+		 * Called when the ID is registered or unregistered. Only the first change of an ID is recorded, as that is the original state.
+		 */
+		void journal(@Nonnull String id, @Nullable NodeBase original) {
+			if(!m_originalMap.containsKey(id))
+				m_originalMap.put(id, original);
+		}
+
+		@Override
+		public NodeBase get(Object key) {
+			if(m_originalMap.containsKey(key))
+				return m_originalMap.get(key);
+			return m_nodeMap.get(key);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+
+		/**
+		 * Materializes the before-image. This is expensive, and only used for debugging.
+		 */
+		@Override
+		@Nonnull
+		public Set<Entry<String, NodeBase>> entrySet() {
+			Map<String, NodeBase> map = new HashMap<>(m_nodeMap);
+			for(Entry<String, NodeBase> e : m_originalMap.entrySet()) {
+				if(e.getValue() == null)
+					map.remove(e.getKey());
+				else
+					map.put(e.getKey(), e.getValue());
+			}
+			return DomUtil.nullChecked(Collections.unmodifiableMap(map).entrySet());
+		}
+	}
+
 	public void internalClearDeltaFully() {
 		for(NodeBase nb : m_removeAfterRenderList) {
 			nb.remove();
@@ -29,6 +29,7 @@ import to.etc.domui.server.*;
 import to.etc.domui.server.parts.*;
 import to.etc.domui.state.*;
 import to.etc.domui.trouble.*;
+import to.etc.domui.util.*;
 
 /**
  * Base class for Parts that refer back to a page component. This handles the
@@ -67,8 +68,16 @@ public class ComponentPartRenderer {
 			throw new IllegalStateException("Missing 'c' parameter (page class name)");
 		if(cids.length() == 0)
 			throw new IllegalStateException("Missing 'cid' parameter");
-		m_pageClass = app.loadPageClass(pname);
-		m_page = PageMaker.findPageInConversation(param, m_pageClass, cids);
+		Class< ? extends UrlPage> pageClass = DomUtil.nullChecked(app.loadPageClass(pname));
+		m_pageClass = pageClass;
+
+		//-- Lock just the window before touching its pages.
+		CidPair cida = CidPair.decode(cids);
+		WindowSession windowSession = param.internalGetSessionUnlocked().findWindowSession(cida.getWindowId());
+		if(windowSession == null)
+			throw new IllegalStateException("The WindowSession with wid=" + cida.getWindowId() + " has expired.");
+		param.internalSetWindowSession(windowSession);
+		m_page = PageMaker.findPageInConversation(windowSession, pageClass, cida);
 		if(m_page == null)
 			throw new ThingyNotFoundException("The page " + pname + " cannot be found in conversation " + cids);
 
@@ -78,10 +87,6 @@ public class ComponentPartRenderer {
 		m_component = m_page.findNodeByID(wid);
 		if(m_component == null)
 			throw new ThingyNotFoundException("The component " + wid + " on page " + pname + " cannot be found in conversation " + cids);
-
-		CidPair cida = CidPair.decode(cids);
-		WindowSession windowSession = param.getSession().findWindowSession(cida.getWindowId());
-		param.internalSetWindowSession(windowSession);
 	}
 
 	public String[] getArgs() {
@@ -0,0 +1,139 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.parts;
+
+import java.io.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+
+import to.etc.domui.server.*;
+import to.etc.domui.server.parts.*;
+import to.etc.domui.state.*;
+import to.etc.domui.util.*;
+import to.etc.webapp.ajax.comet.*;
+
+/**
+ * The long-poll request of a browser window that waits for changes on its {@link PushChannel}. The
+ * request passes the window's $cid and the channel version it saw last, and is answered with one word:
+ * <ul>
+ *	<li>changed: the channel was signalled; the browser should fetch the changes.</li>
+ *	<li>timeout: nothing happened; the browser should wait again.</li>
+ *	<li>poll: too many requests are waiting already (see {@link DomApplication#getPushMaxWaiters()}); the browser should poll.</li>
+ *	<li>gone: the window does not exist anymore.</li>
+ * </ul>
+ * The request does not lock the session while it waits, so that the window's other requests are not held up.
+ * When the container supports async requests the wait is suspended with an {@link AsyncCometRequest} and
+ * holds no container thread; otherwise the request blocks its thread, and only those blocking waits count
+ * against the max.
+ *
+ * Created on Oct 18, 2026
+ */
+public class PushWaitPart implements IUnbufferedPartFactory {
+	/** Max time a request waits; below the usual proxy and load balancer idle timeouts. */
+	static private final long WAIT_TIME = 25 * 1000;
+
+	static private final AtomicInteger m_waiting = new AtomicInteger();
+
+	@Override
+	public void generate(@Nonnull DomApplication app, @Nonnull String rurl, @Nonnull RequestContextImpl param) throws Exception {
+		IRequestResponse rr = param.getRequestResponse();
+		rr.setNoCache();
+		String cid = param.getParameter(DomUtil.nullChecked(Constants.PARAM_CONVERSATION_ID));
+		String vs = param.getParameter("v");
+		if(null == cid || null == vs) {
+			respond(rr, "gone");
+			return;
+		}
+		long version;
+		try {
+			version = Long.parseLong(vs.trim());
+		} catch(NumberFormatException x) {
+			respond(rr, "gone");
+			return;
+		}
+		WindowSession ws = param.internalGetSessionUnlocked().findWindowSession(CidPair.decode(cid).getWindowId());
+		if(null == ws) {
+			respond(rr, "gone");
+			return;
+		}
+		PushChannel pc = ws.getPushChannel();
+		if(rr instanceof HttpServerRequestResponse && waitAsync((HttpServerRequestResponse) rr, pc, version))
+			return;
+		respond(rr, waitForChange(app, pc, version));
+	}
+
+	/**
+	 * Suspend the request till the channel is signalled or closed, or till the wait time expires. Returns
+	 * false when the container cannot suspend the request.
+	 */
+	private boolean waitAsync(@Nonnull HttpServerRequestResponse rr, @Nonnull PushChannel pc, long version) throws Exception {
+		AtomicReference<AsyncCometRequest> ref = new AtomicReference<>();
+		Runnable waiter = () -> {
+			AsyncCometRequest acr = ref.get();
+			if(null != acr)
+				acr.resume();
+		};
+		AsyncCometRequest acr = AsyncCometRequest.start(rr.getRequest(), rr.getResponse(), WAIT_TIME, (res, timeout) -> {
+			pc.removeWaiter(waiter);
+			respond(rr, getResult(pc, version));
+		});
+		if(null == acr)
+			return false;
+		ref.set(acr);
+		if(!pc.addWaiter(version, waiter))
+			acr.resume();									// Changed or closed before we got here
+		return true;
+	}
+
+	@Nonnull
+	private String waitForChange(@Nonnull DomApplication app, @Nonnull PushChannel pc, long version) {
+		if(m_waiting.incrementAndGet() > app.getPushMaxWaiters()) {
+			m_waiting.decrementAndGet();
+			return pc.getVersion() != version ? "changed" : "poll";
+		}
+		try {
+			pc.await(version, WAIT_TIME);
+			return getResult(pc, version);
+		} catch(InterruptedException x) {
+			return "timeout";
+		} finally {
+			m_waiting.decrementAndGet();
+		}
+	}
+
+	@Nonnull
+	static private String getResult(@Nonnull PushChannel pc, long version) {
+		if(pc.isClosed())
+			return "gone";
+		return pc.getVersion() != version ? "changed" : "timeout";
+	}
+
+	static private void respond(@Nonnull IRequestResponse rr, @Nonnull String result) throws Exception {
+		try(Writer w = rr.getOutputWriter("text/plain; charset=UTF-8", "utf-8")) {
+			w.write(result);
+		}
+	}
+}
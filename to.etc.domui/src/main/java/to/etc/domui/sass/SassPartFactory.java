@@ -8,8 +8,10 @@ import com.vaadin.sass.internal.visitor.*;
 import to.etc.domui.parts.ParameterInfoImpl;
 import to.etc.domui.server.*;
 import to.etc.domui.server.parts.*;
+import to.etc.domui.themes.*;
 import to.etc.domui.trouble.*;
 import to.etc.domui.util.resources.*;
+import to.etc.util.*;
 
 import javax.annotation.*;
 import java.io.*;
@@ -38,13 +40,31 @@ public class SassPartFactory implements IBufferedPartFactory<ParameterInfoImpl>
 	}
 
 	@Override public void generate(@Nonnull PartResponse pr, @Nonnull DomApplication da, @Nonnull ParameterInfoImpl params, @Nonnull IResourceDependencyList rdl) throws Exception {
+		String rurl = params.getInputPath();
+
+		/*
+		 * Outside development, use the stylesheet compiled at build time by SassPrecompiler when there
+		 * is one. Parameterized requests always need compilation as the parameters become scss variables,
+		 * and so do theme stylesheets: their imports resolve through the theme's search path, which the
+		 * precompiler does not know.
+		 */
+		if(isPrecompilable(da, rurl, params)) {
+			IResourceRef ref = findPrecompiled(da, rurl, rdl);
+			if(null != ref) {
+				pr.setMime("text/css");
+				try(OutputStream os = pr.getOutputStream(); InputStream is = ref.getInputStream()) {
+					FileTool.copyFile(os, is);
+				}
+				return;
+			}
+		}
+
 		SassCapturingErrorHandler errorHandler = new SassCapturingErrorHandler();
 		//errorHandler.setWarningsAreErrors(true);
 
 		/*
 		 * Define resolvers: these resolve "filenames" in the scss to resources in the webapp.
 		 */
-		String rurl = params.getInputPath();
 		String basePath;
 		int pos = rurl.lastIndexOf('/');
 		if(pos == -1) {
@@ -82,6 +102,27 @@ public class SassPartFactory implements IBufferedPartFactory<ParameterInfoImpl>
 
 	}
 
+	/**
+	 * T if a precompiled .css file may be used for this request.
+	 */
+	static boolean isPrecompilable(@Nonnull DomApplication da, @Nonnull String rurl, @Nonnull IParameterInfo params) {
+		return ! da.inDevelopmentMode() && params.getParameterNames().length == 0 && ! rurl.startsWith(ThemeResourceFactory.PREFIX);
+	}
+
+	/**
+	 * Find the .css file that was precompiled from the .scss file, if present.
+	 */
+	@Nullable
+	static private IResourceRef findPrecompiled(@Nonnull DomApplication da, @Nonnull String rurl, @Nonnull IResourceDependencyList rdl) {
+		String name = rurl.substring(0, rurl.length() - 5) + ".css";
+		try {
+			IResourceRef ref = da.getResource(name, rdl);
+			return ref.exists() ? ref : null;
+		} catch(Exception x) {
+			return null;
+		}
+	}
+
 	/**
 	 * Alternative to the compile method from the sass code, this should allow
 	 * adding variables into the compilation context so that theme compilation
@@ -91,7 +132,7 @@ public class SassPartFactory implements IBufferedPartFactory<ParameterInfoImpl>
 	 * @param urlMode
 	 * @throws Exception
 	 */
-	private void compile(ScssStylesheet scss, UrlMode urlMode) throws Exception {
+	static void compile(ScssStylesheet scss, UrlMode urlMode) throws Exception {
 		ScssContext context = new ScssContext(urlMode);
 
 		LexicalUnitImpl lxu = LexicalUnitImpl.createIdent(0, 0, "#abc");
@@ -0,0 +1,126 @@
+package to.etc.domui.sass;
+
+import com.vaadin.sass.internal.ScssContext.UrlMode;
+import com.vaadin.sass.internal.ScssStylesheet;
+import com.vaadin.sass.internal.handler.SCSSDocumentHandlerImpl;
+import com.vaadin.sass.internal.resolver.FilesystemResolver;
+import com.vaadin.sass.internal.resolver.ScssStylesheetResolver;
+import org.w3c.css.sac.InputSource;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build-time compiler for the .scss stylesheets of a web application. It compiles every
+ * stylesheet that is not a partial (partials have a name starting with _) into a minified .css
+ * file with the same relative path. Outside development mode the {@link SassPartFactory}
+ * serves these files instead of compiling the stylesheet on every first request.
+ *
+ * <p>Usage: SassPrecompiler outputdir sourcedir [sourcedir...]. Imports are resolved relative
+ * to the importing stylesheet and then against all source directories. The "parameters" stylesheet
+ * that DomUI generates from request parameters is empty here, so stylesheets must define
+ * defaults for their parameters. Theme stylesheets ($THEME/...) are always compiled at runtime,
+ * because their imports resolve through the search path of the theme.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class SassPrecompiler {
+	@Nonnull
+	private final File m_outputDir;
+
+	@Nonnull
+	private final List<File> m_sourceDirs;
+
+	private int m_compiled;
+
+	public SassPrecompiler(@Nonnull File outputDir, @Nonnull List<File> sourceDirs) {
+		m_outputDir = outputDir;
+		m_sourceDirs = sourceDirs;
+	}
+
+	public static void main(String[] args) throws Exception {
+		if(args.length < 2) {
+			System.err.println("Usage: SassPrecompiler outputdir sourcedir [sourcedir...]");
+			System.exit(10);
+		}
+		List<File> sources = new ArrayList<>();
+		for(int i = 1; i < args.length; i++)
+			sources.add(new File(args[i]));
+		SassPrecompiler pc = new SassPrecompiler(new File(args[0]), sources);
+		pc.run();
+		System.out.println("sass: " + pc.m_compiled + " stylesheet(s) compiled into " + pc.m_outputDir);
+	}
+
+	public void run() throws Exception {
+		for(File dir : m_sourceDirs) {
+			if(! dir.isDirectory())
+				throw new IllegalArgumentException(dir + ": not a directory");
+			scan(dir, "");
+		}
+	}
+
+	private void scan(@Nonnull File dir, @Nonnull String relPath) throws Exception {
+		File[] list = dir.listFiles();
+		if(null == list)
+			return;
+		for(File f : list) {
+			String name = f.getName();
+			if(f.isDirectory()) {
+				scan(f, relPath + name + "/");
+			} else if(name.endsWith(".scss") && ! name.startsWith("_")) {
+				compile(f, relPath + name.substring(0, name.length() - 5) + ".css");
+			}
+		}
+	}
+
+	private void compile(@Nonnull File src, @Nonnull String target) throws Exception {
+		SassCapturingErrorHandler errorHandler = new SassCapturingErrorHandler();
+		ScssStylesheet parent = new ScssStylesheet();
+		parent.addResolver(new ParameterResolver());
+		parent.addResolver(new FilesystemResolver(getSourcePaths()));
+		parent.setCharset("utf-8");
+		parent.setFile(src.getAbsoluteFile());					// Base for imports relative to the stylesheet
+
+		ScssStylesheet scss = ScssStylesheet.get(src.getAbsolutePath(), parent, new SCSSDocumentHandlerImpl(), errorHandler);
+		if(scss == null)
+			throw new IllegalStateException(src + ": cannot be read");
+		SassPartFactory.compile(scss, UrlMode.RELATIVE);
+		if(errorHandler.hasError())
+			throw new IllegalStateException("SASS compilation of " + src + " failed:\n" + errorHandler);
+
+		File out = new File(m_outputDir, target);
+		out.getParentFile().mkdirs();
+		try(Writer w = new OutputStreamWriter(new FileOutputStream(out), "utf-8")) {
+			scss.write(w, true);
+		}
+		m_compiled++;
+	}
+
+	@Nonnull
+	private String[] getSourcePaths() {
+		String[] res = new String[m_sourceDirs.size()];
+		for(int i = 0; i < res.length; i++)
+			res[i] = m_sourceDirs.get(i).getAbsolutePath();
+		return res;
+	}
+
+	/**
+	 * Replaces the request parameters stylesheet by an empty one.
+	 */
+	static private final class ParameterResolver implements ScssStylesheetResolver {
+		@Override public InputSource resolve(ScssStylesheet parentStylesheet, String identifier) {
+			if(identifier.equals("_parameters") || identifier.equals("parameters") || identifier.equals("_parameters.scss") || identifier.equals("parameters.scss")) {
+				InputSource is = new InputSource(new StringReader(""));
+				is.setURI("_parameter.scss");
+				return is;
+			}
+			return null;
+		}
+	}
+}
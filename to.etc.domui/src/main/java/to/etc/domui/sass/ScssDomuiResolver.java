@@ -1,10 +1,12 @@
 package to.etc.domui.sass;
 
 import com.vaadin.sass.internal.ScssStylesheet;
+import com.vaadin.sass.internal.resolver.CacheableInputSource;
 import com.vaadin.sass.internal.resolver.ScssStylesheetResolver;
 import org.w3c.css.sac.InputSource;
 import to.etc.domui.parts.ParameterInfoImpl;
 import to.etc.domui.server.DomApplication;
+import to.etc.domui.util.resources.IModifyableResource;
 import to.etc.domui.util.resources.IResourceDependencyList;
 import to.etc.domui.util.resources.IResourceRef;
 import to.etc.util.StringTool;
@@ -134,7 +136,11 @@ final class ScssDomuiResolver implements ScssStylesheetResolver {
 	@Nonnull
 	private InputSource createSource(@Nonnull IResourceRef ref, @Nonnull String name) {
 		try {
-			InputSource inputSource = new InputSource(new InputStreamReader(ref.getInputStream(), "utf-8"));
+			//-- Resources that know their modification time can have their parsed form cached by the sass compiler
+			InputSource inputSource = ref instanceof IModifyableResource
+				? new CacheableInputSource(((IModifyableResource) ref).getLastModified())
+				: new InputSource();
+			inputSource.setCharacterStream(new InputStreamReader(ref.getInputStream(), "utf-8"));
 			inputSource.setURI(name);
 			System.out.println(" - found");
 			return inputSource;
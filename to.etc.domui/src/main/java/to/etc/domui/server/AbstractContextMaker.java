@@ -148,6 +148,8 @@ abstract public class AbstractContextMaker implements IContextMaker {
 			requestResponse.getResponse().sendError(x.getCode(), x.getMessage());
 		} catch(Exception xxx) {
 			xx = xxx;
+			if(ctx.internalAbortIfCommitted(xxx))		// Too late for the container to report the error
+				return;
 			throw xxx;
 		} finally {
 			callInterceptorsAfter(il, ctx, xx);
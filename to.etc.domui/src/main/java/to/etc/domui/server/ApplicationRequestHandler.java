@@ -91,7 +91,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		ctx.getRequestResponse().addHeader("X-XSS-Protection", "0");		// 20130124 jal Disable IE XSS filter, to prevent the idiot thing from seeing the CID as a piece of script 8-(
 
 		handleMain(ctx);
-		ctx.getSession().dump();
+		ctx.internalGetSessionUnlocked().dump();
 		return true;
 	}
 
@@ -228,7 +228,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 
 			if(LOG.isDebugEnabled())
 				LOG.debug("OBITUARY received for " + cid + ": pageTag=" + pageTag);
-			ctx.getSession().internalObituaryReceived(cida.getWindowId(), pageTag);
+			ctx.internalGetSessionUnlocked().internalObituaryReceived(cida.getWindowId(), pageTag);
 
 			//-- Send a silly response.
 			ctx.getOutputWriter("text/html", "utf-8");
@@ -241,7 +241,9 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		// ORDERED!!! Must be kept BELOW the OBITUARY check
 		WindowSession cm = null;
 		if(cida != null) {
-			cm = ctx.getSession().findWindowSession(cida.getWindowId());
+			cm = ctx.internalGetSessionUnlocked().findWindowSession(cida.getWindowId());
+			if(cm != null)
+				ctx.internalSetWindowSession(cm);				// Lock the window only, so that other windows of the session can run in parallel
 		}
 
 		if(cm == null) {
@@ -265,7 +267,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 			}
 
 			//-- We explicitly need to create a new Window and need to send a redirect back
-			cm = ctx.getSession().createWindowSession();
+			cm = ctx.internalGetSessionUnlocked().createWindowSession();
 			String newmsg = "$cid: input windowid=" + cid + " not found - created wid=" + cm.getWindowID();
 			if(LOG.isDebugEnabled())
 				LOG.debug(newmsg);
@@ -555,6 +557,8 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 			renderUserError(ctx, "Your conversation with the server has been destroyed. Please refresh the page.");
 		} catch(Exception ex) {
 			Exception x = WrappedException.unwrap(ex);
+			if(ctx.internalAbortIfCommitted(ex))				// Part of the page was sent already: no error page possible
+				return;
 
 			if(!(x instanceof ValidationException)) {
 				logUser(ctx, cid, clz.getName(), "Page exception: " + x);
@@ -589,7 +593,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 			IExceptionListener xl = ctx.getApplication().findExceptionListenerFor(x);
 			if(xl != null && xl.handleException(ctx, page, null, x)) {
 				if(cm.handleExceptionGoto(ctx, page, false)) {
-					AppSession aps = ctx.getSession();
+					AppSession aps = ctx.internalGetSessionUnlocked();
 					if(aps.incrementExceptionCount() > 10) {
 						aps.clearExceptionRetryCount();
 						throw new RuntimeException("Loop in exception handling in a full page (new page) render", x);
@@ -606,7 +610,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		//-- Full render completed: indicate that and reset the exception count
 		page.setFullRenderCompleted(true);
 		page.setPageExceptionCount(0);
-		ctx.getSession().clearExceptionRetryCount();
+		ctx.internalGetSessionUnlocked().clearExceptionRetryCount();
 		if(m_logPerf) {
 			ts = System.nanoTime() - ts;
 			System.out.println("domui: full render took " + StringTool.strNanoTime(ts));
@@ -630,13 +634,13 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 	}
 
 	private void logUser(@Nonnull RequestContextImpl ctx, @Nullable String cid, @Nonnull String pageName, String string) {
-		ctx.getSession().log(new UserLogItem(cid, pageName, null, null, string));
+		ctx.internalGetSessionUnlocked().log(new UserLogItem(cid, pageName, null, null, string));
 	}
 
 	private void logUser(@Nonnull RequestContextImpl ctx, @Nonnull Page page, String string) {
 		ConversationContext conversation = page.internalGetConversation();
 		String cid = conversation == null ? null : conversation.getFullId();
-		ctx.getSession().log(new UserLogItem(cid, page.getBody().getClass().getName(), null, null, string));
+		ctx.internalGetSessionUnlocked().log(new UserLogItem(cid, page.getBody().getClass().getName(), null, null, string));
 	}
 
 	/**
@@ -1156,6 +1160,8 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		} catch(Exception ex) {
 			logUser(ctx, page, "Action handler exception: " + ex);
 			Exception x = WrappedException.unwrap(ex);
+			if(ctx.internalAbortIfCommitted(ex))				// Part of the delta was sent already: it cannot be replaced
+				return;
 			if(x instanceof NotLoggedInException) { // FIXME Fugly. Generalize this kind of exception handling somewhere.
 				String url = m_application.handleNotLoggedInException(ctx, page, (NotLoggedInException) x);
 				if(url != null) {
@@ -24,6 +24,7 @@
  */
 package to.etc.domui.server;
 
+import javax.annotation.*;
 
 /**
  * Decoded version code for the user-agent string.
@@ -54,6 +55,7 @@ public class BrowserVersion {
 
 	//	private String m_os;
 
+	@Nonnull
 	static public BrowserVersion parseUserAgent(String ua) {
 		BrowserVersion bv = new BrowserVersion();
 		bv.parse(ua);
@@ -107,6 +107,21 @@ public abstract class DomApplication {
 	/** The default poll interval time for pages containing Async objects (see {@link DelayedActivitiesManager}). */
 	private int m_defaultPollInterval = 2500;
 
+	/** When T, pages with delayed activities wait for push signals instead of polling (see {@link to.etc.domui.state.PushChannel}). */
+	private boolean m_pushEnabled;
+
+	/** The minimal #of ms between two delta requests caused by push signals. */
+	private int m_pushMinInterval = 1000;
+
+	/** The max #of requests blocking a request thread while waiting for a push signal. */
+	private int m_pushMaxWaiters = 50;
+
+	@Nonnull
+	final private LockWaitStatistics m_sessionLockStatistics = new LockWaitStatistics();
+
+	@Nonnull
+	final private LockWaitStatistics m_windowLockStatistics = new LockWaitStatistics();
+
 	/** When set, problem reports have a "mail" button and send mail here, */
 	private String m_problemMailAddress;
 
@@ -120,6 +135,23 @@ public abstract class DomApplication {
 
 	private final boolean m_logOutput = DeveloperOptions.getBool("domui.log", false);
 
+	/** The browser that browser-dependent resources are generated for when prewarming the resource cache. */
+	static private final String PREWARM_USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:60.0) Gecko/20100101 Firefox/60.0";
+
+	/** When T, UTF-8 page and delta output is streamed to the client instead of being fully buffered. */
+	private volatile boolean m_streamingOutput;
+
+	/** The pool of output buffers used when streaming output. */
+	@Nonnull
+	private volatile OutputBufferPool m_outputBufferPool = new OutputBufferPool(32 * 1024, 256);
+
+	@Nonnull
+	private final ResponseCompressor m_responseCompressor = new ResponseCompressor();
+
+	/** The threads that execute the asynchronous activities of all conversations. */
+	@Nonnull
+	private final AsyncActivityExecutor m_asyncActivityExecutor = new AsyncActivityExecutor(AsyncActivityExecutor.getDefaultThreads());
+
 	@Nonnull
 	private List<IRequestInterceptor> m_interceptorList = new ArrayList<IRequestInterceptor>();
 
@@ -450,6 +482,7 @@ public abstract class DomApplication {
 		} catch(Throwable x) {
 			AppFilter.LOG.error("Exception when destroying Application", x);
 		}
+		m_asyncActivityExecutor.shutdown();
 	}
 
 	/**
@@ -486,6 +519,26 @@ public abstract class DomApplication {
 			m_urlExtension = ext;
 		}
 
+		//-- Stream output to the client instead of buffering it fully?
+		String streaming = pp.getString("streamoutput");
+		if(streaming != null)
+			setStreamingOutput("true".equalsIgnoreCase(streaming.trim()));
+
+		//-- The size of the buffered parts cache, in megabytes
+		String partCacheSize = pp.getString("partcachesize");
+		if(partCacheSize != null)
+			setPartCacheSize(Long.parseLong(partCacheSize.trim()) * 1024 * 1024);
+
+		//-- The max #of threads running asynchronous activities
+		String asyncThreads = pp.getString("asyncthreads");
+		if(asyncThreads != null)
+			m_asyncActivityExecutor.setThreads(Integer.parseInt(asyncThreads.trim()));
+
+		//-- Compress rendered output when the client accepts it?
+		String compress = pp.getString("compression");
+		if(compress != null)
+			getResponseCompressor().setEnabled("true".equalsIgnoreCase(compress.trim()));
+
 		m_developmentMode = development;
 		if(m_developmentMode && DeveloperOptions.getBool("domui.traceallocations", true))
 			NodeBase.internalSetLogAllocations(true);
@@ -517,9 +570,37 @@ public abstract class DomApplication {
 				refreshinterval = DeveloperOptions.getInt("domui.refreshinterval", 2500);		// Initialize "auto refresh" interval to 2 seconds
 			}
 			setAutoRefreshPollInterval(refreshinterval);
+		} else if(DeveloperOptions.getBool("domui.prewarm", true)) {
+			Thread t = new Thread(this::prewarmResources, "domui-prewarm");
+			t.setDaemon(true);
+			t.start();
 		}
 	}
 
+	/**
+	 * Called in production mode at startup in a separate thread. It generates and caches all
+	 * part resources loaded by the global header contributors (like jQuery, domui.js and
+	 * parameterized parts) and the current theme's stylesheet, including their compressed
+	 * versions, so that the first users do not have to wait for them. The images that these
+	 * stylesheets refer to are warmed too; resources that are only named by pages, like the
+	 * icons of buttons, are generated on first use. Override to add more resources.
+	 */
+	protected void prewarmResources() {
+		List<String> urls = new ArrayList<>();
+		for(HeaderContributorEntry hce : getHeaderContributorList()) {
+			String path = hce.getContributor().getResourcePath();
+			if(null != path && !path.startsWith("/") && !path.contains("://"))
+				urls.add(path);
+		}
+		try {
+			ITheme theme = getTheme(getCurrentTheme() + "/" + DefaultThemeVariant.INSTANCE.getVariantName(), ResourceDependencyList.NULL);
+			urls.add(theme.getStyleSheetName());
+		} catch(Exception x) {
+			LOG.info("Cannot determine the theme stylesheet to prewarm: " + x);
+		}
+		m_partService.prewarm(BrowserVersion.parseUserAgent(PREWARM_USER_AGENT), urls);
+	}
+
 	static public synchronized final int internalNextPageTag() {
 		int id = ++m_nextPageTag;
 		if(id <= 0) {
@@ -680,6 +761,64 @@ public abstract class DomApplication {
 		m_defaultPollInterval = defaultPollInterval;
 	}
 
+	/**
+	 * When enabled, a page whose delayed activities and polled nodes all signal their changes (see
+	 * {@link to.etc.domui.state.IPolledForUpdate#isChangeSignalled()}) does not poll every {@link #getDefaultPollInterval()}
+	 * ms; the browser waits in a long-poll request until the window's {@link to.etc.domui.state.PushChannel} is signalled,
+	 * and only then fetches the changes. When the container supports async requests a waiting browser window holds
+	 * no request thread; otherwise it does, and when more than {@link #getPushMaxWaiters()} wait the others fall back
+	 * to polling.
+	 */
+	public synchronized boolean isPushEnabled() {
+		return m_pushEnabled;
+	}
+
+	public synchronized void setPushEnabled(boolean pushEnabled) {
+		m_pushEnabled = pushEnabled;
+	}
+
+	/**
+	 * The minimal time between two delta requests caused by push signals, in milliseconds, so that a quickly
+	 * progressing activity does not cause a request storm. Defaults to 1000.
+	 */
+	public synchronized int getPushMinInterval() {
+		return m_pushMinInterval;
+	}
+
+	public synchronized void setPushMinInterval(int pushMinInterval) {
+		m_pushMinInterval = pushMinInterval;
+	}
+
+	/**
+	 * The max #of push requests that block a request thread while they wait, which happens when the container
+	 * or the filter registration does not support async requests. Requests above the max fall back to polling.
+	 * Keep this well below the container's request thread pool so that normal requests still get a thread; the
+	 * default of 50 is a quarter of Jetty's and Tomcat's default of 200 threads.
+	 */
+	public synchronized int getPushMaxWaiters() {
+		return m_pushMaxWaiters;
+	}
+
+	public synchronized void setPushMaxWaiters(int pushMaxWaiters) {
+		m_pushMaxWaiters = pushMaxWaiters;
+	}
+
+	/**
+	 * The time requests waited for the lock on their {@link AppSession}, which is needed to use session-global data.
+	 */
+	@Nonnull
+	public LockWaitStatistics getSessionLockStatistics() {
+		return m_sessionLockStatistics;
+	}
+
+	/**
+	 * The time requests waited for the lock on their {@link WindowSession}, i.e. for another request in the same browser window.
+	 */
+	@Nonnull
+	public LockWaitStatistics getWindowLockStatistics() {
+		return m_windowLockStatistics;
+	}
+
 	public synchronized int calculatePollInterval(boolean pollCallbackRequired) {
 		int pollinterval = Integer.MAX_VALUE;
 		if(m_keepAliveInterval > 0)
@@ -697,6 +836,29 @@ public abstract class DomApplication {
 		return pollinterval;
 	}
 
+	/**
+	 * INTERNAL: the javascript that makes the browser poll, or wait for push signals, as the page needs. For a delta
+	 * response it also stops polling or waiting when no longer needed.
+	 */
+	@Nonnull
+	public String internalGetPollJavascript(@Nonnull Page page, boolean delta) {
+		ConversationContext cc = page.getConversation();
+		boolean callback = cc.isPollCallbackRequired();
+		boolean pushEnabled = isPushEnabled();
+		boolean push = callback && pushEnabled && cc.isPushCallbackPossible();
+		StringBuilder sb = new StringBuilder();
+		int pollinterval = calculatePollInterval(callback && !push);
+		if(pollinterval > 0)
+			sb.append("WebUI.startPolling(").append(pollinterval).append(");");
+		else if(delta)
+			sb.append("WebUI.cancelPolling();");
+		if(push)
+			sb.append("WebUI.startPush(").append(cc.getWindowSession().getPushChannel().getVersion()).append(",").append(getPushMinInterval()).append(",").append(getDefaultPollInterval()).append(");");
+		else if(delta && pushEnabled)
+			sb.append("WebUI.cancelPush();");
+		return DomUtil.nullChecked(sb.toString());
+	}
+
 	/**
 	 * The #of minutes that a WindowSession remains valid; defaults to 15 minutes.
 	 *
@@ -1257,6 +1419,68 @@ public abstract class DomApplication {
 		return m_logOutput;
 	}
 
+	/**
+	 * When T, UTF-8 output rendered through {@link RequestContextImpl#getOutputWriter(String, String)}
+	 * is streamed to the client through a pooled, bounded buffer instead of being buffered fully in
+	 * memory. Output can only be replaced (for instance by an error page) as long as it still fits
+	 * in that buffer. Streaming is disabled while output logging (domui.log) is active.
+	 * @return
+	 */
+	public boolean isStreamingOutput() {
+		return m_streamingOutput;
+	}
+
+	public void setStreamingOutput(boolean streamingOutput) {
+		m_streamingOutput = streamingOutput;
+	}
+
+	/**
+	 * Set the size of the buffers used when streaming output, and the max #of buffers kept
+	 * in the pool. The buffer size is also the amount of output that can be replaced when an
+	 * exception occurs while rendering.
+	 * @param bufferSize
+	 * @param maxPooled
+	 */
+	public void setOutputBufferSize(int bufferSize, int maxPooled) {
+		m_outputBufferPool = new OutputBufferPool(bufferSize, maxPooled);
+	}
+
+	@Nonnull
+	OutputBufferPool getOutputBufferPool() {
+		return m_outputBufferPool;
+	}
+
+	/**
+	 * Returns the compressor for rendered output. Compression is disabled by default; enable
+	 * it and set its parameters through the returned instance.
+	 * @return
+	 */
+	@Nonnull
+	public ResponseCompressor getResponseCompressor() {
+		return m_responseCompressor;
+	}
+
+	/**
+	 * Set the max #of bytes that the cache for buffered parts (resources, themes, generated images) may
+	 * use. It defaults to 16MB, and can also be set using the "partcachesize" parameter (in megabytes)
+	 * in web.xml.
+	 * @param bytes
+	 */
+	public void setPartCacheSize(long bytes) {
+		m_partService.getCache().setMaxSize(bytes);
+	}
+
+	/**
+	 * Returns the executor that runs the asynchronous activities of all conversations. Its #of threads
+	 * defaults to twice the #of processors (minimum 8), and can be set using the "asyncthreads" parameter
+	 * in web.xml. It also exposes the queue length and wait times.
+	 * @return
+	 */
+	@Nonnull
+	public AsyncActivityExecutor getAsyncActivityExecutor() {
+		return m_asyncActivityExecutor;
+	}
+
 	public synchronized void addInterceptor(final IRequestInterceptor r) {
 		List<IRequestInterceptor> l = new ArrayList<IRequestInterceptor>(m_interceptorList);
 		l.add(r);
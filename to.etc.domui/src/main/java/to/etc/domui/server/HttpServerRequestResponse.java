@@ -107,6 +107,12 @@ public class HttpServerRequestResponse implements IRequestResponse {
 		return m_request.getHeader("user-agent");
 	}
 
+	@Override
+	@Nullable
+	public String getRequestHeader(@Nonnull String name) {
+		return m_request.getHeader(name);
+	}
+
 	@Override
 	@Nonnull
 	public String getApplicationURL() {
@@ -177,6 +183,11 @@ public class HttpServerRequestResponse implements IRequestResponse {
 		ServerTools.generateNoCache(getResponse());
 	}
 
+	@Override
+	public void setStatus(int httpStatus) {
+		getResponse().setStatus(httpStatus);
+	}
+
 	@Override
 	public void setExpiry(int cacheTime) {
 		ServerTools.generateExpiryHeader(getResponse(), cacheTime); 						// Allow browser-local caching.
@@ -52,7 +52,12 @@ public interface IRequestContext extends IExtendedParameterInfo {
 	public IRequestResponse getRequestResponse();
 
 	/**
-	 * Return this-user's AppSession.
+	 * Return this-user's AppSession, and lock it for the current thread until the request ends.
+	 *
+	 * <p>The window lock must be taken before the session lock. So when the session is locked first and
+	 * {@link #getWindowSession()} is called after that, the session lock is released while waiting for the
+	 * window, and taken again. Other requests can change the session in between: do not keep session state
+	 * read before the call to getWindowSession() and use it after it. Get the window first when you need both.</p>
 	 * @return
 	 */
 	@Nonnull
@@ -65,6 +70,8 @@ public interface IRequestContext extends IExtendedParameterInfo {
 	 * Return the WindowSession for this request. The WindowSession represents one of the possible
 	 * multiple open browser windows. Since each browser window shares a single HttpSession (sigh)
 	 * the WindowSession is used to separate the administration for separate browser windows.
+	 * The window is locked for the current thread until the request ends; if this request already locked the
+	 * AppSession, that lock is released while waiting for the window and taken again (see {@link #getSession()}).
 	 * @return
 	 */
 	@Nonnull
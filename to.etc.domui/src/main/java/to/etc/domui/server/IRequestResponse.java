@@ -33,6 +33,14 @@ public interface IRequestResponse {
 	@Nonnull
 	public String getUserAgent();
 
+	/**
+	 * Return the value of the specified request header, or null if the header is not present.
+	 * @param name
+	 * @return
+	 */
+	@Nullable
+	public String getRequestHeader(@Nonnull String name);
+
 	/**
 	 * The "remote" user ID from a server request, if present. This does <b>not</b> need to represent the
 	 * real logged-in user; it will however be filled if JSDK declarative security is used. This field is
@@ -80,6 +88,12 @@ public interface IRequestResponse {
 
 	public void setNoCache();
 
+	/**
+	 * Set the HTTP status code for a response that is not an error, like 304 Not Modified.
+	 * @param httpStatus
+	 */
+	public void setStatus(int httpStatus);
+
 	/*--- Content output ---*/
 
 	public void addHeader(@Nonnull String name, @Nonnull String value);
@@ -0,0 +1,54 @@
+package to.etc.domui.server;
+
+import javax.annotation.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A bounded pool of byte buffers used by {@link StreamingOutputWriter}. Buffers are
+ * only pooled up to a maximum count; buffers released when the pool is full, or
+ * buffers that do not have the currently configured size, are left to the GC.
+ *
+ * Created on Oct 18, 2026
+ */
+final class OutputBufferPool {
+	@Nonnull
+	private final ConcurrentLinkedQueue<byte[]> m_freeList = new ConcurrentLinkedQueue<>();
+
+	@Nonnull
+	private final AtomicInteger m_freeCount = new AtomicInteger();
+
+	private final int m_bufferSize;
+
+	private final int m_maxPooled;
+
+	OutputBufferPool(int bufferSize, int maxPooled) {
+		if(bufferSize < 1024)
+			throw new IllegalArgumentException("Buffer size must be >= 1024 bytes");
+		m_bufferSize = bufferSize;
+		m_maxPooled = maxPooled;
+	}
+
+	public int getBufferSize() {
+		return m_bufferSize;
+	}
+
+	@Nonnull
+	public byte[] allocate() {
+		byte[] buf = m_freeList.poll();
+		if(null == buf)
+			return new byte[m_bufferSize];
+		m_freeCount.decrementAndGet();
+		return buf;
+	}
+
+	public void release(@Nonnull byte[] buffer) {
+		if(buffer.length != m_bufferSize)
+			return;
+		if(m_freeCount.incrementAndGet() > m_maxPooled) {
+			m_freeCount.decrementAndGet();
+			return;
+		}
+		m_freeList.add(buffer);
+	}
+}
@@ -29,12 +29,16 @@ import java.util.*;
 
 import javax.annotation.*;
 
+import org.slf4j.*;
+
 import to.etc.domui.state.*;
 import to.etc.domui.util.*;
 import to.etc.domui.util.upload.*;
 import to.etc.util.*;
 
 public class RequestContextImpl implements IRequestContext, IAttributeContainer {
+	static private final Logger LOG = LoggerFactory.getLogger(RequestContextImpl.class);
+
 	@Nonnull
 	final private DomApplication m_application;
 
@@ -48,7 +52,12 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 
 	private StringWriter m_sw;
 
-	private Writer m_outWriter;
+	/** When output is streamed (see {@link DomApplication#isStreamingOutput()}) this is the writer used. */
+	@Nullable
+	private StreamingOutputWriter m_streamWriter;
+
+	/** Set when output was partially sent before it had to be replaced; nothing more is sent to the client then. */
+	private boolean m_aborted;
 
 	private BrowserVersion m_browserVersion;
 
@@ -98,6 +107,8 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 
 	private boolean m_amLockingSession;
 
+	private boolean m_expiryChecked;
+
 	private String m_outputContentType;
 
 	private String m_outputEncoding;
@@ -105,18 +116,45 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 	private Exception m_outputAllocated;
 
 	/**
-	 * Get the session for this context.
+	 * Get the session for this context. This locks the session for the current thread until the end of the
+	 * request, so only use this to access session-global data; requests for a window lock just the window
+	 * (see {@link #getWindowSession()}).
 	 * @see to.etc.domui.server.IRequestContext#getSession()
 	 */
 	@Override
 	final public @Nonnull AppSession getSession() {
-		m_session.internalLockSession(); 						// Someone uses session -> lock it for use by CURRENT-THREAD.
+		m_session.internalLockSession(getLockReason()); 		// Someone uses session -> lock it for use by CURRENT-THREAD.
 		if(!m_amLockingSession)
-			m_session.internalCheckExpiredWindowSessions();
+			checkExpiredWindowSessions();
 		m_amLockingSession = true;
 		return m_session;
 	}
 
+	/**
+	 * INTERNAL USE ONLY. The session, without locking it for this thread. Only for requests that wait for a
+	 * long time, and for using the thread-safe parts of the session (the window map, the user log).
+	 */
+	@Nonnull
+	final public AppSession internalGetSessionUnlocked() {
+		return m_session;
+	}
+
+	private void checkExpiredWindowSessions() {
+		if(m_expiryChecked)
+			return;
+		m_expiryChecked = true;
+		m_session.internalCheckExpiredWindowSessions();
+	}
+
+	/**
+	 * What this request does, reported when another request waits a long time for a lock held by this one.
+	 */
+	@Nonnull
+	private String getLockReason() {
+		String action = getParameter(DomUtil.nullChecked(Constants.PARAM_UIACTION));
+		return action == null ? m_urlin : m_urlin + " (" + action + ")";
+	}
+
 	@Override
 	@Nonnull
 	public IRequestResponse getRequestResponse() {
@@ -125,32 +163,52 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 
 	/**
 	 * QUESTIONABLE.
+	 * Set the window used by this request, and lock it for the current thread until the request ends.
 	 * @param cm
 	 */
-	final public void internalSetWindowSession(WindowSession cm) {
+	final public void internalSetWindowSession(@Nonnull WindowSession cm) {
+		if(m_windowSession == cm)
+			return;
+		unlockWindowSession();
+
+		/*
+		 * The window must be locked before the session. If this request already has the session we must
+		 * release it while waiting, or we deadlock with a request in the window that waits for the session.
+		 * Other requests can change the session meanwhile; this is documented on IRequestContext.getSession().
+		 */
+		boolean relock = m_amLockingSession;
+		if(relock)
+			internalUnlockSession();
+		cm.internalLockWindow(getLockReason());
 		m_windowSession = cm;
+		if(relock)
+			getSession();
+		checkExpiredWindowSessions();
 	}
 
 	/**
 	 * Gets this request's conversation. If not already known it tries to locate the
 	 * conversation parameter and locate the manager from there. If that fails it
-	 * throws an exception.
+	 * throws an exception. The window is locked for the current thread until the
+	 * request ends.
 	 *
 	 * @see to.etc.domui.server.IRequestContext#getWindowSession()
 	 */
 	@Override
 	final public @Nonnull WindowSession getWindowSession() {
-		if(m_windowSession != null)
-			return m_windowSession;
+		WindowSession ws = m_windowSession;
+		if(ws != null)
+			return ws;
 
 		//-- Conversation manager needed.. Can we find one?
 		String cid = getParameter(Constants.PARAM_CONVERSATION_ID);
 		if(cid != null) {
 			CidPair cida = CidPair.decode(cid);
-			m_windowSession = getSession().findWindowSession(cida.getWindowId());
-			if(m_windowSession != null)
-				return m_windowSession;
-
+			ws = m_session.findWindowSession(cida.getWindowId());
+			if(ws != null) {
+				internalSetWindowSession(ws);
+				return ws;
+			}
 		}
 		throw new IllegalStateException("WindowSession is not known!!");
 	}
@@ -162,6 +220,14 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 		}
 	}
 
+	private void unlockWindowSession() {
+		WindowSession ws = m_windowSession;
+		if(ws != null) {
+			m_windowSession = null;
+			ws.internalUnlockWindow();
+		}
+	}
+
 	/**
 	 * If this context has caused the conversations to become attached detach 'm.
 	 */
@@ -185,6 +251,7 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 		internalReleaseUploads();
 		//		m_session.getWindowSession().dump();
 		internalUnlockSession(); // Unlock any session access.
+		unlockWindowSession();
 	}
 
 
@@ -223,6 +290,15 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 	}
 
 	public void flush() throws Exception {
+		if(m_aborted) {
+			m_sw = null;									// Nothing more can be sent for an aborted response
+			return;
+		}
+		StreamingOutputWriter stw = m_streamWriter;
+		if(null != stw) {
+			m_streamWriter = null;
+			stw.close();
+		}
 		if(m_sw != null) {
 			if(getApplication().logOutput()) {
 				String res = m_sw.getBuffer().toString();
@@ -238,21 +314,71 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 			String outputContentType = m_outputContentType;
 			if(null == outputContentType)
 				throw new IllegalStateException("The content type for buffered output is not set.");
-			Writer ow = getRequestResponse().getOutputWriter(outputContentType, m_outputEncoding);
-			ow.append(m_sw.getBuffer());
+			StringBuffer buffer = m_sw.getBuffer();
 			m_sw = null;
+			String encoding = m_outputEncoding;
+			if(null != encoding && mustCompress(outputContentType, buffer.length())) {
+				byte[] data = buffer.toString().getBytes(encoding);
+				try(OutputStream os = internalOpenOutputStream(outputContentType, encoding, data.length)) {
+					os.write(data);
+				}
+			} else {
+				Writer ow = getRequestResponse().getOutputWriter(outputContentType, encoding);
+				ow.append(buffer);
+			}
 		}
 	}
 
+	private boolean mustCompress(@Nonnull String contentType, int contentLength) {
+		ResponseCompressor rc = getApplication().getResponseCompressor();
+		return rc.isEnabled() && rc.mustCompress(m_requestResponse.getRequestHeader("Accept-Encoding"), contentType, contentLength);
+	}
+
+	/**
+	 * Open the response's output stream for rendered output, compressing it if the output is eligible
+	 * for compression (see {@link ResponseCompressor}).
+	 *
+	 * @param contentLength	The length of the output in bytes, or -1 when that is not yet known.
+	 */
+	@Nonnull
+	OutputStream internalOpenOutputStream(@Nonnull String contentType, @Nullable String encoding, int contentLength) throws IOException {
+		try {
+			if(!mustCompress(contentType, contentLength))
+				return m_requestResponse.getOutputStream(contentType, encoding, contentLength);
+
+			m_requestResponse.addHeader("Content-Encoding", "gzip");
+			m_requestResponse.addHeader("Vary", "Accept-Encoding");
+			ResponseCompressor rc = getApplication().getResponseCompressor();
+			String key = getStatisticsKey();
+			return rc.wrap(m_requestResponse.getOutputStream(contentType, encoding, -1), key);	// Closes the stream if wrapping fails
+		} catch(IOException x) {
+			throw x;
+		} catch(Exception x) {
+			throw new IOException("Failed to get the response output stream: " + x, x);
+		}
+	}
+
+	/**
+	 * The key to register compression statistics on: the page class name for page requests, else
+	 * the input path.
+	 */
+	@Nonnull
+	private String getStatisticsKey() {
+		String ext = getApplication().getUrlExtension();
+		if(m_extension.equals(ext) && m_urlin.length() > ext.length() + 1)
+			return DomUtil.nullChecked(m_urlin.substring(0, m_urlin.length() - ext.length() - 1));
+		return m_urlin;
+	}
 
+	/**
+	 * Called at the end of every request; this releases any output buffer that was not sent.
+	 */
 	public void discard() throws IOException {
-	//		if(m_sw != null) {
-	//			String res = m_sw.getBuffer().toString();
-	//			System.out.println("---- rendered output:");
-	//			System.out.println(res);
-	//			System.out.println("---- end");
-	//			getResponse().getWriter().append(res);
-	//		}
+		StreamingOutputWriter stw = m_streamWriter;
+		if(null != stw) {
+			m_streamWriter = null;
+			stw.discard();
+		}
 	}
 
 	/**
@@ -275,9 +401,11 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 	//}
 	//
 	/**
-	 * This returns a fully buffered output writer. Calling it twice is explicitly
-	 * allowed, but clears the data written before as it's assumed that another route
-	 * to output will be chosen.
+	 * This returns an output writer. Calling it twice is explicitly allowed, but clears
+	 * the data written before as it's assumed that another route to output will be chosen.
+	 * Normally the output is fully buffered. When {@link DomApplication#isStreamingOutput()} is
+	 * set UTF-8 output is streamed to the client through a bounded buffer instead; in that case
+	 * the earlier output can only be replaced as long as it still fits in that buffer.
 	 */
 	@Override
 	@Nonnull
@@ -287,13 +415,50 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 			if(sw.getBuffer().length() > PAGE_HEADER_BUFFER_LENGTH) {
 				System.out.println("domui warning: outputwriter reallocated after writing " + sw.getBuffer().length() + " characters of data already");
 			}
+			m_sw = null;
+		}
+		StreamingOutputWriter stw = m_streamWriter;
+		if(null != stw) {
+			m_streamWriter = null;
+			stw.discard();
+			if(stw.isCommitted()) {
+				//-- Part of the earlier output was sent: the new output cannot replace it, so it is thrown away.
+				LOG.error("Output for " + m_urlin + " was already partially sent; the replacement output (" + contentType + ") is discarded and the response is aborted");
+				m_aborted = true;
+			}
 		}
 
 		m_outputContentType = contentType;
 		m_outputEncoding = encoding;
-		m_sw = new StringWriter(8192);
-		m_outWriter = m_sw;
-		return m_outWriter;
+		DomApplication app = getApplication();
+		Writer w;
+		if(!m_aborted && app.isStreamingOutput() && !app.logOutput() && "utf-8".equalsIgnoreCase(encoding)) {
+			w = m_streamWriter = new StreamingOutputWriter(this, app.getOutputBufferPool(), contentType, encoding);
+		} else {
+			w = m_sw = new StringWriter(8192);
+		}
+		return w;
+	}
+
+	/**
+	 * Called when handling the request failed. When part of the output was already sent to the client the
+	 * response cannot be replaced by an error response anymore: the exception is logged, the output that was
+	 * not yet sent is dropped and this returns T, so that the caller does not try to report the error to the
+	 * client.
+	 */
+	public boolean internalAbortIfCommitted(@Nonnull Throwable x) {
+		StreamingOutputWriter stw = m_streamWriter;
+		if(m_aborted) {
+			LOG.error("Request " + m_urlin + " failed after its response was aborted", x);
+			return true;
+		}
+		if(null == stw || !stw.isCommitted())
+			return false;
+		LOG.error("Request " + m_urlin + " failed after part of its response was sent; the response is aborted", x);
+		m_streamWriter = null;
+		m_aborted = true;
+		stw.discard();
+		return true;
 	}
 
 	/**
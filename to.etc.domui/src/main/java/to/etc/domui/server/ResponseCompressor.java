@@ -0,0 +1,270 @@
+package to.etc.domui.server;
+
+import javax.annotation.*;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+
+/**
+ * Decides whether rendered output (full pages and deltas) is sent compressed to the client, and
+ * does the compression. Compression is opt-in: it is only used when it is enabled, when the
+ * client has sent an Accept-Encoding header accepting gzip, when the content type of the output
+ * is one of the registered compressible types and when the output is at least {@link #getMinimumSize()}
+ * bytes long. Only gzip is supported as the JDK has no Brotli implementation.
+ *
+ * <p>The #of bytes before and after compression is collected per page class, so that the
+ * savings can be reported through {@link #getStatistics()}.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class ResponseCompressor {
+	private volatile boolean m_enabled;
+
+	private volatile int m_minimumSize = 2048;
+
+	private volatile int m_level = 6;
+
+	/** The content types (without parameters like charset) that may be compressed. */
+	@Nonnull
+	private volatile Set<String> m_contentTypes = new HashSet<>(Arrays.asList("text/html", "text/xml", "application/xhtml+xml", "application/javascript", "application/x-javascript", "text/javascript", "text/css", "application/json", "image/svg+xml"));
+
+	@Nonnull
+	private final ConcurrentHashMap<String, Statistics> m_statisticsMap = new ConcurrentHashMap<>();
+
+	/**
+	 * Compression statistics for a single page class.
+	 */
+	final static public class Statistics {
+		@Nonnull
+		private final String m_key;
+
+		private final AtomicLong m_count = new AtomicLong();
+
+		private final AtomicLong m_uncompressedBytes = new AtomicLong();
+
+		private final AtomicLong m_compressedBytes = new AtomicLong();
+
+		Statistics(@Nonnull String key) {
+			m_key = key;
+		}
+
+		/**
+		 * The page class name, or the request path for non-page requests.
+		 */
+		@Nonnull
+		public String getKey() {
+			return m_key;
+		}
+
+		public long getCount() {
+			return m_count.get();
+		}
+
+		public long getUncompressedBytes() {
+			return m_uncompressedBytes.get();
+		}
+
+		public long getCompressedBytes() {
+			return m_compressedBytes.get();
+		}
+
+		public long getSavedBytes() {
+			return getUncompressedBytes() - getCompressedBytes();
+		}
+
+		@Override
+		public String toString() {
+			return m_key + ": " + getCount() + " responses, " + getUncompressedBytes() + " -> " + getCompressedBytes() + " bytes";
+		}
+	}
+
+	public boolean isEnabled() {
+		return m_enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		m_enabled = enabled;
+	}
+
+	/**
+	 * The minimal size, in bytes, that output must have before it gets compressed. Smaller
+	 * responses are sent as-is because compressing them hardly helps. Defaults to 2048.
+	 */
+	public int getMinimumSize() {
+		return m_minimumSize;
+	}
+
+	public void setMinimumSize(int minimumSize) {
+		m_minimumSize = minimumSize;
+	}
+
+	/**
+	 * The deflate compression level, 1 (fastest) to 9 (smallest). Defaults to 6.
+	 */
+	public int getLevel() {
+		return m_level;
+	}
+
+	public void setLevel(int level) {
+		if(level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION)
+			throw new IllegalArgumentException("The compression level must be between 1 and 9");
+		m_level = level;
+	}
+
+	public synchronized void addContentType(@Nonnull String contentType) {
+		Set<String> set = new HashSet<>(m_contentTypes);
+		set.add(contentType.toLowerCase());
+		m_contentTypes = set;
+	}
+
+	public synchronized void removeContentType(@Nonnull String contentType) {
+		Set<String> set = new HashSet<>(m_contentTypes);
+		set.remove(contentType.toLowerCase());
+		m_contentTypes = set;
+	}
+
+	/**
+	 * Returns T if output with the specified content type is compressible. Parameters like "; charset=UTF-8" are ignored.
+	 */
+	public boolean isCompressible(@Nonnull String contentType) {
+		int pos = contentType.indexOf(';');
+		String type = pos == -1 ? contentType : contentType.substring(0, pos);
+		return m_contentTypes.contains(type.trim().toLowerCase());
+	}
+
+	/**
+	 * Decide whether output should be compressed.
+	 * @param acceptEncoding	The Accept-Encoding header from the request.
+	 * @param contentType		The content type of the output.
+	 * @param contentLength		The length of the output in bytes, or -1 if that is not known but large.
+	 */
+	public boolean mustCompress(@Nullable String acceptEncoding, @Nonnull String contentType, int contentLength) {
+		if(!m_enabled)
+			return false;
+		if(contentLength >= 0 && contentLength < m_minimumSize)
+			return false;
+		return isCompressible(contentType) && acceptsGzip(acceptEncoding);
+	}
+
+	/**
+	 * Returns T if the Accept-Encoding header contains gzip (or *) with a nonzero quality value.
+	 */
+	static public boolean acceptsGzip(@Nullable String acceptEncoding) {
+		if(null == acceptEncoding)
+			return false;
+		for(String part : acceptEncoding.split(",")) {
+			String[] ar = part.split(";");
+			String coding = ar[0].trim().toLowerCase();
+			if(!coding.equals("gzip") && !coding.equals("*"))
+				continue;
+
+			boolean accepted = true;
+			for(int i = 1; i < ar.length; i++) {
+				String par = ar[i].trim();
+				if(par.startsWith("q=")) {
+					try {
+						accepted = Double.parseDouble(par.substring(2).trim()) > 0.0;
+					} catch(NumberFormatException x) {
+						accepted = false;
+					}
+				}
+			}
+			if(accepted)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Wrap the response stream with a compressing stream. Closing the returned stream
+	 * finishes the compression and registers the savings for the specified key. If the
+	 * compressing stream cannot be created the response stream is closed.
+	 */
+	@Nonnull
+	public OutputStream wrap(@Nonnull OutputStream os, @Nonnull String statisticsKey) throws IOException {
+		CountingStream counter = new CountingStream(os);
+		try {
+			return new CompressingStream(counter, m_level, statisticsKey);
+		} catch(IOException | RuntimeException x) {
+			counter.close();
+			throw x;
+		}
+	}
+
+	void registerSavings(@Nonnull String key, long uncompressed, long compressed) {
+		Statistics st = m_statisticsMap.computeIfAbsent(key, Statistics::new);
+		st.m_count.incrementAndGet();
+		st.m_uncompressedBytes.addAndGet(uncompressed);
+		st.m_compressedBytes.addAndGet(compressed);
+	}
+
+	/**
+	 * Returns the compression statistics per page class, with the one that saved the most bytes first.
+	 */
+	@Nonnull
+	public List<Statistics> getStatistics() {
+		List<Statistics> res = new ArrayList<>(m_statisticsMap.values());
+		res.sort((a, b) -> Long.compare(b.getSavedBytes(), a.getSavedBytes()));
+		return res;
+	}
+
+	public void clearStatistics() {
+		m_statisticsMap.clear();
+	}
+
+	static private final class CountingStream extends FilterOutputStream {
+		private long m_count;
+
+		CountingStream(@Nonnull OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			m_count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			m_count += len;
+		}
+	}
+
+	private final class CompressingStream extends GZIPOutputStream {
+		@Nonnull
+		private final CountingStream m_counter;
+
+		@Nonnull
+		private final String m_key;
+
+		private long m_inputCount;
+
+		private boolean m_closed;
+
+		CompressingStream(@Nonnull CountingStream os, int level, @Nonnull String key) throws IOException {
+			super(os, 8192);
+			def.setLevel(level);
+			m_counter = os;
+			m_key = key;
+		}
+
+		@Override
+		public synchronized void write(byte[] data, int off, int len) throws IOException {
+			super.write(data, off, len);
+			m_inputCount += len;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if(m_closed)
+				return;
+			m_closed = true;
+			super.close();
+			registerSavings(m_key, m_inputCount, m_counter.m_count);
+		}
+	}
+}
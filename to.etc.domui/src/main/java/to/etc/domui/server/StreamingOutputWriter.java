@@ -0,0 +1,190 @@
+package to.etc.domui.server;
+
+import javax.annotation.*;
+import java.io.*;
+
+/**
+ * A Writer which encodes its output as UTF-8 into a bounded byte buffer taken from an
+ * {@link OutputBufferPool}, and which streams that buffer to the response's output stream
+ * every time it fills up. As long as the output fits in the buffer nothing is sent, so the
+ * output can still be {@link #discard() discarded} and replaced by something else (like an
+ * error page). Once the buffer has overflowed the response is committed and the output can
+ * no longer be replaced.
+ *
+ * <p>This prevents large responses (deltas for big tables) from being kept on the heap in
+ * full, first as a String and then again as the encoded response.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final class StreamingOutputWriter extends Writer {
+	@Nonnull
+	private final RequestContextImpl m_context;
+
+	@Nonnull
+	private final OutputBufferPool m_pool;
+
+	@Nonnull
+	private final String m_contentType;
+
+	@Nullable
+	private final String m_encoding;
+
+	/** The pooled buffer, null after this writer has been closed or discarded. */
+	@Nullable
+	private byte[] m_buffer;
+
+	private int m_index;
+
+	/** The response stream, set as soon as the buffer has overflowed for the first time. */
+	@Nullable
+	private OutputStream m_os;
+
+	/** A high surrogate that is waiting for its low surrogate pair to arrive. */
+	private char m_pendingSurrogate;
+
+	StreamingOutputWriter(@Nonnull RequestContextImpl ctx, @Nonnull OutputBufferPool pool, @Nonnull String contentType, @Nullable String encoding) {
+		m_context = ctx;
+		m_pool = pool;
+		m_contentType = contentType;
+		m_encoding = encoding;
+		m_buffer = pool.allocate();
+	}
+
+	/**
+	 * Returns T if data has already been sent to the client, which means that the
+	 * output can no longer be replaced.
+	 */
+	public boolean isCommitted() {
+		return m_os != null;
+	}
+
+	@Nonnull
+	private byte[] buffer() throws IOException {
+		byte[] buffer = m_buffer;
+		if(null == buffer)
+			throw new IOException("The output writer has already been closed");
+		return buffer;
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		encode((char) c);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		int end = off + len;
+		while(off < end)
+			encode(cbuf[off++]);
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		int end = off + len;
+		while(off < end)
+			encode(str.charAt(off++));
+	}
+
+	private void encode(char c) throws IOException {
+		byte[] buf = buffer();
+		if(m_index + 4 > buf.length)
+			spill(buf);
+
+		if(m_pendingSurrogate != 0) {
+			char hi = m_pendingSurrogate;
+			m_pendingSurrogate = 0;
+			if(Character.isLowSurrogate(c)) {
+				int cp = Character.toCodePoint(hi, c);
+				buf[m_index++] = (byte) (0xf0 | (cp >> 18));
+				buf[m_index++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+				buf[m_index++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+				buf[m_index++] = (byte) (0x80 | (cp & 0x3f));
+				return;
+			}
+			buf[m_index++] = '?';								// Unpaired high surrogate
+			if(m_index + 4 > buf.length)
+				spill(buf);
+		}
+
+		if(c < 0x80) {
+			buf[m_index++] = (byte) c;
+		} else if(c < 0x800) {
+			buf[m_index++] = (byte) (0xc0 | (c >> 6));
+			buf[m_index++] = (byte) (0x80 | (c & 0x3f));
+		} else if(Character.isHighSurrogate(c)) {
+			m_pendingSurrogate = c;
+		} else if(Character.isLowSurrogate(c)) {
+			buf[m_index++] = '?';								// Unpaired low surrogate
+		} else {
+			buf[m_index++] = (byte) (0xe0 | (c >> 12));
+			buf[m_index++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+			buf[m_index++] = (byte) (0x80 | (c & 0x3f));
+		}
+	}
+
+	/**
+	 * Send the buffer to the client, committing the response if needed.
+	 */
+	private void spill(@Nonnull byte[] buf) throws IOException {
+		getStream(-1).write(buf, 0, m_index);
+		m_index = 0;
+	}
+
+	/**
+	 * Return the response stream, opening it on first use. The stream is owned by this writer and closed by {@link #close()}.
+	 *
+	 * @param contentLength	The #of bytes in the response, or -1 when that is not yet known.
+	 */
+	@Nonnull
+	private OutputStream getStream(int contentLength) throws IOException {
+		OutputStream os = m_os;
+		if(null == os) {
+			os = m_context.internalOpenOutputStream(m_contentType, m_encoding, contentLength);
+			m_os = os;
+		}
+		return os;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		//-- Do not flush to the client: that would commit the response needlessly.
+	}
+
+	/**
+	 * Send all remaining data to the client, close the stream and release the buffer. When
+	 * nothing has been sent before the response gets a content length.
+	 */
+	@Override
+	public void close() throws IOException {
+		byte[] buf = m_buffer;
+		if(null == buf)
+			return;
+		try {
+			if(m_pendingSurrogate != 0) {
+				m_pendingSurrogate = 0;
+				buf[m_index++] = '?';
+			}
+			try(OutputStream os = getStream(m_index)) {
+				os.write(buf, 0, m_index);
+			}
+		} finally {
+			releaseBuffer();
+		}
+	}
+
+	/**
+	 * Discard all data that was not yet sent and release the buffer.
+	 */
+	public void discard() {
+		releaseBuffer();
+	}
+
+	private void releaseBuffer() {
+		byte[] buf = m_buffer;
+		if(null != buf) {
+			m_buffer = null;
+			m_index = 0;
+			m_pool.release(buf);
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package to.etc.domui.server.parts;
+
+import to.etc.domui.util.*;
+
+import javax.annotation.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * The cache for buffered parts. Lookups are lock-free; the cache is limited by the total
+ * #of bytes of the cached parts. When that budget is exceeded the least recently used parts
+ * are evicted until the cache has shrunk to 90% of its budget.
+ *
+ * <p>Generation of a missing part is "single flight": when many threads ask for the same
+ * missing part at the same time only one of them generates it, the others wait for that
+ * result. This prevents dozens of threads from generating the same sprite or theme at
+ * the same time on a cold start.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+@DefaultNonNull
+final public class PartCache {
+	/** The size accounted for an entry's overhead. */
+	static private final int ENTRY_OVERHEAD = 32;
+
+	static private final class CacheEntry {
+		@Nonnull
+		final PartData m_data;
+
+		final int m_size;
+
+		volatile long m_lastUse;
+
+		CacheEntry(PartData data) {
+			m_data = data;
+			m_size = data.getSize() + ENTRY_OVERHEAD;
+			m_lastUse = System.nanoTime();
+		}
+	}
+
+	private final ConcurrentHashMap<Object, CacheEntry> m_map = new ConcurrentHashMap<>();
+
+	/** Parts currently being generated, by key. */
+	private final ConcurrentHashMap<Object, FutureTask<PartData>> m_pendingMap = new ConcurrentHashMap<>();
+
+	private final AtomicLong m_currentSize = new AtomicLong();
+
+	private volatile long m_maxSize;
+
+	private final AtomicLong m_hits = new AtomicLong();
+
+	private final AtomicLong m_misses = new AtomicLong();
+
+	private final AtomicLong m_evictions = new AtomicLong();
+
+	/** The #of times a thread waited for a part that another thread was generating. */
+	private final AtomicLong m_sharedGenerations = new AtomicLong();
+
+	public PartCache(long maxSize) {
+		m_maxSize = maxSize;
+	}
+
+	/**
+	 * Return the cached part, or null if it is not in the cache.
+	 */
+	@Nullable
+	public PartData get(Object key) {
+		CacheEntry ce = m_map.get(key);
+		if(null == ce)
+			return null;
+		ce.m_lastUse = System.nanoTime();
+		m_hits.incrementAndGet();
+		return ce.m_data;
+	}
+
+	/**
+	 * Return the cached part, or generate it using the maker if it is not present. When another
+	 * thread is already generating the same part this waits for that thread's result.
+	 */
+	public PartData getOrCreate(Object key, Callable<PartData> maker) throws Exception {
+		PartData pd = get(key);
+		if(null != pd)
+			return pd;
+
+		FutureTask<PartData> task = new FutureTask<>(maker);
+		FutureTask<PartData> running = m_pendingMap.putIfAbsent(key, task);
+		if(null != running) {
+			m_sharedGenerations.incrementAndGet();
+			return waitFor(running);
+		}
+
+		try {
+			//-- Another thread may have finished generating between our lookup and claiming the key.
+			CacheEntry ce = m_map.get(key);
+			if(null != ce) {
+				m_hits.incrementAndGet();
+				task.cancel(false);
+				return ce.m_data;
+			}
+
+			m_misses.incrementAndGet();
+			task.run();
+			pd = waitFor(task);
+			put(key, pd);
+			return pd;
+		} finally {
+			m_pendingMap.remove(key, task);
+		}
+	}
+
+	static private PartData waitFor(FutureTask<PartData> task) throws Exception {
+		try {
+			return DomUtil.nullChecked(task.get());
+		} catch(ExecutionException x) {
+			Throwable cause = x.getCause();
+			if(cause instanceof Exception)
+				throw (Exception) cause;
+			if(cause instanceof Error)
+				throw (Error) cause;
+			throw x;
+		}
+	}
+
+	public void put(Object key, PartData data) {
+		CacheEntry ce = new CacheEntry(data);
+		CacheEntry old = m_map.put(key, ce);
+		m_currentSize.addAndGet(old == null ? ce.m_size : ce.m_size - old.m_size);
+		if(m_currentSize.get() > m_maxSize)
+			evict();
+	}
+
+	/**
+	 * Remove the entry for the key, but only if it still contains the specified data.
+	 */
+	public void remove(Object key, PartData data) {
+		CacheEntry ce = m_map.get(key);
+		if(null != ce && ce.m_data == data && m_map.remove(key, ce))
+			m_currentSize.addAndGet(-ce.m_size);
+	}
+
+	/**
+	 * Evict the least recently used entries until the cache is at 90% of its budget.
+	 */
+	private synchronized void evict() {
+		long max = m_maxSize;
+		if(m_currentSize.get() <= max)
+			return;
+		long target = max - max / 10;
+
+		List<Map.Entry<Object, CacheEntry>> list = new ArrayList<>(m_map.entrySet());
+		list.sort((a, b) -> Long.compare(a.getValue().m_lastUse, b.getValue().m_lastUse));
+		for(Map.Entry<Object, CacheEntry> me : list) {
+			if(m_currentSize.get() <= target)
+				break;
+			if(m_map.remove(me.getKey(), me.getValue())) {
+				m_currentSize.addAndGet(-me.getValue().m_size);
+				m_evictions.incrementAndGet();
+			}
+		}
+	}
+
+	public void clear() {
+		for(Object key : new ArrayList<>(m_map.keySet())) {
+			CacheEntry ce = m_map.remove(key);
+			if(null != ce)
+				m_currentSize.addAndGet(-ce.m_size);
+		}
+	}
+
+	/**
+	 * The max #of bytes the cache may use.
+	 */
+	public long getMaxSize() {
+		return m_maxSize;
+	}
+
+	public void setMaxSize(long maxSize) {
+		m_maxSize = maxSize;
+		evict();
+	}
+
+	/**
+	 * The #of bytes used by all cached parts.
+	 */
+	public long getCurrentSize() {
+		return m_currentSize.get();
+	}
+
+	public int getCount() {
+		return m_map.size();
+	}
+
+	public long getHits() {
+		return m_hits.get();
+	}
+
+	public long getMisses() {
+		return m_misses.get();
+	}
+
+	public long getEvictions() {
+		return m_evictions.get();
+	}
+
+	/**
+	 * The #of requests that did not generate a missing part themselves, but that waited for
+	 * another thread generating the same part.
+	 */
+	public long getSharedGenerations() {
+		return m_sharedGenerations.get();
+	}
+
+	@Override
+	public String toString() {
+		return "PartCache[" + getCount() + " parts, " + getCurrentSize() + "/" + getMaxSize() + " bytes, hits=" + getHits() + ", misses=" + getMisses()
+			+ ", evictions=" + getEvictions() + ", shared=" + getSharedGenerations() + "]";
+	}
+}
@@ -27,9 +27,16 @@ package to.etc.domui.server.parts;
 import to.etc.domui.util.resources.*;
 import to.etc.util.*;
 
+import javax.annotation.*;
+import java.io.*;
+import java.security.*;
+import java.util.zip.*;
+
 /**
  * Contains a cached instance of some part rendering as created by
- * a buffered part.
+ * a buffered part. It also lazily calculates a strong (SHA-256) hash over
+ * the content, used as the ETag for the part, and a gzip compressed version
+ * of the content which is created only once.
  *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Jun 4, 2008
@@ -41,6 +48,7 @@ final public class PartData {
 
 	final private ResourceDependencies m_dependencies;
 
+	@Nonnull
 	private final String m_contentType;
 
 	/** The time a response may be cached locally, in seconds */
@@ -49,9 +57,16 @@ final public class PartData {
 	final private Object m_extra;
 
 	/** The content hash, or null if as yet uncalculated. */
-	private byte[] m_hash;
+	private volatile byte[] m_hash;
+
+	/** The gzip compressed content, or null if not yet compressed. */
+	@Nullable
+	private byte[] m_compressed;
 
-	public PartData(byte[][] data, int size, int cacheTime, String contentType, ResourceDependencies dependencies, Object extra) {
+	/** T when compression was tried; when m_compressed is null after that the data did not compress. */
+	private boolean m_compressionDone;
+
+	public PartData(byte[][] data, int size, int cacheTime, @Nonnull String contentType, ResourceDependencies dependencies, Object extra) {
 		m_data = data;
 		m_size = size;
 		m_cacheTime = cacheTime;
@@ -72,6 +87,7 @@ final public class PartData {
 		return m_dependencies;
 	}
 
+	@Nonnull
 	public String getContentType() {
 		return m_contentType;
 	}
@@ -85,14 +101,56 @@ final public class PartData {
 	}
 
 	/**
-	 * Return the hash of the content.
+	 * Return the SHA-256 hash of the content.
 	 * @return
 	 */
 	public byte[] getHash() {
 		byte[] hash = m_hash;
 		if(null == hash) {
-			hash = m_hash = SecurityUtils.md5Hash(m_data);
+			try {
+				MessageDigest md = MessageDigest.getInstance("SHA-256");
+				for(byte[] data : m_data)
+					md.update(data);
+				hash = m_hash = md.digest();
+			} catch(NoSuchAlgorithmException x) {
+				throw new IllegalStateException(x);						// SHA-256 is mandatory in all JDKs
+			}
 		}
 		return hash;
 	}
+
+	/**
+	 * Return the (strong) ETag for the content, including the quotes.
+	 * @param compressed	When T this returns the tag for the compressed representation.
+	 * @return
+	 */
+	@Nonnull
+	public String getETag(boolean compressed) {
+		return "\"" + StringTool.toHex(getHash()) + (compressed ? "-gz\"" : "\"");
+	}
+
+	/**
+	 * Return the gzip compressed version of the data, creating it the first time it is needed. If
+	 * the compressed version is not smaller than the original this returns null.
+	 * @param level	The deflate level used when compressing.
+	 * @return
+	 */
+	@Nullable
+	public synchronized byte[] getCompressedData(int level) throws IOException {
+		if(m_compressionDone)
+			return m_compressed;
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(m_size / 3 + 64);
+		try(GZIPOutputStream gos = new GZIPOutputStream(bos, 8192) {
+			{
+				def.setLevel(level);
+			}
+		}) {
+			for(byte[] data : m_data)
+				gos.write(data);
+		}
+		if(bos.size() < m_size)
+			m_compressed = bos.toByteArray();
+		m_compressionDone = true;
+		return m_compressed;
+	}
 }
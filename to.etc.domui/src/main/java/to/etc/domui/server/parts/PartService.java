@@ -1,10 +1,10 @@
 package to.etc.domui.server.parts;
 
+import to.etc.domui.parts.ExtendedParameterInfoImpl;
 import to.etc.domui.parts.ParameterInfoProxy;
 import to.etc.domui.server.*;
 import to.etc.domui.trouble.*;
 import to.etc.domui.util.*;
-import to.etc.domui.util.LRUHashMap;
 import to.etc.domui.util.resources.*;
 import to.etc.util.*;
 
@@ -25,8 +25,11 @@ public class PartService {
 
 	private final boolean m_allowExpires;
 
+	/** The default size of the part cache, in bytes. */
+	static public final long DEFAULT_CACHE_SIZE = 16 * 1024 * 1024;
+
 	@Nonnull
-	private final LRUHashMap<Object, PartData> m_cache;
+	private final PartCache m_cache;
 
 	/**
 	 * Registers URL matchers connected to parts.
@@ -74,7 +77,7 @@ public class PartService {
 	public PartService(DomApplication application) {
 		m_application = application;
 
-		m_cache = new LRUHashMap<>(item -> item == null ? 4 : item.getSize() + 32, 16 * 1024 * 1024); 			// Accept 16MB of resources FIXME Must be parameterized
+		m_cache = new PartCache(DEFAULT_CACHE_SIZE);
 		m_allowExpires = DeveloperOptions.getBool("domui.expires", true);
 	}
 
@@ -242,16 +245,41 @@ public class PartService {
 	 */
 	private <K> void generate(IBufferedPartFactory<K> pf, RequestContextImpl ctx, IExtendedParameterInfo parameters) throws Exception {
 		PartData cp = getCachedInstance2(pf, parameters);
+		IRequestResponse rr = ctx.getRequestResponse();
+
+		//-- Can we send the compressed variant?
+		byte[] compressed = null;
+		ResponseCompressor rc = getApplication().getResponseCompressor();
+		if(rc.isEnabled() && rc.isCompressible(cp.getContentType()) && cp.getSize() >= rc.getMinimumSize()) {
+			rr.addHeader("Vary", "Accept-Encoding");
+			if(ResponseCompressor.acceptsGzip(rr.getRequestHeader("Accept-Encoding")))
+				compressed = cp.getCompressedData(rc.getLevel());
+		}
 
-		//-- Generate the part
-		OutputStream os = null;
 		if(cp.getCacheTime() > 0 && m_allowExpires) {
-			ctx.getRequestResponse().setExpiry(cp.getCacheTime());
+			rr.setExpiry(cp.getCacheTime());
 		}
+
+		//-- If the client has the same version already just tell it so.
+		String etag = cp.getETag(compressed != null);
+		rr.addHeader("ETag", etag);
+		if(matchesETag(rr.getRequestHeader("If-None-Match"), etag)) {
+			rr.setStatus(304);
+			return;
+		}
+
+		//-- Generate the part
+		OutputStream os = null;
 		try {
-			os = ctx.getRequestResponse().getOutputStream(cp.getContentType(), null, cp.getSize());
-			for(byte[] data : cp.getData())
-				os.write(data);
+			if(null != compressed) {
+				rr.addHeader("Content-Encoding", "gzip");
+				os = rr.getOutputStream(cp.getContentType(), null, compressed.length);
+				os.write(compressed);
+			} else {
+				os = rr.getOutputStream(cp.getContentType(), null, cp.getSize());
+				for(byte[] data : cp.getData())
+					os.write(data);
+			}
 		} finally {
 			try {
 				if(os != null)
@@ -260,6 +288,125 @@ public class PartService {
 		}
 	}
 
+	/**
+	 * Checks whether the If-None-Match header contains the specified ETag.
+	 */
+	static private boolean matchesETag(@Nullable String ifNoneMatch, String etag) {
+		if(null == ifNoneMatch)
+			return false;
+		for(String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if(tag.startsWith("W/"))
+				tag = tag.substring(2);
+			if(tag.equals(etag) || tag.equals("*"))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Generate and cache the buffered parts for the specified URLs, including their compressed
+	 * variant if compression is enabled. This is used at startup so that the first users do not
+	 * have to wait for resources like the Javascript files and the theme to be generated. URLs may
+	 * have a query string for parameterized parts; URLs that no buffered part handles are skipped,
+	 * and parts that fail to generate are logged and skipped.
+	 *
+	 * <p>The url(...) references in generated stylesheets are warmed too, so that the images
+	 * of a theme stylesheet are ready when the stylesheet is.</p>
+	 *
+	 * @param bv		The browser version to render browser-dependent parts for.
+	 * @param urls		The part URLs, like $js/domui.js
+	 */
+	public void prewarm(BrowserVersion bv, List<String> urls) {
+		ResponseCompressor rc = getApplication().getResponseCompressor();
+		Set<String> done = new HashSet<>();
+		Deque<String> todo = new ArrayDeque<>(urls);
+		String url;
+		while(null != (url = todo.poll())) {
+			if(! done.add(url))
+				continue;
+			try {
+				PartData pd = prewarmPart(bv, url);
+				if(null == pd)
+					continue;
+				if(rc.isEnabled() && rc.isCompressible(pd.getContentType()) && pd.getSize() >= rc.getMinimumSize())
+					pd.getCompressedData(rc.getLevel());
+				if(pd.getContentType().startsWith("text/css"))
+					todo.addAll(findStylesheetReferences(url, pd));
+			} catch(Exception x) {
+				DomApplication.LOG.info("parts: prewarming " + url + " failed: " + x);
+			}
+		}
+	}
+
+	/**
+	 * Get the data for a part URL, or return null if the URL is not handled by a buffered part.
+	 */
+	@Nullable
+	private PartData prewarmPart(BrowserVersion bv, String url) throws Exception {
+		int pos = url.indexOf('?');
+		String rurl = pos == -1 ? url : url.substring(0, pos);
+		String query = pos == -1 ? "" : url.substring(pos + 1);
+		ExtendedParameterInfoImpl info = new ExtendedParameterInfoImpl(bv, DomUtil.nullChecked(rurl), DomUtil.nullChecked(query));
+		PartExecutionReference ref = findPart(info);
+		if(null == ref || !(ref.getFactory() instanceof IBufferedPartFactory))
+			return null;
+		return getCachedInstance2((IBufferedPartFactory<?>) ref.getFactory(), ref.getInfo());
+	}
+
+	/**
+	 * Return the relative url(...) references in a generated stylesheet, resolved against the stylesheet's URL.
+	 */
+	static List<String> findStylesheetReferences(String cssUrl, PartData pd) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(pd.getSize());
+		for(byte[] buf : pd.getData())
+			bos.write(buf);
+		String css = new String(bos.toByteArray(), "utf-8");
+
+		int qpos = cssUrl.indexOf('?');
+		String base = qpos == -1 ? cssUrl : cssUrl.substring(0, qpos);
+		base = base.substring(0, base.lastIndexOf('/') + 1);
+
+		List<String> res = new ArrayList<>();
+		int ix = 0;
+		while((ix = css.indexOf("url(", ix)) != -1) {
+			int end = css.indexOf(')', ix);
+			if(end == -1)
+				break;
+			String ref = css.substring(ix + 4, end).trim();
+			ix = end;
+			if(ref.length() > 1 && (ref.charAt(0) == '"' || ref.charAt(0) == '\''))
+				ref = ref.substring(1, ref.length() - 1);
+			if(ref.isEmpty() || ref.startsWith("/") || ref.startsWith("#") || ref.startsWith("data:") || ref.contains("://"))
+				continue;
+			String resolved = resolveRelative(base, ref);
+			if(null != resolved)
+				res.add(resolved);
+		}
+		return res;
+	}
+
+	/**
+	 * Resolve a relative reference against a base path ending in /, or return null when it goes above the root.
+	 */
+	@Nullable
+	static private String resolveRelative(String base, String ref) {
+		List<String> segs = new ArrayList<>(Arrays.asList(base.split("/")));
+		if(!segs.isEmpty() && segs.get(segs.size() - 1).isEmpty())
+			segs.remove(segs.size() - 1);
+		for(String seg : ref.split("/", -1)) {
+			if(seg.equals("."))
+				continue;
+			if(seg.equals("..")) {
+				if(segs.isEmpty())
+					return null;
+				segs.remove(segs.size() - 1);
+			} else
+				segs.add(seg);
+		}
+		return String.join("/", segs);
+	}
+
 	private <K> PartData getCachedInstance2(final IBufferedPartFactory<K> pf, final IExtendedParameterInfo parameters) throws Exception {
 		//-- Convert the data to a key object, then lookup;
 		K key = pf.decodeKey(parameters);
@@ -269,17 +416,7 @@ public class PartService {
 	}
 
 	public <K> PartData getCachedInstance(final IBufferedPartFactory<K> pf, K key) throws Exception {
-		/*
-		 * Lookup. This part *is* thread-safe but it has a race condition: it may cause multiple
-		 * instances of the SAME resource to be generated at the same time and inserted at the
-		 * same time. In time we must replace this with the MAKER pattern, but for now this
-		 * small problem will be accepted; it will not cause problems since only the last instance
-		 * will be kept and stored.
-		 */
-		PartData cp;
-		synchronized(m_cache) {
-			cp = m_cache.get(key); // Already exists here?
-		}
+		PartData cp = m_cache.get(key);
 
 		/*
 		 * jal 20100901 Always check for updated parts, even when in production mode. Part factories themselves will
@@ -291,6 +428,7 @@ public class PartService {
 			if(cp.getDependencies() != null) {
 				if(cp.getDependencies().isModified()) {
 					System.out.println("parts: part " + key + " has changed. Reloading..");
+					m_cache.remove(key, cp);
 					cp = null;
 				}
 			}
@@ -298,7 +436,11 @@ public class PartService {
 		if(cp != null)
 			return cp;
 
-		//-- We're going to (re)create the part
+		//-- We're going to (re)create the part; only one thread generates a given part at a time.
+		return m_cache.getOrCreate(key, () -> generatePart(pf, key));
+	}
+
+	private <K> PartData generatePart(IBufferedPartFactory<K> pf, K key) throws Exception {
 		ResourceDependencyList rdl = new ResourceDependencyList();	// Fix bug# 852: allow resource change checking in production also.
 		ByteBufferOutputStream os = new ByteBufferOutputStream();
 		PartResponse pr = new PartResponse(os);
@@ -307,13 +449,15 @@ public class PartService {
 		if(mime == null)
 			throw new IllegalStateException("The part " + pf + " did not set a MIME type, key=" + key);
 		os.close();
-		cp = new PartData(os.getBuffers(), os.getSize(), pr.getCacheTime(), mime, rdl.createDependencies(), pr.getExtra());
-		synchronized(m_cache) {
-			m_cache.put(key, cp); 								// Store (may be done multiple times due to race condition)
-		}
-		return cp;
+		return new PartData(os.getBuffers(), os.getSize(), pr.getCacheTime(), mime, rdl.createDependencies(), pr.getExtra());
 	}
 
+	/**
+	 * Return the buffered parts cache, for statistics and configuration.
+	 */
+	public PartCache getCache() {
+		return m_cache;
+	}
 
 	private DomApplication getApplication() {
 		return m_application;
@@ -47,6 +47,9 @@ import to.etc.domui.util.janitor.*;
  * is free the current request will claim it using a lock in the session object. When a
  * request terminates it is the responsibility of the toplevel request handler to always
  * unlock the request.</p>
+ * <p>Requests that only work in a single browser window do not claim the session but only
+ * that window's {@link WindowSession}, so that the windows of a session can be used in parallel.
+ * When a request needs both it must claim the window before the session.</p>
  *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on May 22, 2008
@@ -61,11 +64,11 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 	final private Map<String, Object> m_objCache = new HashMap<String, Object>();
 
 	/**
-	 * Not-null if some other request is executing for this session. Prevent multi-user access
-	 * to shared variables.
+	 * Claimed by a request that uses session-global data, to prevent multi-user access
+	 * to shared variables. Requests for a window lock the {@link WindowSession} instead.
 	 */
-	@Nullable
-	private Thread m_lockingThread;
+	@Nonnull
+	final private RequestLock m_lock;
 
 	private int m_exceptionRetryCount;
 
@@ -77,6 +80,7 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 
 	public AppSession(@Nonnull DomApplication da) {
 		m_application = da;
+		m_lock = new RequestLock("AppSession", da.getSessionLockStatistics());
 	}
 
 	final public void internalDestroy() {
@@ -141,25 +145,16 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 	 * to unlockSession() will release the lock.
 	 */
 	public void internalLockSession() {
-		Thread t = Thread.currentThread();
-
-		synchronized(this) {
-			for(;;) {
-				if(m_lockingThread == null) { // Not claimed at this point?
-					m_lockingThread = t; // Claimed by me.
-					return;
-				}
-				if(m_lockingThread == t) // Already claimed by me?
-					return; // Useless call, then
+		internalLockSession(null);
+	}
 
-				//-- Someone else has locked me. Wait until I'm released.
-				try {
-					wait();
-				} catch(InterruptedException ix) {
-					throw new RuntimeException("Waiting for session lock was interrupted.", ix);
-				}
-			}
-		}
+	/**
+	 * INTERNAL USE ONLY.
+	 * Enter the session-controlled monitor; the reason describes the request, and is
+	 * reported when another request has to wait a long time for the lock.
+	 */
+	public void internalLockSession(@Nullable String reason) {
+		m_lock.lock(reason);
 	}
 
 	/**
@@ -167,15 +162,7 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 	 * Leave the session-controlled monitor. THIS CALL DOES NOT NEST!
 	 */
 	public void internalUnlockSession() {
-		Thread t = Thread.currentThread();
-		synchronized(this) {
-			if(m_lockingThread == null)
-				throw new IllegalStateException("Trying to unlock an AppSession while it's not being owned..");
-			if(m_lockingThread != t)
-				throw new IllegalStateException("Trying to unlock an AppSession while it's not being owned BY YOU");
-			m_lockingThread = null;
-			notify();
-		}
+		m_lock.unlock();
 	}
 
 	/*--------------------------------------------------------------*/
@@ -207,7 +194,7 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 		long ets = System.currentTimeMillis() - (long) m_application.getWindowSessionTimeout() * 1000 * 60l;
 		synchronized(this) {
 			for(WindowSession cm : m_windowMap.values()) {
-				if(cm.getLastUsed() < ets) {
+				if(cm.getLastUsed() < ets && !cm.internalIsUsedByOther()) {		// Do not drop a window while a request uses it
 					if(droplist == null)
 						droplist = new ArrayList<WindowSession>(10);
 					droplist.add(cm);
@@ -0,0 +1,132 @@
+package to.etc.domui.state;
+
+import javax.annotation.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * The application-wide executor for asynchronous activities ({@link to.etc.domui.component.delayed.IAsyncRunnable}).
+ * All {@link DelayedActivitiesManager}s share the threads of this executor, so that the #of threads
+ * running asynchronous activities is bounded regardless of the #of conversations that have them.
+ *
+ * <p>Each conversation still executes its activities one at a time, in order. To be fair to all sessions
+ * a manager runs only a single activity per turn; when it has more pending activities it queues itself
+ * again at the end of the queue, so that other conversations waiting for a thread get their turn first.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+@DefaultNonNull
+final public class AsyncActivityExecutor {
+	@Nonnull
+	private final ThreadPoolExecutor m_executor;
+
+	private final AtomicInteger m_threadNumber = new AtomicInteger();
+
+	private final AtomicLong m_executedCount = new AtomicLong();
+
+	private final AtomicLong m_totalWaitNanos = new AtomicLong();
+
+	private final AtomicLong m_maxWaitNanos = new AtomicLong();
+
+	public AsyncActivityExecutor(int threads) {
+		m_executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread t = new Thread(r, "xc-" + m_threadNumber.incrementAndGet());
+			t.setDaemon(true);
+			t.setPriority(Thread.MIN_PRIORITY);
+			return t;
+		});
+		m_executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * The default #of threads: twice the #of processors, with a minimum of 8.
+	 */
+	static public int getDefaultThreads() {
+		return Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Queue a manager's turn at the end of the queue.
+	 */
+	void execute(DelayedActivitiesManager manager) {
+		m_executor.execute(manager);
+	}
+
+	/**
+	 * Called when an activity starts, with the time it had to wait for a thread.
+	 */
+	void registerWait(long waitNanos) {
+		m_executedCount.incrementAndGet();
+		m_totalWaitNanos.addAndGet(waitNanos);
+		for(;;) {
+			long max = m_maxWaitNanos.get();
+			if(waitNanos <= max || m_maxWaitNanos.compareAndSet(max, waitNanos))
+				return;
+		}
+	}
+
+	/**
+	 * Change the max #of threads that execute activities.
+	 */
+	public synchronized void setThreads(int threads) {
+		if(threads < 1)
+			throw new IllegalArgumentException("The #of threads must be at least 1");
+		if(threads > m_executor.getMaximumPoolSize()) {
+			m_executor.setMaximumPoolSize(threads);
+			m_executor.setCorePoolSize(threads);
+		} else {
+			m_executor.setCorePoolSize(threads);
+			m_executor.setMaximumPoolSize(threads);
+		}
+	}
+
+	public int getThreads() {
+		return m_executor.getMaximumPoolSize();
+	}
+
+	/**
+	 * The #of conversations that have activities waiting for a thread.
+	 */
+	public int getQueueLength() {
+		return m_executor.getQueue().size();
+	}
+
+	/**
+	 * The #of threads currently executing an activity.
+	 */
+	public int getActiveCount() {
+		return m_executor.getActiveCount();
+	}
+
+	/**
+	 * The #of activities started since the application started.
+	 */
+	public long getExecutedCount() {
+		return m_executedCount.get();
+	}
+
+	/**
+	 * The average time, in milliseconds, that an activity waited for a thread.
+	 */
+	public double getAverageWaitTime() {
+		long count = m_executedCount.get();
+		return count == 0 ? 0.0 : m_totalWaitNanos.get() / (count * 1000000.0);
+	}
+
+	/**
+	 * The longest time, in milliseconds, that an activity waited for a thread.
+	 */
+	public long getMaxWaitTime() {
+		return m_maxWaitNanos.get() / 1000000;
+	}
+
+	public void shutdown() {
+		m_executor.shutdownNow();
+	}
+
+	@Override
+	public String toString() {
+		return "AsyncActivityExecutor[threads=" + getThreads() + ", active=" + getActiveCount() + ", queued=" + getQueueLength() + ", executed=" + getExecutedCount()
+			+ ", avgWait=" + String.format("%.1f", Double.valueOf(getAverageWaitTime())) + "ms, maxWait=" + getMaxWaitTime() + "ms]";
+	}
+}
@@ -373,6 +373,14 @@ public class ConversationContext implements IQContextContainer {
 		throw new IllegalStateException("Not initialized?");
 	}
 
+	/**
+	 * The window session, or null if this conversation is not (or no longer) part of one.
+	 */
+	@Nullable
+	WindowSession internalFindWindowSession() {
+		return m_manager;
+	}
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Contained objects map (EXPERIMENTAL)				*/
 	/*--------------------------------------------------------------*/
@@ -453,6 +461,25 @@ public class ConversationContext implements IQContextContainer {
 		return delayManager == null ? false : delayManager.callbackRequired();
 	}
 
+	/**
+	 * If the page has asynchronous stuff, this returns true when all of it signals the window's {@link PushChannel}
+	 * when it has changes, so that the browser can wait for a signal instead of polling.
+	 */
+	public boolean isPushCallbackPossible() {
+		DelayedActivitiesManager delayManager = m_delayManager;
+		return delayManager == null ? false : delayManager.isPushPossible();
+	}
+
+	/**
+	 * Tell the browser that a polled node has changes, when it waits for changes on the window's {@link PushChannel}. Nodes
+	 * that call this should return true from {@link IPolledForUpdate#isChangeSignalled()}.
+	 */
+	public void signalChanged() {
+		WindowSession ws = m_manager;
+		if(null != ws)
+			ws.getPushChannel().signal();
+	}
+
 	/**
 	 * Registers a node as a thingy which needs to be called every polltime seconds to
 	 * update the screen. This is not an asy action by itself (it starts no threads) but
@@ -27,15 +27,18 @@ package to.etc.domui.state;
 import org.slf4j.*;
 import to.etc.domui.component.delayed.*;
 import to.etc.domui.dom.html.*;
+import to.etc.domui.server.*;
 import to.etc.domui.util.*;
 
 import javax.annotation.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * This helper class does all of the handling for delayed activities for
  * a conversation. It contains all activity queues plus all handling of
- * the executor thread.
+ * the execution of the activities. The activities are executed one by one
+ * on the threads of the application-wide {@link AsyncActivityExecutor}.
  *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Oct 7, 2008
@@ -43,9 +46,21 @@ import java.util.*;
 public class DelayedActivitiesManager implements Runnable {
 	private static final Logger LOG = LoggerFactory.getLogger(DelayedActivitiesManager.class);
 
-	//	private ConversationContext			m_conversation;
+	@Nonnull
+	private final ConversationContext m_conversation;
+	/** The executor thread while it is running an activity of this manager. */
 	private Thread m_executorThread;
 
+	/** T when this manager has been queued in, or is running on, the executor. */
+	private boolean m_scheduled;
+
+	/** The time this manager was queued in the executor, to determine how long it waited for a thread. */
+	private long m_queuedAt;
+
+	/** The executor running the activities. It is set when execution is started by a request, as the pooled threads have no current application. */
+	@Nullable
+	private AsyncActivityExecutor m_executor;
+
 	private List<DelayedActivityInfo> m_pendingQueue = new ArrayList<DelayedActivityInfo>();
 
 	private List<DelayedActivityInfo> m_completionQueue = new ArrayList<DelayedActivityInfo>();
@@ -63,8 +78,8 @@ public class DelayedActivitiesManager implements Runnable {
 	 */
 	private Set<NodeContainer> m_pollSet = new HashSet<NodeContainer>();
 
-	protected DelayedActivitiesManager(ConversationContext conversation) {
-	//		m_conversation = conversation;
+	protected DelayedActivitiesManager(@Nonnull ConversationContext conversation) {
+		m_conversation = conversation;
 	}
 
 	/**
@@ -114,8 +129,6 @@ public class DelayedActivitiesManager implements Runnable {
 	 * @param dai
 	 */
 	public boolean cancelActivity(DelayedActivityInfo dai) {
-		Thread tr;
-
 		synchronized(this) {
 			if(m_pendingQueue.remove(dai)) {
 				dai.getContainer().confirmCancelled();
@@ -125,21 +138,38 @@ public class DelayedActivitiesManager implements Runnable {
 			//-- Is this thingy currently running?
 			if(m_runningActivity != dai)
 				return false;
+		}
+
+		//-- The activity is currently running. Cancel it outside the lock as cancelling calls its listeners.
+		dai.getMonitor().cancel(); // Force cancel indication.
 
-			//-- The activity is currently running. Try to abort the task && thread.
-			tr = m_executorThread;
-			m_runningActivity.getMonitor().cancel(); // Force cancel indication.
+		synchronized(this) {
+			/*
+			 * The thread is a pooled one, so it is interrupted while holding the lock: the thread
+			 * clears m_executorThread with this lock held before it moves on to other work, so this
+			 * cannot interrupt an activity of another conversation.
+			 */
+			Thread tr = m_executorThread;
+			if(tr != null && m_runningActivity == dai)
+				tr.interrupt();
 		}
-		tr.interrupt();
 		return true;
 	}
 
-	private void wakeupListeners(int lingertime) {}
+	/**
+	 * Signal the window's push channel, so that a browser waiting for changes fetches them.
+	 */
+	private void wakeupListeners(int lingertime) {
+		m_conversation.signalChanged();
+	}
 
 	void completionStateChanged(DelayedActivityInfo dai, int pct, String statusMsg) {
 		synchronized(this) {
+			if(dai.getPercentageComplete() == pct && Objects.equals(dai.getStatusMessage(), statusMsg))
+				return;									// Nothing visible changed: do not wake the browser
 			dai.setPercentageComplete(pct);
 			dai.setStatusMessage(statusMsg);
+			wakeupListeners(1000);
 		}
 	}
 
@@ -184,26 +214,41 @@ public class DelayedActivitiesManager implements Runnable {
 	 * when data is present in the completion queue.
 	 */
 	public boolean start() {
-		Thread t;
+		return start(DomApplication.get().getAsyncActivityExecutor());
+	}
+
+	/**
+	 * Initiate background processing on the specified executor, if needed.
+	 */
+	boolean start(@Nonnull AsyncActivityExecutor executor) {
 		synchronized(this) {
-			if(m_executorThread != null) // Active thread?
-				return true; // Begone.
-
-			//-- Must a thread be started?
-			if(m_pendingQueue.size() == 0) // Pending requests?
-				return false; // Nope -> begone
-
-			//-- Prepare to start the executor.
-			m_executorThread = new Thread(this);
-			m_executorThread.setName("xc");
-			m_executorThread.setDaemon(true);
-			m_executorThread.setPriority(Thread.MIN_PRIORITY);
-			t = m_executorThread; // Prevent naked access to m_ variable even though it is untouched by other code.
+			if(m_scheduled) 					// Already queued or running?
+				return true; 					// Begone.
+
+			//-- Must execution be started?
+			if(m_pendingQueue.size() == 0) 		// Pending requests?
+				return false; 					// Nope -> begone
+			m_scheduled = true;
+			m_executor = executor;
 		}
-		t.start();
+		queue(executor);
 		return true;
 	}
 
+	private void queue(@Nonnull AsyncActivityExecutor executor) {
+		synchronized(this) {
+			m_queuedAt = System.nanoTime();
+		}
+		try {
+			executor.execute(this);
+		} catch(RejectedExecutionException x) {
+			synchronized(this) {
+				m_scheduled = false;
+			}
+			LOG.error("Async activity executor refused to run activities (application shutting down?)", x);
+		}
+	}
+
 	//	/**
 	//	 * Returns whether the client needs to use it's polltimer again and poll for changes. It returns 0 if there is no need to poll.
 	//	 * @return
@@ -232,6 +277,20 @@ public class DelayedActivitiesManager implements Runnable {
 	}
 
 
+	/**
+	 * Returns true when the browser can wait for push signals instead of polling: all polled nodes
+	 * signal their changes. Activities always signal progress and completion.
+	 */
+	public boolean isPushPossible() {
+		synchronized(this) {
+			for(NodeContainer nc : m_pollSet) {
+				if(!((IPolledForUpdate) nc).isChangeSignalled())
+					return false;
+			}
+			return true;
+		}
+	}
+
 	public boolean isTerminated() {
 		synchronized(this) {
 			return m_terminated;
@@ -248,17 +307,12 @@ public class DelayedActivitiesManager implements Runnable {
 	 * trying to fondle a dead body and throw (up).
 	 */
 	public void terminate() {
-		Thread killme = null;
 		DelayedActivityInfo pendingcorpse = null;
 
 		synchronized(this) {
 			if(m_terminated)
 				return;
 			m_terminated = true;
-			if(m_executorThread != null) {
-				killme = m_executorThread;
-				m_executorThread = null;
-			}
 			pendingcorpse = m_runningActivity;
 			m_runningActivity = null;
 
@@ -267,7 +321,7 @@ public class DelayedActivitiesManager implements Runnable {
 			wakeupListeners(100); // Wakeup anything that's listening quickly
 		}
 
-		//-- Do our utmost to kill the task, not gently.
+		//-- Do our utmost to kill the task, not gently. This calls the monitor's listeners, so not while locked.
 		try {
 			if(pendingcorpse != null)
 				pendingcorpse.getMonitor().cancel(); // Forcefully cancel;
@@ -275,13 +329,15 @@ public class DelayedActivitiesManager implements Runnable {
 			x.printStackTrace();
 		}
 
-		//-- Signal the thread
-		try {
-			if(killme != null) {
-				killme.interrupt();
+		//-- Signal the thread, while holding the lock so that it is still running our activity (see cancelActivity).
+		synchronized(this) {
+			try {
+				if(m_executorThread != null) {
+					m_executorThread.interrupt();
+				}
+			} catch(Exception x) {
+				x.printStackTrace();
 			}
-		} catch(Exception x) {
-			x.printStackTrace();
 		}
 	}
 
@@ -289,49 +345,55 @@ public class DelayedActivitiesManager implements Runnable {
 	/*	CODING:	Executor thread.									*/
 	/*--------------------------------------------------------------*/
 	/**
-	 * Main action runnert. This is the thread's executor function. While the manager is
-	 * active this will execute activities in the PENDING queue one by one until the queue
-	 * is empty. If that happens it will commit suicide. This suicidal act will not invalidate
-	 * the manager; at any time can new actions be posted and a new thread be started.
+	 * Main action runner, executed by a thread of the {@link AsyncActivityExecutor}. This executes
+	 * the first activity in the PENDING queue. When more activities are pending afterwards this
+	 * manager queues itself again at the end of the executor's queue, so that activities of other
+	 * conversations get a turn in between. The manager can be restarted at any time when new
+	 * actions get posted.
 	 *
 	 * @see java.lang.Runnable#run()
 	 */
 	@Override
 	public void run() {
-		try {
-			for(;;) {
-				//-- Are we attempting to die?
-				DelayedActivityInfo dai;
-				synchronized(this) {
-					if(m_terminated) 				// Manager is deadish?
-						return; 					// Just quit immediately (nothing is currently running)
-
-					//-- Anything to do?
-					if(m_pendingQueue.size() == 0) {	// Something queued still?
-						//-- Nope. We can stop properly.
-						return;
-					}
-
-					//-- Schedule for a new execute.
-					dai = m_pendingQueue.remove(0); 	// Get and remove from pending queue
-					m_runningActivity = dai; 			// Make this the running dude
-				}
-				execute(dai);
+		DelayedActivityInfo dai;
+		AsyncActivityExecutor executor;
+		synchronized(this) {
+			executor = m_executor;
+			if(m_terminated || m_pendingQueue.size() == 0 || executor == null) {	// Manager is deadish, or nothing to do?
+				m_scheduled = false;
+				return;
 			}
+
+			//-- Schedule for a new execute.
+			dai = m_pendingQueue.remove(0); 		// Get and remove from pending queue
+			m_runningActivity = dai; 				// Make this the running dude
+			m_executorThread = Thread.currentThread();
+			executor.registerWait(System.nanoTime() - m_queuedAt);
+		}
+
+		boolean more;
+		try {
+			execute(dai);
 		} catch(Exception x) {
 			//-- Do not report trouble if the manager is in the process of dying
 			if(!isTerminated()) {
-				System.err.println("FATAL Exception in DelayedActivitiesManager.run()!??!?!?!?\nAsy tasks WILL NOT COMPLETE anymore.");
+				System.err.println("FATAL Exception in DelayedActivitiesManager.run()!??!?!?!?");
 				x.printStackTrace();
 			}
 		} finally {
 			/*
-			 * Be very, very certain that we handle state @ thread termination properly.
+			 * Be very, very certain that we handle state @ activity termination properly.
 			 */
 			synchronized(this) {
-				m_executorThread = null; // I'm gone...
+				m_executorThread = null; 			// I'm gone...
+				more = !m_terminated && m_pendingQueue.size() > 0;
+				if(!more)
+					m_scheduled = false;
 			}
+			Thread.interrupted();					// Clear any cancel interrupt so that it does not hit the pooled thread's next task
 		}
+		if(more)
+			queue(executor);
 	}
 
 	/**
@@ -24,6 +24,18 @@
  */
 package to.etc.domui.state;
 
+/**
+ * A node that is called on every poll of its page to update itself.
+ */
 public interface IPolledForUpdate {
 	void checkForChanges() throws Exception;
+
+	/**
+	 * Return true if this node calls {@link ConversationContext#signalChanged()} when it has changes. When all polled
+	 * nodes of a page do, the browser waits for a signal on the window's {@link PushChannel} instead of polling at a
+	 * fixed interval (when the application enables push, see {@link to.etc.domui.server.DomApplication#setPushEnabled(boolean)}).
+	 */
+	default boolean isChangeSignalled() {
+		return false;
+	}
 }
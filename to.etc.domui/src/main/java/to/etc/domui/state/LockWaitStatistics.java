@@ -0,0 +1,87 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.state;
+
+/**
+ * Collects the time requests waited for a session or window lock (see {@link AppSession#internalLockSession(String)}
+ * and {@link WindowSession#internalLockWindow(String)}). A high average wait means that requests of the same user
+ * block each other.
+ *
+ * Created on Oct 18, 2026
+ */
+final public class LockWaitStatistics {
+	private long m_lockCount;
+
+	private long m_waitCount;
+
+	private long m_waitNanos;
+
+	private long m_maxWaitNanos;
+
+	synchronized void add(long waitNanos) {
+		m_lockCount++;
+		if(waitNanos > 0) {
+			m_waitCount++;
+			m_waitNanos += waitNanos;
+			if(waitNanos > m_maxWaitNanos)
+				m_maxWaitNanos = waitNanos;
+		}
+	}
+
+	/** The #of times the lock was claimed. */
+	public synchronized long getLockCount() {
+		return m_lockCount;
+	}
+
+	/** The #of times the lock was claimed after waiting for another request. */
+	public synchronized long getWaitCount() {
+		return m_waitCount;
+	}
+
+	public synchronized long getWaitNanos() {
+		return m_waitNanos;
+	}
+
+	public synchronized long getMaxWaitNanos() {
+		return m_maxWaitNanos;
+	}
+
+	/** The average wait of the claims that had to wait. */
+	public synchronized long getAverageWaitNanos() {
+		return m_waitCount == 0 ? 0 : m_waitNanos / m_waitCount;
+	}
+
+	public synchronized void reset() {
+		m_lockCount = 0;
+		m_waitCount = 0;
+		m_waitNanos = 0;
+		m_maxWaitNanos = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return m_lockCount + " locks, " + m_waitCount + " waited, avg wait " + getAverageWaitNanos() / 1000 + "us, max wait " + m_maxWaitNanos / 1000 + "us";
+	}
+}
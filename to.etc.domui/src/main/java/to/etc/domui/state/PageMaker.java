@@ -55,6 +55,16 @@ public class PageMaker {
 		WindowSession cm = rctx.getSession().findWindowSession(cida.getWindowId());
 		if(cm == null)
 			throw new IllegalStateException("The WindowSession with wid=" + cida.getWindowId() + " has expired.");
+		return findPageInConversation(cm, clz, cida);
+	}
+
+	/**
+	 * Locate the specified page class in a conversation of the window passed, and return null if the page cannot
+	 * be located. Unlike {@link #findPageInConversation(IRequestContext, Class, String)} this does not lock the
+	 * session, so the caller must have locked the window.
+	 */
+	@Nullable
+	static public Page findPageInConversation(@Nonnull WindowSession cm, @Nonnull final Class< ? extends UrlPage> clz, @Nonnull CidPair cida) throws Exception {
 		ConversationContext cc = cm.findConversation(cida.getConversationId());
 		if(cc == null)
 			return null;
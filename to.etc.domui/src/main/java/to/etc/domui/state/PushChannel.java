@@ -0,0 +1,146 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.state;
+
+import java.util.*;
+
+import javax.annotation.*;
+import javax.annotation.concurrent.*;
+
+/**
+ * The server-push channel of a {@link WindowSession}. Delayed activities and polled nodes signal
+ * the channel when they have something to show. A browser window that has nothing else to poll for
+ * waits on the channel with a long-poll request, and fetches a delta only after a signal (see
+ * {@link to.etc.domui.parts.PushWaitPart}). Every signal increments the channel's version; the browser
+ * passes the version it saw last, so that signals sent while it was not waiting are not lost. A request
+ * waits either by blocking in {@link #await(long, long)} or, when the container supports async requests,
+ * by registering a waiter that is called on the next signal.
+ *
+ * Created on Oct 18, 2026
+ */
+final public class PushChannel {
+	@GuardedBy("this")
+	private long m_version;
+
+	@GuardedBy("this")
+	private boolean m_closed;
+
+	@GuardedBy("this")
+	private List<Runnable> m_waiters = new ArrayList<>();
+
+	public synchronized long getVersion() {
+		return m_version;
+	}
+
+	/**
+	 * Tell the browser that there are changes to fetch.
+	 */
+	public void signal() {
+		List<Runnable> list;
+		synchronized(this) {
+			m_version++;
+			notifyAll();
+			list = takeWaiters();
+		}
+		runWaiters(list);
+	}
+
+	/**
+	 * Called when the window is destroyed; waiting requests return immediately.
+	 */
+	void close() {
+		List<Runnable> list;
+		synchronized(this) {
+			m_closed = true;
+			notifyAll();
+			list = takeWaiters();
+		}
+		runWaiters(list);
+	}
+
+	@GuardedBy("this")
+	@Nonnull
+	private List<Runnable> takeWaiters() {
+		List<Runnable> list = m_waiters;
+		if(list.isEmpty())
+			return list;
+		m_waiters = new ArrayList<>();
+		return list;
+	}
+
+	/**
+	 * Run the waiters outside the lock, so that they can call back into the channel.
+	 */
+	static private void runWaiters(@Nonnull List<Runnable> list) {
+		for(Runnable r : list) {
+			try {
+				r.run();
+			} catch(Exception x) {
+				x.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Call the waiter once, on the next signal or when the channel closes. This returns false without
+	 * registering the waiter when the channel is closed already, or when its version differs from the one
+	 * passed; the caller must then answer immediately.
+	 */
+	public synchronized boolean addWaiter(long version, @Nonnull Runnable waiter) {
+		if(m_closed || m_version != version)
+			return false;
+		m_waiters.add(waiter);
+		return true;
+	}
+
+	/**
+	 * Remove a waiter that was not called, for instance because its request timed out.
+	 */
+	public synchronized void removeWaiter(@Nonnull Runnable waiter) {
+		m_waiters.remove(waiter);
+	}
+
+	public synchronized boolean isClosed() {
+		return m_closed;
+	}
+
+	/**
+	 * Wait till the version differs from the one passed, till the channel closes or till the timeout
+	 * expires, and return the current version.
+	 */
+	public long await(long version, long timeout) throws InterruptedException {
+		long ets = System.currentTimeMillis() + timeout;
+		synchronized(this) {
+			for(;;) {
+				if(m_closed || m_version != version)
+					return m_version;
+				long left = ets - System.currentTimeMillis();
+				if(left <= 0)
+					return m_version;
+				wait(left);
+			}
+		}
+	}
+}
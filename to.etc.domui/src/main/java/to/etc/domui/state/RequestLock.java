@@ -0,0 +1,123 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.state;
+
+import javax.annotation.*;
+
+import org.slf4j.*;
+
+/**
+ * A lock owned by a request thread, used to let only one request at a time access an {@link AppSession}
+ * or a {@link WindowSession}. It can be claimed multiple times by the owning thread without blocking,
+ * but it does not nest: a single unlock() releases it. The time spent waiting for the lock is added to
+ * a {@link LockWaitStatistics}, and long waits are logged with the request that held the lock.
+ *
+ * Created on Oct 18, 2026
+ */
+final class RequestLock {
+	static private final Logger LOG = LoggerFactory.getLogger(RequestLock.class);
+
+	/** Waits longer than this (in ns) are logged. */
+	static private final long SLOW_WAIT = 1000L * 1000 * 1000;
+
+	@Nonnull
+	private final String m_name;
+
+	@Nonnull
+	private final LockWaitStatistics m_statistics;
+
+	@Nullable
+	private Thread m_owner;
+
+	/** What the owner is doing, for reporting waits. */
+	@Nullable
+	private String m_ownerReason;
+
+	RequestLock(@Nonnull String name, @Nonnull LockWaitStatistics statistics) {
+		m_name = name;
+		m_statistics = statistics;
+	}
+
+	/**
+	 * Claim the lock for the current thread, waiting until any other thread has released it.
+	 */
+	void lock(@Nullable String reason) {
+		Thread t = Thread.currentThread();
+		long ts = 0;
+		Thread blocker = null;
+		String blockerReason = null;
+		synchronized(this) {
+			for(;;) {
+				Thread owner = m_owner;
+				if(owner == null) {							// Not claimed at this point?
+					m_owner = t;							// Claimed by me.
+					m_ownerReason = reason;
+					break;
+				}
+				if(owner == t)								// Already claimed by me?
+					return;									// Useless call, then
+
+				//-- Someone else has locked me. Wait until I'm released.
+				if(ts == 0) {
+					ts = System.nanoTime();
+					blocker = owner;
+					blockerReason = m_ownerReason;
+				}
+				try {
+					wait();
+				} catch(InterruptedException ix) {
+					throw new RuntimeException("Waiting for " + m_name + " lock was interrupted.", ix);
+				}
+			}
+		}
+
+		long waited = ts == 0 ? 0 : System.nanoTime() - ts;
+		m_statistics.add(waited);
+		if(waited >= SLOW_WAIT && LOG.isInfoEnabled() && blocker != null) {
+			LOG.info(m_name + ": " + reason + " waited " + waited / 1000000 + "ms for the lock held by thread " + blocker.getName() + " for " + blockerReason);
+		}
+	}
+
+	/**
+	 * Release the lock. THIS CALL DOES NOT NEST!
+	 */
+	synchronized void unlock() {
+		if(m_owner == null)
+			throw new IllegalStateException("Trying to unlock " + m_name + " while it's not being owned..");
+		if(m_owner != Thread.currentThread())
+			throw new IllegalStateException("Trying to unlock " + m_name + " while it's not being owned BY YOU");
+		m_owner = null;
+		m_ownerReason = null;
+		notify();
+	}
+
+	synchronized boolean isLocked() {
+		return m_owner != null;
+	}
+
+	synchronized boolean isLockedByMe() {
+		return m_owner == Thread.currentThread();
+	}
+}
@@ -111,22 +111,61 @@ final public class WindowSession {
 	/** The map of all attribute objects added to this window session. */
 	private Map<String, Object> m_map = Collections.EMPTY_MAP;
 
+	@Nonnull
+	final private PushChannel m_pushChannel = new PushChannel();
+
+	/** Claimed by the request that currently uses this window. */
+	@Nonnull
+	final private RequestLock m_lock;
+
 	public WindowSession(@Nonnull final AppSession session) {
 		m_appSession = session;
 		m_windowID = DomUtil.generateGUID();
 		m_id = nextID();
 		m_developerMode = session.getApplication().inDevelopmentMode();
+		m_lock = new RequestLock("WindowSession", session.getApplication().getWindowLockStatistics());
 	}
 
 	static private synchronized int nextID() {
 		return ++m_nextId;
 	}
 
+	/**
+	 * The channel used to tell the browser window that it has changes to fetch.
+	 */
+	@Nonnull
+	public PushChannel getPushChannel() {
+		return m_pushChannel;
+	}
+
 	@Nonnull
 	final public DomApplication getApplication() {
 		return m_appSession.getApplication();
 	}
 
+	/**
+	 * INTERNAL USE ONLY.
+	 * Claim this window for the current request: only one request at a time may use the window's
+	 * conversations and pages, but requests for other windows of the same session can run in parallel.
+	 * This can be called multiple times by the same thread, but it does not nest. A request that also
+	 * locks the {@link AppSession} must lock the window first.
+	 */
+	public void internalLockWindow(@Nullable String reason) {
+		m_lock.lock(reason);
+	}
+
+	/**
+	 * INTERNAL USE ONLY.
+	 * Release this window. THIS CALL DOES NOT NEST!
+	 */
+	public void internalUnlockWindow() {
+		m_lock.unlock();
+	}
+
+	boolean internalIsUsedByOther() {
+		return m_lock.isLocked() && !m_lock.isLockedByMe();
+	}
+
 	@Nonnull
 	final public String getWindowID() {
 		return m_windowID;
@@ -235,6 +274,7 @@ final public class WindowSession {
 	 * @param sessionDestroyed		indicates that the HttpSession has been invalidated somehow, possibly logoout
 	 */
 	void destroyWindow(boolean sessionDestroyed) {
+		m_pushChannel.close();
 		destroyConversations(sessionDestroyed);
 		destroyDevelopmentStateFile();
 	}
@@ -619,7 +659,7 @@ final public class WindowSession {
 	private void logUser(@Nonnull RequestContextImpl ctx, @Nonnull Page page, String string) {
 		ConversationContext conversation = page.internalGetConversation();
 		String cid = conversation == null ? null : conversation.getFullId();
-		ctx.getSession().log(new UserLogItem(cid, page.getBody().getClass().getName(), null, null, string));
+		m_appSession.log(new UserLogItem(cid, page.getBody().getClass().getName(), null, null, string));
 	}
 
 	/*--------------------------------------------------------------*/
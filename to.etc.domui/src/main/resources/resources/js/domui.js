@@ -2067,6 +2067,92 @@ $.extend(WebUI, {
 		});
 	},
 
+	/** *************** Push code ************* */
+	_pushActive: false,
+	_pushVersion: 0,
+	_pushMinInterval: 1000,
+	_pushFallback: 2500,
+	_pushLastFetch: 0,
+	_pushXhr: null,
+	_pushTimer: null,
+
+	/**
+	 * Wait for the server to signal changes for this window, instead of polling. The version is the
+	 * one of the window's push channel at the time the page was rendered; the fallback interval is
+	 * used to poll when the server cannot accept another waiting request.
+	 */
+	startPush : function(version, minInterval, fallbackInterval) {
+		WebUI._pushMinInterval = minInterval;
+		WebUI._pushFallback = fallbackInterval;
+		if(WebUI._pushActive && WebUI._pushVersion == version)
+			return;
+		WebUI.cancelPush();
+		WebUI._pushVersion = version;
+		WebUI._pushActive = true;
+		WebUI.pushWait();
+	},
+
+	cancelPush : function() {
+		WebUI._pushActive = false;
+		if(WebUI._pushTimer) {
+			clearTimeout(WebUI._pushTimer);
+			WebUI._pushTimer = null;
+		}
+		var xhr = WebUI._pushXhr;
+		WebUI._pushXhr = null;
+		if(xhr)
+			xhr.abort();
+	},
+
+	pushWait : function() {
+		var fields = new Object();
+		fields["$cid"] = DomUICID;
+		fields["v"] = WebUI._pushVersion;
+		var xhr = $.ajax( {
+			url: DomUIappURL + "to.etc.domui.parts.PushWaitPart.part",
+			dataType: "text",
+			data: fields,
+			cache: false,
+			global: false,
+			success: function(data) {
+				if(WebUI._pushXhr !== xhr)
+					return;
+				WebUI._pushXhr = null;
+				data = $.trim(data);
+				if(data == "timeout") {
+					WebUI.pushWait();
+				} else if(data == "changed") {
+					//-- Fetch the changes, but not more often than the min interval allows.
+					var delay = WebUI._pushLastFetch + WebUI._pushMinInterval - new Date().getTime();
+					WebUI._pushActive = false;
+					WebUI._pushTimer = setTimeout("WebUI.pushFetch()", delay > 0 ? delay : 0);
+				} else if(data == "poll") {
+					WebUI._pushActive = false;
+					WebUI.startPolling(WebUI._pushFallback);
+				} else {
+					WebUI._pushActive = false;				// gone
+				}
+			},
+			error: function(request, status) {
+				if(WebUI._pushXhr !== xhr || status === "abort")
+					return;
+				WebUI._pushXhr = null;
+				WebUI._pushActive = false;
+				WebUI.startPolling(WebUI._pushFallback);
+			}
+		});
+		WebUI._pushXhr = xhr;
+	},
+
+	/**
+	 * Fetch the changes using a poll request; its response restarts waiting with the new version.
+	 */
+	pushFetch : function() {
+		WebUI._pushTimer = null;
+		WebUI._pushLastFetch = new Date().getTime();
+		WebUI.poll();
+	},
+
 	/**
 	 * Send Ajax request to the server every 2 minutes. This keeps the session
 	 * alive. The response can contain commands to execute which will indicate
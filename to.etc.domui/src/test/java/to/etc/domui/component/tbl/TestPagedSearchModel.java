@@ -0,0 +1,210 @@
+package to.etc.domui.component.tbl;
+
+import java.util.*;
+
+import javax.annotation.*;
+
+import org.junit.*;
+
+import to.etc.domui.util.*;
+import to.etc.webapp.query.*;
+import to.etc.webapp.testsupport.*;
+
+/**
+ * Tests for {@link PagedSearchModel}, using a data context that pages through an in-memory list.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestPagedSearchModel {
+	static public class Row {
+		private final int m_id;
+
+		public Row(int id) {
+			m_id = id;
+		}
+
+		public int getId() {
+			return m_id;
+		}
+	}
+
+	/** The rows in the "database". */
+	private final List<Row> m_rows = new ArrayList<>();
+
+	private final List<PagingContext> m_contexts = new ArrayList<>();
+
+	private int m_queryCount;
+
+	private int m_modelChanges;
+
+	private final class PagingContext extends TestDataContextStub {
+		@Nonnull
+		@Override
+		public <T> List<T> query(@Nonnull QCriteria<T> q) throws Exception {
+			m_queryCount++;
+			int end = q.getLimit() <= 0 ? m_rows.size() : Math.min(m_rows.size(), q.getStart() + q.getLimit());
+			Class<T> clz = DomUtil.nullChecked(q.getBaseClass());
+			List<T> res = new ArrayList<>();
+			for(int i = q.getStart(); i < end; i++)
+				res.add(clz.cast(m_rows.get(i)));
+			return res;
+		}
+
+		@Override
+		public Object[] queryOne(@Nonnull QSelection< ? > sel) throws Exception {
+			return new Object[]{Integer.valueOf(m_rows.size())};
+		}
+	}
+
+	@Nonnull
+	private final QDataContextFactory m_factory = new QDataContextFactory() {
+		@Nonnull
+		@Override
+		public QDataContext getDataContext() throws Exception {
+			PagingContext dc = new PagingContext();
+			m_contexts.add(dc);
+			return dc;
+		}
+
+		@Nonnull
+		@Override
+		public QEventListenerSet getEventListeners() {
+			return DomUtil.nullChecked(QEventListenerSet.EMPTY_SET);
+		}
+
+		@Nonnull
+		@Override
+		public QQueryExecutorRegistry getQueryHandlerList() {
+			return new QQueryExecutorRegistry();
+		}
+	};
+
+	@Nonnull
+	private PagedSearchModel<Row> createModel(int rows) {
+		for(int i = 0; i < rows; i++)
+			m_rows.add(new Row(i));
+		PagedSearchModel<Row> model = new PagedSearchModel<>(m_factory, DomUtil.nullChecked(QCriteria.create(Row.class)));
+		model.addChangeListener(new ITableModelListener<Row>() {
+			@Override
+			public void modelChanged(@Nullable ITableModel<Row> m) {
+				m_modelChanges++;
+			}
+
+			@Override
+			public void rowAdded(@Nonnull ITableModel<Row> m, int index, @Nonnull Row value) {}
+
+			@Override
+			public void rowDeleted(@Nonnull ITableModel<Row> m, int index, @Nonnull Row value) {}
+
+			@Override
+			public void rowModified(@Nonnull ITableModel<Row> m, int index, @Nonnull Row value) {}
+		});
+		return model;
+	}
+
+	static private void assertRows(int from, int to, @Nonnull List<Row> list) {
+		Assert.assertEquals(to - from, list.size());
+		for(int i = from; i < to; i++)
+			Assert.assertEquals(i, list.get(i - from).getId());
+	}
+
+	@After
+	public void checkClosed() {
+		for(PagingContext dc : m_contexts)
+			Assert.assertEquals("Data context not closed", 0, dc.testGetUseCount());
+	}
+
+	/**
+	 * Only the page asked for is queried; pages within the current window are not queried again.
+	 */
+	@Test
+	public void testPaging() throws Exception {
+		PagedSearchModel<Row> model = createModel(95);
+		Assert.assertEquals(95, model.getRows());
+		assertRows(0, 10, model.getItems(0, 10));
+		Assert.assertEquals(1, m_queryCount);
+
+		assertRows(2, 5, model.getItems(2, 5));
+		Assert.assertEquals("Rows inside the window must not be queried", 1, m_queryCount);
+
+		assertRows(10, 20, model.getItems(10, 20));
+		Assert.assertEquals(2, m_queryCount);
+		Assert.assertEquals(0, m_modelChanges);
+	}
+
+	/**
+	 * Single rows are taken from the window; outside it the page containing the row is queried.
+	 */
+	@Test
+	public void testGetItem() throws Exception {
+		PagedSearchModel<Row> model = createModel(95);
+		model.getItems(10, 20);
+		int queries = m_queryCount;
+		for(int i = 10; i < 20; i++)
+			Assert.assertEquals(i, model.getItem(i).getId());
+		Assert.assertEquals("Rows inside the window must not be queried", queries, m_queryCount);
+
+		Assert.assertEquals(35, model.getItem(35).getId());
+		Assert.assertEquals(queries + 1, m_queryCount);
+		Assert.assertEquals(39, model.getItem(39).getId());
+		Assert.assertEquals(30, model.getItem(30).getId());
+		Assert.assertEquals("The page 30..40 must have been queried once", queries + 1, m_queryCount);
+
+		try {
+			model.getItem(95);
+			Assert.fail("Row 95 does not exist");
+		} catch(IndexOutOfBoundsException x) {
+			//-- Expected
+		}
+	}
+
+	/**
+	 * The last page is shorter than the page size; that is not a change in the data.
+	 */
+	@Test
+	public void testLastPage() throws Exception {
+		PagedSearchModel<Row> model = createModel(95);
+		assertRows(90, 95, model.getItems(90, 100));
+		Assert.assertEquals(95, model.getRows());
+		Assert.assertEquals(0, model.getItems(100, 110).size());
+		Assert.assertEquals(0, m_modelChanges);
+	}
+
+	/**
+	 * When rows were deleted after counting, the page is short: the count is corrected, and the listeners
+	 * are told after rendering, not while the rows are being rendered.
+	 */
+	@Test
+	public void testCountCorrection() throws Exception {
+		PagedSearchModel<Row> model = createModel(95);
+		Assert.assertEquals(95, model.getRows());
+		while(m_rows.size() > 84)
+			m_rows.remove(m_rows.size() - 1);
+
+		assertRows(80, 84, model.getItems(80, 90));
+		Assert.assertEquals(84, model.getRows());
+		Assert.assertEquals(0, m_modelChanges);
+		model.firePendingChange();
+		Assert.assertEquals(1, m_modelChanges);
+		model.firePendingChange();
+		Assert.assertEquals(1, m_modelChanges);
+
+		//-- When a page has no rows at all the count is queried again.
+		while(m_rows.size() > 50)
+			m_rows.remove(m_rows.size() - 1);
+		Assert.assertEquals(0, model.getItems(60, 70).size());
+		Assert.assertEquals(1, m_modelChanges);
+		model.firePendingChange();
+		Assert.assertEquals(2, m_modelChanges);
+		Assert.assertEquals(50, model.getRows());
+	}
+
+	@Test
+	public void testMaxRowCount() throws Exception {
+		PagedSearchModel<Row> model = createModel(95);
+		model.setMaxRowCount(40);
+		Assert.assertEquals(40, model.getRows());
+		Assert.assertTrue(model.isTruncated());
+		assertRows(30, 40, model.getItems(30, 50));
+	}
+}
@@ -0,0 +1,68 @@
+package to.etc.domui.sass;
+
+import java.io.*;
+
+import javax.annotation.*;
+
+import org.junit.*;
+
+import to.etc.domui.parts.*;
+import to.etc.domui.server.*;
+import to.etc.domui.server.parts.*;
+import to.etc.domui.testsupport.*;
+import to.etc.domui.themes.*;
+import to.etc.domui.util.*;
+import to.etc.domui.util.resources.*;
+
+/**
+ * Outside development mode a .scss request is served from the .css file that {@link SassPrecompiler}
+ * created next to it. The precompiled.css test resource deliberately differs from what its .scss
+ * compiles to, so the tests can see which one was served.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestSassPartFactory {
+	@Nonnull
+	static private String generate(@Nonnull String rurl, @Nonnull String query) throws Exception {
+		DomApplication da = DomUtil.nullChecked(TUtilDomUI.getApplication());
+		Assert.assertFalse(da.inDevelopmentMode());
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		PartResponse pr = new PartResponse(bos);
+		new SassPartFactory().generate(pr, da, new ParameterInfoImpl(rurl, query), new ResourceDependencyList());
+		Assert.assertEquals("text/css", pr.getMime());
+		return new String(bos.toByteArray(), "utf-8");
+	}
+
+	@Test
+	public void testServesPrecompiled() throws Exception {
+		Assert.assertEquals(".sasstest{color:blue}", generate("$sasstest/precompiled.scss", "").trim());
+	}
+
+	/**
+	 * Request parameters become scss variables, so the precompiled file cannot be used.
+	 */
+	@Test
+	public void testParametersAreCompiled() throws Exception {
+		String css = generate("$sasstest/precompiled.scss", "color=green");
+		Assert.assertTrue(css, css.contains(".sasstest"));
+		Assert.assertFalse(css, css.contains("blue"));
+	}
+
+	@Test
+	public void testCompilesWithoutPrecompiled() throws Exception {
+		String css = generate("$sasstest/live.scss", "");
+		Assert.assertTrue(css, css.contains(".sasstest"));
+		Assert.assertTrue(css, css.contains("red"));
+	}
+
+	/**
+	 * Theme stylesheets import through the theme's search path, which the precompiler does not use.
+	 */
+	@Test
+	public void testThemeIsNotPrecompiled() throws Exception {
+		DomApplication da = DomUtil.nullChecked(TUtilDomUI.getApplication());
+		Assert.assertTrue(SassPartFactory.isPrecompilable(da, "$sasstest/precompiled.scss", new ParameterInfoImpl("$sasstest/precompiled.scss", "")));
+		String rurl = ThemeResourceFactory.PREFIX + "winter/style.scss";
+		Assert.assertFalse(SassPartFactory.isPrecompilable(da, rurl, new ParameterInfoImpl(rurl, "")));
+	}
+}
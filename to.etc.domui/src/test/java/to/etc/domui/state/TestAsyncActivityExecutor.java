@@ -0,0 +1,134 @@
+package to.etc.domui.state;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+
+import org.junit.*;
+
+import to.etc.domui.component.delayed.*;
+import to.etc.domui.dom.html.*;
+import to.etc.domui.testsupport.*;
+import to.etc.domui.util.*;
+
+/**
+ * Tests running the activities of several conversations on a shared {@link AsyncActivityExecutor}.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestAsyncActivityExecutor {
+	/**
+	 * A conversation with many activities must not keep the only thread: after each activity the
+	 * other conversation gets its turn. The activities of one conversation run in order.
+	 */
+	@Test
+	public void testFairnessAndOrder() throws Exception {
+		AsyncActivityExecutor executor = new AsyncActivityExecutor(1);
+		try {
+			List<String> order = Collections.synchronizedList(new ArrayList<>());
+			CountDownLatch bStarted = new CountDownLatch(1);
+			CountDownLatch done = new CountDownLatch(4);
+
+			Page pa = createPage();
+			schedule(pa, () -> {
+				bStarted.await(5, TimeUnit.SECONDS);				// Make sure b is queued before a's next turn
+				order.add("a1");
+				done.countDown();
+			});
+			for(int i = 2; i <= 3; i++) {
+				String name = "a" + i;
+				schedule(pa, () -> {
+					order.add(name);
+					done.countDown();
+				});
+			}
+			Page pb = createPage();
+			schedule(pb, () -> {
+				order.add("b1");
+				done.countDown();
+			});
+
+			Assert.assertTrue(manager(pa).start(executor));
+			Assert.assertTrue(manager(pb).start(executor));
+			bStarted.countDown();
+			Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+			Assert.assertEquals(Arrays.asList("a1", "b1", "a2", "a3"), order);
+			Assert.assertEquals(4, executor.getExecutedCount());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Many conversations with activities never use more threads than the executor has.
+	 */
+	@Test
+	public void testBoundedThreads() throws Exception {
+		AsyncActivityExecutor executor = new AsyncActivityExecutor(2);
+		try {
+			AtomicInteger running = new AtomicInteger();
+			AtomicInteger maxRunning = new AtomicInteger();
+			CountDownLatch done = new CountDownLatch(6);
+			for(int i = 0; i < 6; i++) {
+				Page page = createPage();
+				schedule(page, () -> {
+					int count = running.incrementAndGet();
+					maxRunning.accumulateAndGet(count, Math::max);
+					Thread.sleep(50);
+					running.decrementAndGet();
+					done.countDown();
+				});
+				Assert.assertTrue(manager(page).start(executor));
+			}
+			Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+			Assert.assertTrue("At most 2 activities may run at the same time", maxRunning.get() <= 2);
+			Assert.assertEquals(6, executor.getExecutedCount());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testNothingToStart() throws Exception {
+		AsyncActivityExecutor executor = new AsyncActivityExecutor(1);
+		try {
+			Assert.assertFalse(manager(createPage()).start(executor));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private interface IBody {
+		void run() throws Exception;
+	}
+
+	@Nonnull
+	static private Page createPage() throws Exception {
+		return DomUtil.nullChecked(TUtilDomUI.createPage(UrlPage.class));
+	}
+
+	@Nonnull
+	static private DelayedActivitiesManager manager(@Nonnull Page page) {
+		return DomUtil.nullChecked(page.getConversation().getDelayedActivitiesManager());
+	}
+
+	/**
+	 * Schedule an activity whose container is attached to the page.
+	 */
+	static private void schedule(@Nonnull Page page, @Nonnull IBody body) throws Exception {
+		IAsyncRunnable ar = new IAsyncRunnable() {
+			@Override
+			public void run(@Nonnull IProgress p) throws Exception {
+				body.run();
+			}
+
+			@Override
+			public void onCompleted(boolean cancelled, @Nullable Exception errorException) {}
+		};
+		AsyncContainer ac = new AsyncContainer(ar);
+		page.getBody().add(ac);
+		manager(page).schedule(ar, ac);
+	}
+}
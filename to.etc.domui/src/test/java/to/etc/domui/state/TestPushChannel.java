@@ -0,0 +1,100 @@
+package to.etc.domui.state;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.*;
+
+/**
+ * Created on Oct 18, 2026
+ */
+public class TestPushChannel {
+	static private final ExecutorService m_executor = Executors.newCachedThreadPool();
+
+	@AfterClass
+	static public void tearDown() {
+		m_executor.shutdownNow();
+	}
+
+	/**
+	 * Start waiting on another thread, and make sure it is waiting before returning.
+	 */
+	static private Future<Long> startWaiting(PushChannel pc, long version, long timeout) throws Exception {
+		Future<Long> f = m_executor.submit(() -> Long.valueOf(pc.await(version, timeout)));
+		Thread.sleep(100);
+		Assert.assertFalse("Must still be waiting", f.isDone());
+		return f;
+	}
+
+	@Test
+	public void testSignalWakesWaiter() throws Exception {
+		PushChannel pc = new PushChannel();
+		Future<Long> f = startWaiting(pc, pc.getVersion(), 10000);
+		long ts = System.currentTimeMillis();
+		pc.signal();
+		Assert.assertEquals(1, f.get(5, TimeUnit.SECONDS).longValue());
+		Assert.assertTrue("The waiter was not woken by the signal", System.currentTimeMillis() - ts < 5000);
+	}
+
+	/**
+	 * A signal sent before the browser waits again is not lost: waiting with the old version returns at once.
+	 */
+	@Test
+	public void testSignalBeforeWait() throws Exception {
+		PushChannel pc = new PushChannel();
+		long version = pc.getVersion();
+		pc.signal();
+		pc.signal();
+		long ts = System.currentTimeMillis();
+		Assert.assertEquals(version + 2, pc.await(version, 10000));
+		Assert.assertTrue(System.currentTimeMillis() - ts < 1000);
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		PushChannel pc = new PushChannel();
+		long ts = System.currentTimeMillis();
+		Assert.assertEquals(0, pc.await(0, 300));
+		long ms = System.currentTimeMillis() - ts;
+		Assert.assertTrue("Returned after " + ms + "ms", ms >= 300);
+	}
+
+	@Test
+	public void testCloseWakesWaiter() throws Exception {
+		PushChannel pc = new PushChannel();
+		Future<Long> f = startWaiting(pc, 0, 10000);
+		pc.close();
+		Assert.assertEquals(0, f.get(5, TimeUnit.SECONDS).longValue());
+		Assert.assertTrue(pc.isClosed());
+		Assert.assertEquals("A closed channel does not wait", 0, pc.await(0, 10000));
+	}
+
+	/**
+	 * An async waiter is called once on the next signal, and is not registered when the version changed already.
+	 */
+	@Test
+	public void testAsyncWaiter() throws Exception {
+		PushChannel pc = new PushChannel();
+		AtomicInteger calls = new AtomicInteger();
+		Runnable waiter = () -> calls.incrementAndGet();
+		Assert.assertTrue(pc.addWaiter(0, waiter));
+		pc.signal();
+		pc.signal();
+		Assert.assertEquals(1, calls.get());
+		Assert.assertFalse("The version changed, so the caller must answer at once", pc.addWaiter(0, waiter));
+		Assert.assertTrue(pc.addWaiter(2, waiter));
+		pc.removeWaiter(waiter);
+		pc.close();
+		Assert.assertEquals("A removed waiter is not called", 1, calls.get());
+		Assert.assertFalse(pc.addWaiter(2, waiter));
+	}
+
+	@Test
+	public void testCloseCallsWaiter() throws Exception {
+		PushChannel pc = new PushChannel();
+		AtomicInteger calls = new AtomicInteger();
+		Assert.assertTrue(pc.addWaiter(0, () -> calls.incrementAndGet()));
+		pc.close();
+		Assert.assertEquals(1, calls.get());
+	}
+}
@@ -0,0 +1,97 @@
+package to.etc.domui.test.converters;
+
+import java.util.*;
+
+import org.junit.*;
+
+import to.etc.domui.component.meta.*;
+import to.etc.domui.converter.*;
+
+/**
+ * The registry caches the factory found for a type; registering a factory must make it re-resolve.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestConverterRegistry {
+	/** Value types that only the factories of this test accept. */
+	static public class Value {
+	}
+
+	static public class Unclaimed {
+	}
+
+	static public class NamedConverter<T> implements IConverter<T> {
+		private final String m_name;
+
+		public NamedConverter(String name) {
+			m_name = name;
+		}
+
+		@Override
+		public String convertObjectToString(Locale loc, T in) {
+			return m_name;
+		}
+
+		@Override
+		public T convertStringToObject(Locale loc, String in) {
+			return null;
+		}
+	}
+
+	/**
+	 * Accepts one type with a fixed score, and creates converters that render the factory's name.
+	 */
+	static public class TypeFactory implements IConverterFactory {
+		private final Class< ? > m_type;
+
+		private final int m_score;
+
+		private final String m_name;
+
+		public TypeFactory(Class< ? > type, int score, String name) {
+			m_type = type;
+			m_score = score;
+			m_name = name;
+		}
+
+		@Override
+		public int accept(Class< ? > clz, PropertyMetaModel< ? > pmm) {
+			return clz == m_type ? m_score : -1;
+		}
+
+		@Override
+		public <X, T extends IConverter<X>> T createConverter(Class<X> clz, PropertyMetaModel<X> pmm) {
+			return (T) new NamedConverter<X>(m_name);
+		}
+	}
+
+	static private String render(Class< ? > type) {
+		IConverter< ? > c = ConverterRegistry.findConverter(type);
+		return c == null ? null : c.convertObjectToString(Locale.US, null);
+	}
+
+	/**
+	 * A factory registered after a lookup wins when it scores better than the cached one.
+	 */
+	@Test
+	public void testLaterFactoryWins() throws Exception {
+		ConverterRegistry.register(new TypeFactory(Value.class, 10, "first"));
+		Assert.assertEquals("first", render(Value.class));
+		Assert.assertEquals("first", render(Value.class));
+
+		ConverterRegistry.register(new TypeFactory(Value.class, 20, "second"));
+		Assert.assertEquals("second", render(Value.class));
+	}
+
+	/**
+	 * That no factory accepted a type is cached too, and is forgotten when a factory is registered.
+	 */
+	@Test
+	public void testFactoryForUnclaimedType() throws Exception {
+		Assert.assertNull(render(Unclaimed.class));
+		Assert.assertNull(render(Unclaimed.class));
+
+		ConverterRegistry.register(new TypeFactory(Unclaimed.class, 10, "late"));
+		Assert.assertEquals("late", render(Unclaimed.class));
+	}
+}
@@ -0,0 +1,54 @@
+package to.etc.domui.test.converters;
+
+import java.util.*;
+
+import org.junit.*;
+
+import to.etc.domui.converter.*;
+import to.etc.domui.trouble.*;
+
+/**
+ * Created on Oct 18, 2026
+ */
+public class TestDateConverter {
+	static private final Locale EN = new Locale("en", "US");
+
+	static private final Locale NL = new Locale("nl", "NL");
+
+	static private Date date(int year, int month, int day, int hour, int minute) {
+		Calendar cal = Calendar.getInstance();
+		cal.clear();
+		cal.set(year, month - 1, day, hour, minute);
+		return cal.getTime();
+	}
+
+	@Test
+	public void testDateFormat() {
+		DateConverter dc = new DateConverter();
+		Date d = date(2012, 3, 7, 0, 0);
+		Assert.assertEquals("2012-03-07", dc.convertObjectToString(EN, d));
+		Assert.assertEquals("07-03-2012", dc.convertObjectToString(NL, d));
+		Assert.assertEquals("07-03-2012", dc.convertObjectToString(NL, new java.sql.Date(d.getTime())));
+	}
+
+	@Test
+	public void testDateParse() {
+		DateConverter dc = new DateConverter();
+		Assert.assertEquals(date(2012, 3, 7, 0, 0), dc.convertStringToObject(EN, "2012-03-07"));
+		Assert.assertEquals(date(2012, 3, 7, 0, 0), dc.convertStringToObject(EN, " 2012-3-7 "));
+	}
+
+	@Test(expected = ValidationException.class)
+	public void testInvalidDate() {
+		new DateConverter().convertStringToObject(EN, "2012-02-30");
+	}
+
+	@Test
+	public void testDateTime() {
+		DateTimeConverter dc = new DateTimeConverter();
+		Date d = date(2012, 3, 7, 9, 5);
+		Assert.assertEquals("2012-03-07 09:05", dc.convertObjectToString(EN, d));
+		Assert.assertEquals("07-03-2012 09:05", dc.convertObjectToString(NL, d));
+		Assert.assertEquals(d, dc.convertStringToObject(EN, "2012-03-07 9:05"));
+	}
+}
@@ -0,0 +1,172 @@
+package to.etc.domui.test.css;
+
+import to.etc.benchmark.*;
+import to.etc.domui.dom.css.*;
+
+/**
+ * Measures the retained heap per {@link CssBase} instance, and compares it with the
+ * layout that had a field for every style property. Run it as a Java application with
+ * a fixed heap, for instance -Xms1g -Xmx1g; it is not a unit test.
+ *
+ * Created on Oct 18, 2026
+ */
+public class CssBaseMemoryBenchmark {
+	static private final int COUNT = 500_000;
+
+	/**
+	 * The old layout: one field per property.
+	 */
+	@SuppressWarnings("unused")
+	static private final class FieldPerProperty {
+		Object m_cachedStyle;
+
+		Object m_backgroundAttachment;
+
+		Object m_backgroundColor;
+
+		Object m_backgroundImage;
+
+		Object m_backgroundPosition;
+
+		Object m_backgroundRepeat;
+
+		int m_borderLeftWidth = -1;
+
+		int m_borderRightWidth = -1;
+
+		int m_borderTopWidth = -1;
+
+		int m_borderBottomWidth = -1;
+
+		Object m_borderTopColor;
+
+		Object m_borderBottomColor;
+
+		Object m_borderLeftColor;
+
+		Object m_borderRightColor;
+
+		Object m_borderTopStyle;
+
+		Object m_borderBottomStyle;
+
+		Object m_borderLeftStyle;
+
+		Object m_borderRightStyle;
+
+		Object m_clear;
+
+		Object m_display;
+
+		Object m_float;
+
+		Object m_position;
+
+		Object m_visibility;
+
+		Object m_height;
+
+		Object m_lineHeight;
+
+		Object m_maxHeight;
+
+		Object m_maxWidth;
+
+		Object m_minHeight;
+
+		Object m_minWidth;
+
+		Object m_width;
+
+		Object m_fontFamily;
+
+		Object m_fontSize;
+
+		Object m_fontSizeAdjust;
+
+		Object m_fontStyle;
+
+		Object m_fontVariant;
+
+		Object m_fontWeight;
+
+		Object m_color;
+
+		Object m_overflow;
+
+		int m_zIndex = Integer.MIN_VALUE;
+
+		Object m_top;
+
+		Object m_bottom;
+
+		Object m_left;
+
+		Object m_right;
+
+		Object m_textAlign;
+
+		Object m_verticalAlign;
+
+		Object m_marginLeft;
+
+		Object m_marginRight;
+
+		Object m_marginTop;
+
+		Object m_marginBottom;
+
+		Object m_paddingLeft;
+
+		Object m_paddingRight;
+
+		Object m_paddingTop;
+
+		Object m_paddingBottom;
+
+		Object m_transform;
+	}
+
+	private interface Factory {
+		Object create(int i);
+	}
+
+	static public void main(String[] args) throws Exception {
+		Benchmark b = new Benchmark("%-24s %10.1f", "layout", "bytes/node");
+		b.measure(() -> {
+			report(b, "field per property", i -> new FieldPerProperty());
+			report(b, "sparse, no properties", i -> new CssBase());
+			report(b, "sparse, 1 property", i -> {
+				CssBase c = new CssBase();
+				c.setWidth("100%");
+				return c;
+			});
+			report(b, "sparse, 3 properties", i -> {
+				CssBase c = new CssBase();
+				c.setWidth("100%");
+				c.setTextAlign(TextAlign.RIGHT);
+				c.setBorderTopWidth(1);
+				return c;
+			});
+		});
+	}
+
+	static private void report(Benchmark b, String name, Factory f) throws Exception {
+		Object[] keep = new Object[COUNT];
+		long before = usedMemory();
+		for(int i = 0; i < COUNT; i++)
+			keep[i] = f.create(i);
+		long after = usedMemory();
+		b.row(name, Double.valueOf((double) (after - before) / COUNT));
+		Benchmark.consume(keep);							// Keep the array alive until after the measurement
+	}
+
+	static private long usedMemory() throws Exception {
+		Runtime rt = Runtime.getRuntime();
+		for(int i = 0; i < 4; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+}
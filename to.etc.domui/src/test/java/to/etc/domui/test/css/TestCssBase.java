@@ -0,0 +1,79 @@
+package to.etc.domui.test.css;
+
+import org.junit.*;
+
+import to.etc.domui.dom.css.*;
+
+/**
+ * Tests the sparse property storage of {@link CssBase}.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestCssBase {
+	static private class Node extends CssBase {
+		int m_changes;
+
+		@Override
+		protected void changed() {
+			m_changes++;
+		}
+	}
+
+	@Test
+	public void testDefaults() {
+		Node n = new Node();
+		Assert.assertNull(n.getWidth());
+		Assert.assertNull(n.getDisplay());
+		Assert.assertEquals(-1, n.getBorderLeftWidth());
+		Assert.assertEquals(-1, n.getBorderBottomWidth());
+		Assert.assertEquals(Integer.MIN_VALUE, n.getZIndex());
+	}
+
+	/**
+	 * Properties set in random order must keep their own value when others are added or removed.
+	 */
+	@Test
+	public void testSetAndRemove() {
+		Node n = new Node();
+		n.setWidth("10px");
+		n.setBackgroundColor("red");
+		n.setTransform(TextTransformType.UPPERCASE);
+		n.setZIndex(12);
+		n.setBorderTopWidth(0);
+		n.setDisplay(DisplayType.BLOCK);
+		Assert.assertEquals(6, n.m_changes);
+
+		Assert.assertEquals("10px", n.getWidth());
+		Assert.assertEquals("red", n.getBackgroundColor());
+		Assert.assertEquals(TextTransformType.UPPERCASE, n.getTransform());
+		Assert.assertEquals(12, n.getZIndex());
+		Assert.assertEquals(0, n.getBorderTopWidth());
+		Assert.assertEquals(DisplayType.BLOCK, n.getDisplay());
+
+		n.setBackgroundColor(null);
+		n.setZIndex(Integer.MIN_VALUE);
+		n.setWidth("20px");
+		Assert.assertNull(n.getBackgroundColor());
+		Assert.assertEquals(Integer.MIN_VALUE, n.getZIndex());
+		Assert.assertEquals("20px", n.getWidth());
+		Assert.assertEquals(TextTransformType.UPPERCASE, n.getTransform());
+		Assert.assertEquals(0, n.getBorderTopWidth());
+		Assert.assertEquals(DisplayType.BLOCK, n.getDisplay());
+		Assert.assertEquals(9, n.m_changes);
+	}
+
+	@Test
+	public void testNoChangeForSameValue() {
+		Node n = new Node();
+		n.setColor("blue");
+		n.setColor("blue");
+		n.setMarginLeft(null);
+		n.setBorderWidth(-1);
+		Assert.assertEquals(1, n.m_changes);
+
+		Assert.assertTrue(n.internalSetDisplay(DisplayType.NONE));
+		Assert.assertFalse(n.internalSetDisplay(DisplayType.NONE));
+		Assert.assertEquals(1, n.m_changes);
+		Assert.assertEquals(DisplayType.NONE, n.getDisplay());
+	}
+}
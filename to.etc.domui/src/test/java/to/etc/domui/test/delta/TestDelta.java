@@ -32,6 +32,7 @@ import to.etc.domui.test.*;
 import to.etc.domui.testsupport.*;
 
 import java.io.*;
+import java.util.*;
 
 import static org.junit.Assert.*;
 
@@ -139,6 +140,43 @@ public class TestDelta {
 		System.out.println("\n\n---- Render after adding node@5 in child list ----\n" + render);
 	}
 
+	/**
+	 * The before map must show the node map as it was at the start of the tree change.
+	 */
+	@Test
+	public void testBeforeMap() throws Exception {
+		Page p = createRenderedPage();
+		assertNull(p.getBeforeMap());
+		Map<String, NodeBase> original = new HashMap<>(p.internalNodeMap());
+
+		NodeBase untouched = getIntDiv(p).getChild(0);
+		NodeBase removed = getIntDiv(p).getChild(5);
+		String removedId = removed.getActualID();
+		removed.remove();
+
+		Div d = new Div();
+		getIntDiv(p).add(d);
+		String addedId = d.getActualID();
+
+		Map<String, NodeBase> before = p.getBeforeMap();
+		assertNotNull(before);
+		assertSame(untouched, before.get(untouched.getActualID()));
+		assertSame(removed, before.get(removedId));
+		assertFalse(before.containsKey(addedId));
+		assertEquals(original, before);
+
+		//-- Removing the new node and adding back the old one must not change the before image.
+		d.remove();
+		getIntDiv(p).add(5, removed);
+		assertSame(removed, before.get(removedId));
+		assertFalse(before.containsKey(addedId));
+		assertEquals(original, before);
+
+		getDeltaRenderText(p);
+		p.internalClearDeltaFully();
+		assertNull(p.getBeforeMap());
+	}
+
 	/**
 	 * Testcase for Jo's problem with "Hell Freezeth over" exception, pass 1.
 	 */
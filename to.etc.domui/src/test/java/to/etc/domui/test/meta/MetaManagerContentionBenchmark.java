@@ -0,0 +1,49 @@
+package to.etc.domui.test.meta;
+
+import java.util.*;
+
+import to.etc.benchmark.*;
+import to.etc.domui.component.meta.*;
+import to.etc.domui.util.*;
+
+/**
+ * Measures the throughput of {@link MetaManager#findClassMeta(Class)} for already initialized
+ * models with many threads. The "locked" variant takes the MetaManager lock around every lookup,
+ * which is what every lookup did before lookups became lock-free. This is a Java application,
+ * not a unit test; pass the #of threads as the first argument (defaults to the #of processors).
+ *
+ * Created on Oct 18, 2026
+ */
+public class MetaManagerContentionBenchmark {
+	static private final Class< ? >[] CLASSES = {String.class, Integer.class, Date.class, Long.class, Boolean.class, StringBuilder.class};
+
+	static public void main(String[] args) throws Exception {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		for(Class< ? > clz : CLASSES)
+			MetaManager.findClassMeta(DomUtil.nullChecked(clz));	// Initialize all models
+
+		Benchmark b = new Benchmark("%-10s %7d %,14.0f", "variant", "threads", "lookups/s");
+		b.measure(() -> {
+			b.row("lock-free", Integer.valueOf(threads), Double.valueOf(Benchmark.opsPerSecond(threads, t -> lookup(false))));
+			b.row("locked", Integer.valueOf(threads), Double.valueOf(Benchmark.opsPerSecond(threads, t -> lookup(true))));
+		});
+	}
+
+	/**
+	 * Look up all classes once, and return the #of lookups done.
+	 */
+	static private long lookup(boolean locked) {
+		for(Class< ? > clz : CLASSES) {
+			ClassMetaModel cmm;
+			if(locked) {
+				synchronized(MetaManager.class) {
+					cmm = MetaManager.findClassMeta(DomUtil.nullChecked(clz));
+				}
+			} else
+				cmm = MetaManager.findClassMeta(DomUtil.nullChecked(clz));
+			if(cmm.getActualClass() != clz)
+				throw new IllegalStateException("Wrong model");
+		}
+		return CLASSES.length;
+	}
+}
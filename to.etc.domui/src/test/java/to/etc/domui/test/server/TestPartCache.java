@@ -0,0 +1,89 @@
+package to.etc.domui.test.server;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+
+import org.junit.*;
+
+import to.etc.domui.server.parts.*;
+
+/**
+ * Tests for {@link PartCache}.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestPartCache {
+	@Nonnull
+	static private PartData data(int size) {
+		return new PartData(new byte[][]{new byte[size]}, size, 0, "text/plain", null, null);
+	}
+
+	/**
+	 * Many threads asking for the same missing part must generate it only once.
+	 */
+	@Test
+	public void testSingleFlight() throws Exception {
+		PartCache cache = new PartCache(1024 * 1024);
+		AtomicInteger generated = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService es = Executors.newFixedThreadPool(16);
+		try {
+			List<Future<PartData>> list = new ArrayList<>();
+			for(int i = 0; i < 16; i++) {
+				list.add(es.submit(() -> {
+					start.await();
+					return cache.getOrCreate("sprite", () -> {
+						generated.incrementAndGet();
+						Thread.sleep(200);
+						return data(100);
+					});
+				}));
+			}
+			start.countDown();
+			PartData first = list.get(0).get();
+			for(Future<PartData> f : list)
+				Assert.assertSame(first, f.get());
+		} finally {
+			es.shutdownNow();
+		}
+		Assert.assertEquals(1, generated.get());
+		Assert.assertEquals(1, cache.getMisses());
+		Assert.assertEquals(1, cache.getCount());
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() throws Exception {
+		PartCache cache = new PartCache(3000);
+		cache.put("a", data(900));
+		Thread.sleep(2);
+		cache.put("b", data(900));
+		Thread.sleep(2);
+		cache.put("c", data(900));
+		Thread.sleep(2);
+		Assert.assertNotNull(cache.get("a"));					// Touch a so that b is the oldest
+		cache.put("d", data(900));
+
+		Assert.assertNull("b should have been evicted", cache.get("b"));
+		Assert.assertNotNull(cache.get("a"));
+		Assert.assertNotNull(cache.get("d"));
+		Assert.assertTrue(cache.getEvictions() >= 1);
+		Assert.assertTrue(cache.getCurrentSize() <= cache.getMaxSize());
+	}
+
+	@Test
+	public void testFailureIsNotCached() throws Exception {
+		PartCache cache = new PartCache(1024 * 1024);
+		try {
+			cache.getOrCreate("x", () -> {
+				throw new IllegalStateException("boom");
+			});
+			Assert.fail("Expected exception");
+		} catch(IllegalStateException x) {
+			Assert.assertEquals("boom", x.getMessage());
+		}
+		Assert.assertNotNull(cache.getOrCreate("x", () -> data(10)));
+	}
+}
@@ -0,0 +1,233 @@
+package to.etc.domui.test.server;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import javax.annotation.*;
+import javax.servlet.http.*;
+
+import org.junit.*;
+
+import to.etc.domui.server.*;
+import to.etc.domui.server.parts.*;
+import to.etc.domui.testsupport.*;
+import to.etc.domui.util.*;
+import to.etc.domui.util.upload.*;
+import to.etc.util.*;
+
+/**
+ * Tests the ETag and compression handling of buffered parts in {@link to.etc.domui.server.parts.PartService}. The
+ * parts are requested through {@link to.etc.domui.server.parts.InternalResourcePart}, so its classpath resource
+ * copy is covered too; that copy is done once per cache miss, after which the part is served from the cache.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestPartService {
+	static private final String RESOURCE = "js/domui.js";
+
+	static private byte[] m_resource;
+
+	@BeforeClass
+	static public void setUp() throws Exception {
+		try(InputStream is = TestPartService.class.getResourceAsStream("/resources/" + RESOURCE)) {
+			Assert.assertNotNull(is);
+			m_resource = FileTool.readByteArray(is);
+		}
+	}
+
+	@Test
+	public void testETagAndNotModified() throws Exception {
+		PartRequestResponse rr = render(null, null);
+		Assert.assertEquals(200, rr.m_status);
+		Assert.assertArrayEquals(m_resource, rr.m_output.toByteArray());
+		String etag = rr.m_headers.get("ETag");
+		Assert.assertNotNull(etag);
+		Assert.assertFalse(etag.endsWith("-gz\""));
+		Assert.assertNull(rr.m_headers.get("Content-Encoding"));
+
+		//-- The same tag must get a 304 without content, also when part of a list.
+		rr = render("\"other\", " + etag, null);
+		Assert.assertEquals(304, rr.m_status);
+		Assert.assertEquals(0, rr.m_output.size());
+		Assert.assertEquals(etag, rr.m_headers.get("ETag"));
+
+		rr = render("\"other\"", null);
+		Assert.assertEquals(200, rr.m_status);
+		Assert.assertArrayEquals(m_resource, rr.m_output.toByteArray());
+	}
+
+	@Test
+	public void testCompressedVariant() throws Exception {
+		ResponseCompressor rc = TUtilDomUI.getApplication().getResponseCompressor();
+		boolean enabled = rc.isEnabled();
+		int minimumSize = rc.getMinimumSize();
+		rc.setEnabled(true);
+		rc.setMinimumSize(1024);
+		try {
+			PartRequestResponse rr = render(null, "gzip, deflate");
+			Assert.assertEquals(200, rr.m_status);
+			Assert.assertEquals("gzip", rr.m_headers.get("Content-Encoding"));
+			Assert.assertEquals("Accept-Encoding", rr.m_headers.get("Vary"));
+			byte[] compressed = rr.m_output.toByteArray();
+			Assert.assertTrue(compressed.length < m_resource.length);
+			Assert.assertArrayEquals(m_resource, FileTool.readByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+			String etag = rr.m_headers.get("ETag");
+			Assert.assertNotNull(etag);
+			Assert.assertTrue(etag.endsWith("-gz\""));
+
+			//-- The compressed tag matches only the compressed variant
+			rr = render(etag, "gzip");
+			Assert.assertEquals(304, rr.m_status);
+			rr = render(etag, null);
+			Assert.assertEquals(200, rr.m_status);
+			Assert.assertNull(rr.m_headers.get("Content-Encoding"));
+			Assert.assertArrayEquals(m_resource, rr.m_output.toByteArray());
+
+			//-- A client that does not accept gzip still gets the Vary header.
+			Assert.assertEquals("Accept-Encoding", rr.m_headers.get("Vary"));
+		} finally {
+			rc.setEnabled(enabled);
+			rc.setMinimumSize(minimumSize);
+		}
+	}
+
+	/**
+	 * Prewarming a stylesheet also generates the images it refers to, each once.
+	 */
+	@Test
+	public void testPrewarmStylesheetReferences() throws Exception {
+		DomApplication da = DomUtil.nullChecked(TUtilDomUI.getApplication());
+		PartCache cache = da.getPartService().getCache();
+		int count = cache.getCount();
+		List<String> urls = DomUtil.nullChecked(Arrays.asList("$prewarmtest/css/test.css?x=1", "$prewarmtest/css/test.css?x=1"));
+		da.getPartService().prewarm(BrowserVersion.parseUserAgent(new PartRequestResponse("").getUserAgent()), urls);
+		Assert.assertEquals("The stylesheet and its two images must be cached", count + 3, cache.getCount());
+	}
+
+	@Nonnull
+	static private PartRequestResponse render(@Nullable String ifNoneMatch, @Nullable String acceptEncoding) throws Exception {
+		PartRequestResponse rr = new PartRequestResponse("/$" + RESOURCE);
+		if(null != ifNoneMatch)
+			rr.m_requestHeaders.put("If-None-Match", ifNoneMatch);
+		if(null != acceptEncoding)
+			rr.m_requestHeaders.put("Accept-Encoding", acceptEncoding);
+		DomApplication da = DomUtil.nullChecked(TUtilDomUI.getApplication());
+		RequestContextImpl ctx = new RequestContextImpl(rr, da, DomUtil.nullChecked(TUtilDomUI.getAppSession()));
+		Assert.assertTrue(da.getPartService().render(ctx));
+		return rr;
+	}
+
+	/**
+	 * Records the headers, status and output of a part request.
+	 */
+	static private final class PartRequestResponse implements IRequestResponse {
+		@Nonnull
+		private final String m_requestURI;
+
+		final Map<String, String> m_requestHeaders = new HashMap<>();
+
+		final Map<String, String> m_headers = new HashMap<>();
+
+		@Nonnull
+		final ByteArrayOutputStream m_output = new ByteArrayOutputStream();
+
+		int m_status = 200;
+
+		PartRequestResponse(@Nonnull String requestURI) {
+			m_requestURI = requestURI;
+		}
+
+		@Nonnull @Override public String getRequestURI() {
+			return m_requestURI;
+		}
+
+		@Nonnull @Override public String getQueryString() {
+			return "";
+		}
+
+		@Override public void releaseUploads() {}
+
+		@Nonnull @Override public String getUserAgent() {
+			return "Mozilla/5.0 (X11; Linux x86_64; rv:52.0) Gecko/20100101 Firefox/52.0";
+		}
+
+		@Nullable @Override public String getRequestHeader(@Nonnull String name) {
+			return m_requestHeaders.get(name);
+		}
+
+		@Nullable @Override public String getRemoteUser() {
+			return null;
+		}
+
+		@Nullable @Override public IServerSession getServerSession(boolean create) {
+			return null;
+		}
+
+		@Nonnull @Override public String getApplicationURL() {
+			return "http://localhost/";
+		}
+
+		@Nonnull @Override public String getHostURL() {
+			return "http://localhost/";
+		}
+
+		@Nonnull @Override public String[] getParameters(@Nonnull String name) {
+			return new String[0];
+		}
+
+		@Nullable @Override public String getParameter(@Nonnull String name) {
+			return null;
+		}
+
+		@Nonnull @Override public String[] getParameterNames() {
+			return new String[0];
+		}
+
+		@Nonnull @Override public String[] getFileParameters() {
+			return new String[0];
+		}
+
+		@Nonnull @Override public UploadItem[] getFileParameter(@Nonnull String name) {
+			return new UploadItem[0];
+		}
+
+		@Override public void setNoCache() {}
+
+		@Override public void setStatus(int httpStatus) {
+			m_status = httpStatus;
+		}
+
+		@Override public void addHeader(@Nonnull String name, @Nonnull String value) {
+			m_headers.put(name, value);
+		}
+
+		@Nonnull @Override public Writer getOutputWriter(@Nonnull String contentType, @Nullable String encoding) throws Exception {
+			return new OutputStreamWriter(m_output, encoding == null ? "utf-8" : encoding);
+		}
+
+		@Nonnull @Override public OutputStream getOutputStream(@Nonnull String contentType, @Nullable String encoding, int contentLength) {
+			return m_output;
+		}
+
+		@Nonnull @Override public String getWebappContext() {
+			return "";
+		}
+
+		@Override public void addCookie(@Nonnull Cookie cookie) {}
+
+		@Nonnull @Override public Cookie[] getCookies() {
+			return new Cookie[0];
+		}
+
+		@Override public void setExpiry(int cacheTime) {}
+
+		@Override public void redirect(@Nonnull String newUrl) throws Exception {
+			throw new IllegalStateException("Unexpected redirect to " + newUrl);
+		}
+
+		@Override public void sendError(int httpErrorCode, @Nonnull String message) throws Exception {
+			throw new IllegalStateException("Unexpected error " + httpErrorCode + ": " + message);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package to.etc.domui.test.server;
+
+import java.io.*;
+import java.util.zip.*;
+
+import org.junit.*;
+
+import to.etc.domui.server.*;
+import to.etc.util.*;
+
+/**
+ * Tests for {@link ResponseCompressor}.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestResponseCompressor {
+	@Test
+	public void testAcceptEncoding() {
+		Assert.assertTrue(ResponseCompressor.acceptsGzip("gzip, deflate, br"));
+		Assert.assertTrue(ResponseCompressor.acceptsGzip("deflate, GZIP;q=0.5"));
+		Assert.assertTrue(ResponseCompressor.acceptsGzip("*"));
+		Assert.assertFalse(ResponseCompressor.acceptsGzip("gzip;q=0"));
+		Assert.assertFalse(ResponseCompressor.acceptsGzip("deflate, br"));
+		Assert.assertFalse(ResponseCompressor.acceptsGzip(null));
+	}
+
+	@Test
+	public void testRules() {
+		ResponseCompressor rc = new ResponseCompressor();
+		Assert.assertFalse("Disabled by default", rc.mustCompress("gzip", "text/xml; charset=UTF-8", 100000));
+
+		rc.setEnabled(true);
+		rc.setMinimumSize(1000);
+		Assert.assertTrue(rc.mustCompress("gzip", "text/xml; charset=UTF-8", 100000));
+		Assert.assertTrue("Unknown length means large", rc.mustCompress("gzip", "text/xml; charset=UTF-8", -1));
+		Assert.assertFalse("Below the threshold", rc.mustCompress("gzip", "text/xml; charset=UTF-8", 999));
+		Assert.assertFalse("Not compressible", rc.mustCompress("gzip", "image/png", 100000));
+
+		rc.addContentType("image/bmp");
+		Assert.assertTrue(rc.mustCompress("gzip", "image/bmp", 100000));
+		rc.removeContentType("text/xml");
+		Assert.assertFalse(rc.mustCompress("gzip", "text/xml", 100000));
+	}
+
+	@Test
+	public void testCompressionAndStatistics() throws Exception {
+		ResponseCompressor rc = new ResponseCompressor();
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < 1000; i++)
+			sb.append("<tr><td class=\"ui-cell\">Row ").append(i).append("</td></tr>\n");
+		byte[] data = sb.toString().getBytes("utf-8");
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try(OutputStream os = rc.wrap(bos, "my.Page")) {
+			os.write(data);
+		}
+		byte[] unzipped = FileTool.readByteArray(new GZIPInputStream(new ByteArrayInputStream(bos.toByteArray())));
+		Assert.assertArrayEquals(data, unzipped);
+
+		Assert.assertEquals(1, rc.getStatistics().size());
+		ResponseCompressor.Statistics st = rc.getStatistics().get(0);
+		Assert.assertEquals("my.Page", st.getKey());
+		Assert.assertEquals(1, st.getCount());
+		Assert.assertEquals(data.length, st.getUncompressedBytes());
+		Assert.assertEquals(bos.size(), st.getCompressedBytes());
+		Assert.assertTrue(st.getSavedBytes() > 0);
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.test.server;
+
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import to.etc.domui.state.*;
+import to.etc.domui.testsupport.*;
+
+/**
+ * Created on Oct 18, 2026
+ */
+public class TestWindowLocking {
+	/**
+	 * Lock the window in another thread, and keep it locked until released.
+	 */
+	static private void lockInThread(WindowSession ws, CountDownLatch release) throws Exception {
+		CountDownLatch locked = new CountDownLatch(1);
+		Thread t = new Thread(() -> {
+			ws.internalLockWindow("test");
+			locked.countDown();
+			try {
+				release.await();
+			} catch(InterruptedException x) {}
+			ws.internalUnlockWindow();
+		});
+		t.setDaemon(true);
+		t.start();
+		Assert.assertTrue(locked.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testWindowsDoNotBlockEachOther() throws Exception {
+		AppSession ses = TUtilDomUI.getAppSession();
+		WindowSession w1 = ses.createWindowSession();
+		WindowSession w2 = ses.createWindowSession();
+		CountDownLatch release = new CountDownLatch(1);
+		lockInThread(w1, release);
+
+		LockWaitStatistics stats = ses.getApplication().getWindowLockStatistics();
+		long waits = stats.getWaitCount();
+		w2.internalLockWindow("test");
+		w2.internalUnlockWindow();
+		release.countDown();
+		Assert.assertEquals(waits, stats.getWaitCount());
+	}
+
+	@Test
+	public void testSameWindowWaits() throws Exception {
+		AppSession ses = TUtilDomUI.getAppSession();
+		WindowSession w1 = ses.createWindowSession();
+		CountDownLatch release = new CountDownLatch(1);
+		lockInThread(w1, release);
+
+		LockWaitStatistics stats = ses.getApplication().getWindowLockStatistics();
+		long waits = stats.getWaitCount();
+		long ts = System.nanoTime();
+		new Thread(() -> {
+			try {
+				Thread.sleep(200);
+			} catch(InterruptedException x) {}
+			release.countDown();
+		}).start();
+		w1.internalLockWindow("test");
+		long ms = (System.nanoTime() - ts) / 1000000;
+		w1.internalUnlockWindow();
+		Assert.assertTrue("Waited " + ms + "ms", ms >= 150);
+		Assert.assertEquals(waits + 1, stats.getWaitCount());
+	}
+}
@@ -18,12 +18,15 @@ public class EtcLogger implements Logger {
 	@Nonnull
 	private final String	m_key;
 
-	@Nullable
-	private Level			m_level;
+	/**
+	 * Bit (1 &lt;&lt; level code) is set for every level that is enabled. Recalculated by {@link #setLevel(Level)} when the
+	 * configuration changes, so that checking whether a level is enabled is a single volatile read.
+	 */
+	private volatile int	m_enabledMask;
 
 	private EtcLogger(@Nonnull String key, @Nullable Level level) {
 		m_key = key;
-		m_level = level;
+		m_enabledMask = calcMask(level);
 	}
 
 	@Nonnull
@@ -36,8 +39,8 @@ public class EtcLogger implements Logger {
 		EtcLoggerFactory.getSingleton().notifyHandlers(event);
 	}
 
-	private synchronized boolean checkEnabled(@Nonnull Level level) {
-		return m_level != null && m_level.includes(level);
+	private boolean checkEnabled(@Nonnull Level level) {
+		return (m_enabledMask & (1 << level.m_code)) != 0;
 	}
 
 	private boolean checkEnabled(@Nonnull Level level, @Nonnull Marker marker) {
@@ -411,11 +414,22 @@ public class EtcLogger implements Logger {
 		execute(Level.WARN, arg0, arg1, arg2, arg3);
 	}
 
-	synchronized boolean isDisabled() {
-		return m_level == null;
+	boolean isDisabled() {
+		return m_enabledMask == 0;
 	}
 
-	public synchronized void setLevel(@Nullable Level level) {
-		m_level = level;
+	public void setLevel(@Nullable Level level) {
+		m_enabledMask = calcMask(level);
+	}
+
+	static private int calcMask(@Nullable Level level) {
+		int mask = 0;
+		if(null != level) {
+			for(Level l : Level.values()) {
+				if(level.includes(l))
+					mask |= 1 << l.m_code;
+			}
+		}
+		return mask;
 	}
 }
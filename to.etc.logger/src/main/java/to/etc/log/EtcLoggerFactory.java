@@ -366,6 +366,7 @@ public class EtcLoggerFactory implements ILoggerFactory {
 		synchronized(m_handlersLock){
 			m_handlers = loadedHandlers;
 		}
+		LogHandlerRegistry.getSingleton().releaseUnused(loadedHandlers);
 		recalculateLoggers();
 	}
 
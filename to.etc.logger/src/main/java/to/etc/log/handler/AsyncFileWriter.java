@@ -0,0 +1,360 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.log.handler;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+
+import to.etc.log.*;
+
+/**
+ * Writes the lines of the asynchronous file log handlers for a single log file. Logging threads put their
+ * formatted lines in a bounded queue; a writer thread takes them out in batches and writes them through a
+ * FileChannel that stays open, when enough bytes have collected or when the oldest line has waited long enough.
+ *
+ * <p>The file name contains the date, so a new file is started every day. When a maximum size is set the file
+ * is also rotated when it would grow past it: the full file is renamed to name.1.log, name.2.log etc.</p>
+ *
+ * <p>There is one writer per log file; handlers for the same file with the same settings share it.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final class AsyncFileWriter {
+	static private final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(Charset.defaultCharset());
+
+	/** Queued by {@link #close()} to wake up the writer thread; never written. */
+	@Nonnull
+	static private final QueuedLine WAKEUP = new QueuedLine("");
+
+	/** The max #of lines taken from the queue at once. */
+	static private final int MAX_BATCH = 4096;
+
+	/** All writers by log file. */
+	@Nonnull
+	static private final Map<String, AsyncFileWriter> m_writerMap = new HashMap<>();
+
+	@Nonnull
+	private final File m_logRoot;
+
+	@Nonnull
+	private final String m_out;
+
+	private final int m_queueSize;
+
+	@Nonnull
+	private final LogOverflowPolicy m_overflow;
+
+	private final int m_flushMillis;
+
+	private final int m_flushSize;
+
+	private final long m_maxSize;
+
+	/**
+	 * A line in the queue. Lines are wrapped so that a line can be taken back from the queue by
+	 * identity, without removing an equal line queued by another thread.
+	 */
+	static private final class QueuedLine {
+		@Nonnull
+		final String m_text;
+
+		QueuedLine(@Nonnull String text) {
+			m_text = text;
+		}
+	}
+
+	@Nonnull
+	private final BlockingQueue<QueuedLine> m_queue;
+
+	private final AtomicLong m_droppedCount = new AtomicLong();
+
+	private volatile boolean m_running = true;
+
+	@Nonnull
+	private final Thread m_writerThread;
+
+	@Nonnull
+	private final Thread m_shutdownHook = new Thread(this::close, "logwriter-exit");
+
+	/*-- Only used by the writer thread --*/
+
+	@Nullable
+	private FileChannel m_channel;
+
+	@Nullable
+	private OutputStream m_channelStream;
+
+	@Nullable
+	private String m_channelName;
+
+	private long m_reportedDrops;
+
+	private AsyncFileWriter(@Nonnull File logRoot, @Nonnull String out, int queueSize, @Nonnull LogOverflowPolicy overflow, int flushMillis, int flushSize, long maxSize) {
+		m_logRoot = logRoot;
+		m_out = out;
+		m_queueSize = queueSize;
+		m_overflow = overflow;
+		m_flushMillis = flushMillis;
+		m_flushSize = flushSize;
+		m_maxSize = maxSize;
+		m_queue = new ArrayBlockingQueue<>(queueSize);
+
+		m_writerThread = new Thread(this::writerLoop, "logwriter-" + out);
+		m_writerThread.setDaemon(true);
+		m_writerThread.start();
+		Runtime.getRuntime().addShutdownHook(m_shutdownHook);
+	}
+
+	/**
+	 * Get the writer for the file, creating it if it does not exist or when it has different settings. A writer
+	 * that is replaced is closed after writing what it has queued.
+	 */
+	@Nonnull
+	static AsyncFileWriter get(@Nonnull File logRoot, @Nonnull String out, int queueSize, @Nonnull LogOverflowPolicy overflow, int flushMillis, int flushSize, long maxSize) {
+		String key = logRoot.getAbsolutePath() + File.pathSeparator + out;
+		AsyncFileWriter old;
+		AsyncFileWriter w;
+		synchronized(AsyncFileWriter.class) {
+			old = m_writerMap.get(key);
+			if(old != null && old.m_running && old.m_queueSize == queueSize && old.m_overflow == overflow && old.m_flushMillis == flushMillis && old.m_flushSize == flushSize && old.m_maxSize == maxSize)
+				return old;
+			w = new AsyncFileWriter(logRoot, out, queueSize, overflow, flushMillis, flushSize, maxSize);
+			m_writerMap.put(key, w);
+		}
+		if(null != old)
+			old.close();
+		return w;
+	}
+
+	/**
+	 * Close all writers that are no longer used after a configuration change.
+	 */
+	static void closeAllExcept(@Nonnull Set<AsyncFileWriter> inUse) {
+		List<AsyncFileWriter> list = new ArrayList<>();
+		synchronized(AsyncFileWriter.class) {
+			for(Iterator<AsyncFileWriter> it = m_writerMap.values().iterator(); it.hasNext(); ) {
+				AsyncFileWriter w = it.next();
+				if(!inUse.contains(w)) {
+					it.remove();
+					list.add(w);
+				}
+			}
+		}
+		for(AsyncFileWriter w : list)
+			w.close();
+	}
+
+	/**
+	 * Queue a line for writing. Returns false if the writer has been closed, in which case the caller must write the line itself.
+	 */
+	boolean append(@Nonnull String line, @Nonnull Level level) {
+		if(!m_running)
+			return false;
+		QueuedLine ql = new QueuedLine(line);
+		if(!m_overflow.mustWait(level)) {
+			if(!m_queue.offer(ql)) {
+				m_droppedCount.incrementAndGet();
+				return true;
+			}
+		} else {
+			try {
+				while(!m_queue.offer(ql, m_flushMillis, TimeUnit.MILLISECONDS)) {
+					if(!m_running)
+						return false;
+				}
+			} catch(InterruptedException x) {
+				m_droppedCount.incrementAndGet();
+				Thread.currentThread().interrupt();
+				return true;
+			}
+		}
+
+		/*
+		 * When the writer was closed while the line was queued the writer thread may already have
+		 * stopped. If the line is still in the queue take it back so that the caller writes it; if
+		 * it is gone the writer thread took it, and it writes everything it took before it stops.
+		 */
+		if(!m_running && m_queue.remove(ql))
+			return false;
+		return true;
+	}
+
+	/**
+	 * The #of lines that were dropped because the queue was full.
+	 */
+	long getDroppedCount() {
+		return m_droppedCount.get();
+	}
+
+	/**
+	 * Write everything queued and stop.
+	 */
+	void close() {
+		m_running = false;
+		m_queue.offer(WAKEUP);						// If the queue is full the writer is not waiting anyway
+		try {
+			m_writerThread.join(10 * 1000);
+		} catch(InterruptedException x) {
+			Thread.currentThread().interrupt();
+		}
+		if(Thread.currentThread() != m_shutdownHook) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(m_shutdownHook);
+			} catch(IllegalStateException x) {
+				//-- VM is shutting down.
+			}
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Writer thread.										*/
+	/*--------------------------------------------------------------*/
+
+	private void writerLoop() {
+		List<QueuedLine> batch = new ArrayList<>(MAX_BATCH);
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(m_flushSize + 8192);
+		Charset cs = Charset.defaultCharset();
+		long firstPending = 0;
+		try {
+			for(;;) {
+				boolean running = m_running;
+				long now = System.currentTimeMillis();
+				long wait = !running ? 0 : buffer.size() == 0 ? m_flushMillis : Math.max(1, firstPending + m_flushMillis - now);
+				QueuedLine line = m_queue.poll(wait, TimeUnit.MILLISECONDS);
+				if(null != line) {
+					batch.add(line);
+					m_queue.drainTo(batch, MAX_BATCH - 1);
+					if(buffer.size() == 0)
+						firstPending = System.currentTimeMillis();
+					for(QueuedLine ql : batch) {
+						if(ql == WAKEUP)
+							continue;
+						byte[] data = ql.m_text.getBytes(cs);
+						buffer.write(data, 0, data.length);
+						buffer.write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+					}
+					batch.clear();
+				}
+
+				if(buffer.size() > 0 && (!running || buffer.size() >= m_flushSize || System.currentTimeMillis() - firstPending >= m_flushMillis)) {
+					reportDrops(buffer, cs);
+					write(buffer);
+					buffer.reset();
+				}
+				if(!running && m_queue.isEmpty())
+					break;
+			}
+		} catch(InterruptedException x) {
+			//-- Stop
+		} finally {
+			m_running = false;
+			if(buffer.size() > 0)
+				write(buffer);
+			closeChannel();
+		}
+	}
+
+	private void reportDrops(@Nonnull ByteArrayOutputStream buffer, @Nonnull Charset cs) {
+		long dropped = m_droppedCount.get();
+		if(dropped == m_reportedDrops)
+			return;
+		byte[] data = ("*** " + (dropped - m_reportedDrops) + " log events were dropped because the log queue was full").getBytes(cs);
+		buffer.write(data, 0, data.length);
+		buffer.write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+		m_reportedDrops = dropped;
+	}
+
+	/**
+	 * Write the buffer to the current log file. Write errors are reported but otherwise ignored, the lines are lost.
+	 */
+	private void write(@Nonnull ByteArrayOutputStream buffer) {
+		try {
+			OutputStream os = open(buffer.size());
+			buffer.writeTo(os);
+		} catch(IOException x) {
+			System.err.println("logger: cannot write to " + m_channelName + ": " + x);
+			closeChannel();
+		}
+	}
+
+	/**
+	 * Get the stream to write to, starting a new file when the date changed or when the data does not fit.
+	 */
+	@Nonnull
+	private OutputStream open(int size) throws IOException {
+		String name = EtcLoggerFactory.getSingleton().composeFullLogFileName(m_logRoot.getAbsolutePath(), m_out);
+		FileChannel fc = m_channel;
+		OutputStream os = m_channelStream;
+		if(null != fc && null != os && name.equals(m_channelName)) {
+			if(m_maxSize <= 0 || fc.size() == 0 || fc.size() + size <= m_maxSize)
+				return os;
+			closeChannel();
+			rotate(name);
+		} else
+			closeChannel();
+
+		File file = new File(name);
+		file.getParentFile().mkdirs();
+		fc = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		m_channel = fc;
+		m_channelName = name;
+		os = Channels.newOutputStream(fc);
+		m_channelStream = os;
+		return os;
+	}
+
+	/**
+	 * Rename name.log to the first free name.n.log.
+	 */
+	private void rotate(@Nonnull String name) throws IOException {
+		String base = name.endsWith(".log") ? name.substring(0, name.length() - 4) : name;
+		File target;
+		for(int i = 1;; i++) {
+			target = new File(base + "." + i + ".log");
+			if(!target.exists())
+				break;
+		}
+		Files.move(Paths.get(name), target.toPath());
+	}
+
+	private void closeChannel() {
+		FileChannel fc = m_channel;
+		m_channel = null;
+		m_channelStream = null;
+		m_channelName = null;
+		if(null != fc) {
+			try {
+				fc.close();
+			} catch(Exception x) {}
+		}
+	}
+}
@@ -45,6 +45,23 @@ class FileLogHandler implements ILogHandler {
 	@Nullable
 	private EtcLogFormat					m_format	= null;
 
+	/**
+	 * When set, lines are written by the writer thread of the {@link AsyncFileWriter} instead of by the logging thread.
+	 */
+	@Nullable
+	private AsyncFileWriter					m_asyncWriter;
+
+	private int								m_queueSize	= 8192;
+
+	@Nonnull
+	private LogOverflowPolicy				m_overflow	= LogOverflowPolicy.BLOCK;
+
+	private int								m_flushMillis	= 200;
+
+	private int								m_flushSize	= 64 * 1024;
+
+	private int								m_maxSizeMb;
+
 	public FileLogHandler(@Nonnull File logRoot, @Nullable String out) {
 		m_logRoot = logRoot;
 		m_out = out;
@@ -92,6 +109,10 @@ class FileLogHandler implements ILogHandler {
 	private void log(@Nonnull EtcLogEvent event) {
 		String line = EtcLogFormatter.format(event, m_format != null ? m_format.getFormat() : EtcLogFormat.DEFAULT, getLogPartFromFilters());
 
+		AsyncFileWriter aw = m_asyncWriter;
+		if(aw != null && aw.append(line, event.getLevel()))
+			return;
+
 		synchronized(m_writeLock) {
 			if(m_out == null) {
 				System.out.println(line);
@@ -166,6 +187,11 @@ class FileLogHandler implements ILogHandler {
 		return m_logRoot;
 	}
 
+	@Nullable
+	AsyncFileWriter getAsyncWriter() {
+		return m_asyncWriter;
+	}
+
 	@Override
 	@Nullable
 	public Level listenAt(@Nonnull String key) {
@@ -188,9 +214,55 @@ class FileLogHandler implements ILogHandler {
 		}
 		FileLogHandler res = new FileLogHandler(logRoot, file.getNodeValue());
 		res.load(handlerNode);
+		if("true".equalsIgnoreCase(getAttribute(handlerNode, "async")))
+			res.loadAsync(handlerNode);
 		return res;
 	}
 
+	/**
+	 * Make the handler asynchronous. The attributes are queueSize (the max #of queued lines), overflow (block, drop or
+	 * drop_below_warn: what to do when the queue is full), flushMillis and flushSize (write when the oldest line is
+	 * this old or when this many bytes are waiting), and maxSizeMb (rotate the file when it gets bigger; 0 only rotates daily).
+	 */
+	private void loadAsync(@Nonnull Node handlerNode) throws LoggerConfigException {
+		m_queueSize = getIntAttribute(handlerNode, "queueSize", m_queueSize);
+		m_flushMillis = getIntAttribute(handlerNode, "flushMillis", m_flushMillis);
+		m_flushSize = getIntAttribute(handlerNode, "flushSize", m_flushSize);
+		m_maxSizeMb = getIntAttribute(handlerNode, "maxSizeMb", m_maxSizeMb);
+		String overflow = getAttribute(handlerNode, "overflow");
+		if(overflow != null) {
+			try {
+				m_overflow = LogOverflowPolicy.valueOf(overflow.trim().toUpperCase());
+			} catch(IllegalArgumentException x) {
+				throw new EtcLoggerFactory.LoggerConfigException("Unknown overflow policy '" + overflow + "' inside file type handler.");
+			}
+		}
+		if(m_queueSize <= 0 || m_flushMillis <= 0 || m_flushSize <= 0 || m_maxSizeMb < 0)
+			throw new EtcLoggerFactory.LoggerConfigException("Invalid async settings inside file type handler.");
+		File logRoot = m_logRoot;
+		String out = m_out;
+		if(logRoot == null || out == null)
+			throw new EtcLoggerFactory.LoggerConfigException("Only file type handlers can be async.");
+		m_asyncWriter = AsyncFileWriter.get(logRoot, out, m_queueSize, m_overflow, m_flushMillis, m_flushSize, m_maxSizeMb * 1024L * 1024L);
+	}
+
+	@Nullable
+	static private String getAttribute(@Nonnull Node node, @Nonnull String name) {
+		Node attr = node.getAttributes().getNamedItem(name);
+		return attr == null ? null : attr.getNodeValue();
+	}
+
+	static private int getIntAttribute(@Nonnull Node node, @Nonnull String name, int defaultValue) throws LoggerConfigException {
+		String value = getAttribute(node, name);
+		if(value == null)
+			return defaultValue;
+		try {
+			return Integer.parseInt(value.trim());
+		} catch(NumberFormatException x) {
+			throw new EtcLoggerFactory.LoggerConfigException("Invalid " + name + " value '" + value + "' inside file type handler.");
+		}
+	}
+
 	void load(@Nonnull Node handlerNode) throws LoggerConfigException {
 		NodeList nodes = handlerNode.getChildNodes();
 		for(int i = 0; i < nodes.getLength(); i++) {
@@ -226,6 +298,14 @@ class FileLogHandler implements ILogHandler {
 		if(m_out != null) {
 			handlerNode.setAttribute("file", m_out);
 		}
+		if(m_asyncWriter != null) {
+			handlerNode.setAttribute("async", "true");
+			handlerNode.setAttribute("queueSize", Integer.toString(m_queueSize));
+			handlerNode.setAttribute("overflow", m_overflow.name().toLowerCase());
+			handlerNode.setAttribute("flushMillis", Integer.toString(m_flushMillis));
+			handlerNode.setAttribute("flushSize", Integer.toString(m_flushSize));
+			handlerNode.setAttribute("maxSizeMb", Integer.toString(m_maxSizeMb));
+		}
 		if(m_format != null) {
 			Element formatNode = doc.createElement("format");
 			handlerNode.appendChild(formatNode);
@@ -249,6 +329,8 @@ class FileLogHandler implements ILogHandler {
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("handler ").append(m_out != null ? "file: " + m_out : "stdout");
+		if(m_asyncWriter != null)
+			sb.append(" (async)");
 		if(!m_matchers.isEmpty()) {
 			sb.append("\nmatchers: ");
 			for(LogMatcher matcher : m_matchers) {
@@ -113,4 +113,22 @@ public class LogHandlerRegistry {
 	public ILogHandler createDefaultHandler(@Nonnull File rootDir, @Nonnull Level level) {
 		return FileLogHandler.createDefaultHandler(rootDir, level);
 	}
+
+	/**
+	 * Release the resources (like the asynchronous file writers) that were used by earlier handlers but not by the specified, new ones.
+	 * NOTE: this should not be used directly - meant to be used only internally by {@link EtcLoggerFactory}. But left public since logger factory is not in same package.
+	 *
+	 * @param handlers
+	 */
+	public void releaseUnused(@Nonnull List<ILogHandler> handlers) {
+		Set<AsyncFileWriter> inUse = new HashSet<AsyncFileWriter>();
+		for(ILogHandler handler : handlers) {
+			if(handler instanceof FileLogHandler) {
+				AsyncFileWriter writer = ((FileLogHandler) handler).getAsyncWriter();
+				if(null != writer)
+					inUse.add(writer);
+			}
+		}
+		AsyncFileWriter.closeAllExcept(inUse);
+	}
 }
@@ -0,0 +1,58 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.log.handler;
+
+import javax.annotation.*;
+
+import to.etc.log.*;
+
+/**
+ * What an asynchronous log handler does with an event when its queue is full.
+ *
+ * Created on Oct 18, 2026
+ */
+public enum LogOverflowPolicy {
+	/** Wait until the writer has made room. Nothing is lost, but the logging thread can stall. */
+	BLOCK,
+
+	/** Drop the event; the #of dropped events is written to the log later. */
+	DROP,
+
+	/** Wait for WARN and ERROR events, drop the others. */
+	DROP_BELOW_WARN;
+
+	boolean mustWait(@Nonnull Level level) {
+		switch(this) {
+			default:
+				throw new IllegalStateException("Unknown overflow policy: " + this);
+			case BLOCK:
+				return true;
+			case DROP:
+				return false;
+			case DROP_BELOW_WARN:
+				return Level.WARN.includes(level);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package to.etc.log.handler;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.*;
+
+import javax.annotation.*;
+
+import org.junit.*;
+import org.junit.rules.*;
+
+import to.etc.log.*;
+
+public class TestAsyncFileWriter {
+	static private final int THREADS = 4;
+
+	static private final int LINES = 20000;
+
+	@Rule
+	public TemporaryFolder m_folder = new TemporaryFolder();
+
+	@Nonnull
+	private File logFile(@Nonnull String out) {
+		return new File(EtcLoggerFactory.getSingleton().composeFullLogFileName(m_folder.getRoot().getAbsolutePath(), out));
+	}
+
+	@Nonnull
+	static private List<String> readLines(@Nonnull File f) throws IOException {
+		return Files.readAllLines(f.toPath(), Charset.defaultCharset());
+	}
+
+	/**
+	 * Append lines from several threads at the same time; odd lines are WARN, even lines are INFO.
+	 */
+	static private void appendConcurrently(@Nonnull AsyncFileWriter w) throws Exception {
+		List<Thread> list = new ArrayList<>();
+		for(int t = 0; t < THREADS; t++) {
+			int tn = t;
+			Thread th = new Thread(() -> {
+				for(int i = 0; i < LINES; i++) {
+					if(!w.append("line " + tn + " " + i, (i & 1) == 0 ? Level.INFO : Level.WARN))
+						throw new IllegalStateException("Writer closed");
+				}
+			});
+			th.start();
+			list.add(th);
+		}
+		for(Thread th : list)
+			th.join();
+	}
+
+	/**
+	 * Lines waiting to be flushed are written when the writer is closed.
+	 */
+	@Test
+	public void testFlushOnClose() throws Exception {
+		AsyncFileWriter w = AsyncFileWriter.get(m_folder.getRoot(), "flush", 1024, LogOverflowPolicy.BLOCK, 60 * 1000, 1024 * 1024, 0);
+		for(int i = 0; i < 100; i++)
+			Assert.assertTrue(w.append("line " + i, Level.INFO));
+		w.close();
+		List<String> lines = readLines(logFile("flush"));
+		Assert.assertEquals(100, lines.size());
+		for(int i = 0; i < 100; i++)
+			Assert.assertEquals("line " + i, lines.get(i));
+		Assert.assertFalse("A closed writer must not accept lines", w.append("late", Level.INFO));
+	}
+
+	@Test
+	public void testBlockLosesNothing() throws Exception {
+		AsyncFileWriter w = AsyncFileWriter.get(m_folder.getRoot(), "block", 16, LogOverflowPolicy.BLOCK, 10, 4096, 0);
+		appendConcurrently(w);
+		w.close();
+		Assert.assertEquals(0, w.getDroppedCount());
+		Assert.assertEquals(THREADS * LINES, readLines(logFile("block")).size());
+	}
+
+	/**
+	 * With a tiny queue lines are dropped; every line is either written or counted as dropped, and the drops are reported in the log.
+	 */
+	@Test
+	public void testDrop() throws Exception {
+		AsyncFileWriter w = AsyncFileWriter.get(m_folder.getRoot(), "drop", 4, LogOverflowPolicy.DROP, 10, 4096, 0);
+		appendConcurrently(w);
+		w.close();
+		long written = 0;
+		long reported = 0;
+		Pattern p = Pattern.compile("\\*\\*\\* (\\d+) log events were dropped.*");
+		for(String line : readLines(logFile("drop"))) {
+			Matcher m = p.matcher(line);
+			if(m.matches())
+				reported += Long.parseLong(m.group(1));
+			else
+				written++;
+		}
+		Assert.assertTrue("Nothing was dropped", w.getDroppedCount() > 0);
+		Assert.assertEquals(THREADS * LINES, written + w.getDroppedCount());
+		Assert.assertTrue(reported > 0 && reported <= w.getDroppedCount());
+	}
+
+	@Test
+	public void testDropBelowWarnKeepsWarnings() throws Exception {
+		AsyncFileWriter w = AsyncFileWriter.get(m_folder.getRoot(), "dropinfo", 4, LogOverflowPolicy.DROP_BELOW_WARN, 10, 4096, 0);
+		appendConcurrently(w);
+		w.close();
+		int warnings = 0;
+		for(String line : readLines(logFile("dropinfo"))) {
+			if(line.startsWith("line ") && (Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1)) & 1) == 1)
+				warnings++;
+		}
+		Assert.assertEquals(THREADS * LINES / 2, warnings);
+	}
+
+	/**
+	 * A file that would grow past the maximum size is renamed to name.1.log, name.2.log, ...
+	 */
+	@Test
+	public void testRotation() throws Exception {
+		AsyncFileWriter w = AsyncFileWriter.get(m_folder.getRoot(), "rotate", 1024, LogOverflowPolicy.BLOCK, 1, 1, 1000);
+		char[] fill = new char[290];
+		Arrays.fill(fill, 'x');
+		for(int i = 0; i < 20; i++) {
+			Assert.assertTrue(w.append(String.format("%03d ", Integer.valueOf(i)) + new String(fill), Level.INFO));
+			Thread.sleep(20);										// Let every line be written separately
+		}
+		w.close();
+
+		File current = logFile("rotate");
+		String base = current.getPath().substring(0, current.getPath().length() - 4);
+		List<File> files = new ArrayList<>();
+		for(int i = 1; new File(base + "." + i + ".log").exists(); i++)
+			files.add(new File(base + "." + i + ".log"));
+		files.add(current);
+		Assert.assertTrue("The log was not rotated", files.size() > 2);
+
+		int nr = 0;
+		for(File f : files) {
+			Assert.assertTrue(f + " is larger than the max size", f.length() <= 1000);
+			for(String line : readLines(f))
+				Assert.assertEquals(String.format("%03d ", Integer.valueOf(nr++)), line.substring(0, 4));
+		}
+		Assert.assertEquals(20, nr);
+	}
+}
@@ -0,0 +1,77 @@
+package to.etc.log.test;
+
+import java.io.*;
+
+import org.slf4j.*;
+
+import to.etc.benchmark.*;
+import to.etc.log.*;
+
+/**
+ * Measures the cost of log statements that are disabled, like LOG.debug() in a production configuration,
+ * for several #s of threads all using the same logger; the time reported is the wall time divided by the
+ * total #of calls. For comparison the same check is also done through a
+ * synchronized method, which is how the level was checked before.
+ *
+ * <p>Run as a main program; the argument is the #of calls per thread.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+public class EtcLoggerBenchmark {
+	static private final int[] THREADS = {1, 4, 16};
+
+	public static void main(String[] args) throws Exception {
+		int calls = args.length > 0 ? Integer.parseInt(args[0]) : 20000000;
+		File dir = new File(System.getProperty("java.io.tmpdir"), "loggerbench");
+		String config = "<config logLocation=\"" + dir.getAbsolutePath() + "\"><handler type=\"stdout\"><log level=\"INFO\" name=\"\"/></handler></config>";
+		if(!EtcLoggerFactory.getSingleton().tryLoadConfigFromXml(dir, config))
+			throw new IllegalStateException("Config failed to load");
+
+		Logger log = LoggerFactory.getLogger(EtcLoggerBenchmark.class);
+		Object arg = Integer.valueOf(42);
+		SynchronizedCheck sync = new SynchronizedCheck(Level.INFO);
+
+		Benchmark b = new Benchmark("%-22s %8d %12.2f", "check", "threads", "ns/call");
+		b.measure(() -> {
+			for(int threads : THREADS) {
+				run(b, "isDebugEnabled()", threads, calls, () -> log.isDebugEnabled());
+				run(b, "debug(msg, arg)", threads, calls, () -> {
+					log.debug("Disabled {}", arg);
+					return false;
+				});
+				run(b, "synchronized check", threads, calls, () -> sync.isEnabled(Level.DEBUG));
+			}
+		});
+	}
+
+	private interface ICheck {
+		boolean check();
+	}
+
+	static private void run(Benchmark b, String name, int threads, int calls, ICheck check) throws Exception {
+		long elapsed = Benchmark.runConcurrently(threads, t -> {
+			int count = 0;
+			for(int j = 0; j < calls; j++) {
+				if(check.check())
+					count++;
+			}
+			Benchmark.consume(count);
+		});
+		b.row(name, Integer.valueOf(threads), Double.valueOf((double) elapsed / ((long) calls * threads)));
+	}
+
+	/**
+	 * The old way of checking the level.
+	 */
+	static private final class SynchronizedCheck {
+		private Level m_level;
+
+		SynchronizedCheck(Level level) {
+			m_level = level;
+		}
+
+		synchronized boolean isEnabled(Level level) {
+			return m_level != null && m_level.includes(level);
+		}
+	}
+}
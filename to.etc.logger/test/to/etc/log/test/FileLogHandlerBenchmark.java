@@ -0,0 +1,89 @@
+package to.etc.log.test;
+
+import java.io.*;
+import java.nio.file.*;
+import org.slf4j.*;
+
+import to.etc.benchmark.*;
+import to.etc.log.*;
+
+/**
+ * Compares the throughput of the synchronous file handler with the asynchronous one, for several #s of
+ * logging threads. For each run a handler writing to its own file is configured; the threads then log a
+ * fixed #of lines each. Reported are the events/s as seen by the logging threads and the events/s until
+ * everything was written to the file.
+ *
+ * <p>Run as a main program; the arguments are the #of events per thread and the log directory.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+public class FileLogHandlerBenchmark {
+	static private final int[] THREADS = {1, 4, 16};
+
+	static private final String[] MODES = {"sync", "block", "drop"};
+
+	static private File m_logDir;
+
+	static private int m_runCount;
+
+	public static void main(String[] args) throws Exception {
+		int events = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+		m_logDir = new File(args.length > 1 ? args[1] : System.getProperty("java.io.tmpdir") + File.separator + "logbench");
+		m_logDir.mkdirs();
+
+		Benchmark b = new Benchmark("%8s %8d %12.0f %12.0f %10d", "mode", "threads", "logged/s", "written/s", "lines");
+		b.measure(() -> {
+			for(int threads : THREADS) {
+				for(String mode : MODES)
+					run(b, mode, threads, events);
+			}
+		});
+	}
+
+	static private void run(Benchmark b, String mode, int threads, int events) throws Exception {
+		String name = "bench" + m_runCount++;
+		StringBuilder sb = new StringBuilder();
+		sb.append("<config logLocation=\"").append(m_logDir.getAbsolutePath()).append("\">");
+		sb.append("<handler type=\"file\" file=\"").append(name).append("\"");
+		if(!"sync".equals(mode))
+			sb.append(" async=\"true\" overflow=\"").append(mode).append("\"");
+		sb.append(">");
+		sb.append("<log level=\"INFO\" name=\"\"/>");
+		sb.append("</handler>");
+		sb.append("</config>");
+		if(!EtcLoggerFactory.getSingleton().tryLoadConfigFromXml(m_logDir, sb.toString()))
+			throw new IllegalStateException("Config failed to load");
+		File file = new File(EtcLoggerFactory.getSingleton().composeFullLogFileName(name));
+
+		Logger log = LoggerFactory.getLogger(FileLogHandlerBenchmark.class.getName() + "." + name);
+		long ts = System.nanoTime();
+		long logged = Benchmark.runConcurrently(threads, tn -> {
+			for(int j = 0; j < events; j++)
+				log.info("Benchmark event {} from thread {} with some more text to make it a realistic line", Integer.valueOf(j), Integer.valueOf(tn));
+		});
+
+		//-- Wait until the file no longer grows.
+		long size = -1;
+		while(size != file.length()) {
+			size = file.length();
+			Thread.sleep(500);
+		}
+		long lines = countLines(file);
+		long written = System.nanoTime() - ts - 500L * 1000 * 1000;
+		long total = (long) threads * events;
+		b.row(mode, Integer.valueOf(threads), Double.valueOf(total * 1e9 / logged), Double.valueOf(lines * 1e9 / written), Long.valueOf(lines));
+		Files.delete(file.toPath());
+	}
+
+	static private long countLines(File file) throws IOException {
+		long count = 0;
+		try(InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+			int c;
+			while((c = is.read()) != -1) {
+				if(c == '\n')
+					count++;
+			}
+		}
+		return count;
+	}
+}
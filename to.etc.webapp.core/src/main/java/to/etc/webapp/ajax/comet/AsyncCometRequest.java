@@ -0,0 +1,288 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.webapp.ajax.comet;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+import javax.servlet.*;
+import javax.servlet.http.*;
+
+/**
+ * A long-poll request that waits without holding a container thread, using the Servlet 3 AsyncContext. This
+ * code is compiled against the Servlet 2.5 API, so the async methods are called through reflection; when the
+ * container or the servlet's registration does not support async requests {@link #start} returns null and
+ * the caller must wait the old way.
+ *
+ * <p>The request finishes exactly once: when it is resumed, when its timeout expires on the
+ * {@link TimeoutWheel}, or when the container reports a timeout or error. The response is then rendered by
+ * the {@link IResponder} through AsyncContext.start(), on a container thread.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class AsyncCometRequest {
+	/**
+	 * Renders the response of a request that finished.
+	 */
+	public interface IResponder {
+		void respond(@Nonnull HttpServletResponse res, boolean timeout) throws Exception;
+	}
+
+	/** Extra time given to the container's own timeout, so that normally the wheel fires first. */
+	static private final long CONTAINER_SLACK = 30 * 1000;
+
+	static private final Map<String, Method> m_methodMap = new ConcurrentHashMap<String, Method>();
+
+	static private final Method NONE;
+
+	@Nullable
+	static private final Class< ? > LISTENER_CLASS;
+
+	static {
+		try {
+			NONE = Object.class.getMethod("toString");
+		} catch(NoSuchMethodException x) {
+			throw new IllegalStateException(x);
+		}
+		Class< ? > lc;
+		try {
+			lc = Class.forName("javax.servlet.AsyncListener");
+		} catch(Exception x) {
+			lc = null;
+		}
+		LISTENER_CLASS = lc;
+	}
+
+	@Nonnull
+	final IResponder m_responder;
+
+	@Nonnull
+	final HttpServletResponse m_response;
+
+	@Nonnull
+	final Object m_asyncContext;
+
+	@Nullable
+	private TimeoutWheel.Entry m_timeoutEntry;
+
+	private final AtomicBoolean m_finished = new AtomicBoolean();
+
+	private AsyncCometRequest(@Nonnull IResponder responder, @Nonnull HttpServletResponse response, @Nonnull Object asyncContext) {
+		m_responder = responder;
+		m_response = response;
+		m_asyncContext = asyncContext;
+	}
+
+	/**
+	 * Put the request in async mode and wait for the continuation to resume, or for the timeout. Returns null
+	 * when the request cannot be handled asynchronously.
+	 */
+	@Nullable
+	static AsyncCometRequest start(@Nonnull HttpServletRequest req, @Nonnull HttpServletResponse res, @Nonnull final CometContext ctx, @Nonnull ContinuationImpl ci, long timeout) throws Exception {
+		final AsyncCometRequest acr = start(req, res, timeout, new IResponder() {
+			@Override
+			public void respond(@Nonnull HttpServletResponse resp, boolean to) throws Exception {
+				ctx.respond(resp, to);
+			}
+		});
+		if(null == acr)
+			return null;
+		if(!ci.setResumeAction(new Runnable() {
+			@Override
+			public void run() {
+				acr.resume();
+			}
+		})) {
+			acr.resume(); 									// Resumed before we got here
+		}
+		return acr;
+	}
+
+	/**
+	 * Put the request in async mode and wait for {@link #resume()}, or for the timeout; the responder then
+	 * renders the response. Returns null when the request cannot be handled asynchronously. The caller must
+	 * not write to the response after this returned a request.
+	 */
+	@Nullable
+	static public AsyncCometRequest start(@Nonnull HttpServletRequest req, @Nonnull HttpServletResponse res, long timeout, @Nonnull IResponder responder) throws Exception {
+		Method m = findMethod(req, "isAsyncSupported");
+		if(null == m || !((Boolean) m.invoke(req)).booleanValue())
+			return null;
+		m = findMethod(req, "startAsync", ServletRequest.class, ServletResponse.class);
+		if(null == m)
+			return null;
+		Object ac = m.invoke(req, req, res);
+		if(null == ac)
+			return null;
+		final AsyncCometRequest acr = new AsyncCometRequest(responder, res, ac);
+		invoke(ac, "setTimeout", new Class< ? >[]{long.class}, Long.valueOf(timeout + CONTAINER_SLACK));
+		acr.addListener();
+
+		//-- Finish on timeout or on resume, whichever comes first.
+		acr.m_timeoutEntry = TimeoutWheel.getInstance().schedule(timeout, new Runnable() {
+			@Override
+			public void run() {
+				acr.finish(true);
+			}
+		});
+		return acr;
+	}
+
+	/**
+	 * Stop waiting and render the response, if the request did not finish already.
+	 */
+	public void resume() {
+		finish(false);
+	}
+
+	/**
+	 * Render the response and complete the request, if that did not happen already.
+	 */
+	void finish(final boolean timeout) {
+		if(!m_finished.compareAndSet(false, true))
+			return;
+		TimeoutWheel.Entry e = m_timeoutEntry;
+		if(null != e)
+			e.cancel();
+		Runnable r = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					m_responder.respond(m_response, timeout);
+				} catch(Exception x) {
+					x.printStackTrace();
+				} finally {
+					try {
+						invoke(m_asyncContext, "complete", new Class< ? >[0]);
+					} catch(Exception x) {
+						x.printStackTrace();
+					}
+				}
+			}
+		};
+		try {
+			invoke(m_asyncContext, "start", new Class< ? >[]{Runnable.class}, r);
+		} catch(Exception x) {
+			r.run();											// Container refused: render on this thread
+		}
+	}
+
+	/**
+	 * Listen for the container's timeout and errors, like a disconnected client.
+	 */
+	private void addListener() throws Exception {
+		Class< ? > lc = LISTENER_CLASS;
+		if(null == lc)
+			return;
+		Method m = findMethod(m_asyncContext, "addListener", lc);
+		if(null == m)
+			return;
+		Object listener = Proxy.newProxyInstance(lc.getClassLoader(), new Class< ? >[]{lc}, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				switch(method.getName()) {
+					case "onTimeout":
+					case "onError":
+						finish(true);
+						return null;
+					case "hashCode":
+						return Integer.valueOf(System.identityHashCode(proxy));
+					case "equals":
+						return Boolean.valueOf(proxy == args[0]);
+					case "toString":
+						return "AsyncCometRequest.listener";
+				}
+				return null;
+			}
+		});
+		m.invoke(m_asyncContext, listener);
+	}
+
+	static Object invoke(@Nonnull Object target, @Nonnull String name, @Nonnull Class< ? >[] types, Object... args) throws Exception {
+		Method m = findMethod(target, name, types);
+		if(null == m)
+			throw new IllegalStateException(target.getClass().getName() + " has no method " + name);
+		try {
+			return m.invoke(target, args);
+		} catch(InvocationTargetException x) {
+			Throwable t = x.getTargetException();
+			if(t instanceof Exception)
+				throw (Exception) t;
+			throw x;
+		}
+	}
+
+	/**
+	 * Find a public method, preferably declared in a public interface so that it can be called even when the
+	 * implementing class is not public.
+	 */
+	@Nullable
+	static private Method findMethod(@Nonnull Object target, @Nonnull String name, Class< ? >... types) {
+		Class< ? > clz = target.getClass();
+		String key = clz.getName() + "#" + name + "/" + types.length;
+		Method m = m_methodMap.get(key);
+		if(null == m) {
+			m = lookup(clz, name, types);
+			m_methodMap.put(key, m == null ? NONE : m);
+		}
+		return m == NONE ? null : m;
+	}
+
+	@Nullable
+	static private Method lookup(@Nonnull Class< ? > clz, @Nonnull String name, Class< ? >... types) {
+		for(Class< ? > c = clz; c != null; c = c.getSuperclass()) {
+			for(Class< ? > ifc : c.getInterfaces()) {
+				Method m = lookupInterface(ifc, name, types);
+				if(null != m)
+					return m;
+			}
+		}
+		try {
+			Method m = clz.getMethod(name, types);
+			m.setAccessible(true);
+			return m;
+		} catch(Exception x) {
+			return null;
+		}
+	}
+
+	@Nullable
+	static private Method lookupInterface(Class< ? > ifc, @Nonnull String name, Class< ? >... types) {
+		if(Modifier.isPublic(ifc.getModifiers())) {
+			try {
+				return ifc.getMethod(name, types);
+			} catch(NoSuchMethodException x) {}
+		}
+		for(Class< ? > sub : ifc.getInterfaces()) {
+			Method m = lookupInterface(sub, name, types);
+			if(null != m)
+				return m;
+		}
+		return null;
+	}
+}
@@ -29,14 +29,21 @@ class ContinuationImpl implements Continuation {
 
 	private long m_timeout = -1;
 
+	/** When set, run once by the thread that resumes. */
+	private Runnable m_resumeAction;
+
 	@Override
 	public void resume() {
+		Runnable action;
 		synchronized(this) {
 			if(m_continued)
 				return;
 			m_continued = true;
 			notifyAll();
+			action = m_resumeAction;
 		}
+		if(null != action)
+			action.run();
 	}
 
 	@Override
@@ -48,7 +55,17 @@ class ContinuationImpl implements Continuation {
 		return m_timeout;
 	}
 
-	boolean hasCompleted() {
+	synchronized boolean hasCompleted() {
 		return m_continued;
 	}
+
+	/**
+	 * Set the action to run on resume. Returns false if resume was already called, in which case the action will not run.
+	 */
+	synchronized boolean setResumeAction(Runnable action) {
+		if(m_continued)
+			return false;
+		m_resumeAction = action;
+		return true;
+	}
 }
@@ -32,11 +32,12 @@ import javax.servlet.http.*;
 /**
  * This is a generic Ajax Comet pattern servlet. It implements the
  * Comet pattern (http://www.ajaxian.com/archives/comet-a-new-approach-to-ajax-applications)
- * using a standard Servlet container. This implementation is unusable
- * for large amounts of clients due to thread and connection exthaustion on
- * the web server. The base interface implemented by this servlet is however
- * well suited to be implemented by different servlet containers that do
- * have asynchronous servlet implementations like Tomcat 6, Bea and Jetty.
+ * using a standard Servlet container. When the container supports Servlet 3 async
+ * requests, and the servlet is registered with &lt;async-supported&gt;true&lt;/async-supported&gt;,
+ * a waiting client does not hold a container thread; its timeout is handled by the shared
+ * {@link TimeoutWheel}. Otherwise every waiting client blocks a request thread, which makes
+ * this unusable for large amounts of clients. Async handling can be disabled by setting the
+ * servlet parameter 'async' to false.
  *
  * <h3>See also:</h3>
  * http://blogs.webtide.com/gregw/2006/07/25/1153845234453.html<br/>
@@ -49,6 +50,8 @@ public class GenericCometServlet extends HttpServlet {
 
 	private Class< ? extends CometContext> m_contextClass;
 
+	private boolean m_async = true;
+
 	@Override
 	public void init() throws ServletException {
 		super.init();
@@ -73,6 +76,9 @@ public class GenericCometServlet extends HttpServlet {
 				throw new UnavailableException("The class '" + cn + "' does not allow me to create instances: " + x);
 			}
 			m_contextClass = (Class< ? extends CometContext>) cl;
+			String async = getServletConfig().getInitParameter("async");
+			if(async != null)
+				m_async = Boolean.parseBoolean(async.trim());
 			System.out.println("GenericCometServlet: init has completed");
 		} catch(ServletException x) {
 			x.printStackTrace();
@@ -106,12 +112,23 @@ public class GenericCometServlet extends HttpServlet {
 			throw new RuntimeException(x); // NOTREACHED
 		}
 
-		//-- Step 2: wait for the request to complete, or the streams to close.
+		long wait = ci.getTimeout();
+		if(wait < 0 || wait > WAIT_TIMEOUT) // Default AND max timeout is 60 secs
+			wait = WAIT_TIMEOUT;
+
+		//-- Step 2: if the container allows, wait without holding this thread; the response is rendered when the request completes.
+		if(m_async && !ci.hasCompleted() && null != req && null != res) {
+			try {
+				if(null != AsyncCometRequest.start(req, res, ctx, ci, wait))
+					return;
+			} catch(Exception x) {
+				handleException(x);
+			}
+		}
+
+		//-- Otherwise block this thread till the request completes, or the streams close.
 		long stime = System.currentTimeMillis();
-		long etime = ci.getTimeout();
-		if(etime < 0 || etime > WAIT_TIMEOUT) // Default AND max timeout is 60 secs
-			etime = WAIT_TIMEOUT;
-		etime += stime;
+		long etime = stime + wait;
 		boolean timeout = true;
 		while(etime > stime) {
 			long wtime = etime - stime; // How much longer to wait?
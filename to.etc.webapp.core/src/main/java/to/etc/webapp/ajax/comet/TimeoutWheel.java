@@ -0,0 +1,190 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.webapp.ajax.comet;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
+/**
+ * A hashed timing wheel for the timeouts of many waiting requests. Scheduling and cancelling
+ * are O(1) and do not lock the wheel; a single daemon thread advances the wheel every tick
+ * and runs the actions that expired, so actions must be short (hand real work to another thread).
+ * Timeouts fire up to one tick late.
+ *
+ * Created on Oct 18, 2026
+ */
+final public class TimeoutWheel {
+	static private final int TICK = 100;
+
+	static private final int SLOTS = 512;
+
+	static private TimeoutWheel m_instance;
+
+	/**
+	 * A scheduled timeout.
+	 */
+	static public final class Entry {
+		@Nonnull
+		final Runnable m_action;
+
+		final long m_deadline;
+
+		/** The #of full turns of the wheel still to go; only used by the wheel thread. */
+		long m_rounds;
+
+		volatile boolean m_cancelled;
+
+		Entry(@Nonnull Runnable action, long deadline) {
+			m_action = action;
+			m_deadline = deadline;
+		}
+
+		/**
+		 * Prevent the action from running, if it did not run yet.
+		 */
+		public void cancel() {
+			m_cancelled = true;
+		}
+
+		public boolean isCancelled() {
+			return m_cancelled;
+		}
+	}
+
+	private final List<List<Entry>> m_slots = new ArrayList<List<Entry>>(SLOTS);
+
+	/** Entries scheduled since the last tick; the wheel thread moves them into their slot. */
+	private final ConcurrentLinkedQueue<Entry> m_newEntries = new ConcurrentLinkedQueue<Entry>();
+
+	private final long m_tsStart;
+
+	/** The #of ticks processed; only used by the wheel thread. */
+	private long m_tick;
+
+	private volatile boolean m_stopped;
+
+	private TimeoutWheel(@Nonnull String name) {
+		for(int i = 0; i < SLOTS; i++)
+			m_slots.add(new ArrayList<Entry>());
+		m_tsStart = System.nanoTime();
+		Thread t = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				wheelMain();
+			}
+		}, name);
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 * The wheel shared by all comet servlets.
+	 */
+	@Nonnull
+	static public synchronized TimeoutWheel getInstance() {
+		TimeoutWheel w = m_instance;
+		if(null == w)
+			w = m_instance = new TimeoutWheel("CometTimeoutWheel");
+		return w;
+	}
+
+	/**
+	 * Run the action after the specified #of milliseconds, unless the returned entry is cancelled before that.
+	 */
+	@Nonnull
+	public Entry schedule(long delay, @Nonnull Runnable action) {
+		Entry e = new Entry(action, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay)));
+		m_newEntries.add(e);
+		return e;
+	}
+
+	/**
+	 * Stop the wheel thread. Actions that did not run yet will not run anymore.
+	 */
+	public void stop() {
+		m_stopped = true;
+	}
+
+	void wheelMain() {
+		while(!m_stopped) {
+			//-- Sleep till the next tick is due
+			long next = m_tsStart + TimeUnit.MILLISECONDS.toNanos((m_tick + 1) * TICK);
+			long sleep = next - System.nanoTime();
+			if(sleep > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(sleep);
+				} catch(InterruptedException x) {
+					return;
+				}
+			}
+			m_tick++;
+			transferNew();
+			List<Entry> slot = m_slots.get((int) (m_tick % SLOTS));
+			for(int i = slot.size(); --i >= 0;) {
+				Entry e = slot.get(i);
+				if(e.m_cancelled) {
+					removeAt(slot, i);
+				} else if(e.m_rounds > 0) {
+					e.m_rounds--;
+				} else {
+					removeAt(slot, i);
+					try {
+						e.m_action.run();
+					} catch(Exception x) {
+						x.printStackTrace();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Put every new entry in the slot of the tick at or after its deadline.
+	 */
+	private void transferNew() {
+		Entry e;
+		while(null != (e = m_newEntries.poll())) {
+			if(e.m_cancelled)
+				continue;
+			long ticks = (e.m_deadline - m_tsStart + TimeUnit.MILLISECONDS.toNanos(TICK) - 1) / TimeUnit.MILLISECONDS.toNanos(TICK);
+			if(ticks <= m_tick)
+				ticks = m_tick;									// Already expired: run in this tick
+			e.m_rounds = (ticks - m_tick) / SLOTS;
+			m_slots.get((int) (ticks % SLOTS)).add(e);
+		}
+	}
+
+	/**
+	 * Unordered remove: move the last element into the hole.
+	 */
+	static private void removeAt(@Nonnull List<Entry> slot, int ix) {
+		int last = slot.size() - 1;
+		if(ix != last)
+			slot.set(ix, slot.get(last));
+		slot.remove(last);
+	}
+}
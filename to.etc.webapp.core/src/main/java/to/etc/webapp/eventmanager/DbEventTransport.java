@@ -0,0 +1,288 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.webapp.eventmanager;
+
+import java.sql.*;
+import java.sql.Date;
+import java.util.*;
+
+import javax.annotation.*;
+import javax.sql.*;
+
+import org.slf4j.*;
+
+import to.etc.util.*;
+
+/**
+ * The default event transport, which stores all events in a database table that all servers in the cluster
+ * poll. The table and its sequence are created if they do not exist; see {@link VpEventManager} for their layout.
+ * Oracle and PostgreSQL are supported.
+ *
+ * Created on Oct 18, 2026
+ */
+public class DbEventTransport implements IEventTransport {
+	static private final Logger LOG = LoggerFactory.getLogger(DbEventTransport.class);
+
+	static private final long DELETEINTERVAL = 10 * 60 * 1000;
+
+	enum DbType {
+		ORACLE, POSTGRES
+	};
+
+	@Nonnull
+	private final DataSource m_ds;
+
+	@Nonnull
+	private final String m_tableName;
+
+	@Nonnull
+	private final IEventMarshaller m_eventMarshaller;
+
+	private DbType m_dbtype;
+
+	/** The time that we need to delete stuff again, */
+	private long m_ts_nextdelete;
+
+	/** The upid to delete up to */
+	private long m_delete_upid;
+
+	public DbEventTransport(@Nonnull DataSource ds, @Nonnull String tableName, @Nonnull IEventMarshaller eventMarshaller) {
+		m_ds = ds;
+		m_tableName = tableName;
+		m_eventMarshaller = eventMarshaller;
+	}
+
+	/**
+	 * Tries to create the table if it doesn't exist. Ignores all errors.
+	 *
+	 * @param dbc
+	 */
+	private void createTable(final Connection dbc) {
+		PreparedStatement ps = null;
+		try {
+			//-- Determine the database type
+			String name = dbc.getMetaData().getDatabaseProductName().toLowerCase();
+			if(name.contains("oracle"))
+				m_dbtype = DbType.ORACLE;
+			else if(name.contains("postgres"))
+				m_dbtype = DbType.POSTGRES;
+			else
+				throw new IllegalStateException("Unsupported database type: " + name);
+
+			String tbl, seq;
+			switch(m_dbtype){
+				default:
+					throw new IllegalStateException("Unhandled DBTYPE: " + m_dbtype);
+				case ORACLE:
+					tbl = "create table " + m_tableName
+						+ "( upid numeric(20,0) not null primary key, utime date not null, evname varchar(80) not null, server varchar(32) not null, obj varchar2(4000 char))";
+					seq = "create sequence " + m_tableName + "_SQ start with 1 increment by 1";
+					break;
+
+				case POSTGRES:
+					tbl = "create table " + m_tableName
+						+ "( upid numeric(20,0) not null primary key, utime date not null, evname varchar(80) not null, server varchar(32) not null, obj varchar(4000))";
+					seq = "create sequence " + m_tableName + "_SQ start with 1 increment by 1";
+					break;
+			}
+			ps = dbc.prepareStatement(tbl);
+			ps.executeUpdate();
+			ps.close();
+
+			//-- Create the sequence,
+			ps = dbc.prepareStatement(seq);
+			ps.executeUpdate();
+		} catch(Exception x) {
+			String msg = x.toString().toLowerCase();
+
+			//-- Ignore silly errors.
+			if(msg.contains("ora-00955"))
+				return;
+			if(msg.contains("exist"))
+				return;
+			System.out.println("SystemEventManager: table creation exception " + x + ", if this is just because the table already exists there is no problem.");
+		} finally {
+			try {
+				if(ps != null)
+					ps.close();
+			} catch(Exception x) {}
+		}
+	}
+
+	@Override
+	public synchronized long initialize(@Nonnull Runnable wakeup) throws Exception {
+		Connection dbc = null;
+		ResultSet rs = null;
+		PreparedStatement ps = null;
+		try {
+			dbc = m_ds.getConnection();
+			createTable(dbc); // Make sure a database table exists
+
+			//-- Get the last update #
+			ps = dbc.prepareStatement("select max(upid) from " + m_tableName);
+			rs = ps.executeQuery();
+			if(!rs.next())
+				throw new IllegalStateException("?? Cannot get max update number");
+			long upid = rs.getLong(1);
+			m_delete_upid = 0;
+			m_ts_nextdelete = System.currentTimeMillis() + DELETEINTERVAL;
+			return upid;
+		} finally {
+			FileTool.closeAll(rs, ps, dbc);
+		}
+	}
+
+	/**
+	 * Get all sequence numbers in a single query.
+	 */
+	@Nonnull
+	@Override
+	public long[] allocateIds(@Nonnull Connection dbc, int count) throws Exception {
+		String sql;
+		switch(m_dbtype){
+			default:
+				throw new IllegalStateException("Unhandled DBTYPE: " + m_dbtype);
+			case ORACLE:
+				sql = "select " + m_tableName + "_SQ.nextval from dual connect by level <= ?";
+				break;
+			case POSTGRES:
+				sql = "select nextval('" + m_tableName + "_SQ') from generate_series(1, ?)";
+				break;
+		}
+		long[] ids = new long[count];
+		ResultSet rs = null;
+		PreparedStatement ps = null;
+		try {
+			ps = dbc.prepareStatement(sql);
+			ps.setInt(1, count);
+			rs = ps.executeQuery();
+			int ix = 0;
+			while(ix < count && rs.next())
+				ids[ix++] = rs.getLong(1);
+			if(ix != count)
+				throw new SQLException("Got " + ix + " sequence numbers from " + m_tableName + "_SQ, expected " + count);
+		} finally {
+			FileTool.closeAll(rs, ps);
+		}
+		Arrays.sort(ids);
+		return ids;
+	}
+
+	/**
+	 * Insert all events as a single batch.
+	 */
+	@Override
+	public void store(@Nonnull Connection dbc, @Nonnull List< ? extends AppEventBase> events) throws Exception {
+		PreparedStatement ps = null;
+		try {
+			ps = dbc.prepareStatement("insert into " + m_tableName + "(upid,evname,utime,server,obj) values(?,?,?,?,?)");
+			for(AppEventBase ae : events) {
+				ps.setLong(1, ae.getUpid());
+				ps.setString(2, ae.getClass().getCanonicalName());
+				ps.setTimestamp(3, new Timestamp(ae.getTimestamp().getTime()));
+				ps.setString(4, ae.getServer());
+				ps.setString(5, m_eventMarshaller.marshalEvent(ae));
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		} finally {
+			FileTool.closeAll(ps);
+		}
+	}
+
+	@Override
+	public long receive(@Nonnull IEventSink sink, long afterUpid) throws Exception {
+		Connection dbc = null;
+		ResultSet rs = null;
+		PreparedStatement ps = null;
+		long last = afterUpid;
+		try {
+			dbc = m_ds.getConnection();
+			String sql = "select upid,evname,utime,server,obj from " + m_tableName + " where upid > ? order by upid";
+			LOG.debug(sql);
+			ps = dbc.prepareStatement(sql);
+			ps.setLong(1, afterUpid);
+			rs = ps.executeQuery();
+			while(rs.next()) {
+				long upid = rs.getLong(1);
+				if(upid > last)
+					last = upid;
+				Timestamp ts = rs.getTimestamp(3);
+				String server = rs.getString(4);
+				String objectString = rs.getString(5);
+
+				//-- Unserialize
+				try {
+					AppEventBase act = objectString == null ? null : m_eventMarshaller.unmarshalEvent(objectString);
+					if(act == null) {
+						LOG.debug("Event " + upid + " skipped: the embedded object is null");
+						continue;
+					}
+					sink.event(upid, ts, server, act);
+				} catch(Exception x) {
+					LOG.debug("Event " + upid + ": serialization got exception " + x);
+				}
+			}
+			return last;
+		} finally {
+			FileTool.closeAll(rs, ps, dbc);
+		}
+	}
+
+	/**
+	 * Every 10 minutes, delete the events that were handled 10 minutes ago: all servers have seen them by now.
+	 */
+	@Override
+	public void cleanup(long handledUpid) throws Exception {
+		long deleteupid = 0;
+		synchronized(this) {
+			if(m_delete_upid >= handledUpid)			// Do nothing if nothing happened.
+				return;
+			long ts = System.currentTimeMillis();
+			if(ts < m_ts_nextdelete) // Timeout not expired
+				return;
+			m_ts_nextdelete = ts + DELETEINTERVAL; // Set new timeout
+			deleteupid = m_delete_upid;
+			m_delete_upid = handledUpid;
+		}
+
+		//-- We must delete...
+		Connection dbc = null;
+		PreparedStatement ps = null;
+		try {
+			dbc = m_ds.getConnection();
+			String sql = "delete from " + m_tableName + " where upid < ? or utime < ?";
+			ps = dbc.prepareStatement(sql);
+			ps.setLong(1, deleteupid);
+			Date offsetDate = new Date(System.currentTimeMillis() - 10 * 60 * 1000);
+			ps.setDate(2, offsetDate);			// Everything older than this
+			LOG.debug(sql + " | " + deleteupid + ", " + offsetDate);
+			ps.executeUpdate();
+			dbc.commit();
+		} finally {
+			FileTool.closeAll(ps, dbc);
+		}
+	}
+}
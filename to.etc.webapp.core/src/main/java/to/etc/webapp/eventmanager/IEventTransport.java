@@ -0,0 +1,80 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.webapp.eventmanager;
+
+import java.sql.*;
+import java.util.*;
+
+import javax.annotation.*;
+
+/**
+ * Distributes the events posted by a {@link VpEventManager} to the event managers of all servers in the cluster. The
+ * default transport, {@link DbEventTransport}, stores the events in a database table that every server polls;
+ * {@link LoopbackEventTransport} passes events between event managers in the same JVM, for tests.
+ *
+ * <p>Posting an event takes two calls: {@link #allocateIds(Connection, int)} hands out the upids, after which the
+ * event manager records which events were posted locally, then {@link #store(Connection, List)} stores them. Both
+ * calls handle all events of a post in one go. Transports that store in the database must use the connection passed,
+ * so that the events become visible when the poster's transaction commits.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+public interface IEventTransport {
+	/**
+	 * Receives the events read by {@link IEventTransport#receive(IEventSink, long)}.
+	 */
+	interface IEventSink {
+		void event(long upid, @Nullable java.util.Date timestamp, @Nullable String server, @Nonnull AppEventBase event);
+	}
+
+	/**
+	 * Prepare the transport for use, and return the upid of the last event that already exists: only events
+	 * after it will be delivered. Transports that know when new events arrive call the wakeup to have the event
+	 * manager read them immediately; others are polled.
+	 */
+	long initialize(@Nonnull Runnable wakeup) throws Exception;
+
+	/**
+	 * Allocate new, increasing upids for count events.
+	 */
+	@Nonnull
+	long[] allocateIds(@Nonnull Connection dbc, int count) throws Exception;
+
+	/**
+	 * Store the events, whose upid, timestamp and server have been set. This must not commit.
+	 */
+	void store(@Nonnull Connection dbc, @Nonnull List< ? extends AppEventBase> events) throws Exception;
+
+	/**
+	 * Pass all events after the specified upid to the sink, in upid order. Events that cannot be read are skipped.
+	 * Returns the highest upid read, including skipped events, or afterUpid if nothing was read.
+	 */
+	long receive(@Nonnull IEventSink sink, long afterUpid) throws Exception;
+
+	/**
+	 * Called after every poll, with the upid of the last event handled. Transports can remove old events here.
+	 */
+	void cleanup(long handledUpid) throws Exception;
+}
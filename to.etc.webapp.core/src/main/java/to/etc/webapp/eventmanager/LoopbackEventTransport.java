@@ -0,0 +1,153 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.webapp.eventmanager;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
+/**
+ * An event transport that keeps the events in memory, for tests. Several event managers can share one
+ * instance to act as a cluster inside a single JVM. Storing events wakes up all event managers, so they are
+ * delivered immediately. There are no transactions: events are visible as soon as they are stored, and the
+ * connections passed are not used. The event objects themselves are passed to the listeners, without marshalling.
+ *
+ * Created on Oct 18, 2026
+ */
+public class LoopbackEventTransport implements IEventTransport {
+	/** Events are kept this long. */
+	static private final long RETENTION = 10 * 60 * 1000;
+
+	/** An allocated upid that was not stored after this long is given up. */
+	static private final long PENDING_TIMEOUT = 10 * 1000;
+
+	/** All stored events in upid order. */
+	@Nonnull
+	private final List<AppEventBase> m_events = new ArrayList<AppEventBase>();
+
+	/**
+	 * The upids that were allocated but not stored yet, with their allocation time. Events after the first
+	 * of these are not delivered yet, so that an event that is stored late is not skipped.
+	 */
+	@Nonnull
+	private final TreeMap<Long, Long> m_pendingMap = new TreeMap<Long, Long>();
+
+	@Nonnull
+	private final List<Runnable> m_wakeupList = new CopyOnWriteArrayList<Runnable>();
+
+	private long m_lastId;
+
+	@Override
+	public synchronized long initialize(@Nonnull Runnable wakeup) {
+		m_wakeupList.add(wakeup);
+		return m_lastId;
+	}
+
+	@Nonnull
+	@Override
+	public synchronized long[] allocateIds(@Nonnull Connection dbc, int count) {
+		long[] ids = new long[count];
+		Long now = Long.valueOf(System.currentTimeMillis());
+		for(int i = 0; i < count; i++) {
+			ids[i] = ++m_lastId;
+			m_pendingMap.put(Long.valueOf(ids[i]), now);
+		}
+		return ids;
+	}
+
+	@Override
+	public void store(@Nonnull Connection dbc, @Nonnull List< ? extends AppEventBase> events) {
+		synchronized(this) {
+			for(AppEventBase ae : events) {
+				m_pendingMap.remove(Long.valueOf(ae.getUpid()));
+				int ix = m_events.size();
+				while(ix > 0 && m_events.get(ix - 1).getUpid() > ae.getUpid())
+					ix--;
+				m_events.add(ix, ae);
+			}
+		}
+		for(Runnable r : m_wakeupList)
+			r.run();
+	}
+
+	@Override
+	public long receive(@Nonnull IEventSink sink, long afterUpid) {
+		List<AppEventBase> list = new ArrayList<AppEventBase>();
+		synchronized(this) {
+			long limit = Long.MAX_VALUE;
+			long expired = System.currentTimeMillis() - PENDING_TIMEOUT;
+			for(Iterator<Map.Entry<Long, Long>> it = m_pendingMap.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<Long, Long> me = it.next();
+				if(me.getValue().longValue() >= expired) {
+					limit = me.getKey().longValue();
+					break;
+				}
+				it.remove();
+			}
+
+			for(int i = firstAfter(afterUpid); i < m_events.size(); i++) {
+				AppEventBase ae = m_events.get(i);
+				if(ae.getUpid() >= limit)
+					break;
+				list.add(ae);
+			}
+		}
+
+		long last = afterUpid;
+		for(AppEventBase ae : list) {
+			sink.event(ae.getUpid(), ae.getTimestamp(), ae.getServer(), ae);
+			last = ae.getUpid();
+		}
+		return last;
+	}
+
+	/**
+	 * The index of the first event with an upid higher than the one passed.
+	 */
+	private int firstAfter(long upid) {
+		int lo = 0;
+		int hi = m_events.size();
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(m_events.get(mid).getUpid() <= upid)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	@Override
+	public synchronized void cleanup(long handledUpid) {
+		long ts = System.currentTimeMillis() - RETENTION;
+		int count = 0;
+		while(count < m_events.size() && m_events.get(count).getTimestamp().getTime() < ts)
+			count++;
+		if(count > 0)
+			m_events.subList(0, count).clear();
+	}
+}
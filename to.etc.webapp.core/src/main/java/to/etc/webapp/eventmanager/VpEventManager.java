@@ -27,7 +27,6 @@ package to.etc.webapp.eventmanager;
 import java.lang.ref.*;
 import java.net.*;
 import java.sql.*;
-import java.sql.Date;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -37,7 +36,6 @@ import javax.sql.*;
 import org.slf4j.*;
 
 import to.etc.util.*;
-import to.etc.webapp.testsupport.*;
 
 /**
  * <h1>Overview</h1>
@@ -139,25 +137,50 @@ import to.etc.webapp.testsupport.*;
  * geziene event steeds te bewaren. Dit voorkomt tevens dat de event tabel steeds in het geheel
  * doorgelezen moet worden om nieuwe events te vinden.</p>
  *
+ * <h2>Transports</h2>
+ * <p>How events get to the other servers is decided by the {@link IEventTransport}. The table described above is
+ * the default, {@link DbEventTransport}; {@link LoopbackEventTransport} passes events inside the JVM, for tests. All
+ * events of a single post are stored with one sequence query and one batched insert. The polling interval adapts:
+ * after events were seen the table is polled every {@link #MIN_POLLINTERVAL} ms, and when nothing happens the interval
+ * doubles up to {@link #MAX_POLLINTERVAL} ms, which is never slower than the fixed poll of one second this replaced.
+ * A commit of a posted event on this server, or a signal from the transport, causes an immediate poll.</p>
+ *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Sep 12, 2006
  */
 public class VpEventManager implements Runnable {
 	static private final Logger LOG = LoggerFactory.getLogger(VpEventManager.class);
 
-	static private final long DELETEINTERVAL = 10 * 60 * 1000;
+	/** The poll interval right after events were seen, in ms. */
+	static public final long MIN_POLLINTERVAL = 20;
 
-	static private final long POLLINTERVAL = 1 * 1000;
+	/**
+	 * The poll interval when nothing happens, in ms. Transports that do not signal new events, like
+	 * {@link DbEventTransport}, deliver the events of other servers within this time.
+	 */
+	static public final long MAX_POLLINTERVAL = 1000;
+
+	static private final Item[] NO_ITEMS = new Item[0];
 
 	static private class Item {
-		public Object m_obj;
+		public final Object m_obj;
 
-		public ListenerType m_type;
+		public final ListenerType m_type;
 
 		public Item(final ListenerType t, final Object o) {
 			m_type = t;
 			m_obj = o;
 		}
+
+		boolean isDead() {
+			return m_obj instanceof Reference< ? > && ((Reference< ? >) m_obj).get() == null;
+		}
+
+		boolean isFor(@Nonnull Object listener) {
+			if(m_obj instanceof Reference< ? >)
+				return ((Reference< ? >) m_obj).get() == listener;
+			return m_obj == listener;
+		}
 	};
 
 	@Nullable
@@ -168,13 +191,7 @@ public class VpEventManager implements Runnable {
 	static private ThreadLocal<VpEventManager> m_testInstances;
 
 	@Nonnull
-	private DataSource m_ds;
-
-	@Nonnull
-	private String m_tableName;
-
-	@Nonnull
-	private IEventMarshaller m_eventMarshaller;
+	private final IEventTransport m_transport;
 
 	/** The last update ID that was encountered while scanning the set. */
 	private long m_upid = -1;
@@ -182,30 +199,23 @@ public class VpEventManager implements Runnable {
 	/** The cached local DNS name for this server, info pps */
 	private String m_serverName;
 
-	/** The time that we need to delete stuff again, */
-	private long m_ts_nextdelete;
-
-	/** The upid to delete up to */
-	private long m_delete_upid;
-
 	/** When set the event manager will stop. */
 	private boolean m_stop;
 
+	/** Set when new events may be available, so that the event thread must poll now. */
+	private boolean m_wakeup;
+
 	/** The thread executing the event handler's main loop. */
 	private Thread m_handlerThread;
 
 	private final TreeSet<Long> m_localEvents = new TreeSet<Long>();
 
 	/**
-	 * The listeners to events, indexed by their event name.
+	 * The listeners to events, indexed by their event name. Both the map and the arrays are never changed
+	 * but replaced, so that they can be read without locking.
 	 */
-	private final Map<String, List<Item>> m_listenerList = new HashMap<String, List<Item>>();
-
-	enum DbType {
-		ORACLE, POSTGRES
-	};
-
-	private DbType m_dbtype;
+	@Nonnull
+	private volatile Map<String, Item[]> m_listenerMap = new HashMap<>();
 
 	private long m_lastHandled;
 
@@ -213,10 +223,8 @@ public class VpEventManager implements Runnable {
 	/*	CODING:	Singleton init.                                  	*/
 	/*--------------------------------------------------------------*/
 
-	private VpEventManager(@Nonnull final DataSource ds, @Nonnull final String tableName, @Nonnull final IEventMarshaller eventMarshaller) {
-		m_ds = ds;
-		m_tableName = tableName;
-		m_eventMarshaller = eventMarshaller;
+	VpEventManager(@Nonnull final IEventTransport transport) {
+		m_transport = transport;
 		try {
 			m_serverName = InetAddress.getLocalHost().getCanonicalHostName();
 		} catch(Exception x) {
@@ -247,35 +255,33 @@ public class VpEventManager implements Runnable {
 	}
 
 	private static VpEventManager initDummyEventManagerForTest() {
-		IEventMarshaller dummyEM = new IEventMarshaller() {
-			@Override
-			public <T extends AppEventBase> T unmarshalEvent(String varchar) throws Exception {
-				return null;
-			}
-
-			@Override
-			public String marshalEvent(AppEventBase event) throws Exception {
-				return "";
-			}
-		};
-		return new VpEventManager(new TestDataSourceStub(), "sys_vp_events", dummyEM);
+		return new VpEventManager(new LoopbackEventTransport());
 	}
 
 	/**
-	 * Initialize for production mode.
+	 * Initialize for production mode, using the database table as the transport.
 	 * @param ds
 	 * @param tableName
 	 * @param eventMarshaller
 	 * @throws Exception
 	 */
 	static public synchronized void initialize(final DataSource ds, final String tableName, @Nonnull final IEventMarshaller eventMarshaller) throws Exception {
+		initialize(new DbEventTransport(ds, tableName, eventMarshaller));
+	}
+
+	/**
+	 * Initialize for production mode, using the specified transport.
+	 * @param transport
+	 * @throws Exception
+	 */
+	static public synchronized void initialize(@Nonnull IEventTransport transport) throws Exception {
 		ThreadLocal<VpEventManager> tl = m_testInstances;
 		if(null != tl)
 			throw new IllegalStateException("The VpEventManager has already been initialized for TEST mode");
 		if(m_instance != null)
 			return;
 
-		VpEventManager em = new VpEventManager(ds, tableName, eventMarshaller);
+		VpEventManager em = new VpEventManager(transport);
 		em.init();
 		m_instance = em;
 	}
@@ -319,93 +325,16 @@ public class VpEventManager implements Runnable {
 			log("The event manager's thread failed to die!?");
 	}
 
-	/**
-	 * Tries to create the table if it doesn't exist. Ignores all errors.
-	 *
-	 * @param dbc
-	 */
-	private void createTable(final Connection dbc) {
-		PreparedStatement ps = null;
-		try {
-			//-- Determine the database type
-			String name = dbc.getMetaData().getDatabaseProductName().toLowerCase();
-			if(name.contains("oracle"))
-				m_dbtype = DbType.ORACLE;
-			else if(name.contains("postgres"))
-				m_dbtype = DbType.POSTGRES;
-			else
-				throw new IllegalStateException("Unsupported database type: " + name);
-
-			String tbl, seq;
-			switch(m_dbtype){
-				default:
-					throw new IllegalStateException("Unhandled DBTYPE: " + m_dbtype);
-				case ORACLE:
-					tbl = "create table " + m_tableName
-						+ "( upid numeric(20,0) not null primary key, utime date not null, evname varchar(80) not null, server varchar(32) not null, obj varchar2(4000 char))";
-					seq = "create sequence " + m_tableName + "_SQ start with 1 increment by 1";
-					break;
-
-				case POSTGRES:
-					tbl = "create table " + m_tableName
-						+ "( upid numeric(20,0) not null primary key, utime date not null, evname varchar(80) not null, server varchar(32) not null, obj varchar(4000))";
-					seq = "create sequence " + m_tableName + "_SQ start with 1 increment by 1";
-					break;
-			}
-			ps = dbc.prepareStatement(tbl);
-			ps.executeUpdate();
-			ps.close();
-
-			//-- Create the sequence,
-			ps = dbc.prepareStatement(seq);
-			ps.executeUpdate();
-		} catch(Exception x) {
-			String msg = x.toString().toLowerCase();
-
-			//-- Ignore silly errors.
-			if(msg.contains("ora-00955"))
-				return;
-			if(msg.contains("exist"))
-				return;
-			System.out.println("SystemEventManager: table creation exception " + x + ", if this is just because the table already exists there is no problem.");
-		} finally {
-			try {
-				if(ps != null)
-					ps.close();
-			} catch(Exception x) {}
-		}
-	}
-
 	/**
 	 * This initializes the event manager and should be called early in system startup. System startup should abort (fail) if this
-	 * causes an exception. This creates the database table (if needed), opens the event manager for event registration
+	 * causes an exception. This initializes the transport (creating the database table if needed), opens the event manager for event registration
 	 * and allows posting events. The event handler thread is *not* started though - it should be started by a call to start() after
 	 * system initialization completes fully, to allow started events to use the entire system.
 	 *
-	 * @param ds
-	 * @param tableName
 	 * @throws Exception
 	 */
-	private synchronized void init() throws Exception {
-		Connection dbc = null;
-		ResultSet rs = null;
-		PreparedStatement ps = null;
-		try {
-			dbc = m_ds.getConnection();
-			createTable(dbc); // Make sure a database table exists
-
-			//-- Get the last update #
-			ps = dbc.prepareStatement("select max(upid) from " + m_tableName);
-			rs = ps.executeQuery();
-			if(!rs.next())
-				throw new IllegalStateException("?? Cannot get max update number");
-			m_upid = rs.getLong(1);
-			m_delete_upid = 0;
-			m_ts_nextdelete = System.currentTimeMillis() + DELETEINTERVAL;
-			checkPendingDeletes(dbc);
-		} finally {
-			FileTool.closeAll(rs, ps, dbc);
-		}
+	synchronized void init() throws Exception {
+		m_upid = m_transport.initialize(this::wakeup);
 	}
 
 	/**
@@ -416,155 +345,68 @@ public class VpEventManager implements Runnable {
 			return;
 		if(inJUnitTestMode())
 			return;
-
-		synchronized(m_instance) {
-			if(m_handlerThread != null)
-				return;
-			m_handlerThread = new Thread(this);
-			m_handlerThread.setName("SystemEventManager");
-			m_handlerThread.setDaemon(true);
-			m_handlerThread.start();
-		}
+		startThread();
 	}
 
-	/*--------------------------------------------------------------*/
-	/*	CODING:	Reading and cleaning up events.                     */
-	/*--------------------------------------------------------------*/
-	private void checkPendingDeletes(final Connection dbc) throws Exception {
-		long deleteupid = 0;
-		synchronized(this) {
-			if(m_delete_upid >= m_upid)			// Do nothing if nothing happened.
-				return;
-			long ts = System.currentTimeMillis();
-			if(ts < m_ts_nextdelete) // Timeout not expired
-				return;
-			m_ts_nextdelete = ts + DELETEINTERVAL; // Set new timeout
-			deleteupid = m_delete_upid;
-			m_delete_upid = m_upid;
-		}
-
-		//-- We must delete...
-		PreparedStatement ps = null;
-		try {
-			String sql = "delete from " + m_tableName + " where upid < ? or utime < ?";
-			ps = dbc.prepareStatement(sql);
-			ps.setLong(1, deleteupid);
-			Date offsetDate = new Date(System.currentTimeMillis() - 10 * 60 * 1000);
-			ps.setDate(2, offsetDate);			// Everything older than this
-			LOG.debug(sql + " | " + deleteupid + ", " + offsetDate);
-			ps.executeUpdate();
-			dbc.commit();
-		} finally {
-			try {
-				if(ps != null)
-					ps.close();
-			} catch(Exception x) {}
-		}
+	synchronized void startThread() {
+		if(m_handlerThread != null)
+			return;
+		m_handlerThread = new Thread(this);
+		m_handlerThread.setName("SystemEventManager");
+		m_handlerThread.setDaemon(true);
+		m_handlerThread.start();
 	}
 
 	/**
-	 * Checks for updates on this checker, and handles them if found. To prevent
-	 * multiple threads from handling updates this locks the instance.
+	 * Make the event thread poll for new events now.
 	 */
-	private void scanNewEvents(final List<AppEventBase> al, final Set<Long> localeventset) throws Exception {
-		Connection dbc = m_ds.getConnection();
-		ResultSet rs = null;
-		PreparedStatement ps = null;
-		long upid;
+	private void wakeup() {
 		synchronized(this) {
-			upid = m_upid;
-		}
-		try {
-			String sql = "select upid,evname,utime,server,obj from " + m_tableName + " where upid > ? order by upid";
-			LOG.debug(sql);
-			ps = dbc.prepareStatement(sql);
-			ps.setLong(1, upid);
-			rs = ps.executeQuery();
-			while(rs.next()) {
-				readEventObject(rs, al);
-			}
-			if(al.size() > 0) {
-//				StringBuilder sb = new StringBuilder();
-//				sb.append("EV: read ");
-//				for(AppEventBase ae : al) {
-//					sb.append(ae.getUpid()).append("/");
-//				}
-//				System.out.println(sb.toString());
-
-				//-- Remove all saved "locally generated" events up to the event we've just read,
-				synchronized(this) {
-					Iterator<Long> it = m_localEvents.iterator();
-					while(it.hasNext()) {
-						Long v = it.next();
-						if(v.longValue() <= upid) {
-							it.remove();
-							localeventset.add(v);
-						} else
-							break;
-					}
-				}
-			}
-
-			checkPendingDeletes(dbc);
-		} finally {
-			try {
-				if(rs != null)
-					rs.close();
-			} catch(Exception x) {}
-			try {
-				if(ps != null)
-					ps.close();
-			} catch(Exception x) {}
-			try {
-				if(dbc != null)
-					dbc.close();
-			} catch(Exception x) {}
+			m_wakeup = true;
+			notifyAll();
 		}
 	}
 
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Reading and cleaning up events.                     */
+	/*--------------------------------------------------------------*/
 	/**
-	 * Reads a single row from the event list. Skips serialization errors.
-	 * @param rs
-	 * @param al
-	 * @throws Exception
+	 * Reads all new events from the transport.
 	 */
-	private void readEventObject(final ResultSet rs, final List<AppEventBase> al) throws Exception {
-		//-- 1. Get fields
-		long upid = rs.getLong(1);
+	private void scanNewEvents(final List<AppEventBase> al, final Set<Long> localeventset) throws Exception {
+		long upid;
 		synchronized(this) {
-			if(upid > m_upid)
-				m_upid = upid;
+			upid = m_upid;
 		}
-		//        String  evname  = rs.getString(2);
-		Timestamp ts = rs.getTimestamp(3);
-		String server = rs.getString(4);
-		String objectString = rs.getString(5);
-
-		//-- Unserialize
-		try {
-			AppEventBase act = m_eventMarshaller.unmarshalEvent(objectString);
-			if(act == null) {
-				log("Event " + upid + " skipped: the embedded object is null");
-				return;
-			}
-
-
+		long last = m_transport.receive((id, ts, server, e) -> {
 			//-- Update the AppEvent with the data read (should not be necessary)
-			AppEventBase e = act;
 			e.setServer(server);
 			e.setTimestamp(ts);
-			e.setUpid(upid);
+			e.setUpid(id);
 			al.add(e);
-		} catch(Exception x) {
-			log("Event " + upid + ": serialization got exception " + x);
-			//			x.printStackTrace();
+		}, upid);
+
+		synchronized(this) {
+			if(last > m_upid)
+				m_upid = last;
+
+			//-- Remove all saved "locally generated" events up to the event we've just read,
+			Iterator<Long> it = m_localEvents.iterator();
+			while(it.hasNext()) {
+				Long v = it.next();
+				if(v.longValue() <= last) {
+					it.remove();
+					localeventset.add(v);
+				} else
+					break;
+			}
 		}
+		m_transport.cleanup(last);
 	}
 
 	private void handleEvents(final List<AppEventBase> list, final Set<Long> localeventset) {
 		for(int i = 0; i < list.size(); i++) {
 			AppEventBase ae = list.get(i);
-//			System.out.println("EV: Handle event " + ae.getUpid() + ", " + ae.getClass().getName());
 			callListeners(ae, false, localeventset.contains(Long.valueOf(ae.getUpid()))); // Call all handlers that need delayed notification
 			synchronized(this) {
 				m_lastHandled = ae.getUpid();
@@ -574,41 +416,50 @@ public class VpEventManager implements Runnable {
 	}
 
 	/**
-	 * Janitor-called entry which scans for new events and passes them on.
+	 * Scans for new events and passes them on. Returns the #of events found.
 	 */
-	private void scanOnce() {
+	private int scanOnce() {
 		try {
 			List<AppEventBase> list = new ArrayList<AppEventBase>();
 			Set<Long> localeventset = new HashSet<Long>();
 			scanNewEvents(list, localeventset);
 			if(list.size() == 0)
-				return;
+				return 0;
 			log("Forwarding " + list.size() + " events.");
 			handleEvents(list, localeventset);
+			return list.size();
 		} catch(Exception x) {
 			x.printStackTrace();
+			return 0;
 		}
 	}
 
 	/**
-	 * Thread entry.
+	 * Thread entry. Polls every MIN_POLLINTERVAL ms after events have been seen, and doubles the interval
+	 * up to MAX_POLLINTERVAL when nothing happens. A wakeup forces an immediate poll.
 	 *
 	 * @see java.lang.Runnable#run()
 	 */
 	@Override
 	public void run() {
 		try {
+			long interval = MIN_POLLINTERVAL;
 			for(;;) {
 				synchronized(this) {
 					if(m_stop) {
 						log("event manager terminates due to STOP request");
 						return;
 					}
-					wait(POLLINTERVAL);
+					if(!m_wakeup)
+						wait(interval);
+					m_wakeup = false;
 					if(m_stop)
 						return;
 				}
-				scanOnce();
+				if(scanOnce() > 0)
+					interval = MIN_POLLINTERVAL;
+				else
+					interval = Math.min(interval * 2, MAX_POLLINTERVAL);
 			}
 		} catch(Throwable t) {
 			t.printStackTrace();
@@ -638,51 +489,47 @@ public class VpEventManager implements Runnable {
 	 * handler will be called immediately).
 	 */
 	public long sendEventMain(@Nonnull final Connection dbc, @Nonnull final AppEventBase ae, final boolean commit, final boolean isimmediate) throws Exception {
-		ResultSet rs = null;
-		PreparedStatement ps = null;
+		List<AppEventBase> list = new ArrayList<>(1);
+		list.add(ae);
+		sendEvents(dbc, list, commit, isimmediate);
+		return ae.getUpid();
+	}
+
+	/**
+	 * Store all events through the transport with a single allocation and a single store.
+	 */
+	private void sendEvents(@Nonnull final Connection dbc, @Nonnull final List< ? extends AppEventBase> list, final boolean commit, final boolean isimmediate) throws Exception {
+		if(list.isEmpty())
+			return;
 		boolean ac = dbc.getAutoCommit(); // Do not autocommit when storing a blub
 		boolean ok = false;
 		try {
 			if(ac)
 				dbc.setAutoCommit(false);
 
-			//-- Get a new upid
-			ps = dbc.prepareStatement("select " + m_tableName + "_SQ.nextval from dual");
-			rs = ps.executeQuery();
-			if(!rs.next())
-				throw new SQLException("No result from select-from-sequence!?");
-			long id = rs.getLong(1);
-			rs.close();
-			ps.close();
-
-			//-- Update the event with it's info
-			ae.setUpid(id); // Update the UPID,
-			ae.setTimestamp(now());
-			ae.setServer(m_serverName);
+			//-- Get new upids and update the events with their info
+			long[] ids = m_transport.allocateIds(dbc, list.size());
+			Timestamp ts = now();
+			for(int i = 0; i < ids.length; i++) {
+				AppEventBase ae = list.get(i);
+				ae.setUpid(ids[i]);
+				ae.setTimestamp(ts);
+				ae.setServer(m_serverName);
+			}
 
 			if(isimmediate) { // Handlers will be called immediately after this?
 				synchronized(this) {
-					m_localEvents.add(Long.valueOf(id)); // Store this as a local event,
+					for(long id : ids)
+						m_localEvents.add(Long.valueOf(id)); // Store this as a local event,
 				}
 			}
 
-			//-- Store the record,
-			ps = dbc.prepareStatement("insert into " + m_tableName + "(upid,evname,utime,server,obj) values(?,?,?,?,?)");
-			ps.setLong(1, id);
-			ps.setString(2, ae.getClass().getCanonicalName());
-			ps.setTimestamp(3, (Timestamp) ae.getTimestamp());
-			ps.setString(4, ae.getServer());
-			ps.setString(5, m_eventMarshaller.marshalEvent(ae));
-			ps.executeUpdate();
-			ps.close();
-
-			rs.close();
-			ps.close();
+			//-- Store the records,
+			m_transport.store(dbc, list);
 			if(commit) {
 				dbc.commit();
 			}
 			ok = true;
-			return id;
 		} finally {
 			try {
 				if(!ok)
@@ -692,8 +539,9 @@ public class VpEventManager implements Runnable {
 				if(ac && commit)
 					dbc.setAutoCommit(true);
 			} catch(Exception x) {}
-			FileTool.closeAll(rs, ps);
 		}
+		if(commit)
+			wakeup();
 	}
 
 	/*--------------------------------------------------------------*/
@@ -701,31 +549,21 @@ public class VpEventManager implements Runnable {
 	/*--------------------------------------------------------------*/
 
 	private synchronized void addListener(@Nonnull final Class< ? > cl, @Nonnull final ListenerType lt, @Nonnull final AppEventListener< ? > listener, final boolean weak) {
-		List<Item> l = m_listenerList.get(cl.getName());
-		if(l == null) {
-			l = new ArrayList<Item>(5);
-			m_listenerList.put(cl.getName(), l);
-		}
-
-		//-- Already registered?
-		for(int i = l.size(); --i >= 0;) {
-			Item it = l.get(i);
-			if(it.m_obj instanceof Reference< ? >) {
-				Reference< ? > r = (Reference< ? >) it.m_obj;
-				if(r.get() == listener) // Already registered as WEAK listener
-					return;
-				if(r.get() == null) {
-					l.remove(i);
-				}
-			} else {
-				if(it.m_obj == listener)
+		Item[] old = m_listenerMap.get(cl.getName());
+		List<Item> l = new ArrayList<Item>();
+		if(null != old) {
+			for(Item it : old) {
+				if(it.isFor(listener)) // Already registered?
 					return;
+				if(!it.isDead())
+					l.add(it);
 			}
 		}
 		if(weak)
 			l.add(new Item(lt, new WeakReference<Object>(listener)));
 		else
 			l.add(new Item(lt, listener));
+		replaceListeners(cl, l);
 	}
 
 	/**
@@ -734,35 +572,37 @@ public class VpEventManager implements Runnable {
 	 * @param listener
 	 */
 	public synchronized void removeListener(@Nonnull final Class< ? > cl, @Nonnull final AppEventListener< ? > listener) {
-		List<Item> l = m_listenerList.get(cl.getName());
-		if(l == null)
+		Item[] old = m_listenerMap.get(cl.getName());
+		if(old == null)
 			return;
-		for(int i = l.size(); --i >= 0;) {
-			Item it = l.get(i);
-			if(it.m_obj instanceof Reference< ? >) {
-				Reference< ? > r = (Reference< ? >) it.m_obj;
-				if(r.get() == listener) {
-					l.remove(i);
-					return;
-				} else if(r.get() == null) {
-					l.remove(i);
-				}
-			} else {
-				if(it.m_obj == listener) {
-					l.remove(i);
-					return;
-				}
-			}
+		List<Item> l = new ArrayList<Item>();
+		for(Item it : old) {
+			if(!it.isFor(listener) && !it.isDead())
+				l.add(it);
 		}
+		replaceListeners(cl, l);
 	}
 
-	private synchronized void getListeners(@Nonnull final List<AppEventListener<AppEventBase>> list, @Nonnull final AppEventBase ae, final boolean ateventtime, final boolean islocalevent) {
+	/**
+	 * Publish a new copy of the listener map with the new listener list for the class.
+	 */
+	private void replaceListeners(@Nonnull Class< ? > cl, @Nonnull List<Item> l) {
+		Map<String, Item[]> map = new HashMap<String, Item[]>(m_listenerMap);
+		if(l.isEmpty())
+			map.remove(cl.getName());
+		else
+			map.put(cl.getName(), l.toArray(NO_ITEMS));
+		m_listenerMap = map;
+	}
+
+	private void getListeners(@Nonnull final List<AppEventListener<AppEventBase>> list, @Nonnull final AppEventBase ae, final boolean ateventtime, final boolean islocalevent) {
+		Map<String, Item[]> map = m_listenerMap;
 		Class< ? > cl = ae.getClass();
 		for(;;) {
-			List<Item> l = m_listenerList.get(cl.getName()); // List of registrations for the current type
+			Item[] l = map.get(cl.getName()); // List of registrations for the current type
 			if(l != null) {
-				for(int i = l.size(); --i >= 0;) {
-					Item it = l.get(i); // Get listener desc
+				for(int i = l.length; --i >= 0;) {
+					Item it = l[i]; // Get listener desc
 					if(ateventtime) {
 						/*
 						 * When the event fires we need all listeners that are to be delivered locally only
@@ -779,13 +619,9 @@ public class VpEventManager implements Runnable {
 
 					Object o = it.m_obj;
 					if(o instanceof Reference< ? >) {
-						Reference< ? > r = (Reference< ? >) o;
-						Object lsnr = r.get();
-						if(lsnr == null) {
-							l.remove(i);
-						} else {
-							list.add((AppEventListener<AppEventBase>) l); // Found a weak listener; add.
-						}
+						Object lsnr = ((Reference< ? >) o).get();
+						if(lsnr != null)
+							list.add((AppEventListener<AppEventBase>) lsnr); // Found a weak listener; add. Dead ones are removed on the next change.
 					} else {
 						list.add((AppEventListener<AppEventBase>) o); // Found normal listener
 					}
@@ -880,12 +716,11 @@ public class VpEventManager implements Runnable {
 	 * @throws Exception
 	 */
 	public void postDelayedEvent(@Nonnull final Connection dbc, @Nonnull final List< ? extends AppEventBase> ae) throws Exception {
-		for(AppEventBase a : ae) {
-			if(inJUnitTestMode()) {
+		if(inJUnitTestMode()) {
+			for(AppEventBase a : ae)
 				callListeners(a, true, true); 			// Call all listeners that need the event immediately. ORDER IMPORTANT: must be after sendEvent.
-			} else {
-				sendEventMain(dbc, a, false, false);	// First save the thingy everywhere, ORDER IMPORTANT!!
-			}
+		} else {
+			sendEvents(dbc, ae, false, false);			// First save the thingy everywhere, ORDER IMPORTANT!!
 		}
 	}
 
@@ -900,12 +735,10 @@ public class VpEventManager implements Runnable {
 	 * @throws Exception
 	 */
 	public void postEvent(@Nonnull final Connection dbc, @Nonnull final List< ? extends AppEventBase> aelist) throws Exception {
-		if(!inJUnitTestMode()) {
-			for(AppEventBase ae : aelist) {
-				sendEventMain(dbc, ae, false, true); // First save the thingy everywhere, ORDER IMPORTANT!!
-			}
-		}
-		dbc.commit();
+		if(!inJUnitTestMode())
+			sendEvents(dbc, aelist, true, true); // First save the thingy everywhere, ORDER IMPORTANT!!
+		else
+			dbc.commit();
 
 		//-- Call all local handlers immediately.
 		for(AppEventBase ae : aelist) {
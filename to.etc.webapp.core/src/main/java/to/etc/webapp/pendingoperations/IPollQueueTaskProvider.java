@@ -26,7 +26,9 @@ package to.etc.webapp.pendingoperations;
 
 /**
  * A thingy which gets polled regularly for new tasks to execute by the
- * polling queue provider.
+ * polling queue provider. A provider that knows it has work should call
+ * {@link PollingWorkerQueue#checkProvider(IPollQueueTaskProvider)} so that it
+ * is asked for it immediately instead of at the next poll.
  *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Mar 4, 2009
@@ -41,4 +43,12 @@ public interface IPollQueueTaskProvider {
 	 * @throws Exception
 	 */
 	Runnable getRunnableTask() throws Exception;
+
+	/**
+	 * The #of tasks this provider knows to be waiting, for metrics. Providers that
+	 * cannot tell cheaply return 0.
+	 */
+	default int getQueueDepth() {
+		return 0;
+	}
 }
@@ -53,6 +53,10 @@ final public class PendingOperationTask implements Runnable, ILogSink {
 		m_list = list;
 	}
 
+	List<PendingOperation> getOperationList() {
+		return m_list;
+	}
+
 	/**
 	 * Loop through all pendingOperations and execute them one by one. Aborts as soon as an operation fails.
 	 * @see java.lang.Runnable#run()
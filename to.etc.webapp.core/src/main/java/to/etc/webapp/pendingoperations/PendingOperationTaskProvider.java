@@ -32,12 +32,14 @@ import java.util.Date;
 import javax.annotation.*;
 import javax.sql.*;
 
+import to.etc.dbutil.*;
 import to.etc.util.*;
 
 /**
  * This polled task provider checks for tasks to execute in the sys_pending_operations table. It
  * handles all polling chores and properly handles all order requirements for pending operations. Operations
- * here are checked only every 5 minutes.
+ * are claimed in batches of a few per worker thread; when none are found the table is checked again after
+ * a minute, or when a new operation is saved.
  *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Mar 4, 2009
@@ -54,7 +56,13 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 	/** The single-thread usage baton. */
 	private boolean m_inUse;
 
-	private int m_lastSelectedIndex;
+	/** The id of the last operation selected by the previous claim; the next claim continues after it. */
+	private long m_lastSelectedId;
+
+	/** Tasks claimed by this server that have not been handed to a worker yet. */
+	private final Deque<PendingOperationTask> m_claimedTasks = new ArrayDeque<PendingOperationTask>();
+
+	private volatile int m_prefetchPerWorker = 2;
 
 	private long m_tsNextCheck;
 
@@ -62,12 +70,16 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 
 	private List<IPendingOperationListener> m_listeners = Collections.EMPTY_LIST;
 
-	//	private PendingOperationTaskProvider(final DataSource ds, final String serverID) {
-	//		m_ds = ds;
-	//		m_serverID = serverID;
-	//	}
 	private PendingOperationTaskProvider() {}
 
+	/**
+	 * For tests and benchmarks: a provider that is not registered with a worker queue.
+	 */
+	PendingOperationTaskProvider(final DataSource ds, final String serverID) {
+		m_ds = ds;
+		m_serverID = serverID;
+	}
+
 	/**
 	 * Initializes this thing, and adds it to the worker queue handler.
 	 * @param serverID
@@ -146,28 +158,37 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 	}
 
 	/**
-	 * This checks for a new pending operation to execute. Only one thread can use this
-	 * operation at a time. The first thread that enters this method obtains the baton
-	 * and is allowed to continue. Other threads entering see that the baton is used and
-	 * exit immediately, without a task.
+	 * This checks for a new pending operation to execute. Tasks that were claimed earlier but not yet
+	 * executed are returned first. When there are none, one thread at a time may claim a new batch: the
+	 * first thread that enters obtains the baton and is allowed to continue. Other threads entering see
+	 * that the baton is used and exit immediately, without a task.
 	 *
 	 * @see to.etc.webapp.pendingoperations.IPollQueueTaskProvider#getRunnableTask()
 	 */
-
 	@Override
 	public Runnable getRunnableTask() throws Exception {
 		long cts = System.currentTimeMillis();
 		boolean cleanup = false;
+		PendingOperationTask task;
+		boolean more;
+		synchronized(this) {
+			task = m_claimedTasks.poll();
+			more = !m_claimedTasks.isEmpty();
+		}
+		if(task != null) {
+			if(more)
+				wakeWorker();							// More claimed: let another thread take one
+			return task;
+		}
 		synchronized(this) {
 			if(m_inUse || cts < m_tsNextCheck) { // Not yet time to check again?
-			//				System.out.println("potp: no need to scan for PendingOperation");
 				return null;
 			}
 			m_inUse = true;
 
 			if(cts >= m_tsNextCleanup) {
 				cleanup = true;
-				m_tsNextCleanup = 4 * 60 * 60 * 1000; // Cleanup every 4 hours
+				m_tsNextCleanup = cts + 4 * 60 * 60 * 1000; // Cleanup every 4 hours
 			}
 		}
 		if(cleanup)
@@ -175,13 +196,19 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 
 		//-- We own this now. Handle the thread;
 		try {
-			//			System.out.println("potp: scanning for next task...");
-			Runnable task = findBestTask();
-			//			System.out.println("potp: got task="+task);
-			if(task != null) {
-				m_executor.checkProvider(this); // Notify, allowing another thread to check for task actions too.
+			List<PendingOperationTask> list = claimTasks(getClaimSize());
+			if(list.isEmpty()) {
+				//-- Could not allocate job- exit and try again in x minutes.
+				synchronized(this) {
+					m_tsNextCheck = System.currentTimeMillis() + 1 * 60 * 1000;
+				}
+				return null;
 			}
-			return task;
+			synchronized(this) {
+				m_claimedTasks.addAll(list.subList(1, list.size()));
+			}
+			wakeWorker(); 								// Notify, allowing another thread to check for task actions too.
+			return list.get(0);
 		} finally {
 			synchronized(this) { // Make sure the baton is released all the time
 				m_inUse = false;
@@ -189,6 +216,33 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 		}
 	}
 
+	@Override
+	public synchronized int getQueueDepth() {
+		return m_claimedTasks.size();
+	}
+
+	private void wakeWorker() {
+		PollingWorkerQueue pwq = m_executor;
+		if(null != pwq)
+			pwq.checkProvider(this);
+	}
+
+	/**
+	 * Set the #of tasks claimed at once per worker thread. Claimed tasks are owned by this server until they
+	 * run, so keep this small when tasks take long.
+	 */
+	public void setPrefetchPerWorker(int count) {
+		if(count < 1)
+			throw new IllegalArgumentException("Prefetch must be at least 1");
+		m_prefetchPerWorker = count;
+	}
+
+	private int getClaimSize() {
+		PollingWorkerQueue pwq = m_executor;
+		int workers = pwq == null ? 1 : Math.max(1, pwq.getRunningThreads());
+		return workers * m_prefetchPerWorker;
+	}
+
 	/**
 	 * Checks whether it's time to cleanup the database.
 	 */
@@ -232,92 +286,110 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 	}
 
 	/**
-	 * Opens sys_pending_operations in LOCK mode, then allocates the next-task(set)-to-run from it.
-	 * @return
+	 * Claims up to limit runnable tasks. The runnable operations are selected with a select that locks only the
+	 * rows it returns and that skips rows being claimed by other servers (when the database supports that; the SQL
+	 * comes from the database's {@link BaseDB}). The selection continues after the last operation claimed before,
+	 * so that groups that cannot run do not starve the rest. The order groups of the selected operations are then
+	 * loaded in one go, and every group that can run becomes a single task. All operations in the returned tasks
+	 * are marked as executing on this server.
+	 *
+	 * <p>When none of the selected operations can run the next ones are selected, until the selection has
+	 * wrapped around to where it started. Only then is an empty list returned. Every selection is committed
+	 * separately, so that the locks on operations that could not run are released immediately.</p>
 	 */
-	private Runnable findBestTask() throws Exception {
+	List<PendingOperationTask> claimTasks(int limit) throws Exception {
 		Connection dbc = m_ds.getConnection();
-		PreparedStatement ps = null;
-		ResultSet rs = null;
-		//		long ts	= System.nanoTime();
 		try {
-			Date now = new Date();
 			dbc.setAutoCommit(false); // Make very certain stuff's not commited.
-			ps = dbc.prepareStatement("select " + PendingOperation.FIELDS + " from sys_pending_operations" + " where spo_executing_server is null" // Only if not already executing
-				+ " and (spo_must_execute_on_server is null or spo_must_execute_on_server=?)" // Free or for this server
-				+ " and spo_state='RTRY'" // Not failed
-				+ " and (spo_date_next_try is null or spo_date_next_try <= ?)" // Time to try next has been exceeded
-				+ " order by spo_id" + " for update" // FORCE LOCK while scanning/editing
-			);
-			ps.setString(1, m_serverID);
-			ps.setTimestamp(2, new Timestamp(now.getTime()));
-			rs = ps.executeQuery();
-			List<PendingOperation> ack = new ArrayList<PendingOperation>();
-			while(rs.next()) {
-				PendingOperation po = new PendingOperation();
-				po.initFromRS(rs); // Get all fields.
-				ack.add(po);
-			}
-			rs.close();
-			//			System.out.println("potp: pending task scan resulted in "+ack.size()+" pending operations to consider");
-
-			//-- FIXME Integrate the code below with the select instead of reading everything in memory.
-			//-- Find the first BEST task to execute, starting at the "last index",
-			int todo = ack.size();
-			List<PendingOperation> resultlist = null;
+			long startId = m_lastSelectedId;
+			boolean wrapped = startId == 0;						// When starting at the beginning the end is the end
 			for(;;) {
-				if(todo-- <= 0) {
-					//-- Could not allocate job- exit and try again in x minutes.
-					synchronized(this) {
-						m_tsNextCheck = System.currentTimeMillis() + 1 * 60 * 1000; // Every 5 minutes if queue is empty
-					}
+				List<PendingOperation> candidates = selectRunnable(dbc, m_lastSelectedId, limit);
+				if(candidates.isEmpty()) {
 					dbc.commit();
-					return null;
-				}
-				m_lastSelectedIndex++;
-				if(m_lastSelectedIndex >= ack.size())
-					m_lastSelectedIndex = 0;
-				PendingOperation po = ack.get(m_lastSelectedIndex);
-				if(po.getOrderGroup() == null) { // Not a group-> always claimable
-					resultlist = new ArrayList<PendingOperation>();
-					resultlist.add(po);
-					break;
-				}
-
-				//-- Load all other members in the group, and check if they are runnable/complete
-				List<PendingOperation> grouplist = loadGroup(dbc, po);
-				if(grouplist != null && grouplist.size() > 0) {
-					resultlist = grouplist;
-					break;
+					m_lastSelectedId = 0;						// Wrap around
+					if(wrapped)
+						return Collections.emptyList();
+					wrapped = true;
+					continue;
 				}
-
-				//-- Thingy is invalid- continue.
+				m_lastSelectedId = candidates.get(candidates.size() - 1).getId();
+
+				List<PendingOperationTask> res = claimCandidates(dbc, candidates);
+				dbc.commit();
+				if(!res.isEmpty())
+					return res;
+				if(wrapped && startId != 0 && m_lastSelectedId >= startId)
+					return Collections.emptyList();							// Back where we started: nothing can run
 			}
-
-			//-- We have a thing to run. Mark it and all other members of the group as EXECUTING, then return it;
-			markTasksExecuting(dbc, resultlist); // Mark all of these as EXECUTING,
-			dbc.commit();
-
-			//-- Return a grouplist runnable for this thing.
-			return new PendingOperationTask(this, resultlist);
 		} finally {
-			try {
-				if(ps != null)
-					ps.close();
-			} catch(Exception x) {}
-			try {
-				if(rs != null)
-					rs.close();
-			} catch(Exception x) {}
 			try {
 				dbc.rollback();
 			} catch(Exception x) {}
 			try {
-				if(dbc != null)
-					dbc.close();
+				dbc.close();
 			} catch(Exception x) {}
-			//			ts	= System.nanoTime() - ts;
-			//			System.out.println("PendingOperationProvider: scan took "+StringTool.strNanoTime(ts));
+		}
+	}
+
+	/**
+	 * Load the groups of all candidates, and claim every group that can run as a single task.
+	 */
+	@Nonnull
+	private List<PendingOperationTask> claimCandidates(@Nonnull Connection dbc, @Nonnull List<PendingOperation> candidates) throws Exception {
+		Map<String, List<PendingOperation>> groupMap = loadGroups(dbc, candidates);
+		List<PendingOperationTask> res = new ArrayList<PendingOperationTask>();
+		for(PendingOperation po : candidates) {
+			List<PendingOperation> resultlist;
+			String group = po.getOrderGroup();
+			if(group == null) {								// Not a group-> always claimable
+				resultlist = new ArrayList<PendingOperation>();
+				resultlist.add(po);
+			} else {
+				List<PendingOperation> grouplist = groupMap.remove(group);
+				if(grouplist == null)						// Group already handled
+					continue;
+				resultlist = checkGroup(dbc, grouplist);
+				if(resultlist == null)						// Group cannot run now
+					continue;
+			}
+
+			//-- We have a thing to run. Mark it and all other members of the group as EXECUTING
+			markTasksExecuting(dbc, resultlist);
+			res.add(new PendingOperationTask(this, resultlist));
+		}
+		return res;
+	}
+
+	/**
+	 * Select and lock up to limit runnable operations with an id after the specified one.
+	 */
+	@Nonnull
+	private List<PendingOperation> selectRunnable(@Nonnull Connection dbc, long afterId, int limit) throws SQLException {
+		String sql = GenericDB.getSkipLockedSelect(dbc, "select " + PendingOperation.FIELDS + " from sys_pending_operations" + " where spo_executing_server is null" // Only if not already executing
+			+ " and (spo_must_execute_on_server is null or spo_must_execute_on_server=?)" // Free or for this server
+			+ " and spo_state='RTRY'" // Not failed
+			+ " and (spo_date_next_try is null or spo_date_next_try <= ?)" // Time to try next has been exceeded
+			+ " and spo_id > ?" // Continue after the last one claimed
+			, "spo_id", limit);
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			ps = dbc.prepareStatement(sql);
+			ps.setString(1, m_serverID);
+			ps.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+			ps.setLong(3, afterId);
+			ps.setFetchSize(limit);
+			rs = ps.executeQuery();
+			List<PendingOperation> res = new ArrayList<PendingOperation>();
+			while(res.size() < limit && rs.next()) {
+				PendingOperation po = new PendingOperation();
+				po.initFromRS(rs); // Get all fields.
+				res.add(po);
+			}
+			return res;
+		} finally {
+			FileTool.closeAll(rs, ps);
 		}
 	}
 
@@ -344,80 +416,109 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 	}
 
 	/**
-	 * Loads a group, and checks to see if it's executable. This is the case if all members of the group
-	 * can be executed or are retryable, and if the first group member to execute has met it's contained time.
-	 *
-	 * @param dbc
-	 * @param inpo
-	 * @return The list, of which the 1st member is valid, or null if the group cannot run.
-	 * @throws SQLException
+	 * Loads and locks all members of the groups of the operations passed, with a single query. Returns the members
+	 * of each group in execution order.
 	 */
-	@Nullable
-	private List<PendingOperation> loadGroup(final Connection dbc, final PendingOperation inpo) throws SQLException {
+	@Nonnull
+	private Map<String, List<PendingOperation>> loadGroups(@Nonnull Connection dbc, @Nonnull List<PendingOperation> candidates) throws SQLException {
+		Set<String> groups = new LinkedHashSet<String>();
+		for(PendingOperation po : candidates) {
+			if(po.getOrderGroup() != null)
+				groups.add(po.getOrderGroup());
+		}
+		Map<String, List<PendingOperation>> res = new HashMap<String, List<PendingOperation>>();
+		if(groups.isEmpty())
+			return res;
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("select ").append(PendingOperation.FIELDS).append(" from sys_pending_operations where spo_order_groupname in (");
+		for(int i = 0; i < groups.size(); i++)
+			sb.append(i == 0 ? "?" : ",?");
+		sb.append(") and spo_state in ('RTRY','EXEC','FATL','BOOT') for update");
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 		try {
-			ps = dbc.prepareStatement("select " + PendingOperation.FIELDS + " from sys_pending_operations" + " where spo_order_groupname=?" // defines group
-				+ " and spo_state in ('RTRY','EXEC','FATL','BOOT') " //
-				+ " order by spo_order_timestamp, spo_order_sub" // defines order
-				+ " for update");
-
-			ps.setString(1, inpo.getOrderGroup());
+			ps = dbc.prepareStatement(sb.toString());
+			int ix = 1;
+			for(String group : groups)
+				ps.setString(ix++, group);
 			rs = ps.executeQuery();
-			List<PendingOperation> res = new ArrayList<PendingOperation>();
 			while(rs.next()) {
 				PendingOperation po = new PendingOperation();
 				po.initFromRS(rs);
-				res.add(po);
+				List<PendingOperation> list = res.get(po.getOrderGroup());
+				if(list == null) {
+					list = new ArrayList<PendingOperation>();
+					res.put(po.getOrderGroup(), list);
+				}
+				list.add(po);
 			}
+		} finally {
+			FileTool.closeAll(rs, ps);
+		}
 
-			/*
-			 * Loop through all members, and
-			 */
-			//-- The first member in this list must be executable at this time, or the group is invalid.
-			for(;;) {
-				if(res.size() == 0)
-					return null;
-				PendingOperation op = res.get(0);
-				if(op.getState() == PendingOperationState.EXEC)				// If already executing somewhere else-> exit.
-					return null;
+		//-- Sort every group in execution order; not in the query because not all databases allow order by with for update.
+		for(List<PendingOperation> list : res.values())
+			Collections.sort(list, GROUP_ORDER);
+		return res;
+	}
 
-				if(op.getState() == PendingOperationState.BOOT || op.getState() == PendingOperationState.FATL) {
-					/*
-					 * These types can hold up the whole group, so make sure that this is what's needed by asking the provider...
-					 */
-					IPendingOperationExecutor pox = findExecutor(op);
-					if(null == pox)											// We should find one, but do not abort at this level
-						return null;
-					if(!(pox instanceof IPendingOperationExecutor2))		// No way to know if skipping the failed one is allowed?
-						return null;
-					IPendingOperationExecutor2 px2 = (IPendingOperationExecutor2) pox;
-					if(!px2.isSkipFailedAllowed(op))						// We're not allowed to run this group -> skip it.
-						return null;
-
-					//-- We may skip this member and continue. To prevent reloading this same member over and over again delete it now.
-					op.delete(dbc);											// Delete this (will be committed by mainloop)
-					res.remove(0);											// Remove it from the list and retry all of this with the next member in the group
-					continue;
-				}
-				if(op.getMustExecuteOnServerID() != null && !op.getMustExecuteOnServerID().equals(m_serverID))
+	static private final Comparator<PendingOperation> GROUP_ORDER = new Comparator<PendingOperation>() {
+		@Override
+		public int compare(PendingOperation a, PendingOperation b) {
+			long ta = a.getOrderTime() == null ? 0 : a.getOrderTime().getTime();
+			long tb = b.getOrderTime() == null ? 0 : b.getOrderTime().getTime();
+			if(ta != tb)
+				return ta < tb ? -1 : 1;
+			return Integer.compare(a.getOrderIndex(), b.getOrderIndex());
+		}
+	};
+
+	/**
+	 * Checks whether a loaded group is executable. This is the case if all members of the group
+	 * can be executed or are retryable, and if the first group member to execute has met it's contained time.
+	 *
+	 * @param dbc
+	 * @param res	the members of the group, in execution order.
+	 * @return The list, of which the 1st member is valid, or null if the group cannot run.
+	 * @throws SQLException
+	 */
+	@Nullable
+	private List<PendingOperation> checkGroup(@Nonnull final Connection dbc, @Nonnull final List<PendingOperation> res) throws SQLException {
+		//-- The first member in this list must be executable at this time, or the group is invalid.
+		for(;;) {
+			if(res.size() == 0)
+				return null;
+			PendingOperation op = res.get(0);
+			if(op.getState() == PendingOperationState.EXEC)				// If already executing somewhere else-> exit.
+				return null;
+
+			if(op.getState() == PendingOperationState.BOOT || op.getState() == PendingOperationState.FATL) {
+				/*
+				 * These types can hold up the whole group, so make sure that this is what's needed by asking the provider...
+				 */
+				IPendingOperationExecutor pox = findExecutor(op);
+				if(null == pox)											// We should find one, but do not abort at this level
 					return null;
-				if(op.getExecutesOnServerID() != null)
+				if(!(pox instanceof IPendingOperationExecutor2))		// No way to know if skipping the failed one is allowed?
 					return null;
-				if(op.getNextTryTime() != null && op.getNextTryTime().getTime() < new Date().getTime())
+				IPendingOperationExecutor2 px2 = (IPendingOperationExecutor2) pox;
+				if(!px2.isSkipFailedAllowed(op))						// We're not allowed to run this group -> skip it.
 					return null;
 
-				return res;
+				//-- We may skip this member and continue. To prevent reloading this same member over and over again delete it now.
+				op.delete(dbc);											// Delete this (will be committed by mainloop)
+				res.remove(0);											// Remove it from the list and retry all of this with the next member in the group
+				continue;
 			}
-		} finally {
-			try {
-				if(rs != null)
-					rs.close();
-			} catch(Exception x) {}
-			try {
-				if(ps != null)
-					ps.close();
-			} catch(Exception x) {}
+			if(op.getMustExecuteOnServerID() != null && !op.getMustExecuteOnServerID().equals(m_serverID))
+				return null;
+			if(op.getExecutesOnServerID() != null)
+				return null;
+			if(op.getNextTryTime() != null && op.getNextTryTime().getTime() > new Date().getTime())
+				return null;
+
+			return res;
 		}
 	}
 
@@ -481,8 +582,8 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 
 			synchronized(this) {
 				m_tsNextCheck = 0;
-				notify();
 			}
+			wakeWorker();
 		} finally {
 			try {
 				if(dbc != null)
@@ -509,8 +610,8 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 			dbc.commit();
 			synchronized(this) {
 				m_tsNextCheck = 0;
-				notify();
 			}
+			wakeWorker();
 		} finally {
 			try {
 				if(dbc != null)
@@ -0,0 +1,120 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.webapp.pendingoperations;
+
+import javax.annotation.*;
+
+/**
+ * Snapshot of the tasks a single provider handed to the {@link PollingWorkerQueue}. The latency of a
+ * task is the time between its provider signalling work through {@link PollingWorkerQueue#checkProvider(IPollQueueTaskProvider)}
+ * and the task starting; it is only known for tasks that were signalled.
+ *
+ * Created on Oct 18, 2026
+ */
+final public class PollQueueProviderStats {
+	@Nonnull
+	private final IPollQueueTaskProvider m_provider;
+
+	private final long m_tasks;
+
+	private final long m_failures;
+
+	private final long m_runNanos;
+
+	private final long m_maxRunNanos;
+
+	private final long m_signalledTasks;
+
+	private final long m_latencyNanos;
+
+	private final long m_maxLatencyNanos;
+
+	private final int m_queueDepth;
+
+	PollQueueProviderStats(@Nonnull IPollQueueTaskProvider provider, long tasks, long failures, long runNanos, long maxRunNanos, long signalledTasks, long latencyNanos, long maxLatencyNanos, int queueDepth) {
+		m_provider = provider;
+		m_tasks = tasks;
+		m_failures = failures;
+		m_runNanos = runNanos;
+		m_maxRunNanos = maxRunNanos;
+		m_signalledTasks = signalledTasks;
+		m_latencyNanos = latencyNanos;
+		m_maxLatencyNanos = maxLatencyNanos;
+		m_queueDepth = queueDepth;
+	}
+
+	@Nonnull
+	public IPollQueueTaskProvider getProvider() {
+		return m_provider;
+	}
+
+	/** The #of tasks completed, including failed ones. */
+	public long getTasks() {
+		return m_tasks;
+	}
+
+	/** The #of tasks that threw an exception. */
+	public long getFailures() {
+		return m_failures;
+	}
+
+	public long getRunNanos() {
+		return m_runNanos;
+	}
+
+	public long getMaxRunNanos() {
+		return m_maxRunNanos;
+	}
+
+	public long getAverageRunNanos() {
+		return m_tasks == 0 ? 0 : m_runNanos / m_tasks;
+	}
+
+	/** The #of tasks whose latency is known. */
+	public long getSignalledTasks() {
+		return m_signalledTasks;
+	}
+
+	public long getLatencyNanos() {
+		return m_latencyNanos;
+	}
+
+	public long getMaxLatencyNanos() {
+		return m_maxLatencyNanos;
+	}
+
+	public long getAverageLatencyNanos() {
+		return m_signalledTasks == 0 ? 0 : m_latencyNanos / m_signalledTasks;
+	}
+
+	public int getQueueDepth() {
+		return m_queueDepth;
+	}
+
+	@Override
+	public String toString() {
+		return m_provider + ": " + m_tasks + " tasks, " + m_failures + " failed, avg run " + getAverageRunNanos() / 1000 + "us, avg latency " + getAverageLatencyNanos() / 1000 + "us, queued " + m_queueDepth;
+	}
+}
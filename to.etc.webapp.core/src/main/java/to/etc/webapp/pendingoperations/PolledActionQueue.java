@@ -44,12 +44,12 @@ public class PolledActionQueue implements IPollQueueTaskProvider {
 	 * @param run
 	 */
 	public void schedule(Runnable run) {
-		synchronized(m_executor) {
+		synchronized(this) {
 			if(m_queue.size() > 1000)
 				throw new IllegalStateException("FATAL: The background execution queue is FULL (more than 1000 waiting jobs)");
 			m_queue.add(run);
-			m_executor.checkProvider(this);
 		}
+		m_executor.checkProvider(this);
 	}
 
 	@Override
@@ -59,7 +59,19 @@ public class PolledActionQueue implements IPollQueueTaskProvider {
 
 	@Override
 	public Runnable getRunnableTask() throws Exception {
-		// TODO Auto-generated method stub
-		return null;
+		Runnable run;
+		boolean more;
+		synchronized(this) {
+			run = m_queue.poll();
+			more = !m_queue.isEmpty();
+		}
+		if(more)
+			m_executor.checkProvider(this);				// Let another worker take the next one
+		return run;
+	}
+
+	@Override
+	public synchronized int getQueueDepth() {
+		return m_queue.size();
 	}
 }
@@ -25,29 +25,49 @@
 package to.etc.webapp.pendingoperations;
 
 import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
 
 /**
  * Generic Executor which polls for jobs to execute. Providers for jobs can be easily registered.
  *
+ * <p>Worker threads are taken from a thread pool. Each worker asks the providers for a task in turn,
+ * and when none of them has one it waits until a provider signals work through {@link #checkProvider(IPollQueueTaskProvider)}
+ * or until it is time to poll again. Signalled providers are asked first. When all workers are busy and
+ * a task is found, or when a provider signals while no worker is waiting, another worker is started,
+ * up to the max #of threads; workers above the minimum stop after being idle for a while.</p>
+ *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Mar 4, 2009
  */
-public class PollingWorkerQueue {
+public class PollingWorkerQueue implements IPollQueueMetrics {
 	static private PollingWorkerQueue m_instance = new PollingWorkerQueue();
 
 	private boolean m_initialized;
 
 	private boolean m_terminating;
 
+	/** The #of workers started and not yet stopped. */
 	private int m_runningThreads;
 
+	/** The #of workers waiting for a signal or the next poll. */
+	private int m_idleThreads;
+
 	private int m_threadsExecutingTasks;
 
 	private int m_minThreads = 5;
 
 	private int m_maxThreads;
 
-	private final List<IPollQueueTaskProvider> m_providerList = new ArrayList<IPollQueueTaskProvider>();
+	private long m_idleTimeout = 60 * 1000;
+
+	private final List<ProviderState> m_providerList = new ArrayList<ProviderState>();
+
+	private final Map<IPollQueueTaskProvider, ProviderState> m_providerMap = new IdentityHashMap<IPollQueueTaskProvider, ProviderState>();
+
+	/** Providers that signalled work and were not asked yet, in signal order. */
+	private final Deque<ProviderState> m_signalledList = new ArrayDeque<ProviderState>();
 
 	private int m_nextProviderIndex;
 
@@ -57,12 +77,89 @@ public class PollingWorkerQueue {
 
 	private final long m_checkInterval = 10 * 1000;
 
+	private ThreadPoolExecutor m_executor;
+
+	@Nonnull
 	private final PolledActionQueue m_actionQueue = new PolledActionQueue();
 
+	/**
+	 * A registered provider with its signal state and statistics. The statistics are guarded by the state itself, the
+	 * signal state by the queue.
+	 */
+	static private final class ProviderState {
+		@Nonnull
+		final IPollQueueTaskProvider m_provider;
+
+		/** When signalled: the nanotime of the first signal since it was last asked; 0 otherwise. */
+		long m_tsSignalled;
+
+		private long m_tasks;
+
+		private long m_failures;
+
+		private long m_runNanos;
+
+		private long m_maxRunNanos;
+
+		private long m_signalledTasks;
+
+		private long m_latencyNanos;
+
+		private long m_maxLatencyNanos;
+
+		ProviderState(@Nonnull IPollQueueTaskProvider provider) {
+			m_provider = provider;
+		}
+
+		synchronized void taskStarted(long latencyNanos) {
+			m_signalledTasks++;
+			m_latencyNanos += latencyNanos;
+			if(latencyNanos > m_maxLatencyNanos)
+				m_maxLatencyNanos = latencyNanos;
+		}
+
+		synchronized void taskCompleted(long runNanos, boolean failed) {
+			m_tasks++;
+			if(failed)
+				m_failures++;
+			m_runNanos += runNanos;
+			if(runNanos > m_maxRunNanos)
+				m_maxRunNanos = runNanos;
+		}
+
+		@Nonnull
+		synchronized PollQueueProviderStats getStats(int queueDepth) {
+			return new PollQueueProviderStats(m_provider, m_tasks, m_failures, m_runNanos, m_maxRunNanos, m_signalledTasks, m_latencyNanos, m_maxLatencyNanos, queueDepth);
+		}
+	}
+
+	private PollingWorkerQueue() {}
+
+	/**
+	 * For tests; the application uses the singleton.
+	 */
+	PollingWorkerQueue(int minThreads, int maxThreads, long idleTimeout) {
+		m_minThreads = minThreads;
+		m_maxThreads = maxThreads;
+		m_idleTimeout = idleTimeout;
+	}
+
 	static public void initialize() throws Exception {
 		m_instance.init();
 	}
 
+	/**
+	 * Initialize with the specified #of threads. Threads above minThreads stop when they have been idle for idleTimeout milliseconds.
+	 */
+	static public void initialize(int minThreads, int maxThreads, long idleTimeout) throws Exception {
+		synchronized(m_instance) {
+			m_instance.m_minThreads = minThreads;
+			m_instance.m_maxThreads = maxThreads;
+			m_instance.m_idleTimeout = idleTimeout;
+		}
+		m_instance.init();
+	}
+
 	static public PollingWorkerQueue getInstance() {
 		m_instance.checkInit();
 		return m_instance;
@@ -77,39 +174,57 @@ public class PollingWorkerQueue {
 	 * Initialize: run minThread threads.
 	 * @throws Exception
 	 */
-	private synchronized void init() throws Exception {
+	synchronized void init() throws Exception {
 		if(m_minThreads <= 0)
 			m_minThreads = 2;
 		if(m_maxThreads < m_minThreads)
 			m_maxThreads = m_minThreads + 5;
+		if(m_idleTimeout < 1000)
+			m_idleTimeout = 1000;
+		m_executor = new ThreadPoolExecutor(0, m_maxThreads, m_idleTimeout, TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r);
+				t.setDaemon(true);
+				t.setPriority(Thread.NORM_PRIORITY);
+				t.setName("PollExecutor");
+				return t;
+			}
+		});
 		for(int i = 0; i < m_minThreads; i++)
 			startThread();
 		m_initialized = true;
 		registerProvider(m_actionQueue);
 	}
 
+	/**
+	 * Start another worker. Must be called with this locked.
+	 */
 	private void startThread() {
-		Thread t = new Thread(new Runnable() {
-			@Override
-			public void run() {
-				handlerThreadMain();
-			}
-		});
-		t.setDaemon(true);
-		t.setPriority(Thread.NORM_PRIORITY);
-		t.setName("PollExecutor");
-		t.start();
+		m_runningThreads++;
+		try {
+			m_executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					handlerThreadMain();
+				}
+			});
+		} catch(RejectedExecutionException x) {
+			m_runningThreads--;					// Pool is full or shut down; the running workers will have to do.
+		}
 	}
 
 	/**
 	 * Register another provider to get tasks from.
 	 * @param provider
 	 */
-	public void registerProvider(final IPollQueueTaskProvider provider) {
+	public void registerProvider(@Nonnull final IPollQueueTaskProvider provider) {
 		synchronized(this) {
-			if(m_providerList.contains(provider))
+			if(m_providerMap.containsKey(provider))
 				throw new IllegalStateException("Duplicate registration of provider=" + provider);
-			m_providerList.add(provider);
+			ProviderState ps = new ProviderState(provider);
+			m_providerList.add(ps);
+			m_providerMap.put(provider, ps);
 			notifyAll();
 
 			try {
@@ -121,17 +236,40 @@ public class PollingWorkerQueue {
 		}
 	}
 
+	/**
+	 * Called by a provider that has work: it will be asked for a task by the next free worker. If no worker
+	 * is free another one is started when the max #of threads allows.
+	 */
 	public synchronized void checkProvider(final IPollQueueTaskProvider provider) {
-		if(m_runningThreads == 0 || m_terminating)
+		if(!m_initialized)
 			throw new IllegalStateException("The PollingExecutor service is NOT RUNNING");
-		notify();
+		if(m_terminating)
+			return;
+		ProviderState ps = m_providerMap.get(provider);
+		if(null == ps) {
+			notify();
+			return;
+		}
+		if(ps.m_tsSignalled == 0) {
+			ps.m_tsSignalled = System.nanoTime();
+			m_signalledList.add(ps);
+		}
+		if(m_idleThreads > 0)
+			notify();
+		else if(m_threadsExecutingTasks >= m_runningThreads && m_runningThreads < m_maxThreads)
+			startThread();
 	}
 
-	public synchronized void terminate() {
-		if(m_initialized && !m_terminating) {
+	public void terminate() {
+		ThreadPoolExecutor executor;
+		synchronized(this) {
+			if(!m_initialized || m_terminating)
+				return;
 			m_terminating = true;
 			notifyAll();
+			executor = m_executor;
 		}
+		executor.shutdown();
 	}
 
 	public void addWork(final Runnable run) {
@@ -146,33 +284,66 @@ public class PollingWorkerQueue {
 		return m_tsLastCheck;
 	}
 
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Metrics.											*/
+	/*--------------------------------------------------------------*/
+
+	@Override
 	public synchronized int getRunningThreads() {
 		return m_runningThreads;
 	}
 
+	@Override
+	public synchronized int getBusyThreads() {
+		return m_threadsExecutingTasks;
+	}
+
+	@Override
+	public synchronized int getIdleThreads() {
+		return m_idleThreads;
+	}
+
+	@Override
+	public int getQueueDepth() {
+		int depth = 0;
+		for(PollQueueProviderStats ps : getProviderStats())
+			depth += ps.getQueueDepth();
+		return depth;
+	}
+
+	@Override
+	@Nonnull
+	public List<PollQueueProviderStats> getProviderStats() {
+		List<ProviderState> list;
+		synchronized(this) {
+			list = new ArrayList<ProviderState>(m_providerList);
+		}
+		List<PollQueueProviderStats> res = new ArrayList<PollQueueProviderStats>(list.size());
+		for(ProviderState ps : list)
+			res.add(ps.getStats(ps.m_provider.getQueueDepth()));
+		return res;
+	}
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Worker thread code.									*/
 	/*--------------------------------------------------------------*/
 	/**
 	 * The handler for each worker thread. Each thread is fully equal to each other thread. A worker is
-	 * either obtaining work (by polling each provider or waiting till it's time to poll again), or is
-	 * executing work obtained earlier.
+	 * either obtaining work (by asking signalled providers, polling each provider or waiting till it's
+	 * time to poll again), or is executing work obtained earlier.
 	 */
 	void handlerThreadMain() {
-		//-- Notice initialization.
-		synchronized(this) {
-			m_runningThreads++; // One more thread is running,
-		}
-
 		//-- Worker maincode; protected by finally to decrement #running threads.
 		Throwable error = null;
+		boolean counted = true;
 		try {
-			protectedMain();
+			counted = protectedMain();
 		} catch(Throwable t) {
 			error = t;
 		} finally {
 			synchronized(this) {
-				m_runningThreads--;
+				if(counted)
+					m_runningThreads--;
 				if(m_terminating)
 					error = null;
 			}
@@ -184,58 +355,79 @@ public class PollingWorkerQueue {
 		}
 	}
 
-	private void protectedMain() {
+	/**
+	 * Loops obtaining and executing tasks. Returns false if the worker stopped because it was idle; it then
+	 * has already been removed from the running count.
+	 */
+	private boolean protectedMain() {
 		int ntodo = -1;
+		long tsIdleSince = System.currentTimeMillis();
 		for(;;) {
 			long cts = System.currentTimeMillis();
 
 			//-- Select a provider to query for work, and handle blocking if all of them were queried.
-			IPollQueueTaskProvider provider;
+			ProviderState provider;
+			long signalled = 0;
 			synchronized(this) {
 				if(m_terminating) // Normal termination -> exit immediately
-					return;
-
-				//-- Am I running/starting in a "scanning all providers" loop?
-				if(ntodo == -1)
-					ntodo = m_providerList.size();
-				if(ntodo == 0) {
-					//-- Completed loop/no work to do. Sleep till it's time to check again,
-					try {
+					return true;
+
+				provider = m_signalledList.poll();
+				if(null != provider) {
+					//-- Signalled work goes first; scan all providers again after it.
+					signalled = provider.m_tsSignalled;
+					provider.m_tsSignalled = 0;
+					ntodo = -1;
+				} else {
+					//-- Am I running/starting in a "scanning all providers" loop?
+					if(ntodo == -1)
+						ntodo = m_providerList.size();
+					if(ntodo == 0) {
+						//-- Completed loop/no work to do. Stop if idle too long, else sleep till it's time to check again,
+						if(m_runningThreads > m_minThreads && cts - tsIdleSince >= m_idleTimeout) {
+							m_runningThreads--;
+							return false;
+						}
 						m_tsLastBlock = cts;
-						wait(m_checkInterval);
-					} catch(InterruptedException x) {}
+						m_idleThreads++;
+						try {
+							wait(Math.min(m_checkInterval, m_idleTimeout));
+						} catch(InterruptedException x) {
+						} finally {
+							m_idleThreads--;
+						}
+
+						//-- Woke up. Must be time for another scan, or a provider signalled.
+						ntodo = -1;
+						continue;
+					}
 
-					//-- Woke up. Must be time for another scan.
-					cts = System.currentTimeMillis();
+					//-- We need to check the next provider;
+					int pls = m_providerList.size();
+					if(m_nextProviderIndex >= pls)
+						m_nextProviderIndex = 0;
+					provider = m_providerList.get(m_nextProviderIndex++);
+					ntodo--;
 				}
-
-				//-- We need to check the next provider;
 				m_tsLastCheck = cts;
-				int pls = m_providerList.size();
-				if(pls == 0) {
-					ntodo = 0;
-					continue;
-				}
-				if(m_nextProviderIndex >= pls)
-					m_nextProviderIndex = 0;
-				provider = m_providerList.get(m_nextProviderIndex++);
 			}
 
 			//-- Outside of the main lock, ask the provider for work.
 			Runnable task = null;
 			try {
-				task = provider.getRunnableTask();
+				task = provider.m_provider.getRunnableTask();
 			} catch(Exception x) {
 				x.printStackTrace(); // Just dump && ignore
 			}
 
-			//-- If there's nothing to do - decrement the check count and loop further.
-			if(task == null) {
-				ntodo--;
+			//-- If there's nothing to do loop further.
+			if(task == null)
 				continue;
-			}
+			long ts = System.nanoTime();
+			if(signalled != 0)
+				provider.taskStarted(ts - signalled);
 
-			//-- We have one!! Execute it, and leave todo unaltered. If the #of executing tasks is >= the actual #of tasks try to add a new one;
+			//-- We have one!! Execute it. If all threads are now executing try to add a new one to keep polling;
 			synchronized(this) {
 				m_threadsExecutingTasks++;
 				if(m_threadsExecutingTasks >= m_runningThreads) { // All thingies are executing stuff?
@@ -244,14 +436,18 @@ public class PollingWorkerQueue {
 					}
 				}
 			}
+			boolean failed = false;
 			try {
 				task.run();
 			} catch(Exception x) {
+				failed = true;
 				x.printStackTrace(); // On failure just dump;
 			} finally {
+				provider.taskCompleted(System.nanoTime() - ts, failed);
 				synchronized(this) {
 					m_threadsExecutingTasks--;
 				}
+				tsIdleSince = System.currentTimeMillis();
 			}
 		}
 	}
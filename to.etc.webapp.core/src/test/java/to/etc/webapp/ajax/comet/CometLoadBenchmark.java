@@ -0,0 +1,177 @@
+package to.etc.webapp.ajax.comet;
+
+import java.lang.management.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.servlet.*;
+import javax.servlet.http.*;
+
+import to.etc.benchmark.*;
+
+/**
+ * Puts an increasing number of waiting clients on the {@link GenericCometServlet}, once blocking and once
+ * asynchronous, and reports the #of live threads while they all wait and the time needed to resume them all.
+ * The container is simulated: requests are proxies which implement the Servlet 3 async methods, and the
+ * "container pool" that renders async responses has 8 threads. In blocking mode every client needs its
+ * own request thread, as it would in a real container.
+ *
+ * <p>Run as a main program; the arguments are the client counts to try.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+public class CometLoadBenchmark {
+	/** The Servlet 3 request methods used by the async code. */
+	public interface AsyncRequest {
+		boolean isAsyncSupported();
+
+		AsyncContext startAsync(ServletRequest req, ServletResponse res);
+	}
+
+	/** The Servlet 3 AsyncContext methods used by the async code. */
+	public interface AsyncContext {
+		void setTimeout(long ms);
+
+		void start(Runnable r);
+
+		void complete();
+	}
+
+	/**
+	 * Waits until resumed by the benchmark.
+	 */
+	static public class WaitingContext implements CometContext {
+		@Override
+		public void begin(HttpServlet slet, HttpServletRequest req, Continuation cont) throws Exception {
+			cont.setTimeout(60 * 1000);
+			m_waiting.add(cont);
+		}
+
+		@Override
+		public void respond(HttpServletResponse resp, boolean timeout) throws Exception {
+			m_responded.incrementAndGet();
+		}
+	}
+
+	static final BlockingQueue<Continuation> m_waiting = new LinkedBlockingQueue<>();
+
+	static final AtomicInteger m_responded = new AtomicInteger();
+
+	static private final ExecutorService m_containerPool = Executors.newFixedThreadPool(8, r -> {
+		Thread t = new Thread(r, "container");
+		t.setDaemon(true);
+		return t;
+	});
+
+	public static void main(String[] args) throws Exception {
+		int[] counts = {100, 500, 2000};
+		if(args.length > 0) {
+			counts = new int[args.length];
+			for(int i = 0; i < args.length; i++)
+				counts[i] = Integer.parseInt(args[i]);
+		}
+		GenericCometServlet blocking = createServlet(false);
+		GenericCometServlet async = createServlet(true);
+		System.out.println("Idle threads: " + ManagementFactory.getThreadMXBean().getThreadCount());
+		Benchmark b = new Benchmark("%8s %8d %10d %12d", "mode", "clients", "threads", "resume ms");
+		int[] clients = counts;
+		b.measure(() -> {
+			for(int count : clients) {
+				run(b, "blocking", blocking, count, false);
+				run(b, "async", async, count, true);
+			}
+		});
+	}
+
+	static private void run(Benchmark b, String mode, GenericCometServlet slet, int count, boolean async) throws Exception {
+		m_waiting.clear();
+		m_responded.set(0);
+		List<Thread> threads = new ArrayList<>();
+		for(int i = 0; i < count; i++) {
+			HttpServletRequest req = createRequest(async);
+			HttpServletResponse res = proxy(HttpServletResponse.class);
+			if(async) {
+				slet.doGet(req, res);								// Returns immediately, like the container thread would
+			} else {
+				Thread t = new Thread(() -> {
+					try {
+						slet.doGet(req, res);
+					} catch(Exception x) {
+						x.printStackTrace();
+					}
+				}, "request");
+				t.setDaemon(true);
+				t.start();
+				threads.add(t);
+			}
+		}
+		while(m_waiting.size() < count)
+			Thread.sleep(10);
+		int threadCount = ManagementFactory.getThreadMXBean().getThreadCount();
+
+		long ts = System.nanoTime();
+		for(Continuation c : m_waiting)
+			c.resume();
+		while(m_responded.get() < count)
+			Thread.sleep(1);
+		long ms = (System.nanoTime() - ts) / 1000000;
+		for(Thread t : threads)
+			t.join();
+		b.row(mode, Integer.valueOf(count), Integer.valueOf(threadCount), Long.valueOf(ms));
+	}
+
+	static private GenericCometServlet createServlet(boolean async) throws Exception {
+		Map<String, String> par = new HashMap<>();
+		par.put("class", WaitingContext.class.getName());
+		par.put("async", Boolean.toString(async));
+		ServletConfig sc = (ServletConfig) Proxy.newProxyInstance(CometLoadBenchmark.class.getClassLoader(), new Class< ? >[]{ServletConfig.class}, (proxy, method, args) -> {
+			switch(method.getName()) {
+				case "getInitParameter":
+					return par.get(args[0]);
+				case "getServletName":
+					return "comet";
+			}
+			return null;
+		});
+		GenericCometServlet slet = new GenericCometServlet();
+		slet.init(sc);
+		return slet;
+	}
+
+	static private HttpServletRequest createRequest(boolean async) {
+		return (HttpServletRequest) Proxy.newProxyInstance(CometLoadBenchmark.class.getClassLoader(), new Class< ? >[]{HttpServletRequest.class, AsyncRequest.class}, (proxy, method, args) -> {
+			switch(method.getName()) {
+				case "isAsyncSupported":
+					return Boolean.valueOf(async);
+				case "startAsync":
+					return createAsyncContext();
+			}
+			return defaultValue(method);
+		});
+	}
+
+	static private AsyncContext createAsyncContext() {
+		return (AsyncContext) Proxy.newProxyInstance(CometLoadBenchmark.class.getClassLoader(), new Class< ? >[]{AsyncContext.class}, (proxy, method, args) -> {
+			if(method.getName().equals("start"))
+				m_containerPool.execute((Runnable) args[0]);
+			return null;
+		});
+	}
+
+	static private <T> T proxy(Class<T> clz) {
+		return clz.cast(Proxy.newProxyInstance(CometLoadBenchmark.class.getClassLoader(), new Class< ? >[]{clz}, (proxy, method, args) -> defaultValue(method)));
+	}
+
+	static private Object defaultValue(Method m) {
+		Class< ? > rt = m.getReturnType();
+		if(rt == boolean.class)
+			return Boolean.FALSE;
+		if(rt == int.class)
+			return Integer.valueOf(0);
+		if(rt == long.class)
+			return Long.valueOf(0);
+		return null;
+	}
+}
@@ -0,0 +1,30 @@
+package to.etc.webapp.ajax.comet;
+
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+/**
+ * Created on Oct 18, 2026
+ */
+public class TestTimeoutWheel {
+	@Test
+	public void testFiresAfterDelay() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		long ts = System.nanoTime();
+		TimeoutWheel.getInstance().schedule(300, latch::countDown);
+		Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+		long ms = (System.nanoTime() - ts) / 1000000;
+		Assert.assertTrue("Fired after " + ms + "ms", ms >= 300 && ms < 1000);
+	}
+
+	@Test
+	public void testCancelled() throws Exception {
+		CountDownLatch cancelled = new CountDownLatch(1);
+		CountDownLatch later = new CountDownLatch(1);
+		TimeoutWheel.getInstance().schedule(100, cancelled::countDown).cancel();
+		TimeoutWheel.getInstance().schedule(300, later::countDown);
+		Assert.assertTrue(later.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(1, cancelled.getCount());
+	}
+}
@@ -0,0 +1,181 @@
+package to.etc.webapp.eventmanager;
+
+import java.lang.reflect.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
+import org.junit.*;
+
+/**
+ * Runs two event managers on a shared {@link LoopbackEventTransport}, as a cluster of two servers.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestVpEventManager {
+	static public class TestEvent extends AppEventBase {
+	}
+
+	private VpEventManager m_a;
+
+	private VpEventManager m_b;
+
+	@Nonnull
+	private final Connection m_dbc = createConnection();
+
+	/**
+	 * A connection that does nothing; the loopback transport never uses it.
+	 */
+	@Nonnull
+	static private Connection createConnection() {
+		Connection dbc = (Connection) Proxy.newProxyInstance(TestVpEventManager.class.getClassLoader(), new Class< ? >[]{Connection.class}, (proxy, method, args) -> {
+			if(method.getReturnType() == boolean.class)
+				return Boolean.FALSE;
+			return null;
+		});
+		if(null == dbc)
+			throw new IllegalStateException("No proxy");
+		return dbc;
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		LoopbackEventTransport transport = new LoopbackEventTransport();
+		m_a = new VpEventManager(transport);
+		m_a.init();
+		m_a.startThread();
+		m_b = new VpEventManager(transport);
+		m_b.init();
+		m_b.startThread();
+	}
+
+	@After
+	public void tearDown() {
+		m_a.stop();
+		m_b.stop();
+	}
+
+	@Test
+	public void testDeliveredToOtherServer() throws Exception {
+		BlockingQueue<TestEvent> queue = new LinkedBlockingQueue<>();
+		m_b.addListener(TestEvent.class, ListenerType.DELAYED, queue::add);
+
+		long ts = System.nanoTime();
+		TestEvent ev = new TestEvent();
+		m_a.postEvent(m_dbc, ev);
+		TestEvent got = queue.poll(5, TimeUnit.SECONDS);
+		long ms = (System.nanoTime() - ts) / 1000000;
+		Assert.assertSame(ev, got);
+		Assert.assertTrue("Delivery took " + ms + "ms", ms < VpEventManager.MAX_POLLINTERVAL);
+	}
+
+	/**
+	 * Passes everything to another transport, but never signals new events, like the database transport.
+	 */
+	static private final class SilentTransport implements IEventTransport {
+		@Nonnull
+		private final IEventTransport m_transport;
+
+		SilentTransport(@Nonnull IEventTransport transport) {
+			m_transport = transport;
+		}
+
+		@Override
+		public long initialize(@Nonnull Runnable wakeup) throws Exception {
+			return m_transport.initialize(() -> {});
+		}
+
+		@Nonnull
+		@Override
+		public long[] allocateIds(@Nonnull Connection dbc, int count) throws Exception {
+			return m_transport.allocateIds(dbc, count);
+		}
+
+		@Override
+		public void store(@Nonnull Connection dbc, @Nonnull List< ? extends AppEventBase> events) throws Exception {
+			m_transport.store(dbc, events);
+		}
+
+		@Override
+		public long receive(@Nonnull IEventSink sink, long afterUpid) throws Exception {
+			return m_transport.receive(sink, afterUpid);
+		}
+
+		@Override
+		public void cleanup(long handledUpid) throws Exception {
+			m_transport.cleanup(handledUpid);
+		}
+	}
+
+	/**
+	 * A server that is not signalled sees an event of another server within the max poll interval, also after
+	 * it has been idle long enough to poll at its slowest.
+	 */
+	@Test
+	public void testIdleRemoteDeliveryWithinBound() throws Exception {
+		LoopbackEventTransport transport = new LoopbackEventTransport();
+		VpEventManager a = new VpEventManager(transport);
+		a.init();
+		VpEventManager b = new VpEventManager(new SilentTransport(transport));
+		b.init();
+		b.startThread();
+		try {
+			BlockingQueue<TestEvent> queue = new LinkedBlockingQueue<>();
+			b.addListener(TestEvent.class, ListenerType.DELAYED, queue::add);
+			Thread.sleep(3 * VpEventManager.MAX_POLLINTERVAL);
+
+			long ts = System.nanoTime();
+			TestEvent ev = new TestEvent();
+			a.postEvent(m_dbc, ev);
+			Assert.assertSame(ev, queue.poll(5, TimeUnit.SECONDS));
+			long ms = (System.nanoTime() - ts) / 1000000;
+			Assert.assertTrue("Delivery took " + ms + "ms", ms < VpEventManager.MAX_POLLINTERVAL + 250);
+		} finally {
+			b.stop();
+		}
+	}
+
+	@Test
+	public void testImmediateListenerCalledOnce() throws Exception {
+		List<TestEvent> list = new CopyOnWriteArrayList<>();
+		m_a.addListener(TestEvent.class, ListenerType.IMMEDIATELY, list::add);
+
+		TestEvent ev = new TestEvent();
+		m_a.postEvent(m_dbc, ev);
+		Assert.assertEquals(1, list.size());
+		m_a.waitUntilHandled(ev.getUpid());
+		Assert.assertEquals(1, list.size());
+	}
+
+	@Test
+	public void testBatchKeepsOrder() throws Exception {
+		BlockingQueue<TestEvent> queue = new LinkedBlockingQueue<>();
+		m_b.addListener(TestEvent.class, ListenerType.DELAYED, queue::add);
+
+		List<TestEvent> events = new ArrayList<>();
+		for(int i = 0; i < 3; i++)
+			events.add(new TestEvent());
+		m_a.postEvent(m_dbc, events);
+		for(int i = 0; i < events.size(); i++) {
+			TestEvent ev = events.get(i);
+			if(i > 0)
+				Assert.assertEquals(events.get(i - 1).getUpid() + 1, ev.getUpid());
+			Assert.assertSame(ev, queue.poll(5, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void testRemovedListenerNotCalled() throws Exception {
+		BlockingQueue<TestEvent> queue = new LinkedBlockingQueue<>();
+		AppEventListener<TestEvent> listener = queue::add;
+		m_b.addListener(TestEvent.class, ListenerType.DELAYED, listener);
+		m_b.removeListener(TestEvent.class, listener);
+
+		TestEvent ev = new TestEvent();
+		m_a.postEvent(m_dbc, ev);
+		m_b.waitUntilHandled(ev.getUpid());
+		Assert.assertTrue(queue.isEmpty());
+	}
+}
@@ -0,0 +1,118 @@
+package to.etc.webapp.pendingoperations;
+
+import java.sql.*;
+import java.util.*;
+
+import javax.sql.*;
+
+import to.etc.benchmark.*;
+import to.etc.dbpool.*;
+
+/**
+ * Measures how fast a set of servers can drain the pending operations table. Every thread acts as
+ * a separate server with its own provider, and claims batches of tasks until no more can be found;
+ * the claimed operations are deleted as if they ran. About a quarter of the operations are in order
+ * groups of 4. The throughput is reported for several claim sizes.
+ *
+ * <p>Run as a main program with the database's driver on the classpath. The arguments are the #of
+ * operations, the #of threads, and optionally the driver class, url, user and password. Without
+ * those an in-memory Derby database is used; Derby does not skip locked rows, so servers wait for
+ * each other there.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+public class PendingOperationClaimBenchmark {
+	static private final int[] CLAIMSIZE = {1, 8, 32};
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		ConnectionPool pool;
+		if(args.length > 2)
+			pool = PendingOperationTestDB.createPool("pobench", args[2], args[3], args[4], args[5], threads * 2);
+		else
+			pool = PendingOperationTestDB.createDerbyPool("pobench", threads * 2);
+		DataSource ds = pool.getPooledDataSource();
+		PendingOperationTestDB.createTable(ds);
+
+		System.out.println(count + " operations, " + threads + " servers");
+		Benchmark b = new Benchmark("%10d %10.0f %10d %10d %10d", "claimsize", "jobs/s", "claims", "empty", "conflicts");
+		b.measure(() -> {
+			for(int claimSize : CLAIMSIZE) {
+				try(Connection dbc = ds.getConnection(); Statement st = dbc.createStatement()) {
+					st.executeUpdate("delete from sys_pending_operations");
+					dbc.commit();
+				}
+				PendingOperationTestDB.fill(ds, count);
+				run(b, ds, threads, claimSize);
+			}
+		});
+		PoolManager.getInstance().destroyAll();
+	}
+
+	static private void run(Benchmark b, DataSource ds, int threads, int claimSize) throws Exception {
+		int[] claims = new int[threads];
+		int[] jobs = new int[threads];
+		int[] empty = new int[threads];
+		int[] conflicts = new int[threads];
+		PendingOperationTaskProvider[] providers = new PendingOperationTaskProvider[threads];
+		for(int i = 0; i < threads; i++)
+			providers[i] = new PendingOperationTaskProvider(ds, "server" + i);
+		long elapsed = Benchmark.runConcurrently(threads, ix -> {
+			for(;;) {
+				List<PendingOperationTask> tasks;
+				try {
+					tasks = providers[ix].claimTasks(claimSize);
+				} catch(SQLException x) {
+					//-- Another server changed a row we selected (databases that release locks early)
+					conflicts[ix]++;
+					continue;
+				}
+				claims[ix]++;
+				if(tasks.isEmpty()) {
+					//-- Only done when the table is empty: others may have had the remaining ones locked.
+					if(++empty[ix] > 3 && isEmpty(ds))
+						break;
+					continue;
+				}
+				jobs[ix] += complete(ds, tasks);
+			}
+		});
+
+		int totalJobs = 0, totalClaims = 0, totalEmpty = 0, totalConflicts = 0;
+		for(int i = 0; i < threads; i++) {
+			totalJobs += jobs[i];
+			totalClaims += claims[i];
+			totalEmpty += empty[i];
+			totalConflicts += conflicts[i];
+		}
+		b.row(Integer.valueOf(claimSize), Double.valueOf(totalJobs * 1e9 / elapsed), Integer.valueOf(totalClaims), Integer.valueOf(totalEmpty), Integer.valueOf(totalConflicts));
+	}
+
+	/**
+	 * "Execute" the tasks by deleting all of their operations.
+	 */
+	static private int complete(DataSource ds, List<PendingOperationTask> tasks) throws SQLException {
+		int n = 0;
+		try(Connection dbc = ds.getConnection(); PreparedStatement ps = dbc.prepareStatement("delete from sys_pending_operations where spo_id=?")) {
+			dbc.setAutoCommit(false);
+			for(PendingOperationTask task : tasks) {
+				for(PendingOperation po : task.getOperationList()) {
+					ps.setLong(1, po.getId());
+					ps.addBatch();
+					n++;
+				}
+			}
+			ps.executeBatch();
+			dbc.commit();
+		}
+		return n;
+	}
+
+	static private boolean isEmpty(DataSource ds) throws SQLException {
+		try(Connection dbc = ds.getConnection(); Statement st = dbc.createStatement(); ResultSet rs = st.executeQuery("select count(*) from sys_pending_operations")) {
+			rs.next();
+			return rs.getInt(1) == 0;
+		}
+	}
+}
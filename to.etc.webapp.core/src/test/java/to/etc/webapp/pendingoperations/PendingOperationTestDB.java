@@ -0,0 +1,109 @@
+package to.etc.webapp.pendingoperations;
+
+import java.io.*;
+import java.sql.*;
+
+import javax.annotation.*;
+import javax.sql.*;
+
+import to.etc.dbpool.*;
+
+/**
+ * Creates and fills a sys_pending_operations table, for the tests and the benchmark. The
+ * default database is an in-memory Derby database.
+ *
+ * Created on Oct 18, 2026
+ */
+final class PendingOperationTestDB {
+	static {
+		//-- Keep Derby from writing derby.log into the working directory.
+		new File("target").mkdirs();
+		System.setProperty("derby.stream.error.file", new File("target", "derby.log").getAbsolutePath());
+	}
+
+	/** The order time of all group members, so that they run in the order of their sub number. */
+	static private final Timestamp ORDER_TIME = new Timestamp(System.currentTimeMillis());
+
+	private PendingOperationTestDB() {}
+
+	/**
+	 * Define and initialize a pool on an in-memory Derby database.
+	 */
+	@Nonnull
+	static ConnectionPool createDerbyPool(@Nonnull String name, int maxConns) throws Exception {
+		return createPool(name, "org.apache.derby.jdbc.EmbeddedDriver", "jdbc:derby:memory:" + name + ";create=true", "test", "test", maxConns);
+	}
+
+	@Nonnull
+	static ConnectionPool createPool(@Nonnull String name, String driver, String url, String uid, String pw, int maxConns) throws Exception {
+		PoolConfig.Template t = new PoolConfig.Template();
+		t.setDriverClassName(driver);
+		t.setUrl(url);
+		t.setUid(uid);
+		t.setPw(pw);
+		t.setMinConns(1);
+		t.setMaxConns(maxConns);
+		t.setScanMode(ScanMode.DISABLED);
+		ConnectionPool pool = PoolManager.getInstance().definePool(name, new PoolConfig(t));
+		pool.initialize();
+		return pool;
+	}
+
+	/**
+	 * (Re)create an empty sys_pending_operations table.
+	 */
+	static void createTable(DataSource ds) throws SQLException {
+		try(Connection dbc = ds.getConnection(); Statement st = dbc.createStatement()) {
+			try {
+				st.executeUpdate("drop table sys_pending_operations");
+			} catch(SQLException x) {}
+			st.executeUpdate("create table sys_pending_operations(spo_id bigint not null primary key, spo_xident varchar(64), spo_issuing_server varchar(64)"
+				+ ", spo_date_created timestamp, spo_must_execute_on_server varchar(64), spo_executing_server varchar(64), spo_last_execute_started timestamp"
+				+ ", spo_last_execute_completed timestamp, spo_state varchar(4) not null, spo_retries integer, spo_date_next_try timestamp"
+				+ ", spo_order_groupname varchar(64), spo_order_timestamp timestamp, spo_order_sub integer, spo_type varchar(64), spo_arg1 varchar(250)"
+				+ ", spo_arg2 varchar(2000), spo_lasterror varchar(250), spo_errorlog varchar(2000), spo_userid varchar(64), spo_description varchar(250)"
+				+ ", spo_submitsource varchar(250), progress_path varchar(250), progress_percentage integer, spo_serialized blob)");
+			dbc.commit();
+		}
+	}
+
+	/**
+	 * Insert an operation. When group is not null the operation is member #sub of that group; when server is
+	 * not null the operation is executing on that server.
+	 */
+	static void insert(@Nonnull Connection dbc, long id, @Nonnull PendingOperationState state, @Nullable String group, int sub, @Nullable String server) throws SQLException {
+		try(PreparedStatement ps = dbc.prepareStatement("insert into sys_pending_operations(spo_id,spo_state,spo_retries,spo_date_created,spo_order_groupname,spo_order_timestamp"
+			+ ",spo_order_sub,spo_type,spo_executing_server) values(?,?,0,?,?,?,?,'test',?)")) {
+			Timestamp now = new Timestamp(System.currentTimeMillis());
+			ps.setLong(1, id);
+			ps.setString(2, state.name());
+			ps.setTimestamp(3, now);
+			if(group != null) {
+				ps.setString(4, group);
+				ps.setTimestamp(5, ORDER_TIME);
+			} else {
+				ps.setNull(4, Types.VARCHAR);
+				ps.setNull(5, Types.TIMESTAMP);
+			}
+			ps.setInt(6, sub);
+			ps.setString(7, server);
+			ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * Insert count operations with ids 1..count. About a quarter of them are in order groups of 4.
+	 */
+	static void fill(DataSource ds, int count) throws SQLException {
+		try(Connection dbc = ds.getConnection()) {
+			dbc.setAutoCommit(false);
+			for(int i = 0; i < count; i++) {
+				if(i % 16 < 4)
+					insert(dbc, i + 1, PendingOperationState.RTRY, "group" + (i / 16), i % 16, null);
+				else
+					insert(dbc, i + 1, PendingOperationState.RTRY, null, 0, null);
+			}
+			dbc.commit();
+		}
+	}
+}
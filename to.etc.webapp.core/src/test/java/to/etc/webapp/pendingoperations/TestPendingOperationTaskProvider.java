@@ -0,0 +1,195 @@
+package to.etc.webapp.pendingoperations;
+
+import java.sql.*;
+import java.util.*;
+
+import javax.annotation.*;
+import javax.sql.*;
+
+import org.junit.*;
+
+import to.etc.dbpool.*;
+
+/**
+ * Claims pending operations from an in-memory Derby database.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestPendingOperationTaskProvider {
+	static private final String SERVER = "me";
+
+	static private ConnectionPool m_pool;
+
+	private DataSource m_ds;
+
+	private PendingOperationTaskProvider m_provider;
+
+	@BeforeClass
+	static public void setUpClass() throws Exception {
+		m_pool = PendingOperationTestDB.createDerbyPool("potest", 4);
+	}
+
+	@AfterClass
+	static public void tearDownClass() throws Exception {
+		PoolManager.getInstance().destroyPool(m_pool.getID());
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		DataSource ds = m_pool.getPooledDataSource();
+		PendingOperationTestDB.createTable(ds);
+		m_ds = ds;
+		m_provider = new PendingOperationTaskProvider(ds, SERVER);
+	}
+
+	private void insert(long id, @Nonnull PendingOperationState state, @Nullable String group, int sub, @Nullable String server) throws SQLException {
+		try(Connection dbc = m_ds.getConnection()) {
+			dbc.setAutoCommit(false);
+			PendingOperationTestDB.insert(dbc, id, state, group, sub, server);
+			dbc.commit();
+		}
+	}
+
+	/**
+	 * Claim, and return the ids of the operations in every claimed task.
+	 */
+	@Nonnull
+	private List<List<Long>> claim(int limit) throws Exception {
+		List<List<Long>> res = new ArrayList<>();
+		for(PendingOperationTask task : m_provider.claimTasks(limit)) {
+			List<Long> ids = new ArrayList<>();
+			for(PendingOperation po : task.getOperationList())
+				ids.add(Long.valueOf(po.getId()));
+			res.add(ids);
+		}
+		return res;
+	}
+
+	@Nonnull
+	static private List<List<Long>> tasks(long... ids) {
+		List<List<Long>> res = new ArrayList<>();
+		for(long id : ids)
+			res.add(Collections.singletonList(Long.valueOf(id)));
+		return res;
+	}
+
+	/**
+	 * Return the executing server of the operation, or "-" when it is not executing.
+	 */
+	@Nonnull
+	private String executingOn(long id) throws SQLException {
+		try(Connection dbc = m_ds.getConnection(); PreparedStatement ps = dbc.prepareStatement("select spo_state, spo_executing_server from sys_pending_operations where spo_id=?")) {
+			ps.setLong(1, id);
+			try(ResultSet rs = ps.executeQuery()) {
+				Assert.assertTrue(rs.next());
+				String server = rs.getString(2);
+				if(!PendingOperationState.EXEC.name().equals(rs.getString(1)) || server == null)
+					return "-";
+				return server;
+			}
+		}
+	}
+
+	/**
+	 * Make the operation runnable again, as if it failed and is to be retried.
+	 */
+	private void release(long id) throws SQLException {
+		try(Connection dbc = m_ds.getConnection(); PreparedStatement ps = dbc.prepareStatement("update sys_pending_operations set spo_state='RTRY', spo_executing_server=null where spo_id=?")) {
+			dbc.setAutoCommit(false);
+			ps.setLong(1, id);
+			ps.executeUpdate();
+			dbc.commit();
+		}
+	}
+
+	/**
+	 * Every claim continues after the previous one, and claimed operations are marked as executing on this server.
+	 */
+	@Test
+	public void testClaimInBatches() throws Exception {
+		for(int i = 1; i <= 10; i++)
+			insert(i, PendingOperationState.RTRY, null, 0, null);
+		Assert.assertEquals(tasks(1, 2, 3, 4), claim(4));
+		Assert.assertEquals(tasks(5, 6, 7, 8), claim(4));
+		Assert.assertEquals(tasks(9, 10), claim(4));
+		Assert.assertEquals(tasks(), claim(4));
+		for(int i = 1; i <= 10; i++)
+			Assert.assertEquals(SERVER, executingOn(i));
+	}
+
+	/**
+	 * All members of a group are claimed as a single task, in group order, even when only some are selected.
+	 */
+	@Test
+	public void testGroupClaimedWhole() throws Exception {
+		insert(1, PendingOperationState.RTRY, "g", 2, null);
+		insert(2, PendingOperationState.RTRY, null, 0, null);
+		insert(3, PendingOperationState.RTRY, "g", 0, null);
+		insert(4, PendingOperationState.RTRY, "g", 1, null);
+		List<List<Long>> res = claim(2);
+		Assert.assertEquals(Arrays.asList(Arrays.asList(Long.valueOf(3), Long.valueOf(4), Long.valueOf(1)), Collections.singletonList(Long.valueOf(2))), res);
+		for(int i = 1; i <= 4; i++)
+			Assert.assertEquals(SERVER, executingOn(i));
+		Assert.assertEquals(tasks(), claim(2));
+	}
+
+	/**
+	 * A group whose first member executes elsewhere is blocked. When a whole window holds only blocked
+	 * operations the claim continues with the next window instead of giving up.
+	 */
+	@Test
+	public void testBlockedGroupIsSkipped() throws Exception {
+		insert(1, PendingOperationState.EXEC, "g", 0, "other");
+		for(int i = 2; i <= 5; i++)
+			insert(i, PendingOperationState.RTRY, "g", i, null);
+		insert(6, PendingOperationState.RTRY, null, 0, null);
+		Assert.assertEquals(tasks(6), claim(2));
+		for(int i = 2; i <= 5; i++)
+			Assert.assertEquals("-", executingOn(i));
+		Assert.assertEquals(tasks(), claim(2));
+
+		//-- When the first member is done the group can run.
+		try(Connection dbc = m_ds.getConnection(); Statement st = dbc.createStatement()) {
+			dbc.setAutoCommit(false);
+			st.executeUpdate("delete from sys_pending_operations where spo_id=1");
+			dbc.commit();
+		}
+		Assert.assertEquals(Collections.singletonList(Arrays.asList(Long.valueOf(2), Long.valueOf(3), Long.valueOf(4), Long.valueOf(5))), claim(2));
+	}
+
+	/**
+	 * After the last operation the selection starts at the beginning again.
+	 */
+	@Test
+	public void testWrapAround() throws Exception {
+		for(int i = 1; i <= 6; i++)
+			insert(i, PendingOperationState.RTRY, null, 0, null);
+		Assert.assertEquals(tasks(1, 2, 3, 4), claim(4));
+		release(2);
+		release(3);
+		Assert.assertEquals(tasks(5, 6), claim(4));
+		Assert.assertEquals(tasks(2, 3), claim(4));
+
+		//-- Wrapping while blocked windows are skipped, until back where the claim started
+		insert(7, PendingOperationState.EXEC, "g", 0, "other");
+		insert(8, PendingOperationState.RTRY, "g", 1, null);
+		insert(9, PendingOperationState.RTRY, "g", 2, null);
+		release(1);
+		Assert.assertEquals(tasks(1), claim(1));
+		Assert.assertEquals(tasks(), claim(1));
+	}
+
+	/**
+	 * When nothing can run the claim ends, wherever it started.
+	 */
+	@Test
+	public void testNothingRunnable() throws Exception {
+		Assert.assertEquals(tasks(), claim(4));
+		insert(1, PendingOperationState.EXEC, "g", 0, "other");
+		for(int i = 2; i <= 9; i++)
+			insert(i, PendingOperationState.RTRY, "g", i, null);
+		Assert.assertEquals(tasks(), claim(2));
+		Assert.assertEquals(tasks(), claim(3));
+		Assert.assertEquals(tasks(), claim(100));
+	}
+}
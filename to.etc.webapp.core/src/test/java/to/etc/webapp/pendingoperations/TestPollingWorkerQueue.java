@@ -0,0 +1,116 @@
+package to.etc.webapp.pendingoperations;
+
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+/**
+ * Created on Oct 18, 2026
+ */
+public class TestPollingWorkerQueue {
+	/**
+	 * Hands out the tasks put in its queue, and signals the worker queue when a task is added.
+	 */
+	static class QueueProvider implements IPollQueueTaskProvider {
+		private final BlockingQueue<Runnable> m_queue = new LinkedBlockingQueue<>();
+
+		private PollingWorkerQueue m_pwq;
+
+		@Override
+		public void initializeOnRegistration(PollingWorkerQueue pwq) throws Exception {
+			m_pwq = pwq;
+		}
+
+		@Override
+		public Runnable getRunnableTask() throws Exception {
+			return m_queue.poll();
+		}
+
+		@Override
+		public int getQueueDepth() {
+			return m_queue.size();
+		}
+
+		void add(Runnable r) {
+			m_queue.add(r);
+			m_pwq.checkProvider(this);
+		}
+	}
+
+	private PollingWorkerQueue m_pwq;
+
+	private QueueProvider m_provider;
+
+	@Before
+	public void setUp() throws Exception {
+		m_pwq = new PollingWorkerQueue(1, 4, 1000);
+		m_pwq.init();
+		m_provider = new QueueProvider();
+		m_pwq.registerProvider(m_provider);
+	}
+
+	@After
+	public void tearDown() {
+		m_pwq.terminate();
+	}
+
+	@Test
+	public void testAddWork() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		m_pwq.addWork(latch::countDown);
+		Assert.assertTrue("Work added was not run", latch.await(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * A signalled task must start without waiting for the next poll.
+	 */
+	@Test
+	public void testSignalledTaskStartsImmediately() throws Exception {
+		Thread.sleep(100);								// Let the worker go idle
+		CountDownLatch latch = new CountDownLatch(1);
+		long ts = System.nanoTime();
+		m_provider.add(latch::countDown);
+		Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+		long ms = (System.nanoTime() - ts) / 1000000;
+		Assert.assertTrue("Task started after " + ms + "ms", ms < 500);
+
+		PollQueueProviderStats stats = findStats();
+		Assert.assertEquals(1, stats.getSignalledTasks());
+	}
+
+	/**
+	 * Blocking tasks make the queue start threads up to the max; when idle it shrinks back to the minimum.
+	 */
+	@Test
+	public void testGrowAndShrink() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(4);
+		for(int i = 0; i < 6; i++) {
+			m_provider.add(() -> {
+				started.countDown();
+				try {
+					release.await();
+				} catch(InterruptedException x) {}
+			});
+		}
+		Assert.assertTrue("Not all threads started", started.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(4, m_pwq.getRunningThreads());
+		Assert.assertEquals(4, m_pwq.getBusyThreads());
+		Assert.assertEquals(2, m_pwq.getQueueDepth());
+
+		release.countDown();
+		long ets = System.currentTimeMillis() + 10000;
+		while(m_pwq.getRunningThreads() > 1 && System.currentTimeMillis() < ets)
+			Thread.sleep(100);
+		Assert.assertEquals(1, m_pwq.getRunningThreads());
+		Assert.assertEquals(6, findStats().getTasks());
+	}
+
+	private PollQueueProviderStats findStats() {
+		for(PollQueueProviderStats ps : m_pwq.getProviderStats()) {
+			if(ps.getProvider() == m_provider)
+				return ps;
+		}
+		throw new IllegalStateException("Provider not registered");
+	}
+}